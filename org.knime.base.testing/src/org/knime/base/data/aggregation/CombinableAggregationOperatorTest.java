@@ -0,0 +1,167 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+import org.knime.base.data.aggregation.general.ApproximateUniqueCountOperator;
+import org.knime.base.data.aggregation.general.ConcatenateOperator;
+import org.knime.base.data.aggregation.general.FirstOperator;
+import org.knime.base.data.aggregation.general.ListCellOperator;
+import org.knime.base.data.aggregation.general.ModeOperator;
+import org.knime.base.data.aggregation.numerical.ApproximateQuantileOperator;
+import org.knime.base.data.aggregation.numerical.MeanOperator;
+import org.knime.base.data.aggregation.numerical.SkewnessOperator;
+import org.knime.base.data.aggregation.numerical.SumOperator;
+import org.knime.base.data.aggregation.numerical.VarianceOperator;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+
+/**
+ * Tests that combining the partial results of {@link AggregationOperator#isCombinable() combinable} operators gives
+ * the same result as aggregating all rows with a single operator.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CombinableAggregationOperatorTest {
+
+    private static final DataColumnSpec COL_SPEC = new DataColumnSpecCreator("value", DoubleCell.TYPE).createSpec();
+
+    private static final GlobalSettings SETTINGS = GlobalSettings.builder().setMaxUniqueValues(10000)
+        .setDataTableSpec(new DataTableSpec(COL_SPEC)).build();
+
+    private static final OperatorColumnSettings COL_SETTINGS = new OperatorColumnSettings(false, COL_SPEC);
+
+    private static final DataCell[] VALUES = new DataCell[]{new DoubleCell(3), new DoubleCell(-1.5),
+        DataType.getMissingCell(), new DoubleCell(7), new DoubleCell(3), new DoubleCell(0.25), new DoubleCell(11),
+        DataType.getMissingCell(), new DoubleCell(3), new DoubleCell(-4)};
+
+    /** Operators whose results must not depend on how the rows are split. */
+    @Test
+    public void testCombineMatchesSequential() {
+        final AggregationOperator[] templates = new AggregationOperator[]{
+            new SumOperator(SETTINGS, COL_SETTINGS), new MeanOperator(SETTINGS, COL_SETTINGS),
+            new VarianceOperator(SETTINGS, COL_SETTINGS), new FirstOperator(SETTINGS, COL_SETTINGS),
+            new ListCellOperator(SETTINGS, COL_SETTINGS), new ModeOperator(SETTINGS, COL_SETTINGS),
+            new ConcatenateOperator(SETTINGS, COL_SETTINGS), new ApproximateQuantileOperator(SETTINGS, COL_SETTINGS),
+            new ApproximateUniqueCountOperator(SETTINGS, COL_SETTINGS)};
+        for (final AggregationOperator template : templates) {
+            assertTrue(template.getLabel() + " should be combinable", template.isCombinable());
+            final DataCell expected = aggregate(template, 0, VALUES.length).getResult();
+            for (int split = 0; split <= VALUES.length; split++) {
+                final AggregationOperator first = aggregate(template, 0, split);
+                first.combine(aggregate(template, split, VALUES.length));
+                assertResult(template.getLabel() + " split at " + split, expected, first.getResult());
+                assertThat(first.getMissingValuesCount(), is(2L));
+            }
+        }
+    }
+
+    /** Tests that the state written by an operator is restored by another one. */
+    @Test
+    public void testSaveAndLoadState() throws IOException {
+        final AggregationOperator[] templates = new AggregationOperator[]{
+            new VarianceOperator(SETTINGS, COL_SETTINGS), new ListCellOperator(SETTINGS, COL_SETTINGS),
+            new ModeOperator(SETTINGS, COL_SETTINGS), new ConcatenateOperator(SETTINGS, COL_SETTINGS),
+            new ApproximateQuantileOperator(SETTINGS, COL_SETTINGS),
+            new ApproximateUniqueCountOperator(SETTINGS, COL_SETTINGS)};
+        for (final AggregationOperator template : templates) {
+            final AggregationOperator operator = aggregate(template, 0, VALUES.length);
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                operator.saveState(out);
+                out.writeInt(42);
+            }
+            final AggregationOperator loaded = template.createInstance(SETTINGS, COL_SETTINGS);
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                loaded.loadState(in);
+                assertThat("Trailing data after state of " + template.getLabel(), in.readInt(), is(42));
+            }
+            assertResult(template.getLabel(), operator.getResult(), loaded.getResult());
+        }
+    }
+
+    /** Operators without merge support refuse to combine. */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testNotCombinable() {
+        final AggregationOperator template = new SkewnessOperator(SETTINGS, COL_SETTINGS);
+        assertFalse(template.isCombinable());
+        aggregate(template, 0, 5).combine(aggregate(template, 5, VALUES.length));
+    }
+
+    private static AggregationOperator aggregate(final AggregationOperator template, final int from, final int to) {
+        final AggregationOperator operator = template.createInstance(SETTINGS, COL_SETTINGS);
+        for (int i = from; i < to; i++) {
+            operator.compute(new DefaultRow("Row" + i, VALUES[i]), 0);
+        }
+        return operator;
+    }
+
+    private static void assertResult(final String msg, final DataCell expected, final DataCell actual) {
+        if (expected instanceof DoubleValue && actual instanceof DoubleValue) {
+            assertEquals(msg, ((DoubleValue)expected).getDoubleValue(), ((DoubleValue)actual).getDoubleValue(),
+                1e-9);
+        } else {
+            assertEquals(msg, expected, actual);
+        }
+    }
+}
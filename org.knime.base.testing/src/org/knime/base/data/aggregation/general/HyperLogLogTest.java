@@ -0,0 +1,130 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation.general;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests the accuracy and the merging of the {@link HyperLogLog} sketch.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class HyperLogLogTest {
+
+    /** Small numbers of distinct values are counted exactly, duplicates are ignored. */
+    @Test
+    public void testExactForSmallCardinalities() {
+        final HyperLogLog sketch = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        for (int rep = 0; rep < 3; rep++) {
+            for (int i = 0; i < 200; i++) {
+                sketch.update(HyperLogLog.hash("value" + i));
+            }
+        }
+        assertEquals(200, sketch.getEstimate());
+    }
+
+    /** Large numbers of distinct values are estimated within a few standard errors. */
+    @Test
+    public void testEstimate() {
+        for (int n : new int[]{1000, 10000, 1000000}) {
+            final HyperLogLog sketch = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+            for (int i = 0; i < n; i++) {
+                sketch.update(HyperLogLog.mix(i));
+                sketch.update(HyperLogLog.mix(i));
+            }
+            assertWithinError(n, sketch.getEstimate());
+        }
+    }
+
+    /** Merging sketches of overlapping partitions must estimate the distinct count of the union. */
+    @Test
+    public void testMerge() {
+        final HyperLogLog merged = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        for (int p = 0; p < 4; p++) {
+            final HyperLogLog part = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+            // partitions of 50000 values with 10000 values overlapping the next partition
+            for (int i = p * 40000; i < p * 40000 + 50000; i++) {
+                part.update(HyperLogLog.mix(i));
+            }
+            merged.merge(part);
+        }
+        // a small sketch is merged into a dense one
+        final HyperLogLog small = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        small.update(HyperLogLog.mix(-1));
+        merged.merge(small);
+        assertWithinError(170001, merged.getEstimate());
+    }
+
+    /** A saved and loaded sketch must return the same estimate, for the sparse and the dense representation. */
+    @Test
+    public void testSaveLoad() throws IOException {
+        for (int n : new int[]{100, 100000}) {
+            final HyperLogLog sketch = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+            for (int i = 0; i < n; i++) {
+                sketch.update(HyperLogLog.mix(i));
+            }
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            sketch.save(new DataOutputStream(bytes));
+            final HyperLogLog loaded = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+            loaded.load(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            assertEquals(sketch.getEstimate(), loaded.getEstimate());
+        }
+    }
+
+    private static void assertWithinError(final long expected, final long estimate) {
+        // 4 standard errors of 1.6%
+        assertTrue("Estimated " + estimate + " instead of " + expected,
+            Math.abs(estimate - expected) <= 0.065 * expected);
+    }
+}
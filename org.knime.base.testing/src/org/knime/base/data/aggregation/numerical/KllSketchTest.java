@@ -0,0 +1,137 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation.numerical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the accuracy and the merging of the {@link KllSketch}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class KllSketchTest {
+
+    private static final int N = 100000;
+
+    /** Ranks of the estimated quantiles of a shuffled sequence must be within 1% of the exact ranks. */
+    @Test
+    public void testRankError() {
+        final KllSketch sketch = new KllSketch(KllSketch.DEFAULT_K);
+        for (int v : shuffledRange(N, 0)) {
+            sketch.update(v);
+        }
+        assertEquals(N, sketch.getCount());
+        assertQuantiles(sketch);
+        assertEquals(0, sketch.getQuantile(0), 0);
+        assertEquals(N - 1, sketch.getQuantile(1), 0);
+    }
+
+    /** Merging the sketches of several partitions must give the same accuracy as a single sketch. */
+    @Test
+    public void testMerge() {
+        final KllSketch[] parts = new KllSketch[7];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new KllSketch(KllSketch.DEFAULT_K);
+        }
+        int i = 0;
+        for (int v : shuffledRange(N, 1)) {
+            parts[i++ % parts.length].update(v);
+        }
+        final KllSketch merged = new KllSketch(KllSketch.DEFAULT_K);
+        for (KllSketch part : parts) {
+            merged.merge(part);
+        }
+        assertEquals(N, merged.getCount());
+        assertQuantiles(merged);
+    }
+
+    /** A saved and loaded sketch must return the same quantiles. */
+    @Test
+    public void testSaveLoad() throws IOException {
+        final KllSketch sketch = new KllSketch(KllSketch.DEFAULT_K);
+        for (int v : shuffledRange(N, 2)) {
+            sketch.update(v);
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.save(new DataOutputStream(bytes));
+        final KllSketch loaded = new KllSketch(KllSketch.DEFAULT_K);
+        loaded.load(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        for (double q = 0.05; q < 1; q += 0.05) {
+            assertEquals(sketch.getQuantile(q), loaded.getQuantile(q), 0);
+        }
+    }
+
+    private static void assertQuantiles(final KllSketch sketch) {
+        for (double q = 0.05; q < 1; q += 0.05) {
+            final double estimate = sketch.getQuantile(q);
+            assertTrue("Quantile " + q + " estimated as " + estimate, Math.abs(estimate - q * N) <= 0.01 * N);
+        }
+    }
+
+    private static int[] shuffledRange(final int n, final long seed) {
+        final int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        final Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.io.csvwriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+import org.knime.base.node.io.csvwriter.FileWriterSettings.quoteMode;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DefaultTable;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Checks that tables written in parallel into a channel are identical to tables written sequentially.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CSVWriterTest {
+
+    private static final String[] STRINGS = {"abc", "a,b", "\"quoted\"", "1.5", "", "?", "x;y", "äöü"};
+
+    /**
+     * Writes random tables with different settings, compressed and uncompressed.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testParallelOutput() throws Exception {
+        final Random rand = new Random(42);
+        final DataTable table = createTable(rand, 25000);
+        for (quoteMode mode : quoteMode.values()) {
+            for (String separator : new String[]{",", ";", "."}) {
+                final FileWriterSettings settings = new FileWriterSettings();
+                settings.setQuoteMode(mode);
+                settings.setColSeparator(separator);
+                settings.setMissValuePattern(rand.nextBoolean() ? "" : "0");
+                settings.setWriteRowID(rand.nextBoolean());
+                settings.setDecimalSeparator(rand.nextInt(3) == 0 ? ',' : '.');
+                settings.setReplaceSeparatorInStrings(rand.nextBoolean());
+
+                final StringWriter expected = new StringWriter();
+                try (CSVWriter writer = new CSVWriter(expected, new FileWriterSettings(settings))) {
+                    writer.write(table, new ExecutionMonitor());
+                }
+                for (boolean gzip : new boolean[]{false, true}) {
+                    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    try (CSVWriter writer = new CSVWriter(Channels.newChannel(bytes),
+                        new FileWriterSettings(settings), StandardCharsets.UTF_8, gzip)) {
+                        writer.write(table, new ExecutionMonitor());
+                    }
+                    assertEquals("Wrong output for quote mode " + mode + ", separator '" + separator + "', gzip "
+                        + gzip, expected.toString(), read(bytes.toByteArray(), gzip));
+                    if (gzip) {
+                        assertSingleMember(bytes.toByteArray());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that an empty, compressed table is a valid gzip file.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testEmptyGzipOutput() throws Exception {
+        final FileWriterSettings settings = new FileWriterSettings();
+        settings.setWriteColumnHeader(false);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CSVWriter writer =
+            new CSVWriter(Channels.newChannel(bytes), settings, StandardCharsets.UTF_8, true)) {
+            writer.write(createTable(new Random(1), 0), new ExecutionMonitor());
+        }
+        assertEquals("Wrong output", "", read(bytes.toByteArray(), true));
+    }
+
+    /**
+     * Checks that flushing and writing more than the buffer size sequentially results in a single gzip member.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSequentialGzipOutput() throws Exception {
+        final Random rand = new Random(3);
+        final StringBuilder expected = new StringBuilder();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CSVWriter writer =
+            new CSVWriter(Channels.newChannel(bytes), new FileWriterSettings(), StandardCharsets.UTF_8, true)) {
+            while (expected.length() < 3 << 20) {
+                final String line = STRINGS[rand.nextInt(STRINGS.length)] + rand.nextInt() + "\n";
+                writer.write(line);
+                expected.append(line);
+                if (rand.nextInt(1000) == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        assertEquals("Wrong output", expected.toString(), read(bytes.toByteArray(), true));
+        assertSingleMember(bytes.toByteArray());
+    }
+
+    /** Asserts that the gzip data consists of a single deflate stream followed by the 8 byte trailer. */
+    private static void assertSingleMember(final byte[] gzip) throws DataFormatException {
+        final Inflater inflater = new Inflater(true);
+        inflater.setInput(gzip, 10, gzip.length - 10);
+        final byte[] buf = new byte[1 << 16];
+        while (!inflater.finished()) {
+            if (inflater.inflate(buf) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                fail("Incomplete deflate stream");
+            }
+        }
+        assertEquals("Bytes after the first member", 8, inflater.getRemaining());
+        inflater.end();
+    }
+
+    private static DataTable createTable(final Random rand, final int rowCount) {
+        final DataType[] types = {StringCell.TYPE, IntCell.TYPE, DoubleCell.TYPE, LongCell.TYPE, DoubleCell.TYPE};
+        final DataRow[] rows = new DataRow[rowCount];
+        for (int r = 0; r < rowCount; r++) {
+            final DataCell[] cells = new DataCell[types.length];
+            cells[0] = new StringCell(STRINGS[rand.nextInt(STRINGS.length)]);
+            cells[1] = new IntCell(rand.nextInt());
+            cells[2] = new DoubleCell(rand.nextInt(10) == 0 ? Double.NaN : rand.nextGaussian() * 1e5);
+            cells[3] = new LongCell(rand.nextLong());
+            // ints in a double column
+            cells[4] = new IntCell(rand.nextInt(1000));
+            cells[rand.nextInt(types.length)] = DataType.getMissingCell();
+            rows[r] = new DefaultRow(RowKey.createRowKey((long)r), cells);
+        }
+        return new DefaultTable(rows, new String[]{"string", "int", "double", "long", "mixed"}, types);
+    }
+
+    private static String read(final byte[] bytes, final boolean gzip) throws IOException {
+        // a stream without available bytes, GZIPInputStream then stops after the first member
+        final InputStream raw = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int available() {
+                return 0;
+            }
+        };
+        try (InputStream in = gzip ? new GZIPInputStream(raw) : raw) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) >= 0) {
+                out.write(buf, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
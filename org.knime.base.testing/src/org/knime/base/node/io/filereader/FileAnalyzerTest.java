@@ -60,6 +60,7 @@
 
 import org.knime.base.node.io.filereader.FileAnalyzer.HeaderHelper;
 import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.util.tokenizer.Quote;
 
@@ -598,4 +599,46 @@ public void testNumbersWithThousandseparator() throws Exception {
         assertThat("Unexpected guessed type for double column",
             analSettings.getColumnProperties().get(0).getColumnSpec().getType(), is(DoubleCell.TYPE));
     }
+
+    /**
+     * Checks that large files are analyzed on a sample if requested, and that the result of the analysis is cached.
+     *
+     * @throws Exception if an errors occurs
+     */
+    public void testSampledAnalysis() throws Exception {
+        StringBuilder contents = new StringBuilder("name,count,value\n");
+        for (int i = 0; contents.length() < FileSample.MIN_FILE_SIZE; i++) {
+            contents.append("row").append(i).append(',').append(i).append(',').append(i).append(".5\n");
+        }
+        URL url = initTempFile(contents.toString());
+
+        FileReaderNodeSettings settings = new FileReaderNodeSettings();
+        settings.setDataFileLocationAndUpdateTableName(url);
+        FileReaderExecutionMonitor exec = new FileReaderExecutionMonitor();
+        exec.setSampleLargeFiles(true);
+        FileReaderNodeSettings analSettings = FileAnalyzer.analyze(settings, exec);
+
+        assertFalse("Analysis didn't use a sample", analSettings.analyzeUsedAllRows());
+        assertTrue(analSettings.getFileHasColumnHeaders());
+        assertThat("Unexpected number of columns detected", analSettings.getColumnProperties().size(), is(3));
+        assertThat("Unexpected guessed type for string column",
+            analSettings.getColumnProperties().get(0).getColumnSpec().getType(), is(StringCell.TYPE));
+        assertThat("Unexpected guessed type for int column",
+            analSettings.getColumnProperties().get(1).getColumnSpec().getType(), is(IntCell.TYPE));
+        assertThat("Unexpected guessed type for double column",
+            analSettings.getColumnProperties().get(2).getColumnSpec().getType(), is(DoubleCell.TYPE));
+
+        FileReaderNodeSettings cachedSettings = FileAnalyzer.analyze(settings, exec);
+        assertNotSame("Cached settings must be copied", analSettings, cachedSettings);
+        assertFalse(cachedSettings.analyzeUsedAllRows());
+        assertThat("Unexpected number of cached columns", cachedSettings.getColumnProperties().size(), is(3));
+        for (int c = 0; c < 3; c++) {
+            assertThat("Unexpected cached type of column " + c,
+                cachedSettings.getColumnProperties().get(c).getColumnSpec(),
+                is(analSettings.getColumnProperties().get(c).getColumnSpec()));
+        }
+
+        FileReaderNodeSettings fullSettings = FileAnalyzer.analyze(settings, null);
+        assertTrue("Analysis didn't read the entire file", fullSettings.analyzeUsedAllRows());
+    }
 }
@@ -0,0 +1,158 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.io.filereader;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.node.io.filereader.ParallelFileRowIterator.RecordScanner;
+import org.knime.core.util.tokenizer.Tokenizer;
+import org.knime.core.util.tokenizer.TokenizerException;
+
+/**
+ * Checks that the record boundaries found by the {@link RecordScanner} don't change the tokens read from a file.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ParallelFileRowIteratorTest {
+
+    private static final char[] SPECIAL_CHARS = {',', '"', '\'', '\\', '#', '/', '\n', '\r', ' '};
+
+    /**
+     * Tokenizes random files as a whole and in chunks split at the record boundaries and compares the tokens.
+     */
+    @Test
+    public void testRecordBoundaries() {
+        final Random rand = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            final FileReaderSettings settings = createSettings(rand);
+            final StringBuilder content = new StringBuilder();
+            final int length = rand.nextInt(300);
+            for (int j = 0; j < length; j++) {
+                content.append(rand.nextInt(3) == 0 ? SPECIAL_CHARS[rand.nextInt(SPECIAL_CHARS.length)]
+                    : (char)('a' + rand.nextInt(3)));
+            }
+            final byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+
+            // feed the scanner with randomly growing prefixes of the file
+            final RecordScanner scanner = new RecordScanner(settings);
+            final List<Integer> boundaries = new ArrayList<Integer>();
+            int scanned = 0;
+            int available = 0;
+            while (scanned < bytes.length) {
+                available = Math.min(bytes.length, available + 1 + rand.nextInt(20));
+                scanned = scanner.scan(bytes, scanned, available, available == bytes.length);
+                if (scanner.getBoundary() > 0 && rand.nextBoolean()) {
+                    boundaries.add(scanner.getBoundary());
+                    scanner.clearBoundary();
+                }
+            }
+            boundaries.add(bytes.length);
+
+            final List<String> expected = new ArrayList<String>();
+            tokenize(settings, bytes, expected);
+            final List<String> actual = new ArrayList<String>();
+            final FileReaderSettings chunkSettings = new FileReaderSettings(settings);
+            chunkSettings.setSkipFirstLines(0);
+            int start = 0;
+            for (int end : boundaries) {
+                if (!tokenize(start == 0 ? settings : chunkSettings, Arrays.copyOfRange(bytes, start, end), actual)) {
+                    break;
+                }
+                start = end;
+            }
+            assertEquals("Wrong tokens for '" + content + "' split at " + boundaries, expected, actual);
+        }
+    }
+
+    private static FileReaderSettings createSettings(final Random rand) {
+        final FileReaderSettings settings = new FileReaderSettings();
+        settings.addDelimiterPattern(",", false, false, false);
+        settings.addRowDelimiter("\n", rand.nextBoolean());
+        if (rand.nextBoolean()) {
+            settings.addQuotePattern("\"", "\"", '\\');
+        } else {
+            settings.addQuotePattern("\"", "\"");
+        }
+        if (rand.nextBoolean()) {
+            settings.addQuotePattern("'", "'");
+        }
+        if (rand.nextBoolean()) {
+            settings.addSingleLineCommentPattern("#", rand.nextBoolean(), false);
+        }
+        if (rand.nextBoolean()) {
+            settings.addSingleLineCommentPattern("//", false, rand.nextBoolean());
+        }
+        settings.allowLFinQuotes(rand.nextBoolean());
+        settings.setSkipFirstLines(rand.nextInt(3));
+        return settings;
+    }
+
+    /** Adds the tokens (and their flags) to the list, returns false if the tokenizer failed. */
+    private static boolean tokenize(final FileReaderSettings settings, final byte[] bytes, final List<String> tokens) {
+        final Tokenizer tokenizer =
+            new Tokenizer(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8));
+        tokenizer.setSettings(settings);
+        try {
+            String token;
+            while ((token = tokenizer.nextToken()) != null) {
+                tokens.add(token + (tokenizer.lastTokenWasQuoted() ? "<quoted>" : "")
+                    + (tokenizer.lastTokenWasDelimited() ? "<delimited>" : ""));
+            }
+            return true;
+        } catch (TokenizerException e) {
+            tokens.add("<error>");
+            return false;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.filter.row;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.base.node.preproc.filter.row.rowfilter.FalseRowFilter;
+import org.knime.base.node.preproc.filter.row.rowfilter.NegRowFilter;
+import org.knime.base.node.preproc.filter.row.rowfilter.RangeRowFilter;
+import org.knime.base.node.preproc.filter.row.rowfilter.RowFilter;
+import org.knime.base.node.preproc.filter.row.rowfilter.RowNoRowFilter;
+import org.knime.base.node.preproc.filter.row.rowfilter.TrueRowFilter;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests the output of {@link RowFilterNodeModel}, which selects the matching rows of its input table, also for filters
+ * that end the search early.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RowFilterNodeModelTest {
+
+    private static final int ROW_COUNT = 1000;
+
+    private ExecutionContext m_exec;
+
+    private BufferedDataTable m_table;
+
+    /** Creates the execution context and a table whose int column contains the row index. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+        BufferedDataContainer container =
+            m_exec.createDataContainer(new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec()));
+        for (int i = 0; i < ROW_COUNT; i++) {
+            container.addRowToTable(new DefaultRow("Row" + i, new IntCell(i)));
+        }
+        container.close();
+        m_table = container.getTable();
+    }
+
+    /**
+     * Filters that match row by row.
+     *
+     * @throws Exception Should not happen.
+     */
+    @Test
+    public void testMatchingRows() throws Exception {
+        assertThat(filter(new RangeRowFilter("int", true, new IntCell(10), new IntCell(19))), is(range(10, 20)));
+        List<Integer> outside = range(0, 10);
+        outside.addAll(range(20, ROW_COUNT));
+        assertThat(filter(new RangeRowFilter("int", false, new IntCell(10), new IntCell(19))), is(outside));
+        assertThat(filter(new RangeRowFilter("int", true, new IntCell(ROW_COUNT), null)), is(range(0, 0)));
+    }
+
+    /**
+     * Filters that include all remaining rows from some row on.
+     *
+     * @throws Exception Should not happen.
+     */
+    @Test
+    public void testIncludeFromNowOn() throws Exception {
+        assertThat(filter(new RowNoRowFilter(100L, RowNoRowFilter.EOT, true)), is(range(100, ROW_COUNT)));
+        assertThat(filter(new RowNoRowFilter(0L, 99L, false)), is(range(100, ROW_COUNT)));
+        assertThat(filter(new RowNoRowFilter(ROW_COUNT - 1L, RowNoRowFilter.EOT, true)),
+            is(range(ROW_COUNT - 1, ROW_COUNT)));
+        assertThat(filter(new TrueRowFilter()), is(range(0, ROW_COUNT)));
+        assertThat(filter(new NegRowFilter(new RowNoRowFilter(300L, RowNoRowFilter.EOT, false))),
+            is(range(300, ROW_COUNT)));
+    }
+
+    /**
+     * Filters that exclude all remaining rows from some row on.
+     *
+     * @throws Exception Should not happen.
+     */
+    @Test
+    public void testEndOfTable() throws Exception {
+        assertThat(filter(new RowNoRowFilter(100L, 199L, true)), is(range(100, 200)));
+        assertThat(filter(new RowNoRowFilter(500L, RowNoRowFilter.EOT, false)), is(range(0, 500)));
+        assertThat(filter(new RowNoRowFilter(0L, 0L, true)), is(range(0, 1)));
+        assertThat(filter(new FalseRowFilter()), is(range(0, 0)));
+        assertThat(filter(new NegRowFilter(new RowNoRowFilter(0L, 99L, false))), is(range(0, 100)));
+    }
+
+    /**
+     * The output of a node must be usable as input of the next one, e.g. a filter on a filtered table.
+     *
+     * @throws Exception Should not happen.
+     */
+    @Test
+    public void testFilteredInput() throws Exception {
+        BufferedDataTable first = execute(new RowNoRowFilter(100L, 899L, true), m_table);
+        BufferedDataTable second = execute(new RangeRowFilter("int", false, new IntCell(200), new IntCell(799)), first);
+        List<Integer> expected = range(100, 200);
+        expected.addAll(range(800, 900));
+        assertThat(readInts(second), is(expected));
+        assertThat("Table size", second.size(), is((long)expected.size()));
+        BufferedDataTable third = execute(new RowNoRowFilter(150L, RowNoRowFilter.EOT, true), second);
+        assertThat(readInts(third), is(range(850, 900)));
+    }
+
+    private List<Integer> filter(final RowFilter filter) throws Exception {
+        BufferedDataTable result = execute(filter, m_table);
+        List<Integer> rows = readInts(result);
+        assertThat("Table size", result.size(), is((long)rows.size()));
+        return rows;
+    }
+
+    private BufferedDataTable execute(final RowFilter filter, final BufferedDataTable in) throws Exception {
+        RowFilterNodeModel model = new RowFilterNodeModel();
+        NodeSettings settings = new NodeSettings("test");
+        filter.saveSettingsTo(settings.addNodeSettings(RowFilterNodeModel.CFGFILTER));
+        model.validateSettings(settings);
+        model.loadValidatedSettingsFrom(settings);
+        return model.execute(new BufferedDataTable[]{in}, m_exec)[0];
+    }
+
+    private static List<Integer> readInts(final BufferedDataTable table) {
+        List<Integer> result = new ArrayList<>();
+        for (DataRow row : table) {
+            int value = ((IntValue)row.getCell(0)).getIntValue();
+            assertThat("Row key", row.getKey().getString(), is("Row" + value));
+            result.add(value);
+        }
+        return result;
+    }
+
+    private static List<Integer> range(final int from, final int to) {
+        return IntStream.range(from, to).boxed().collect(Collectors.toCollection(ArrayList::new));
+    }
+}
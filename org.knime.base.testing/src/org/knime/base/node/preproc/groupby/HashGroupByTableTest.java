@@ -0,0 +1,294 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.groupby;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.GlobalSettings.AggregationContext;
+import org.knime.base.data.aggregation.OperatorColumnSettings;
+import org.knime.base.data.aggregation.general.CountOperator;
+import org.knime.base.data.aggregation.general.FirstOperator;
+import org.knime.base.data.aggregation.general.MinOperator;
+import org.knime.base.data.aggregation.numerical.SumOperator;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests for {@link HashGroupByTable}, which must give the same groups as the sorting {@link BigGroupByTable} and the
+ * {@link MemoryGroupByTable}, also when rows are written to temporary tables due to low memory.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class HashGroupByTableTest {
+
+    private static final List<String> GROUP_COLS = Arrays.asList("Group", "Name");
+
+    /** The number of partitions, more rows are needed to fill the batches of all of them. */
+    private static final int NR_PARTITIONS = Runtime.getRuntime().availableProcessors();
+
+    private ExecutionContext m_exec;
+
+    /**
+     * Creates the execution context.
+     */
+    @Before
+    public void setUp() {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    /**
+     * Aggregates a table with many groups, including missing group values, without memory pressure.
+     *
+     * @throws CanceledExecutionException Should not happen.
+     */
+    @Test
+    public void testSameGroups() throws CanceledExecutionException {
+        final BufferedDataTable table = createTable(3000, 5);
+        for (boolean retainOrder : new boolean[]{false, true}) {
+            final CountingHashGroupByTable hash = new CountingHashGroupByTable(table, retainOrder);
+            assertThat("Passes without low memory", hash.m_passes, is(1));
+            assertSameGroups(aggregateBig(table, retainOrder), hash.getBufferedTable(), retainOrder);
+            if (!retainOrder) {
+                assertSameGroups(aggregateMemory(table), hash.getBufferedTable(), false);
+            }
+        }
+    }
+
+    /**
+     * Reports low memory all the time, so rows of new groups are written to temporary tables, which are aggregated
+     * recursively.
+     *
+     * @throws CanceledExecutionException Should not happen.
+     */
+    @Test
+    public void testSpill() throws CanceledExecutionException {
+        // new groups keep appearing, and all partitions get enough rows to fill a couple of batches
+        final BufferedDataTable table = createTable(20000 + 1024 * NR_PARTITIONS, 4);
+        for (boolean retainOrder : new boolean[]{false, true}) {
+            final CountingHashGroupByTable hash = new LowMemoryHashGroupByTable(table, retainOrder);
+            assertTrue("Temporary tables should have been aggregated, passes: " + hash.m_passes, hash.m_passes > 1);
+            assertSameGroups(aggregateBig(table, retainOrder), hash.getBufferedTable(), retainOrder);
+        }
+    }
+
+    /**
+     * Reports low memory all the time, but there are too few groups to write any rows to temporary tables, which
+     * would otherwise never end for groups that don't fit into memory.
+     *
+     * @throws CanceledExecutionException Should not happen.
+     */
+    @Test
+    public void testMinGroupsBeforeSpill() throws CanceledExecutionException {
+        final BufferedDataTable table = createTable(900, 20 + 1024 * NR_PARTITIONS / 900);
+        final CountingHashGroupByTable hash = new LowMemoryHashGroupByTable(table, false);
+        assertThat("Passes with few groups", hash.m_passes, is(1));
+        assertSameGroups(aggregateBig(table, false), hash.getBufferedTable(), false);
+    }
+
+    /** Counts the passes over the input and temporary tables. */
+    private class CountingHashGroupByTable extends HashGroupByTable {
+
+        // no initializer, the field is used from the super constructor
+        int m_passes;
+
+        CountingHashGroupByTable(final BufferedDataTable table, final boolean retainOrder)
+            throws CanceledExecutionException {
+            super(m_exec, table, GROUP_COLS, createAggregators(table.getDataTableSpec()), createSettings(table), false,
+                ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, retainOrder);
+        }
+
+        @Override
+        MemoryActionIndicator newMemoryIndicator() {
+            m_passes++;
+            return super.newMemoryIndicator();
+        }
+    }
+
+    /** Reports low memory whenever asked. */
+    private final class LowMemoryHashGroupByTable extends CountingHashGroupByTable {
+
+        LowMemoryHashGroupByTable(final BufferedDataTable table, final boolean retainOrder)
+            throws CanceledExecutionException {
+            super(table, retainOrder);
+        }
+
+        @Override
+        MemoryActionIndicator newMemoryIndicator() {
+            super.newMemoryIndicator();
+            return () -> true;
+        }
+    }
+
+    private BufferedDataTable aggregateBig(final BufferedDataTable table, final boolean retainOrder)
+        throws CanceledExecutionException {
+        return new BigGroupByTable(m_exec, table, GROUP_COLS, createAggregators(table.getDataTableSpec()),
+            createSettings(table), false, ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, retainOrder)
+                .getBufferedTable();
+    }
+
+    private BufferedDataTable aggregateMemory(final BufferedDataTable table) throws CanceledExecutionException {
+        return new MemoryGroupByTable(m_exec, table, GROUP_COLS, createAggregators(table.getDataTableSpec()),
+            createSettings(table), false, ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, false)
+                .getBufferedTable();
+    }
+
+    /**
+     * Creates a table whose groups are spread over the whole table, so new groups keep appearing.
+     *
+     * @param nrGroups the number of (Group, Name) combinations
+     * @param rowsPerGroup the number of rows of each group
+     */
+    private BufferedDataTable createTable(final int nrGroups, final int rowsPerGroup) {
+        final DataTableSpec spec = new DataTableSpec(new DataColumnSpecCreator("Group", IntCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Name", StringCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Value", DoubleCell.TYPE).createSpec());
+        final BufferedDataContainer dc = m_exec.createDataContainer(spec);
+        final int rowCount = nrGroups * rowsPerGroup;
+        for (int i = 0; i < rowCount; i++) {
+            // consecutive blocks of rows belong to the same group, in an order that is not sorted by the groups
+            final int group = (int)((i / (long)rowsPerGroup) * 7919 % nrGroups);
+            final DataCell groupCell = group % 97 == 0 ? DataType.getMissingCell() : new IntCell(group % 1000);
+            final DataCell nameCell = new StringCell("n" + group / 1000);
+            final DataCell valueCell = i % 13 == 0 ? DataType.getMissingCell() : new DoubleCell(i % 50);
+            dc.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), groupCell, nameCell, valueCell));
+        }
+        dc.close();
+        return dc.getTable();
+    }
+
+    private static ColumnAggregator[] createAggregators(final DataTableSpec spec) {
+        final OperatorColumnSettings colSettings = OperatorColumnSettings.DEFAULT_EXCL_MISSING;
+        final GlobalSettings settings = GlobalSettings.DEFAULT;
+        return new ColumnAggregator[]{
+            new ColumnAggregator(spec.getColumnSpec("Value"), new SumOperator(settings, colSettings)),
+            new ColumnAggregator(spec.getColumnSpec("Value"), new MinOperator(settings, colSettings)),
+            new ColumnAggregator(spec.getColumnSpec("Value"), new CountOperator(settings, colSettings)),
+            new ColumnAggregator(spec.getColumnSpec("Value"), new FirstOperator(settings, colSettings), true)};
+    }
+
+    private static GlobalSettings createSettings(final BufferedDataTable table) {
+        return GlobalSettings.builder().setGroupColNames(GROUP_COLS).setMaxUniqueValues(10000)
+            .setDataTableSpec(table.getDataTableSpec()).setNoOfRows(table.size())
+            .setAggregationContext(AggregationContext.ROW_AGGREGATION).build();
+    }
+
+    /** Compares the cells of the results, in the same order if the order is retained. */
+    private static void assertSameGroups(final BufferedDataTable expected, final BufferedDataTable actual,
+        final boolean sameOrder) {
+        assertEquals("Result spec", expected.getDataTableSpec(), actual.getDataTableSpec());
+        final List<List<DataCell>> expectedRows = getCells(expected);
+        final List<List<DataCell>> actualRows = getCells(actual);
+        assertThat("Number of groups", actualRows.size(), is(expectedRows.size()));
+        if (sameOrder) {
+            for (int i = 0; i < expectedRows.size(); i++) {
+                assertEquals("Group " + i, expectedRows.get(i), actualRows.get(i));
+            }
+        } else {
+            final Map<List<DataCell>, List<DataCell>> expectedGroups = toMap(expectedRows);
+            final Map<List<DataCell>, List<DataCell>> actualGroups = toMap(actualRows);
+            assertThat("Distinct groups", actualGroups.size(), is(actualRows.size()));
+            for (Map.Entry<List<DataCell>, List<DataCell>> e : expectedGroups.entrySet()) {
+                assertEquals("Group " + e.getKey(), e.getValue(), actualGroups.get(e.getKey()));
+            }
+        }
+    }
+
+    private static List<List<DataCell>> getCells(final BufferedDataTable table) {
+        final List<List<DataCell>> rows = new ArrayList<>();
+        for (DataRow row : table) {
+            final List<DataCell> cells = new ArrayList<>();
+            row.forEach(cells::add);
+            rows.add(cells);
+        }
+        return rows;
+    }
+
+    /** Maps the group columns to the aggregated values. */
+    private static Map<List<DataCell>, List<DataCell>> toMap(final List<List<DataCell>> rows) {
+        final Map<List<DataCell>, List<DataCell>> map = new HashMap<>();
+        for (List<DataCell> cells : rows) {
+            map.put(cells.subList(0, GROUP_COLS.size()), cells.subList(GROUP_COLS.size(), cells.size()));
+        }
+        return map;
+    }
+}
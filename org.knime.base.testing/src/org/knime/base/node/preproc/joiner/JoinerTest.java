@@ -404,6 +404,146 @@ public void testSortPartitionsFullOuterJoin() throws Exception {
         compareTables(reference, test);
     }
 
+    /**
+     * Checks whether a full outer join computed by merging the sorted tables gives the same result as the hash join.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSortMergeFullOuterJoin() throws Exception {
+        Joiner2Settings settingsRef = createReferenceSettings("Data");
+        settingsRef.setJoinMode(JoinMode.FullOuterJoin);
+
+        Joiner2Settings settingsTest = createReferenceSettings("Data");
+        settingsTest.setJoinMode(JoinMode.FullOuterJoin);
+        settingsTest.setSortMergeJoin(true);
+
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+
+        // run joiner with reference settings
+        Joiner joinerRef = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsRef);
+        BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+        // run joiner with test settings
+        Joiner joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsTest);
+        BufferedDataTable test = joinerTest.computeJoinTable(leftTable, rightTable, m_exec);
+        compareTables(reference, test);
+    }
+
+    /**
+     * Checks whether the sort-merge join gives the same result as the hash join when joining on the row ID and a
+     * column.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSortMergeLeftOuterJoinMultipleColumns() throws Exception {
+        Joiner2Settings settingsRef = createReferenceSettings(Joiner2Settings.ROW_KEY_IDENTIFIER);
+        settingsRef.setLeftJoinColumns(new String[]{Joiner2Settings.ROW_KEY_IDENTIFIER, "Index"});
+        settingsRef.setRightJoinColumns(new String[]{"Data", "Index"});
+        settingsRef.setJoinMode(JoinMode.LeftOuterJoin);
+
+        Joiner2Settings settingsTest = createReferenceSettings(Joiner2Settings.ROW_KEY_IDENTIFIER);
+        settingsTest.setLeftJoinColumns(new String[]{Joiner2Settings.ROW_KEY_IDENTIFIER, "Index"});
+        settingsTest.setRightJoinColumns(new String[]{"Data", "Index"});
+        settingsTest.setJoinMode(JoinMode.LeftOuterJoin);
+        settingsTest.setSortMergeJoin(true);
+
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+
+        // run joiner with reference settings
+        Joiner joinerRef = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsRef);
+        BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+        // run joiner with test settings
+        Joiner joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsTest);
+        BufferedDataTable test = joinerTest.computeJoinTable(leftTable, rightTable, m_exec);
+        compareTables(reference, test);
+    }
+
+    /**
+     * Checks whether joining the partitions in parallel gives the same result as joining them sequentially when the
+     * joiner has to spill partitions to disk and needs multiple passes, for all join modes.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testParallelJoinWithSpilling() throws Exception {
+        for (JoinMode mode : JoinMode.values()) {
+            Joiner2Settings settingsRef = createReferenceSettings("Data");
+            settingsRef.setJoinMode(mode);
+            Joiner2Settings settingsTest = createReferenceSettings("Data");
+            settingsTest.setJoinMode(mode);
+            settingsTest.setMaxOpenFiles(3);
+            compareParallelJoin(settingsRef, settingsTest);
+        }
+    }
+
+    /**
+     * Checks whether joining the partitions in parallel gives the same result as joining them sequentially when
+     * joining on the row ID with spilling and multiple passes, for all join modes.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testParallelRowKeyJoinWithSpilling() throws Exception {
+        for (JoinMode mode : JoinMode.values()) {
+            Joiner2Settings settingsRef = createReferenceSettings(Joiner2Settings.ROW_KEY_IDENTIFIER);
+            settingsRef.setJoinMode(mode);
+            Joiner2Settings settingsTest = createReferenceSettings(Joiner2Settings.ROW_KEY_IDENTIFIER);
+            settingsTest.setJoinMode(mode);
+            settingsTest.setMaxOpenFiles(3);
+            compareParallelJoin(settingsRef, settingsTest);
+        }
+    }
+
+    /**
+     * Checks whether joining the partitions in parallel gives the same result as joining them sequentially when
+     * joining on the row ID and a column with spilling and multiple passes, for all join modes.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testParallelJoinMultipleColumnsWithSpilling() throws Exception {
+        for (JoinMode mode : JoinMode.values()) {
+            Joiner2Settings settingsRef = createReferenceSettings(Joiner2Settings.ROW_KEY_IDENTIFIER);
+            settingsRef.setLeftJoinColumns(new String[]{Joiner2Settings.ROW_KEY_IDENTIFIER, "Index"});
+            settingsRef.setRightJoinColumns(new String[]{"Data", "Index"});
+            settingsRef.setJoinMode(mode);
+            Joiner2Settings settingsTest = createReferenceSettings(Joiner2Settings.ROW_KEY_IDENTIFIER);
+            settingsTest.setLeftJoinColumns(new String[]{Joiner2Settings.ROW_KEY_IDENTIFIER, "Index"});
+            settingsTest.setRightJoinColumns(new String[]{"Data", "Index"});
+            settingsTest.setJoinMode(mode);
+            settingsTest.setMaxOpenFiles(3);
+            compareParallelJoin(settingsRef, settingsTest);
+        }
+    }
+
+    /**
+     * Joins the test data sequentially with the reference settings and in parallel with the test settings, forcing
+     * the parallel joiner to run out of memory so that it spills partitions and needs multiple passes.
+     */
+    private void compareParallelJoin(final Joiner2Settings settingsRef, final Joiner2Settings settingsTest)
+        throws Exception {
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(300, 1), m_exec);
+
+        // run joiner sequentially with reference settings
+        Joiner joinerRef = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsRef);
+        joinerRef.setParallelism(1);
+        BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+        // run joiner in parallel with test settings
+        Joiner joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsTest);
+        joinerTest.setParallelism(4);
+        joinerTest.setRowsAddedBeforeOOM(10);
+        joinerTest.setNumBitsInitial(2);
+        joinerTest.setNumBitsMaximal(6);
+        BufferedDataTable test = joinerTest.computeJoinTable(leftTable, rightTable, m_exec);
+        compareTables(reference, test);
+    }
 
     private Joiner2Settings createReferenceSettings(final String col) {
         Joiner2Settings settingsRef = new Joiner2Settings();
@@ -0,0 +1,289 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.joiner;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests the {@link PrimitiveKeyIndex} against a nested loop join of the same rows.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PrimitiveKeyIndexTest {
+
+    private static final int ROW_ID = -1;
+
+    /** Many distinct keys, so that slots collide and the table grows several times. */
+    @Test
+    public void testIntKeys() {
+        Random rand = new Random(1);
+        DataTableSpec spec = spec(IntCell.TYPE);
+        List<DataRow> left = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            left.add(row(i, rand.nextInt(10) == 0 ? missing() : new IntCell(rand.nextInt(15000) - 5000)));
+        }
+        left.add(row(left.size(), new IntCell(Integer.MIN_VALUE)));
+        left.add(row(left.size(), new IntCell(Integer.MAX_VALUE)));
+        left.add(row(left.size(), new IntCell(-1)));
+        List<DataRow> right = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            right.add(row(i, rand.nextInt(10) == 0 ? missing() : new IntCell(rand.nextInt(20000) - 7500)));
+        }
+        right.add(row(right.size(), new IntCell(Integer.MIN_VALUE)));
+        right.add(row(right.size(), new IntCell(Integer.MAX_VALUE)));
+        right.add(row(right.size(), new IntCell(0)));
+        assertSameMatches(spec, spec, Arrays.asList(0), Arrays.asList(0), left, right);
+    }
+
+    /** Long keys use all 64 bits, including values that only differ in the high bits. */
+    @Test
+    public void testLongKeys() {
+        Random rand = new Random(2);
+        DataTableSpec spec = spec(LongCell.TYPE);
+        List<DataRow> left = new ArrayList<>();
+        List<DataRow> right = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            long value = (long)rand.nextInt(3000) << (rand.nextBoolean() ? 0 : 32);
+            left.add(row(i, rand.nextInt(10) == 0 ? missing() : new LongCell(value)));
+            value = (long)rand.nextInt(3000) << (rand.nextBoolean() ? 0 : 32);
+            right.add(row(i, rand.nextInt(10) == 0 ? missing() : new LongCell(value)));
+        }
+        for (long value : new long[]{Long.MIN_VALUE, Long.MAX_VALUE, -1L, 1L << 32, 0xFFFFFFFFL}) {
+            left.add(row(left.size(), new LongCell(value)));
+            right.add(row(right.size(), new LongCell(value)));
+        }
+        assertSameMatches(spec, spec, Arrays.asList(0), Arrays.asList(0), left, right);
+    }
+
+    /** Strings of the right table that are not in the left table don't match, also for the row ID. */
+    @Test
+    public void testStringKeys() {
+        Random rand = new Random(3);
+        DataTableSpec spec = spec(StringCell.TYPE);
+        List<DataRow> left = new ArrayList<>();
+        List<DataRow> right = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // strings are partly also row IDs of the other table
+            left.add(new DefaultRow("Row" + rand.nextInt(8000), rand.nextInt(10) == 0 ? missing()
+                : new StringCell((rand.nextBoolean() ? "s" : "Row") + rand.nextInt(3000))));
+            right.add(new DefaultRow("Row" + i, rand.nextInt(10) == 0 ? missing()
+                : new StringCell((rand.nextBoolean() ? "s" : "Row") + rand.nextInt(4000))));
+        }
+        left.add(new DefaultRow("Row-0", new StringCell("")));
+        right.add(new DefaultRow("Row-1", new StringCell("")));
+        assertSameMatches(spec, spec, Arrays.asList(0), Arrays.asList(0), left, right);
+        // the row ID of the left table with a string column of the right table and vice versa
+        assertSameMatches(spec, spec, Arrays.asList(ROW_ID), Arrays.asList(ROW_ID), left, right);
+        assertSameMatches(spec, spec, Arrays.asList(ROW_ID), Arrays.asList(0), left, right);
+        assertSameMatches(spec, spec, Arrays.asList(0), Arrays.asList(ROW_ID), left, right);
+    }
+
+    /** Both columns must match, in particular swapped values and negative ints. */
+    @Test
+    public void testTwoColumns() {
+        Random rand = new Random(4);
+        DataTableSpec spec = spec(IntCell.TYPE, StringCell.TYPE, IntCell.TYPE);
+        List<DataRow> left = new ArrayList<>();
+        List<DataRow> right = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            left.add(row(i, randomInt(rand), randomString(rand), randomInt(rand)));
+            right.add(row(i, randomInt(rand), randomString(rand), randomInt(rand)));
+        }
+        left.add(row(left.size(), new IntCell(-1), new StringCell("x"), new IntCell(2)));
+        right.add(row(right.size(), new IntCell(2), new StringCell("x"), new IntCell(-1)));
+        right.add(row(right.size(), new IntCell(-1), new StringCell("x"), new IntCell(2)));
+        assertSameMatches(spec, spec, Arrays.asList(0, 2), Arrays.asList(0, 2), left, right);
+        assertSameMatches(spec, spec, Arrays.asList(0, 2), Arrays.asList(2, 0), left, right);
+        assertSameMatches(spec, spec, Arrays.asList(0, 1), Arrays.asList(0, 1), left, right);
+        assertSameMatches(spec, spec, Arrays.asList(1, 0), Arrays.asList(1, 0), left, right);
+        assertSameMatches(spec, spec, Arrays.asList(ROW_ID, 1), Arrays.asList(ROW_ID, 1), left, right);
+    }
+
+    /** Bug 2625: missing values never match, neither each other nor any other value. */
+    @Test
+    public void testMissingValuesDoNotMatch() {
+        DataTableSpec spec = spec(IntCell.TYPE, StringCell.TYPE);
+        List<DataRow> left = Arrays.asList(row(0, missing(), new StringCell("a")), row(1, new IntCell(1), missing()),
+            row(2, missing(), missing()), row(3, new IntCell(1), new StringCell("a")));
+        List<DataRow> right = Arrays.asList(row(0, missing(), new StringCell("a")),
+            row(1, new IntCell(1), missing()), row(2, missing(), missing()));
+        PrimitiveKeyIndex index = fill(spec, spec, Arrays.asList(0, 1), Arrays.asList(0, 1), left);
+        for (DataRow r : right) {
+            assertThat("Matches of " + r, getMatches(index, r), is(Collections.<Integer> emptyList()));
+        }
+        index = fill(spec, spec, Arrays.asList(0), Arrays.asList(0), left);
+        assertThat(getMatches(index, right.get(0)), is(Collections.<Integer> emptyList()));
+        assertThat(getMatches(index, right.get(1)), is(Arrays.asList(1, 3)));
+        index = fill(spec, spec, Arrays.asList(1), Arrays.asList(1), left);
+        assertThat(getMatches(index, right.get(0)), is(Arrays.asList(0, 3)));
+        assertThat(getMatches(index, right.get(1)), is(Collections.<Integer> emptyList()));
+    }
+
+    /** Join columns that don't fit into a long key are left to the generic join. */
+    @Test
+    public void testUnsupportedColumns() {
+        DataTableSpec spec = spec(IntCell.TYPE, LongCell.TYPE, LongCell.TYPE, DoubleCell.TYPE, StringCell.TYPE);
+        assertNotNull(PrimitiveKeyIndex.create(spec, spec, Arrays.asList(1), Arrays.asList(2), 10));
+        assertNull("Two long columns",
+            PrimitiveKeyIndex.create(spec, spec, Arrays.asList(1, 2), Arrays.asList(1, 2), 10));
+        assertNull("Long and int column",
+            PrimitiveKeyIndex.create(spec, spec, Arrays.asList(0, 1), Arrays.asList(0, 1), 10));
+        assertNull("Double column", PrimitiveKeyIndex.create(spec, spec, Arrays.asList(3), Arrays.asList(3), 10));
+        assertNull("Different types", PrimitiveKeyIndex.create(spec, spec, Arrays.asList(0), Arrays.asList(1), 10));
+        assertNull("Int and row ID",
+            PrimitiveKeyIndex.create(spec, spec, Arrays.asList(0), Arrays.asList(ROW_ID), 10));
+        assertNull("Three columns",
+            PrimitiveKeyIndex.create(spec, spec, Arrays.asList(0, 4, ROW_ID), Arrays.asList(0, 4, ROW_ID), 10));
+        assertNull("No column", PrimitiveKeyIndex.create(spec, spec, Collections.<Integer> emptyList(),
+            Collections.<Integer> emptyList(), 10));
+        assertNull("Too many rows", PrimitiveKeyIndex.create(spec, spec, Arrays.asList(0), Arrays.asList(0),
+            Integer.MAX_VALUE + 1L));
+    }
+
+    /** Compares the matches of each row of the right table with a nested loop join. */
+    private static void assertSameMatches(final DataTableSpec leftSpec, final DataTableSpec rightSpec,
+        final List<Integer> leftIndices, final List<Integer> rightIndices, final List<DataRow> left,
+        final List<DataRow> right) {
+        PrimitiveKeyIndex index = fill(leftSpec, rightSpec, leftIndices, rightIndices, left);
+        for (DataRow r : right) {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < left.size(); i++) {
+                if (matches(left.get(i), leftIndices, r, rightIndices)) {
+                    expected.add(i);
+                }
+            }
+            assertThat("Matches of " + r, getMatches(index, r), is(expected));
+        }
+    }
+
+    private static PrimitiveKeyIndex fill(final DataTableSpec leftSpec, final DataTableSpec rightSpec,
+        final List<Integer> leftIndices, final List<Integer> rightIndices, final List<DataRow> left) {
+        PrimitiveKeyIndex index =
+            PrimitiveKeyIndex.create(leftSpec, rightSpec, leftIndices, rightIndices, left.size());
+        assertNotNull("Supported join columns", index);
+        long[] key = new long[1];
+        for (int i = 0; i < left.size(); i++) {
+            index.add(left.get(i), i, key);
+        }
+        return index;
+    }
+
+    /** @return the indices of the matching rows of the left table, in ascending order */
+    private static List<Integer> getMatches(final PrimitiveKeyIndex index, final DataRow row) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = index.getFirst(row, new long[1]); i >= 0; i = index.getNext(i)) {
+            result.add(i);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private static boolean matches(final DataRow left, final List<Integer> leftIndices, final DataRow right,
+        final List<Integer> rightIndices) {
+        for (int i = 0; i < leftIndices.size(); i++) {
+            Object l = value(left, leftIndices.get(i));
+            Object r = value(right, rightIndices.get(i));
+            if (l == null || !l.equals(r)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return the row ID or the cell, null if missing */
+    private static Object value(final DataRow row, final int index) {
+        if (index == ROW_ID) {
+            return new StringCell(row.getKey().getString());
+        }
+        DataCell cell = row.getCell(index);
+        return cell.isMissing() ? null : cell;
+    }
+
+    private static DataTableSpec spec(final DataType... types) {
+        DataColumnSpec[] columns = new DataColumnSpec[types.length];
+        for (int i = 0; i < types.length; i++) {
+            columns[i] = new DataColumnSpecCreator("Column" + i, types[i]).createSpec();
+        }
+        return new DataTableSpec(columns);
+    }
+
+    private static DataRow row(final int index, final DataCell... cells) {
+        return new DefaultRow("Row" + index, cells);
+    }
+
+    private static DataCell missing() {
+        return DataType.getMissingCell();
+    }
+
+    private static DataCell randomInt(final Random rand) {
+        return rand.nextInt(20) == 0 ? missing() : new IntCell(rand.nextInt(10) - 5);
+    }
+
+    private static DataCell randomString(final Random rand) {
+        return rand.nextInt(20) == 0 ? missing() : new StringCell("s" + rand.nextInt(10));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.util.kdtree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.util.kdtree.SpatialIndexBuilder.IndexType;
+
+/**
+ * Checks the array based spatial indices against a brute force search.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class SpatialIndexTest {
+
+    /**
+     * Tests single queries on random data, including data with many equal distances.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSearch() throws Exception {
+        final Random rand = new Random(42);
+        for (IndexType type : IndexType.values()) {
+            for (int i = 0; i < 100; i++) {
+                final boolean grid = rand.nextBoolean();
+                final int size = rand.nextInt(500) + 1;
+                final double[][] points = createPoints(rand, size, rand.nextInt(20) + 1, grid);
+                final SpatialIndexBuilder<Integer> builder = new SpatialIndexBuilder<Integer>(points[0].length);
+                for (int j = 0; j < points.length; j++) {
+                    builder.addPattern(points[j], j);
+                }
+                final SpatialIndex<Integer> index = builder.build(type, rand.nextInt(20) + 1, null);
+                final int k = rand.nextInt(Math.min(size, 20)) + 1;
+                final double[] query = createPoints(rand, 1, points[0].length, grid)[0];
+                assertEquals("Wrong neighbours for " + type, bruteForce(points, query, k),
+                    getData(index.getKNearestNeighbours(query, k)));
+            }
+        }
+    }
+
+    /**
+     * Tests that batch queries return the neighbours in the order of the queries.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testBatchSearch() throws Exception {
+        final Random rand = new Random(7);
+        final double[][] points = createPoints(rand, 2000, 5, false);
+        final SpatialIndexBuilder<Integer> builder = new SpatialIndexBuilder<Integer>(5);
+        for (int j = 0; j < points.length; j++) {
+            builder.addPattern(points[j], j);
+        }
+        final SpatialIndex<Integer> index = builder.build(IndexType.BALL_TREE, null);
+        final double[][] queries = createPoints(rand, 1000, 5, false);
+        queries[17] = null;
+        final List<List<NearestNeighbour<Integer>>> results = index.getKNearestNeighbours(queries, 3, null);
+        assertEquals("Wrong number of results", queries.length, results.size());
+        for (int i = 0; i < queries.length; i++) {
+            if (queries[i] == null) {
+                assertNull("Result for missing query", results.get(i));
+            } else {
+                assertEquals("Wrong neighbours for query " + i, bruteForce(points, queries[i], 3),
+                    getData(results.get(i)));
+            }
+        }
+    }
+
+    private static double[][] createPoints(final Random rand, final int size, final int dimensions,
+        final boolean grid) {
+        final double[][] points = new double[size][dimensions];
+        for (double[] p : points) {
+            for (int d = 0; d < dimensions; d++) {
+                p[d] = grid ? rand.nextInt(3) : 120 * (rand.nextDouble() - 0.5);
+            }
+        }
+        return points;
+    }
+
+    /** The indices of the k nearest points plus ties, sorted by distance and index. */
+    private static List<Integer> bruteForce(final double[][] points, final double[] query, final int k) {
+        final double[] dist = new double[points.length];
+        final Integer[] ids = new Integer[points.length];
+        for (int i = 0; i < points.length; i++) {
+            ids[i] = i;
+            for (int d = 0; d < query.length; d++) {
+                final double diff = points[i][d] - query[d];
+                dist[i] += diff * diff;
+            }
+        }
+        Arrays.sort(ids, (a, b) -> dist[a] != dist[b] ? Double.compare(dist[a], dist[b]) : Integer.compare(a, b));
+        final List<Integer> result = new ArrayList<Integer>();
+        for (int i = 0; i < ids.length && (i < k || dist[ids[i]] == dist[ids[k - 1]]); i++) {
+            result.add(ids[i]);
+        }
+        return result;
+    }
+
+    private static List<Integer> getData(final List<NearestNeighbour<Integer>> neighbours) {
+        final List<Integer> data = new ArrayList<Integer>();
+        for (NearestNeighbour<Integer> n : neighbours) {
+            data.add(n.getData());
+        }
+        return data;
+    }
+}
@@ -58,6 +58,7 @@
 
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
 
 import org.apache.commons.math.random.RandomData;
 import org.junit.Test;
@@ -482,4 +483,96 @@ public void testUpdateChildMemberships() throws Exception {
         assertEquals("The produced BitSet is incorrect", expected, inChild);
     }
 
+    /**
+     * Tests that the histogram split search finds the same splits as the exact search if there are fewer distinct
+     * values than bins.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testHistogramSplits() throws Exception {
+        TreeEnsembleLearnerConfiguration config = createConfig();
+        config.setUseHistogramSplits(true);
+        final double[] data = asDataArray("60,70,75,85, 90, 95, 100,120,125,220");
+        final String[] target = asStringArray("No,No,No,Yes,Yes,Yes,No, No, No, No");
+        Pair<TreeOrdinaryNumericColumnData, TreeTargetNominalColumnData> exampleData =
+            exampleData(config, data, target);
+        RandomData rd = config.createRandomData();
+        TreeOrdinaryNumericColumnData columnData = exampleData.getFirst();
+        TreeTargetNominalColumnData targetData = exampleData.getSecond();
+        assertTrue(columnData.isBinned());
+        assertEquals(data.length, columnData.getNrBins());
+        double[] rowWeights = new double[data.length];
+        Arrays.fill(rowWeights, 1.0);
+        TreeData treeData = createTreeDataClassification(exampleData);
+        DataMemberships dataMemberships =
+            new RootDataMemberships(rowWeights, treeData, new DefaultDataIndexManager(treeData));
+        ClassificationPriors priors = targetData.getDistribution(rowWeights, config);
+        SplitCandidate splitCandidate = columnData.calcBestSplitClassification(dataMemberships, priors, targetData, rd);
+        assertNotNull(splitCandidate);
+        assertEquals(0.12, splitCandidate.getGainValue(), 0.00001);
+        TreeNodeNumericCondition[] childConditions = ((NumericSplitCandidate)splitCandidate).getChildConditions();
+        assertEquals((95.0 + 100.0) / 2.0, childConditions[0].getSplitValue(), 0.0);
+
+        // the histogram of a child is the difference of the parent's and the sibling's histogram
+        NumericHistogram rootHistogram = columnData.createHistogramClassification(
+            dataMemberships.getColumnMemberships(0), targetData);
+        DataMemberships leftMemberships = dataMemberships
+            .createChildMemberships(columnData.updateChildMemberships(childConditions[0], dataMemberships));
+        DataMemberships rightMemberships = dataMemberships
+            .createChildMemberships(columnData.updateChildMemberships(childConditions[1], dataMemberships));
+        NumericHistogram leftHistogram = columnData.createHistogramClassification(
+            leftMemberships.getColumnMemberships(0), targetData);
+        NumericHistogram rightHistogram = columnData.createHistogramClassification(
+            rightMemberships.getColumnMemberships(0), targetData);
+        NumericHistogram derivedHistogram = rootHistogram.subtract(leftHistogram);
+        for (int bin = 0; bin < columnData.getNrBins(); bin++) {
+            assertEquals(rightHistogram.getWeight(bin), derivedHistogram.getWeight(bin), 0.0);
+            for (int i = 0; i < derivedHistogram.getNrStats(); i++) {
+                assertEquals(rightHistogram.getStat(bin, i), derivedHistogram.getStat(bin, i), 0.0);
+            }
+        }
+        SplitCandidate childSplit = columnData.calcBestSplitClassification(leftHistogram, leftMemberships,
+            targetData.getDistribution(leftMemberships, config), rd);
+        assertEquals(0.5, childSplit.getGainValue(), 0.00001);
+        assertEquals((75.0 + 85.0) / 2.0,
+            ((NumericSplitCandidate)childSplit).getChildConditions()[0].getSplitValue(), 0.0);
+    }
+
+    /**
+     * Tests that the values are quantized into at most 256 bins and that equal values end up in the same bin.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testHistogramBinning() throws Exception {
+        TreeEnsembleLearnerConfiguration config = createConfig();
+        config.setUseHistogramSplits(true);
+        final int nrRows = 1000;
+        final double[] data = new double[nrRows];
+        for (int i = 0; i < nrRows; i++) {
+            data[i] = i < 500 ? 0 : i;
+        }
+        TreeOrdinaryNumericColumnData columnData = createNumericColumnData(config, data, "test-col", 0);
+        assertTrue(columnData.isBinned());
+        assertTrue(columnData.getNrBins() <= TreeEnsembleLearnerConfiguration.MAX_HISTOGRAM_BINS);
+        TreeTargetNumericColumnData target = TestDataGenerator.createNumericTargetColumn(
+            String.join(",", Collections.nCopies(nrRows, "1")));
+        double[] weights = new double[nrRows];
+        Arrays.fill(weights, 1.0);
+        TreeData treeData = new TreeData(new TreeAttributeColumnData[]{columnData}, target, TreeType.Ordinary);
+        DataMemberships dataMemberships =
+            new RootDataMemberships(weights, treeData, new DefaultDataIndexManager(treeData));
+        NumericHistogram histogram = columnData.createHistogramRegression(dataMemberships.getColumnMemberships(0),
+            target);
+        // all zeros are in the first bin
+        assertEquals(500.0, histogram.getWeight(0), 0.0);
+        double totalWeight = 0;
+        for (int bin = 0; bin < histogram.getNrBins(); bin++) {
+            totalWeight += histogram.getWeight(bin);
+        }
+        assertEquals(nrRows, totalWeight, 0.0);
+        assertFalse(createNumericColumnData(createConfig(), data, "test-col", 0).isBinned());
+    }
+
 }
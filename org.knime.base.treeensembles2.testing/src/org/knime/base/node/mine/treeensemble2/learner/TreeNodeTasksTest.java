@@ -0,0 +1,110 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.treeensemble2.learner;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.knime.base.node.mine.treeensemble2.learner.TreeNodeTasks.NodeTask;
+import org.knime.core.node.CanceledExecutionException;
+
+/**
+ * Contains unit tests for the class {@link TreeNodeTasks}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TreeNodeTasksTest {
+
+    /**
+     * Tests that nested tasks, as they are created for the subtrees of a tree, return their results in the order of
+     * the tasks.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testInvokeAllNested() throws Exception {
+        assertEquals("Wrong number of leaves.", 1 << 10, countLeaves(10));
+        final List<NodeTask<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final int value = i;
+            tasks.add(() -> value);
+        }
+        final List<Integer> results = TreeNodeTasks.invokeAll(tasks);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Wrong result order.", i, results.get(i).intValue());
+        }
+    }
+
+    /**
+     * Tests that a {@link CanceledExecutionException} of a task is passed to the calling thread.
+     *
+     * @throws Exception
+     */
+    @Test(expected = CanceledExecutionException.class)
+    public void testInvokeAllCanceled() throws Exception {
+        final List<NodeTask<Integer>> tasks = Arrays.asList(() -> 1, () -> {
+            throw new CanceledExecutionException();
+        });
+        TreeNodeTasks.invokeAll(tasks);
+    }
+
+    private static int countLeaves(final int depth) throws CanceledExecutionException {
+        if (depth == 0) {
+            return 1;
+        }
+        final List<NodeTask<Integer>> children = Arrays.asList(() -> countLeaves(depth - 1),
+            () -> countLeaves(depth - 1));
+        int count = 0;
+        for (int childCount : TreeNodeTasks.invokeAll(children)) {
+            count += childCount;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.treeensemble2.model;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+import org.knime.base.node.mine.treeensemble2.data.NominalValueRepresentation;
+import org.knime.base.node.mine.treeensemble2.data.PredictorRecord;
+import org.knime.base.node.mine.treeensemble2.data.TestDataGenerator;
+import org.knime.base.node.mine.treeensemble2.data.TreeAttributeColumnMetaData;
+import org.knime.base.node.mine.treeensemble2.data.TreeMetaData;
+import org.knime.base.node.mine.treeensemble2.data.TreeNominalColumnMetaData;
+import org.knime.base.node.mine.treeensemble2.data.TreeNumericColumnMetaData;
+import org.knime.base.node.mine.treeensemble2.data.TreeTargetNumericColumnMetaData;
+import org.knime.base.node.mine.treeensemble2.model.AbstractTreeEnsembleModel.TreeType;
+import org.knime.base.node.mine.treeensemble2.model.TreeNodeNumericCondition.NumericOperator;
+import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * This class contains unit tests for the class {@link CompiledTreeEnsemble}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CompiledTreeEnsembleTest {
+
+    /**
+     * Tests that the compiled trees find the same nodes as
+     * {@link AbstractTreeModel#findMatchingNode(PredictorRecord)}.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFindMatchingNode() throws Exception {
+        final TreeEnsembleLearnerConfiguration config = new TreeEnsembleLearnerConfiguration(true);
+        final TestDataGenerator dataGen = new TestDataGenerator(config);
+        final TreeNumericColumnMetaData num =
+            dataGen.createNumericAttributeColumn("1,2,3,4", "num", 0).getMetaData();
+        final TreeNominalColumnMetaData nom =
+            dataGen.createNominalAttributeColumn("A,B,C,D", "nom", 1).getMetaData();
+        final TreeTargetNumericColumnMetaData target = new TreeTargetNumericColumnMetaData("target");
+        final TreeMetaData metaData =
+            TreeMetaData.createTreeMetaData(new TreeAttributeColumnMetaData[]{num, nom}, target);
+        final BigInteger mask = BigInteger.ZERO.setBit(getAssignedInteger(nom, "A"))
+            .setBit(getAssignedInteger(nom, "C"));
+
+        // first tree splits on the numeric column, the second on the nominal column and then on the numeric column
+        // with the nominal column as surrogate
+        final TreeModelRegression numericTree = createTree(target,
+            new TreeNodeNumericCondition(num, 2.5, NumericOperator.LessThanOrEqual, true),
+            new TreeNodeNumericCondition(num, 2.5, NumericOperator.LargerThan, false));
+        final TreeNodeRegression left = createNode(target, 1, 10, 2);
+        left.setTreeNodeCondition(new TreeNodeNominalBinaryCondition(nom, mask, true, false));
+        final TreeNodeRegression right = createNode(target, 2, 20, 0);
+        right.setTreeNodeCondition(new TreeNodeNominalBinaryCondition(nom, mask, false, true));
+        final TreeNodeRegression leftLeft = createNode(target, 3, 30, 0);
+        leftLeft.setTreeNodeCondition(new TreeNodeSurrogateCondition(new TreeNodeColumnCondition[]{
+            new TreeNodeNumericCondition(num, 3.5, NumericOperator.LessThanOrEqual, false),
+            new TreeNodeNominalCondition(nom, getAssignedInteger(nom, "A"), false)}, true));
+        final TreeNodeRegression leftRight = createNode(target, 4, 40, 0);
+        leftRight.setTreeNodeCondition(new TreeNodeSurrogateCondition(new TreeNodeColumnCondition[]{
+            new TreeNodeNumericCondition(num, 3.5, NumericOperator.LargerThan, false),
+            new TreeNodeNominalCondition(nom, getAssignedInteger(nom, "C"), false)}, false));
+        left.registerChild(0, leftLeft);
+        left.registerChild(1, leftRight);
+        final TreeNodeRegression root = createNode(target, 0, 0, 2);
+        root.setTreeNodeCondition(TreeNodeTrueCondition.INSTANCE);
+        root.registerChild(0, left);
+        root.registerChild(1, right);
+        final TreeModelRegression nominalTree = new TreeModelRegression(root);
+
+        final TreeEnsembleModel model = new TreeEnsembleModel(metaData,
+            new AbstractTreeModel[]{numericTree, nominalTree}, TreeType.Ordinary, false);
+        final CompiledTreeEnsemble compiled = CompiledTreeEnsemble.compile(model);
+        assertNotNull("Model was not compiled", compiled);
+
+        final DataTableSpec learnSpec = new DataTableSpec(new String[]{"num", "nom"},
+            new DataType[]{DoubleCell.TYPE, StringCell.TYPE});
+        final DataCell[] numCells = new DataCell[]{new DoubleCell(1), new DoubleCell(2.5), new DoubleCell(3),
+            new DoubleCell(4), new DoubleCell(Double.NaN), DataType.getMissingCell()};
+        final DataCell[] nomCells = new DataCell[]{new StringCell("A"), new StringCell("B"), new StringCell("C"),
+            new StringCell("D"), new StringCell("unknown"), DataType.getMissingCell()};
+        for (DataCell numCell : numCells) {
+            for (DataCell nomCell : nomCells) {
+                final DataRow row = new DefaultRow("Row", numCell, nomCell);
+                final PredictorRecord record = model.createPredictorRecord(row, learnSpec);
+                final double[] compiledRecord = compiled.createRecord(row);
+                for (int i = 0; i < model.getNrModels(); i++) {
+                    assertSame("Wrong node for " + row + " in tree " + i,
+                        model.getTreeModel(i).findMatchingNode(record),
+                        compiled.getNode(compiled.findMatchingNode(i, compiledRecord)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that the node values are computed for the nodes of the respective tree.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCreateNodeValues() throws Exception {
+        final TreeEnsembleLearnerConfiguration config = new TreeEnsembleLearnerConfiguration(true);
+        final TestDataGenerator dataGen = new TestDataGenerator(config);
+        final TreeNumericColumnMetaData num =
+            dataGen.createNumericAttributeColumn("1,2,3,4", "num", 0).getMetaData();
+        final TreeTargetNumericColumnMetaData target = new TreeTargetNumericColumnMetaData("target");
+        final TreeMetaData metaData = TreeMetaData.createTreeMetaData(new TreeAttributeColumnMetaData[]{num}, target);
+        final TreeModelRegression[] trees = new TreeModelRegression[3];
+        for (int i = 0; i < trees.length; i++) {
+            trees[i] = createTree(target, new TreeNodeNumericCondition(num, i, NumericOperator.LessThanOrEqual, true),
+                new TreeNodeNumericCondition(num, i, NumericOperator.LargerThan, false));
+        }
+        final CompiledTreeEnsemble compiled =
+            CompiledTreeEnsemble.compile(new TreeEnsembleModel(metaData, trees, TreeType.Ordinary, false));
+        final double[] values =
+            compiled.createNodeValues((tree, node) -> 100 * tree + ((TreeNodeRegression)node).getMean());
+        final double[] record = new double[]{1.5};
+        assertTrue(values[compiled.findMatchingNode(0, record)] == 2);
+        assertTrue(values[compiled.findMatchingNode(1, record)] == 102);
+        assertTrue(values[compiled.findMatchingNode(2, record)] == 201);
+    }
+
+    /**
+     * Tests that models with conditions that can't be compiled are rejected.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUnsupportedCondition() throws Exception {
+        final TreeTargetNumericColumnMetaData target = new TreeTargetNumericColumnMetaData("target");
+        final TreeNumericColumnMetaData num = new TreeNumericColumnMetaData("num");
+        final TreeMetaData metaData = TreeMetaData.createTreeMetaData(new TreeAttributeColumnMetaData[]{num}, target);
+        final TreeModelRegression tree = createTree(target, new TreeNodeCondition() {
+            @Override
+            public boolean testCondition(final PredictorRecord record) {
+                return true;
+            }
+
+            @Override
+            public org.knime.base.node.mine.decisiontree2.PMMLPredicate toPMMLPredicate() {
+                return null;
+            }
+        }, TreeNodeTrueCondition.INSTANCE);
+        assertNull(CompiledTreeEnsemble.compile(
+            new TreeEnsembleModel(metaData, new AbstractTreeModel[]{tree}, TreeType.Ordinary, false)));
+    }
+
+    /** Creates a tree with a root and two leaves with mean 1 and 2. */
+    private static TreeModelRegression createTree(final TreeTargetNumericColumnMetaData target,
+        final TreeNodeCondition leftCondition, final TreeNodeCondition rightCondition) {
+        final TreeNodeRegression left = createNode(target, 0, 1, 0);
+        left.setTreeNodeCondition(leftCondition);
+        final TreeNodeRegression right = createNode(target, 1, 2, 0);
+        right.setTreeNodeCondition(rightCondition);
+        final TreeNodeRegression root = new TreeNodeRegression(target, TreeNodeSignature.ROOT_SIGNATURE, 0, 0, 0,
+            new TreeNodeRegression[]{left, right});
+        root.setTreeNodeCondition(TreeNodeTrueCondition.INSTANCE);
+        return new TreeModelRegression(root);
+    }
+
+    private static TreeNodeRegression createNode(final TreeTargetNumericColumnMetaData target, final int id,
+        final double mean, final int nrChildren) {
+        return new TreeNodeRegression(target, TreeNodeSignature.ROOT_SIGNATURE.createChildSignature((byte)id), mean,
+            0, 0, new TreeNodeRegression[nrChildren]);
+    }
+
+    private static int getAssignedInteger(final TreeNominalColumnMetaData meta, final String value) {
+        for (NominalValueRepresentation rep : meta.getValues()) {
+            if (rep.getNominalValue().equals(value)) {
+                return rep.getAssignedInteger();
+            }
+        }
+        throw new IllegalArgumentException(value);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.treeensemble2.data;
+
+/**
+ * Histogram of the target over the bins of a binned {@link TreeOrdinaryNumericColumnData} for the rows of a tree node.
+ * For each bin it holds the sum of the row weights and a fixed number of target statistics, which are the weighted
+ * class counts for a nominal target and the weighted sum of the target values for a numeric target. The rows with a
+ * missing value in the column are summarized separately.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public final class NumericHistogram {
+
+    private final int m_nrBins;
+
+    private final int m_nrStats;
+
+    private final double[] m_weights;
+
+    private final double[] m_stats;
+
+    private double m_missingWeight;
+
+    private final double[] m_missingStats;
+
+    NumericHistogram(final int nrBins, final int nrStats) {
+        m_nrBins = nrBins;
+        m_nrStats = nrStats;
+        m_weights = new double[nrBins];
+        m_stats = new double[nrBins * nrStats];
+        m_missingStats = new double[nrStats];
+    }
+
+    void add(final int bin, final int stat, final double weight, final double value) {
+        m_weights[bin] += weight;
+        m_stats[bin * m_nrStats + stat] += value;
+    }
+
+    void addMissing(final int stat, final double weight, final double value) {
+        m_missingWeight += weight;
+        m_missingStats[stat] += value;
+    }
+
+    /**
+     * @return the number of bins
+     */
+    public int getNrBins() {
+        return m_nrBins;
+    }
+
+    /**
+     * @return the number of target statistics per bin
+     */
+    public int getNrStats() {
+        return m_nrStats;
+    }
+
+    double getWeight(final int bin) {
+        return m_weights[bin];
+    }
+
+    double getStat(final int bin, final int stat) {
+        return m_stats[bin * m_nrStats + stat];
+    }
+
+    double getMissingWeight() {
+        return m_missingWeight;
+    }
+
+    double getMissingStat(final int stat) {
+        return m_missingStats[stat];
+    }
+
+    /**
+     * Creates the histogram of the rows that are contained in this histogram but not in <b>sibling</b>. This is used
+     * to derive the histogram of a child node from the histograms of its parent and its sibling without iterating
+     * the rows of the child, hence <b>sibling</b> must contain a subset of the rows of this histogram.
+     *
+     * @param sibling histogram of a subset of the rows of this histogram, created for the same column
+     * @return the histogram of the remaining rows
+     */
+    public NumericHistogram subtract(final NumericHistogram sibling) {
+        if (sibling.m_nrBins != m_nrBins || sibling.m_nrStats != m_nrStats) {
+            throw new IllegalArgumentException("Histograms with different number of bins or statistics");
+        }
+        final NumericHistogram result = new NumericHistogram(m_nrBins, m_nrStats);
+        for (int bin = 0; bin < m_nrBins; bin++) {
+            final double weight = m_weights[bin] - sibling.m_weights[bin];
+            // leave empty bins at zero, the statistics of an empty bin might be off due to rounding
+            if (weight >= TreeColumnData.EPSILON) {
+                result.m_weights[bin] = weight;
+                for (int i = bin * m_nrStats; i < (bin + 1) * m_nrStats; i++) {
+                    result.m_stats[i] = m_stats[i] - sibling.m_stats[i];
+                }
+            }
+        }
+        final double missingWeight = m_missingWeight - sibling.m_missingWeight;
+        if (missingWeight >= TreeColumnData.EPSILON) {
+            result.m_missingWeight = missingWeight;
+            for (int i = 0; i < m_nrStats; i++) {
+                result.m_missingStats[i] = m_missingStats[i] - sibling.m_missingStats[i];
+            }
+        }
+        return result;
+    }
+
+}
@@ -48,8 +48,16 @@
 package org.knime.base.node.mine.treeensemble2.data;
 
 import java.util.Arrays;
+import java.util.BitSet;
 
+import org.apache.commons.math.random.RandomData;
+import org.knime.base.node.mine.treeensemble2.data.memberships.ColumnMemberships;
+import org.knime.base.node.mine.treeensemble2.data.memberships.DataMemberships;
+import org.knime.base.node.mine.treeensemble2.learner.IImpurity;
+import org.knime.base.node.mine.treeensemble2.learner.NumericSplitCandidate;
+import org.knime.base.node.mine.treeensemble2.learner.SplitCandidate;
 import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration;
+import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration.MissingValueHandling;
 
 /**
  *
@@ -61,15 +69,35 @@ public class TreeOrdinaryNumericColumnData extends TreeNumericColumnData {
     private final int m_indexFirstMissing;
     private final boolean m_containsMissingValues;
 
+    /** The bin of each non-missing value in the sorted data or null if the column is not binned. */
+    private final byte[] m_binIndices;
+
+    /** The smallest value in each bin. */
+    private final float[] m_binLowerBounds;
+
+    /** The largest value in each bin. */
+    private final float[] m_binUpperBounds;
+
 //    private final int[] m_originalIndexInColumnList;
 
     TreeOrdinaryNumericColumnData(final TreeNumericColumnMetaData metaData,
         final TreeEnsembleLearnerConfiguration configuration, final float[] sortedData,
         final int[] orginalIndexInColumnList, final boolean containsMissingValues, final int indexFirstMissing) {
+        this(metaData, configuration, sortedData, orginalIndexInColumnList, containsMissingValues, indexFirstMissing,
+            null, null, null);
+    }
+
+    TreeOrdinaryNumericColumnData(final TreeNumericColumnMetaData metaData,
+        final TreeEnsembleLearnerConfiguration configuration, final float[] sortedData,
+        final int[] orginalIndexInColumnList, final boolean containsMissingValues, final int indexFirstMissing,
+        final byte[] binIndices, final float[] binLowerBounds, final float[] binUpperBounds) {
         super(metaData, configuration, orginalIndexInColumnList);
         m_sortedData = sortedData;
         m_indexFirstMissing = indexFirstMissing;
         m_containsMissingValues = containsMissingValues;
+        m_binIndices = binIndices;
+        m_binLowerBounds = binLowerBounds;
+        m_binUpperBounds = binUpperBounds;
 //        m_originalIndexInColumnList = orginalIndexInColumnList;
     }
 
@@ -117,4 +145,348 @@ public boolean containsMissingValues() {
         return m_containsMissingValues;
     }
 
+    /**
+     * @return true if the values are quantized into bins and the splits are searched on histograms
+     * @since 3.7
+     */
+    public boolean isBinned() {
+        return m_binIndices != null;
+    }
+
+    /**
+     * @return the number of bins, 0 if the column is not binned
+     * @since 3.7
+     */
+    public int getNrBins() {
+        return m_binUpperBounds == null ? 0 : m_binUpperBounds.length;
+    }
+
+    /**
+     * Creates the histogram of the class counts of the rows in <b>columnMemberships</b>.
+     *
+     * @param columnMemberships the rows of the tree node
+     * @param targetColumn the nominal target
+     * @return the histogram of the class counts in each bin
+     * @since 3.7
+     */
+    public NumericHistogram createHistogramClassification(final ColumnMemberships columnMemberships,
+        final TreeTargetNominalColumnData targetColumn) {
+        checkBinned();
+        final NumericHistogram histogram =
+            new NumericHistogram(getNrBins(), targetColumn.getMetaData().getValues().length);
+        final int lengthNonMissing = getLengthNonMissing();
+        columnMemberships.reset();
+        while (columnMemberships.next()) {
+            final double weight = columnMemberships.getRowWeight();
+            final int target = targetColumn.getValueFor(columnMemberships.getOriginalIndex());
+            final int indexInColumn = columnMemberships.getIndexInColumn();
+            if (indexInColumn < lengthNonMissing) {
+                histogram.add(m_binIndices[indexInColumn] & 0xFF, target, weight, weight);
+            } else {
+                histogram.addMissing(target, weight, weight);
+            }
+        }
+        columnMemberships.reset();
+        return histogram;
+    }
+
+    /**
+     * Creates the histogram of the target sums of the rows in <b>columnMemberships</b>.
+     *
+     * @param columnMemberships the rows of the tree node
+     * @param targetColumn the numeric target
+     * @return the histogram of the weighted target sum in each bin
+     * @since 3.7
+     */
+    public NumericHistogram createHistogramRegression(final ColumnMemberships columnMemberships,
+        final TreeTargetNumericColumnData targetColumn) {
+        checkBinned();
+        final NumericHistogram histogram = new NumericHistogram(getNrBins(), 1);
+        final int lengthNonMissing = getLengthNonMissing();
+        columnMemberships.reset();
+        while (columnMemberships.next()) {
+            final double weight = columnMemberships.getRowWeight();
+            final double y = weight * targetColumn.getValueFor(columnMemberships.getOriginalIndex());
+            final int indexInColumn = columnMemberships.getIndexInColumn();
+            if (indexInColumn < lengthNonMissing) {
+                histogram.add(m_binIndices[indexInColumn] & 0xFF, 0, weight, y);
+            } else {
+                histogram.addMissing(0, weight, y);
+            }
+        }
+        columnMemberships.reset();
+        return histogram;
+    }
+
+    private void checkBinned() {
+        if (!isBinned()) {
+            throw new IllegalStateException("Column \"" + getMetaData().getAttributeName() + "\" is not binned");
+        }
+    }
+
+    @Override
+    public NumericSplitCandidate calcBestSplitClassification(final DataMemberships dataMemberships,
+        final ClassificationPriors targetPriors, final TreeTargetNominalColumnData targetColumn, final RandomData rd) {
+        if (!isBinned()) {
+            return super.calcBestSplitClassification(dataMemberships, targetPriors, targetColumn, rd);
+        }
+        final ColumnMemberships columnMemberships =
+            dataMemberships.getColumnMemberships(getMetaData().getAttributeIndex());
+        return calcBestSplitClassification(createHistogramClassification(columnMemberships, targetColumn),
+            dataMemberships, targetPriors, rd);
+    }
+
+    @Override
+    public SplitCandidate calcBestSplitRegression(final DataMemberships dataMemberships,
+        final RegressionPriors targetPriors, final TreeTargetNumericColumnData targetColumn, final RandomData rd) {
+        if (!isBinned()) {
+            return super.calcBestSplitRegression(dataMemberships, targetPriors, targetColumn, rd);
+        }
+        final ColumnMemberships columnMemberships =
+            dataMemberships.getColumnMemberships(getMetaData().getAttributeIndex());
+        return calcBestSplitRegression(createHistogramRegression(columnMemberships, targetColumn), dataMemberships,
+            targetPriors, rd);
+    }
+
+    /**
+     * Calculates the best split for classification on the boundaries of the bins. Equivalent to
+     * {@link #calcBestSplitClassification(DataMemberships, ClassificationPriors, TreeTargetNominalColumnData,
+     * RandomData)} except that only the bin boundaries are considered as split points.
+     *
+     * @param histogram the histogram of the rows in <b>dataMemberships</b>, see
+     *            {@link #createHistogramClassification(ColumnMemberships, TreeTargetNominalColumnData)}
+     * @param dataMemberships the rows of the tree node
+     * @param targetPriors the class distribution of the tree node
+     * @param rd used for random tie breaking
+     * @return the best split or null if there is no valuable split
+     * @since 3.7
+     */
+    public NumericSplitCandidate calcBestSplitClassification(final NumericHistogram histogram,
+        final DataMemberships dataMemberships, final ClassificationPriors targetPriors, final RandomData rd) {
+        final TreeEnsembleLearnerConfiguration config = getConfiguration();
+        final boolean useAverageSplitPoints = config.isUseAverageSplitPoints();
+        final int minChildNodeSize = config.getMinChildSize();
+        final boolean useXGBoostMissingValueHandling = config.getMissingValueHandling() == MissingValueHandling.XGBoost;
+        final IImpurity impurityCriterion = targetPriors.getImpurityCriterion();
+        final int targetCounts = histogram.getNrStats();
+        final double totalSumWeight = targetPriors.getNrRecords();
+
+        final double missingWeight = histogram.getMissingWeight();
+        final boolean branchContainsMissingValues = missingWeight > 0.0;
+        final double[] missingTargetCounts = new double[targetCounts];
+        final double[] targetCountsLeftOfSplit = new double[targetCounts];
+        final double[] targetCountsRightOfSplit = targetPriors.getDistribution().clone();
+        assert targetCountsRightOfSplit.length == targetCounts;
+        for (int i = 0; i < targetCounts; i++) {
+            missingTargetCounts[i] = histogram.getMissingStat(i);
+            targetCountsRightOfSplit[i] -= missingTargetCounts[i];
+        }
+        double sumWeightsLeftOfSplit = 0.0;
+        double sumWeightsRightOfSplit = totalSumWeight - missingWeight;
+        if (sumWeightsRightOfSplit < EPSILON) {
+            // all values in branch are missing
+            return null;
+        }
+        final double priorImpurity = useXGBoostMissingValueHandling || !branchContainsMissingValues
+            ? targetPriors.getPriorImpurity()
+            : impurityCriterion.getPartitionImpurity(targetCountsRightOfSplit, sumWeightsRightOfSplit);
+
+        final double[] targetCountsLeftPlusMissing = new double[targetCounts];
+        final double[] targetCountsRightPlusMissing = new double[targetCounts];
+        final double[] partitionImpurities = new double[2];
+        final double[] partitionWeights = new double[2];
+        double bestSplit = Double.NEGATIVE_INFINITY;
+        double bestGain = Double.NEGATIVE_INFINITY;
+        double bestGainValueForSplit = Double.NEGATIVE_INFINITY;
+        boolean missingsGoLeft = true;
+
+        // the split points are the boundaries between two consecutive non-empty bins
+        int lastBin = -1;
+        for (int bin = 0; bin < histogram.getNrBins(); bin++) {
+            final double binWeight = histogram.getWeight(bin);
+            if (binWeight < EPSILON) {
+                continue;
+            }
+            if (lastBin >= 0 && sumWeightsLeftOfSplit >= minChildNodeSize
+                && sumWeightsRightOfSplit >= minChildNodeSize) {
+                double postSplitImpurity;
+                boolean tempMissingsGoLeft = false;
+                if (branchContainsMissingValues && useXGBoostMissingValueHandling) {
+                    for (int i = 0; i < targetCounts; i++) {
+                        targetCountsLeftPlusMissing[i] = targetCountsLeftOfSplit[i] + missingTargetCounts[i];
+                        targetCountsRightPlusMissing[i] = targetCountsRightOfSplit[i] + missingTargetCounts[i];
+                    }
+                    // send all missing values left
+                    partitionImpurities[0] = impurityCriterion.getPartitionImpurity(targetCountsLeftPlusMissing,
+                        sumWeightsLeftOfSplit + missingWeight);
+                    partitionImpurities[1] =
+                        impurityCriterion.getPartitionImpurity(targetCountsRightOfSplit, sumWeightsRightOfSplit);
+                    partitionWeights[0] = sumWeightsLeftOfSplit + missingWeight;
+                    partitionWeights[1] = sumWeightsRightOfSplit;
+                    final double missingsLeftImpurity =
+                        impurityCriterion.getPostSplitImpurity(partitionImpurities, partitionWeights, totalSumWeight);
+                    // send all missing values right
+                    partitionImpurities[0] =
+                        impurityCriterion.getPartitionImpurity(targetCountsLeftOfSplit, sumWeightsLeftOfSplit);
+                    partitionImpurities[1] = impurityCriterion.getPartitionImpurity(targetCountsRightPlusMissing,
+                        sumWeightsRightOfSplit + missingWeight);
+                    partitionWeights[0] = sumWeightsLeftOfSplit;
+                    partitionWeights[1] = sumWeightsRightOfSplit + missingWeight;
+                    final double missingsRightImpurity =
+                        impurityCriterion.getPostSplitImpurity(partitionImpurities, partitionWeights, totalSumWeight);
+
+                    // take better split
+                    if (missingsLeftImpurity < missingsRightImpurity) {
+                        postSplitImpurity = missingsLeftImpurity;
+                        partitionWeights[0] = sumWeightsLeftOfSplit + missingWeight;
+                        partitionWeights[1] = sumWeightsRightOfSplit;
+                        tempMissingsGoLeft = true;
+                    } else {
+                        postSplitImpurity = missingsRightImpurity;
+                        tempMissingsGoLeft = false;
+                    }
+                } else {
+                    partitionImpurities[0] =
+                        impurityCriterion.getPartitionImpurity(targetCountsLeftOfSplit, sumWeightsLeftOfSplit);
+                    partitionImpurities[1] =
+                        impurityCriterion.getPartitionImpurity(targetCountsRightOfSplit, sumWeightsRightOfSplit);
+                    partitionWeights[0] = sumWeightsLeftOfSplit;
+                    partitionWeights[1] = sumWeightsRightOfSplit;
+                    postSplitImpurity =
+                        impurityCriterion.getPostSplitImpurity(partitionImpurities, partitionWeights, totalSumWeight);
+                }
+
+                if (postSplitImpurity < priorImpurity) {
+                    // absolute gain, see TreeNumericColumnData#calcBestSplitClassification
+                    final double gain = priorImpurity - postSplitImpurity;
+                    final boolean randomTieBreaker = gain == bestGain ? rd.nextInt(0, 1) == 1 : false;
+                    if (gain > bestGain || randomTieBreaker) {
+                        bestGainValueForSplit = impurityCriterion.getGain(priorImpurity, postSplitImpurity,
+                            partitionWeights, totalSumWeight);
+                        bestGain = gain;
+                        bestSplit = getSplitValue(lastBin, bin, useAverageSplitPoints);
+                        missingsGoLeft = branchContainsMissingValues ? tempMissingsGoLeft
+                            : sumWeightsLeftOfSplit > sumWeightsRightOfSplit;
+                    }
+                }
+            }
+            for (int i = 0; i < targetCounts; i++) {
+                final double count = histogram.getStat(bin, i);
+                targetCountsLeftOfSplit[i] += count;
+                targetCountsRightOfSplit[i] -= count;
+            }
+            sumWeightsLeftOfSplit += binWeight;
+            sumWeightsRightOfSplit -= binWeight;
+            lastBin = bin;
+        }
+
+        if (bestGainValueForSplit < 0.0) {
+            return null;
+        }
+        return createSplitCandidate(dataMemberships, bestSplit, bestGainValueForSplit, missingsGoLeft);
+    }
+
+    /**
+     * Calculates the best split for regression on the boundaries of the bins. Equivalent to
+     * {@link #calcBestSplitRegression(DataMemberships, RegressionPriors, TreeTargetNumericColumnData, RandomData)}
+     * except that only the bin boundaries are considered as split points.
+     *
+     * @param histogram the histogram of the rows in <b>dataMemberships</b>, see
+     *            {@link #createHistogramRegression(ColumnMemberships, TreeTargetNumericColumnData)}
+     * @param dataMemberships the rows of the tree node
+     * @param targetPriors the target priors of the tree node
+     * @param rd used for random tie breaking
+     * @return the best split or null if there is no valuable split
+     * @since 3.7
+     */
+    public NumericSplitCandidate calcBestSplitRegression(final NumericHistogram histogram,
+        final DataMemberships dataMemberships, final RegressionPriors targetPriors, final RandomData rd) {
+        final TreeEnsembleLearnerConfiguration config = getConfiguration();
+        final boolean useAverageSplitPoints = config.isUseAverageSplitPoints();
+        final int minChildNodeSize = config.getMinChildSize();
+        final boolean useXGBoostMissingValueHandling = config.getMissingValueHandling() == MissingValueHandling.XGBoost;
+
+        final double missingWeight = histogram.getMissingWeight();
+        final double missingY = histogram.getMissingStat(0);
+        final boolean branchContainsMissingValues = missingWeight > 0.0;
+        final double ySumTotal = targetPriors.getYSum() - missingY;
+        final double nrRecordsTotal = targetPriors.getNrRecords() - missingWeight;
+        if (nrRecordsTotal < EPSILON) {
+            // all values in the current branch are missing
+            return null;
+        }
+        final double criterionTotal = useXGBoostMissingValueHandling
+            ? (ySumTotal + missingY) * (ySumTotal + missingY) / (nrRecordsTotal + missingWeight)
+            : ySumTotal * ySumTotal / nrRecordsTotal;
+
+        double ySumLeft = 0.0;
+        double nrRecordsLeft = 0.0;
+        double ySumRight = ySumTotal;
+        double nrRecordsRight = nrRecordsTotal;
+
+        double bestSplit = Double.NEGATIVE_INFINITY;
+        double bestImprovement = 0.0;
+        boolean missingsGoLeft = true;
+
+        // the split points are the boundaries between two consecutive non-empty bins
+        int lastBin = -1;
+        for (int bin = 0; bin < histogram.getNrBins(); bin++) {
+            final double binWeight = histogram.getWeight(bin);
+            if (binWeight < EPSILON) {
+                continue;
+            }
+            if (lastBin >= 0 && nrRecordsLeft >= minChildNodeSize && nrRecordsRight >= minChildNodeSize) {
+                boolean tempMissingsGoLeft = true;
+                double childrenSquaredSum;
+                if (branchContainsMissingValues && useXGBoostMissingValueHandling) {
+                    final double missingsLeft =
+                        ((ySumLeft + missingY) * (ySumLeft + missingY) / (nrRecordsLeft + missingWeight))
+                            + (ySumRight * ySumRight / nrRecordsRight);
+                    final double missingsRight = (ySumLeft * ySumLeft / nrRecordsLeft)
+                        + ((ySumRight + missingY) * (ySumRight + missingY) / (nrRecordsRight + missingWeight));
+                    tempMissingsGoLeft = missingsLeft >= missingsRight;
+                    childrenSquaredSum = tempMissingsGoLeft ? missingsLeft : missingsRight;
+                } else {
+                    childrenSquaredSum =
+                        (ySumLeft * ySumLeft / nrRecordsLeft) + (ySumRight * ySumRight / nrRecordsRight);
+                }
+                final double criterion = childrenSquaredSum - criterionTotal;
+                final boolean randomTieBreaker = criterion == bestImprovement ? rd.nextInt(0, 1) == 1 : false;
+                if (criterion > bestImprovement || randomTieBreaker) {
+                    bestImprovement = criterion;
+                    bestSplit = getSplitValue(lastBin, bin, useAverageSplitPoints);
+                    missingsGoLeft = branchContainsMissingValues ? tempMissingsGoLeft : nrRecordsLeft >= nrRecordsRight;
+                }
+            }
+            final double ySumBin = histogram.getStat(bin, 0);
+            ySumLeft += ySumBin;
+            ySumRight -= ySumBin;
+            nrRecordsLeft += binWeight;
+            nrRecordsRight -= binWeight;
+            lastBin = bin;
+        }
+
+        if (bestImprovement > 0.0) {
+            return createSplitCandidate(dataMemberships, bestSplit, bestImprovement, missingsGoLeft);
+        }
+        return null;
+    }
+
+    private double getSplitValue(final int lastBin, final int bin, final boolean useAverageSplitPoints) {
+        return useAverageSplitPoints ? getCenter(m_binUpperBounds[lastBin], m_binLowerBounds[bin])
+            : m_binUpperBounds[lastBin];
+    }
+
+    private NumericSplitCandidate createSplitCandidate(final DataMemberships dataMemberships, final double splitValue,
+        final double gainValue, final boolean missingsGoLeft) {
+        if (getConfiguration().getMissingValueHandling() == MissingValueHandling.XGBoost) {
+            return new NumericSplitCandidate(this, splitValue, gainValue, new BitSet(),
+                missingsGoLeft ? NumericSplitCandidate.MISSINGS_GO_LEFT : NumericSplitCandidate.MISSINGS_GO_RIGHT);
+        }
+        final ColumnMemberships columnMemberships =
+            dataMemberships.getColumnMemberships(getMetaData().getAttributeIndex());
+        return new NumericSplitCandidate(this, splitValue, gainValue, getMissedRows(columnMemberships),
+            NumericSplitCandidate.NO_MISSINGS);
+    }
+
 }
@@ -119,10 +119,54 @@ public TreeOrdinaryNumericColumnData createColumnData(final int attributeIndex,
         final TreeNumericColumnMetaData metaData = new TreeNumericColumnMetaData(n);
         final boolean containsMissingValues = m_numMissing > 0 ? true : false;
         final int numNonMissing = length - m_numMissing;
+        if (configuration.isUseHistogramSplits()) {
+            return createBinnedColumnData(metaData, configuration, sortedData, sortIndex, containsMissingValues,
+                numNonMissing);
+        }
         return new TreeOrdinaryNumericColumnData(metaData, configuration, sortedData, sortIndex, containsMissingValues,
             numNonMissing);
     }
 
+    /**
+     * Quantizes the sorted non-missing values into at most {@link TreeEnsembleLearnerConfiguration#MAX_HISTOGRAM_BINS}
+     * bins of roughly equal size. Each distinct value gets its own bin if there are not more distinct values than
+     * bins, values that are considered equal for the split search are never put into different bins.
+     */
+    private static TreeOrdinaryNumericColumnData createBinnedColumnData(final TreeNumericColumnMetaData metaData,
+        final TreeEnsembleLearnerConfiguration configuration, final float[] sortedData, final int[] sortIndex,
+        final boolean containsMissingValues, final int numNonMissing) {
+        final int maxBins = TreeEnsembleLearnerConfiguration.MAX_HISTOGRAM_BINS;
+        int nrDistinct = 0;
+        for (int i = 0; i < numNonMissing; i++) {
+            if (isNewValue(sortedData, i)) {
+                nrDistinct++;
+            }
+        }
+        final int minBinSize = nrDistinct <= maxBins ? 1 : (numNonMissing + maxBins - 1) / maxBins;
+        final byte[] binIndices = new byte[numNonMissing];
+        final float[] lowerBounds = new float[maxBins];
+        final float[] upperBounds = new float[maxBins];
+        int bin = -1;
+        int binSize = 0;
+        for (int i = 0; i < numNonMissing; i++) {
+            if (isNewValue(sortedData, i) && (bin < 0 || binSize >= minBinSize)) {
+                bin++;
+                lowerBounds[bin] = sortedData[i];
+                binSize = 0;
+            }
+            binIndices[i] = (byte)bin;
+            upperBounds[bin] = sortedData[i];
+            binSize++;
+        }
+        final int nrBins = bin + 1;
+        return new TreeOrdinaryNumericColumnData(metaData, configuration, sortedData, sortIndex, containsMissingValues,
+            numNonMissing, binIndices, Arrays.copyOf(lowerBounds, nrBins), Arrays.copyOf(upperBounds, nrBins));
+    }
+
+    private static boolean isNewValue(final float[] sortedData, final int index) {
+        return index == 0 || (sortedData[index] - sortedData[index - 1]) >= TreeColumnData.EPSILON;
+    }
+
     private static class Tuple implements Comparable<Tuple> {
         private float m_value;
 
@@ -49,6 +49,7 @@
 
 import org.apache.commons.math.random.RandomData;
 import org.knime.base.node.mine.treeensemble2.data.TreeData;
+import org.knime.base.node.mine.treeensemble2.data.memberships.DataMemberships;
 import org.knime.base.node.mine.treeensemble2.data.memberships.IDataIndexManager;
 import org.knime.base.node.mine.treeensemble2.model.AbstractTreeModel;
 import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration;
@@ -139,6 +140,27 @@ final TreeNodeSignatureFactory getSignatureFactory() {
         return m_signatureFactory;
     }
 
+    /**
+     * @param dataMemberships the rows of a tree node
+     * @return true if the columns and children of the node are processed in parallel
+     */
+    final boolean isProcessInParallel(final DataMemberships dataMemberships) {
+        return m_config.isUseIntraTreeParallelism()
+            && dataMemberships.getRowCount() >= TreeNodeTasks.MIN_ROWS_PARALLEL;
+    }
+
+    /**
+     * Derives the random data of a child node or column from the random data of its parent node. Used if
+     * {@link TreeEnsembleLearnerConfiguration#isUseIntraTreeParallelism()} is set so that each task has its own
+     * random data and the tree doesn't depend on the order in which the tasks are executed.
+     *
+     * @param rd the random data of the parent node
+     * @return random data seeded from <b>rd</b>
+     */
+    static RandomData createChildRandomData(final RandomData rd) {
+        return TreeEnsembleLearnerConfiguration.createRandomData(rd.nextLong(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
     /**
      * Learns a single decision tree model
      *
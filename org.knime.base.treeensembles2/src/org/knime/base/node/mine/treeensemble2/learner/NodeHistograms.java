@@ -0,0 +1,201 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.treeensemble2.learner;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+import org.knime.base.node.mine.treeensemble2.data.NumericHistogram;
+import org.knime.base.node.mine.treeensemble2.data.TreeAttributeColumnData;
+import org.knime.base.node.mine.treeensemble2.data.TreeOrdinaryNumericColumnData;
+import org.knime.base.node.mine.treeensemble2.data.memberships.ColumnMemberships;
+import org.knime.base.node.mine.treeensemble2.data.memberships.DataMemberships;
+import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.KNIMEConstants;
+
+/**
+ * The histograms of the binned numeric columns for the rows of a single tree node, used if splits are searched on
+ * histograms (see {@link TreeEnsembleLearnerConfiguration#isUseHistogramSplits()}). The histograms of several columns
+ * are built in parallel in the global thread pool. For a binary split only the histograms of the smaller child are
+ * built from its rows, the ones of the larger child are the difference of the parent's and the smaller child's
+ * histograms.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class NodeHistograms {
+
+    /** Nodes with fewer rows build their histograms in the calling thread. */
+    private static final int MIN_ROWS_PARALLEL = 10000;
+
+    private final BiFunction<TreeOrdinaryNumericColumnData, ColumnMemberships, NumericHistogram> m_histogramFactory;
+
+    private final Map<TreeOrdinaryNumericColumnData, NumericHistogram> m_histograms;
+
+    /**
+     * @param histogramFactory creates the histogram of a column for the given rows, i.e. either
+     *            {@link TreeOrdinaryNumericColumnData#createHistogramClassification(ColumnMemberships,
+     *            org.knime.base.node.mine.treeensemble2.data.TreeTargetNominalColumnData)} or
+     *            {@link TreeOrdinaryNumericColumnData#createHistogramRegression(ColumnMemberships,
+     *            org.knime.base.node.mine.treeensemble2.data.TreeTargetNumericColumnData)}
+     */
+    NodeHistograms(
+        final BiFunction<TreeOrdinaryNumericColumnData, ColumnMemberships, NumericHistogram> histogramFactory) {
+        m_histogramFactory = histogramFactory;
+        m_histograms = new IdentityHashMap<>();
+    }
+
+    /**
+     * @param column a column of the tree data
+     * @return the histogram of the column or null if the column is not binned or its histogram has not been built
+     */
+    NumericHistogram get(final TreeAttributeColumnData column) {
+        return m_histograms.get(column);
+    }
+
+    /**
+     * Builds the missing histograms of all binned columns among <b>columns</b> that are not forbidden.
+     *
+     * @param columns the candidate columns of the node
+     * @param forbiddenColumnSet the columns that must not be split on
+     * @param dataMemberships the rows of the node
+     * @throws CanceledExecutionException if the thread is interrupted while waiting for the histograms
+     */
+    void build(final Iterable<TreeAttributeColumnData> columns, final BitSet forbiddenColumnSet,
+        final DataMemberships dataMemberships) throws CanceledExecutionException {
+        final List<TreeOrdinaryNumericColumnData> missing = new ArrayList<>();
+        for (TreeAttributeColumnData col : columns) {
+            if (col instanceof TreeOrdinaryNumericColumnData && ((TreeOrdinaryNumericColumnData)col).isBinned()
+                && !forbiddenColumnSet.get(col.getMetaData().getAttributeIndex()) && !m_histograms.containsKey(col)) {
+                missing.add((TreeOrdinaryNumericColumnData)col);
+            }
+        }
+        buildAll(missing, dataMemberships, this);
+    }
+
+    /**
+     * Creates the histograms of the children of a binary split. The histograms of the smaller child are built for
+     * all columns that have a histogram in this node, the ones of the larger child are derived from them. If the
+     * children don't partition the rows of this node, e.g. because rows with a missing value are not passed to any
+     * child, empty histograms are returned that are built by the children on demand. The histograms of this node
+     * are released afterwards.
+     *
+     * @param dataMemberships the rows of this node
+     * @param childMemberships the rows of the children
+     * @return the histograms of the children
+     * @throws CanceledExecutionException if the thread is interrupted while waiting for the histograms
+     */
+    NodeHistograms[] createChildHistograms(final DataMemberships dataMemberships,
+        final DataMemberships[] childMemberships) throws CanceledExecutionException {
+        final NodeHistograms[] childHistograms = new NodeHistograms[childMemberships.length];
+        for (int i = 0; i < childHistograms.length; i++) {
+            childHistograms[i] = new NodeHistograms(m_histogramFactory);
+        }
+        if (childMemberships.length != 2 || m_histograms.isEmpty() || childMemberships[0].getRowCount()
+            + childMemberships[1].getRowCount() != dataMemberships.getRowCount()) {
+            m_histograms.clear();
+            return childHistograms;
+        }
+        final int smaller = childMemberships[0].getRowCount() <= childMemberships[1].getRowCount() ? 0 : 1;
+        final NodeHistograms smallerHistograms = childHistograms[smaller];
+        final NodeHistograms largerHistograms = childHistograms[1 - smaller];
+        buildAll(new ArrayList<>(m_histograms.keySet()), childMemberships[smaller], smallerHistograms);
+        for (Map.Entry<TreeOrdinaryNumericColumnData, NumericHistogram> entry : m_histograms.entrySet()) {
+            final NumericHistogram sibling = smallerHistograms.m_histograms.get(entry.getKey());
+            largerHistograms.m_histograms.put(entry.getKey(), entry.getValue().subtract(sibling));
+        }
+        m_histograms.clear();
+        return childHistograms;
+    }
+
+    private void buildAll(final List<TreeOrdinaryNumericColumnData> columns, final DataMemberships dataMemberships,
+        final NodeHistograms target) throws CanceledExecutionException {
+        if (columns.isEmpty()) {
+            return;
+        }
+        // fetch the column memberships in this thread, the data memberships cache them in a non-concurrent map
+        final List<ColumnMemberships> columnMemberships = new ArrayList<>(columns.size());
+        for (TreeOrdinaryNumericColumnData col : columns) {
+            columnMemberships.add(dataMemberships.getColumnMemberships(col.getMetaData().getAttributeIndex()));
+        }
+        if (columns.size() == 1 || dataMemberships.getRowCount() < MIN_ROWS_PARALLEL) {
+            for (int i = 0; i < columns.size(); i++) {
+                target.m_histograms.put(columns.get(i),
+                    m_histogramFactory.apply(columns.get(i), columnMemberships.get(i)));
+            }
+            return;
+        }
+        final List<Future<NumericHistogram>> futures = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            final TreeOrdinaryNumericColumnData col = columns.get(i);
+            final ColumnMemberships colMem = columnMemberships.get(i);
+            futures.add(KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(() -> m_histogramFactory.apply(col, colMem)));
+        }
+        try {
+            for (int i = 0; i < columns.size(); i++) {
+                target.m_histograms.put(columns.get(i), futures.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CanceledExecutionException("Interrupted while building histograms");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+}
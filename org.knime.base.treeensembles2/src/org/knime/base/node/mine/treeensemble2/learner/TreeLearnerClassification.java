@@ -50,16 +50,20 @@
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Comparator;
+import java.util.List;
 
 import org.apache.commons.math.random.RandomData;
 import org.knime.base.node.mine.treeensemble2.data.ClassificationPriors;
+import org.knime.base.node.mine.treeensemble2.data.NumericHistogram;
 import org.knime.base.node.mine.treeensemble2.data.TreeAttributeColumnData;
 import org.knime.base.node.mine.treeensemble2.data.TreeColumnData;
 import org.knime.base.node.mine.treeensemble2.data.TreeData;
+import org.knime.base.node.mine.treeensemble2.data.TreeOrdinaryNumericColumnData;
 import org.knime.base.node.mine.treeensemble2.data.TreeTargetNominalColumnData;
 import org.knime.base.node.mine.treeensemble2.data.memberships.DataMemberships;
 import org.knime.base.node.mine.treeensemble2.data.memberships.IDataIndexManager;
 import org.knime.base.node.mine.treeensemble2.data.memberships.RootDataMemberships;
+import org.knime.base.node.mine.treeensemble2.learner.TreeNodeTasks.NodeTask;
 import org.knime.base.node.mine.treeensemble2.model.TreeModelClassification;
 import org.knime.base.node.mine.treeensemble2.model.TreeNodeClassification;
 import org.knime.base.node.mine.treeensemble2.model.TreeNodeCondition;
@@ -110,9 +114,11 @@ private TreeModelClassification learnSingleTreeRecursive(final ExecutionMonitor
         //        final DataMemberships rootDataMemberships = new IntArrayDataMemberships(sampleWeights, data);
         final TreeNodeSignature rootSignature = TreeNodeSignature.ROOT_SIGNATURE;
         final ColumnSample rootColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(rootSignature);
+        final NodeHistograms rootHistograms = config.isUseHistogramSplits()
+            ? new NodeHistograms((col, colMem) -> col.createHistogramClassification(colMem, targetColumn)) : null;
         TreeNodeClassification rootNode = null;
         rootNode = buildTreeNode(exec, 0, rootDataMemberships, rootColumnSample, rootSignature, targetPriors,
-            forbiddenColumnSet);
+            forbiddenColumnSet, rootHistograms, getRandomData());
         assert forbiddenColumnSet.cardinality() == 0;
         rootNode.setTreeNodeCondition(TreeNodeTrueCondition.INSTANCE);
         return new TreeModelClassification(rootNode);
@@ -121,11 +127,14 @@ private TreeModelClassification learnSingleTreeRecursive(final ExecutionMonitor
     private TreeNodeClassification buildTreeNode(final ExecutionMonitor exec, final int currentDepth,
         final DataMemberships dataMemberships, final ColumnSample columnSample,
         final TreeNodeSignature treeNodeSignature, final ClassificationPriors targetPriors,
-        final BitSet forbiddenColumnSet) throws CanceledExecutionException {
+        final BitSet forbiddenColumnSet, final NodeHistograms histograms, final RandomData rd)
+        throws CanceledExecutionException {
         final TreeData data = getData();
         final TreeEnsembleLearnerConfiguration config = getConfig();
         exec.checkCanceled();
         final boolean useSurrogates = getConfig().getMissingValueHandling() == MissingValueHandling.Surrogate;
+        // each child gets its own random data if the tree is built in parallel
+        final boolean useIntraTreeParallelism = config.isUseIntraTreeParallelism();
         TreeNodeCondition[] childConditions;
         boolean markAttributeAsForbidden = false;
         final TreeTargetNominalColumnData targetColumn = (TreeTargetNominalColumnData)data.getTargetColumn();
@@ -133,29 +142,44 @@ private TreeNodeClassification buildTreeNode(final ExecutionMonitor exec, final
         int attributeIndex = -1;
         if (useSurrogates) {
             SplitCandidate[] candidates = findBestSplitsClassification(currentDepth, dataMemberships, columnSample,
-                treeNodeSignature, targetPriors, forbiddenColumnSet);
+                treeNodeSignature, targetPriors, forbiddenColumnSet, histograms, rd);
             if (candidates == null) {
                 return new TreeNodeClassification(treeNodeSignature, targetPriors, config);
             }
             SurrogateSplit surrogateSplit =
-                Surrogates.learnSurrogates(dataMemberships, candidates[0], data, columnSample, config, getRandomData());
+                Surrogates.learnSurrogates(dataMemberships, candidates[0], data, columnSample, config, rd);
             childConditions = surrogateSplit.getChildConditions();
             BitSet[] childMarkers = surrogateSplit.getChildMarkers();
-            childNodes = new TreeNodeClassification[2];
+            final DataMemberships[] childMemberships = new DataMemberships[2];
+            final TreeNodeSignature[] childSignatures = new TreeNodeSignature[2];
             for (int i = 0; i < 2; i++) {
-                DataMemberships childMemberships = dataMemberships.createChildMemberships(childMarkers[i]);
-                ClassificationPriors childTargetPriors = targetColumn.getDistribution(childMemberships, config);
-                TreeNodeSignature childSignature =
-                    getSignatureFactory().getChildSignatureFor(treeNodeSignature, (byte)i);
-                ColumnSample childColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(childSignature);
-                childNodes[i] = buildTreeNode(exec, currentDepth + 1, childMemberships, childColumnSample,
-                    childSignature, childTargetPriors, forbiddenColumnSet);
-                childNodes[i].setTreeNodeCondition(childConditions[i]);
+                childMemberships[i] = dataMemberships.createChildMemberships(childMarkers[i]);
+                childSignatures[i] = getSignatureFactory().getChildSignatureFor(treeNodeSignature, (byte)i);
+            }
+            final NodeHistograms[] childHistograms =
+                histograms == null ? null : histograms.createChildHistograms(dataMemberships, childMemberships);
+            if (isProcessInParallel(dataMemberships)) {
+                childNodes = forkChildNodes(exec, currentDepth + 1, childMemberships, childSignatures,
+                    childConditions, forbiddenColumnSet, childHistograms, rd);
+            } else {
+                childNodes = new TreeNodeClassification[2];
+                for (int i = 0; i < 2; i++) {
+                    ClassificationPriors childTargetPriors =
+                        targetColumn.getDistribution(childMemberships[i], config);
+                    ColumnSample childColumnSample =
+                        getColSamplingStrategy().getColumnSampleForTreeNode(childSignatures[i]);
+                    childNodes[i] = buildTreeNode(exec, currentDepth + 1, childMemberships[i], childColumnSample,
+                        childSignatures[i], childTargetPriors, forbiddenColumnSet,
+                        childHistograms == null ? null : childHistograms[i],
+                        useIntraTreeParallelism ? createChildRandomData(rd) : rd);
+                    childNodes[i].setTreeNodeCondition(childConditions[i]);
+                    childMemberships[i] = null;
+                }
             }
         } else {
             // handle non surrogate case
             SplitCandidate bestSplit = findBestSplitClassification(currentDepth, dataMemberships, columnSample,
-                treeNodeSignature, targetPriors, forbiddenColumnSet);
+                treeNodeSignature, targetPriors, forbiddenColumnSet, histograms, rd);
             if (bestSplit == null) {
                 return new TreeNodeClassification(treeNodeSignature, targetPriors, config);
             }
@@ -165,24 +189,53 @@ private TreeNodeClassification buildTreeNode(final ExecutionMonitor exec, final
             forbiddenColumnSet.set(attributeIndex, markAttributeAsForbidden);
 
             childConditions = bestSplit.getChildConditions();
-            childNodes = new TreeNodeClassification[childConditions.length];
             if (childConditions.length > Short.MAX_VALUE) {
                 throw new RuntimeException(
                     "Too many children when splitting " + "attribute " + bestSplit.getColumnData()
                         + " (maximum supported: " + Short.MAX_VALUE + "): " + childConditions.length);
             }
-            // Build child nodes
-            for (int i = 0; i < childConditions.length; i++) {
-                DataMemberships childMemberships = null;
-                TreeNodeCondition cond = childConditions[i];
-                childMemberships =
-                    dataMemberships.createChildMemberships(splitColumn.updateChildMemberships(cond, dataMemberships));
-                ClassificationPriors childTargetPriors = targetColumn.getDistribution(childMemberships, config);
-                TreeNodeSignature childSignature = treeNodeSignature.createChildSignature((byte)i);
-                ColumnSample childColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(childSignature);
-                childNodes[i] = buildTreeNode(exec, currentDepth + 1, childMemberships, childColumnSample,
-                    childSignature, childTargetPriors, forbiddenColumnSet);
-                childNodes[i].setTreeNodeCondition(cond);
+            final boolean fork = childConditions.length > 1 && isProcessInParallel(dataMemberships);
+            // the histograms of the children are derived from each other and forked children are built
+            // concurrently, hence all memberships are needed upfront
+            final DataMemberships[] childMemberships = new DataMemberships[childConditions.length];
+            NodeHistograms[] childHistograms = null;
+            if (histograms != null || fork) {
+                for (int i = 0; i < childConditions.length; i++) {
+                    childMemberships[i] = dataMemberships.createChildMemberships(
+                        splitColumn.updateChildMemberships(childConditions[i], dataMemberships));
+                }
+                if (histograms != null) {
+                    childHistograms = histograms.createChildHistograms(dataMemberships, childMemberships);
+                }
+            }
+            if (fork) {
+                final TreeNodeSignature[] childSignatures = new TreeNodeSignature[childConditions.length];
+                for (int i = 0; i < childConditions.length; i++) {
+                    childSignatures[i] = treeNodeSignature.createChildSignature((byte)i);
+                }
+                childNodes = forkChildNodes(exec, currentDepth + 1, childMemberships, childSignatures,
+                    childConditions, forbiddenColumnSet, childHistograms, rd);
+            } else {
+                childNodes = new TreeNodeClassification[childConditions.length];
+                // Build child nodes
+                for (int i = 0; i < childConditions.length; i++) {
+                    TreeNodeCondition cond = childConditions[i];
+                    if (childMemberships[i] == null) {
+                        childMemberships[i] = dataMemberships
+                            .createChildMemberships(splitColumn.updateChildMemberships(cond, dataMemberships));
+                    }
+                    ClassificationPriors childTargetPriors =
+                        targetColumn.getDistribution(childMemberships[i], config);
+                    TreeNodeSignature childSignature = treeNodeSignature.createChildSignature((byte)i);
+                    ColumnSample childColumnSample =
+                        getColSamplingStrategy().getColumnSampleForTreeNode(childSignature);
+                    childNodes[i] = buildTreeNode(exec, currentDepth + 1, childMemberships[i], childColumnSample,
+                        childSignature, childTargetPriors, forbiddenColumnSet,
+                        childHistograms == null ? null : childHistograms[i],
+                        useIntraTreeParallelism ? createChildRandomData(rd) : rd);
+                    childNodes[i].setTreeNodeCondition(cond);
+                    childMemberships[i] = null;
+                }
             }
         }
         if (markAttributeAsForbidden) {
@@ -191,6 +244,40 @@ private TreeNodeClassification buildTreeNode(final ExecutionMonitor exec, final
         return new TreeNodeClassification(treeNodeSignature, targetPriors, childNodes, getConfig());
     }
 
+    /**
+     * Builds the subtrees of the children of a node as parallel tasks. Everything that must happen in a fixed order,
+     * i.e. the creation of the signatures and random data, is done in the calling thread, each task gets its own copy
+     * of the forbidden columns.
+     */
+    private TreeNodeClassification[] forkChildNodes(final ExecutionMonitor exec, final int childDepth,
+        final DataMemberships[] childMemberships, final TreeNodeSignature[] childSignatures,
+        final TreeNodeCondition[] childConditions, final BitSet forbiddenColumnSet,
+        final NodeHistograms[] childHistograms, final RandomData rd) throws CanceledExecutionException {
+        final TreeEnsembleLearnerConfiguration config = getConfig();
+        final TreeTargetNominalColumnData targetColumn = (TreeTargetNominalColumnData)getData().getTargetColumn();
+        final List<NodeTask<TreeNodeClassification>> tasks = new ArrayList<>(childMemberships.length);
+        for (int i = 0; i < childMemberships.length; i++) {
+            final DataMemberships childDataMemberships = childMemberships[i];
+            final TreeNodeSignature childSignature = childSignatures[i];
+            final TreeNodeCondition childCondition = childConditions[i];
+            final ColumnSample childColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(childSignature);
+            final BitSet childForbiddenColumnSet = (BitSet)forbiddenColumnSet.clone();
+            final NodeHistograms childNodeHistograms = childHistograms == null ? null : childHistograms[i];
+            final RandomData childRd = createChildRandomData(rd);
+            tasks.add(() -> {
+                final ClassificationPriors childTargetPriors =
+                    targetColumn.getDistribution(childDataMemberships, config);
+                final TreeNodeClassification childNode = buildTreeNode(exec, childDepth, childDataMemberships,
+                    childColumnSample, childSignature, childTargetPriors, childForbiddenColumnSet,
+                    childNodeHistograms, childRd);
+                childNode.setTreeNodeCondition(childCondition);
+                return childNode;
+            });
+        }
+        final List<TreeNodeClassification> childNodes = TreeNodeTasks.invokeAll(tasks);
+        return childNodes.toArray(new TreeNodeClassification[childNodes.size()]);
+    }
+
     /**
      * Returns a list of SplitCandidates sorted (descending) by their gain
      *
@@ -204,9 +291,9 @@ private TreeNodeClassification buildTreeNode(final ExecutionMonitor exec, final
      */
     private SplitCandidate[] findBestSplitsClassification(final int currentDepth, final DataMemberships dataMemberships,
         final ColumnSample columnSample, final TreeNodeSignature treeNodeSignature,
-        final ClassificationPriors targetPriors, final BitSet forbiddenColumnSet) {
+        final ClassificationPriors targetPriors, final BitSet forbiddenColumnSet, final NodeHistograms histograms,
+        final RandomData rd) throws CanceledExecutionException {
         final TreeData data = getData();
-        final RandomData rd = getRandomData();
         //        final ColumnSampleStrategy colSamplingStrategy = getColSamplingStrategy();
         final TreeEnsembleLearnerConfiguration config = getConfig();
         final int maxLevels = config.getMaxLevels();
@@ -241,13 +328,12 @@ public int compare(final SplitCandidate o1, final SplitCandidate o2) {
             }
 
         };
+        if (histograms != null) {
+            histograms.build(columnSample, forbiddenColumnSet, dataMemberships);
+        }
         ArrayList<SplitCandidate> candidates = new ArrayList<SplitCandidate>(columnSample.getNumCols());
-        for (TreeAttributeColumnData col : columnSample) {
-            if (forbiddenColumnSet.get(col.getMetaData().getAttributeIndex())) {
-                continue;
-            }
-            SplitCandidate currentColSplit =
-                col.calcBestSplitClassification(dataMemberships, targetPriors, targetColumn, rd);
+        for (SplitCandidate currentColSplit : calcBestSplitsClassification(dataMemberships, columnSample,
+            targetPriors, targetColumn, forbiddenColumnSet, histograms, rd)) {
             if (currentColSplit != null) {
                 candidates.add(currentColSplit);
             }
@@ -261,9 +347,9 @@ public int compare(final SplitCandidate o1, final SplitCandidate o2) {
 
     private SplitCandidate findBestSplitClassification(final int currentDepth, final DataMemberships dataMemberships,
         final ColumnSample columnSample, final TreeNodeSignature treeNodeSignature,
-        final ClassificationPriors targetPriors, final BitSet forbiddenColumnSet) {
+        final ClassificationPriors targetPriors, final BitSet forbiddenColumnSet, final NodeHistograms histograms,
+        final RandomData rd) throws CanceledExecutionException {
         final TreeData data = getData();
-        final RandomData rd = getRandomData();
         //        final ColumnSampleStrategy colSamplingStrategy = getColSamplingStrategy();
         final TreeEnsembleLearnerConfiguration config = getConfig();
         final int maxLevels = config.getMaxLevels();
@@ -287,13 +373,12 @@ private SplitCandidate findBestSplitClassification(final int currentDepth, final
             // TODO discuss whether this option makes sense with surrogates
             return rootColumn.calcBestSplitClassification(dataMemberships, targetPriors, targetColumn, rd);
         }
+        if (histograms != null) {
+            histograms.build(columnSample, forbiddenColumnSet, dataMemberships);
+        }
         double bestGainValue = 0.0;
-        for (TreeAttributeColumnData col : columnSample) {
-            if (forbiddenColumnSet.get(col.getMetaData().getAttributeIndex())) {
-                continue;
-            }
-            final SplitCandidate currentColSplit =
-                col.calcBestSplitClassification(dataMemberships, targetPriors, targetColumn, rd);
+        for (SplitCandidate currentColSplit : calcBestSplitsClassification(dataMemberships, columnSample,
+            targetPriors, targetColumn, forbiddenColumnSet, histograms, rd)) {
             if (currentColSplit != null) {
                 final double currentGain = currentColSplit.getGainValue();
                 final boolean tiebreaker = currentGain == bestGainValue ? (rd.nextInt(0, 1) == 0) : false;
@@ -306,4 +391,50 @@ private SplitCandidate findBestSplitClassification(final int currentDepth, final
         return splitCandidate;
     }
 
+    /**
+     * Computes the best split of each column in <b>columnSample</b> that is not forbidden, in parallel for nodes with
+     * many rows.
+     *
+     * @return the best splits in the order of the columns, null for columns that can't be split
+     */
+    private List<SplitCandidate> calcBestSplitsClassification(final DataMemberships dataMemberships,
+        final ColumnSample columnSample, final ClassificationPriors targetPriors,
+        final TreeTargetNominalColumnData targetColumn, final BitSet forbiddenColumnSet,
+        final NodeHistograms histograms, final RandomData rd) throws CanceledExecutionException {
+        final List<TreeAttributeColumnData> columns = new ArrayList<>(columnSample.getNumCols());
+        for (TreeAttributeColumnData col : columnSample) {
+            if (!forbiddenColumnSet.get(col.getMetaData().getAttributeIndex())) {
+                columns.add(col);
+            }
+        }
+        if (columns.size() < 2 || !isProcessInParallel(dataMemberships)) {
+            final List<SplitCandidate> splits = new ArrayList<>(columns.size());
+            for (TreeAttributeColumnData col : columns) {
+                splits.add(calcBestSplitClassification(col, dataMemberships, targetPriors, targetColumn, rd,
+                    histograms));
+            }
+            return splits;
+        }
+        final List<NodeTask<SplitCandidate>> tasks = new ArrayList<>(columns.size());
+        for (TreeAttributeColumnData col : columns) {
+            // fetch the column memberships in this thread, the data memberships cache them in a non-concurrent map
+            dataMemberships.getColumnMemberships(col.getMetaData().getAttributeIndex());
+            final RandomData colRd = createChildRandomData(rd);
+            tasks.add(() -> calcBestSplitClassification(col, dataMemberships, targetPriors, targetColumn, colRd,
+                histograms));
+        }
+        return TreeNodeTasks.invokeAll(tasks);
+    }
+
+    private static SplitCandidate calcBestSplitClassification(final TreeAttributeColumnData col,
+        final DataMemberships dataMemberships, final ClassificationPriors targetPriors,
+        final TreeTargetNominalColumnData targetColumn, final RandomData rd, final NodeHistograms histograms) {
+        final NumericHistogram histogram = histograms == null ? null : histograms.get(col);
+        if (histogram != null) {
+            return ((TreeOrdinaryNumericColumnData)col).calcBestSplitClassification(histogram, dataMemberships,
+                targetPriors, rd);
+        }
+        return col.calcBestSplitClassification(dataMemberships, targetPriors, targetColumn, rd);
+    }
+
 }
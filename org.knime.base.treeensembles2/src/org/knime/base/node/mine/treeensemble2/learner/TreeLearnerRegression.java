@@ -53,14 +53,17 @@
 import java.util.List;
 
 import org.apache.commons.math.random.RandomData;
+import org.knime.base.node.mine.treeensemble2.data.NumericHistogram;
 import org.knime.base.node.mine.treeensemble2.data.RegressionPriors;
 import org.knime.base.node.mine.treeensemble2.data.TreeAttributeColumnData;
 import org.knime.base.node.mine.treeensemble2.data.TreeColumnData;
 import org.knime.base.node.mine.treeensemble2.data.TreeData;
+import org.knime.base.node.mine.treeensemble2.data.TreeOrdinaryNumericColumnData;
 import org.knime.base.node.mine.treeensemble2.data.TreeTargetNumericColumnData;
 import org.knime.base.node.mine.treeensemble2.data.memberships.DataMemberships;
 import org.knime.base.node.mine.treeensemble2.data.memberships.IDataIndexManager;
 import org.knime.base.node.mine.treeensemble2.data.memberships.RootDataMemberships;
+import org.knime.base.node.mine.treeensemble2.learner.TreeNodeTasks.NodeTask;
 import org.knime.base.node.mine.treeensemble2.model.TreeModelRegression;
 import org.knime.base.node.mine.treeensemble2.model.TreeNodeCondition;
 import org.knime.base.node.mine.treeensemble2.model.TreeNodeRegression;
@@ -122,8 +125,10 @@ public TreeModelRegression learnSingleTree(final ExecutionMonitor exec, final Ra
         }
         final TreeNodeSignature rootSignature = TreeNodeSignature.ROOT_SIGNATURE;
         final ColumnSample rootColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(rootSignature);
+        final NodeHistograms rootHistograms = config.isUseHistogramSplits()
+            ? new NodeHistograms((col, colMem) -> col.createHistogramRegression(colMem, targetColumn)) : null;
         TreeNodeRegression rootNode = buildTreeNode(exec, 0, rootDataMemberships, rootColumnSample, getSignatureFactory().getRootSignature(),
-            targetPriors, forbiddenColumnSet);
+            targetPriors, forbiddenColumnSet, rootHistograms, getRandomData());
         assert forbiddenColumnSet.cardinality() == 0;
         rootNode.setTreeNodeCondition(TreeNodeTrueCondition.INSTANCE);
         if (isGradientBoosting) {
@@ -133,10 +138,9 @@ public TreeModelRegression learnSingleTree(final ExecutionMonitor exec, final Ra
     }
 
     private SplitCandidate findBestSplitRegression(final int currentDepth, final DataMemberships dataMemberships, final ColumnSample columnSample,
-        final RegressionPriors targetPriors,
-        final BitSet forbiddenColumnSet) {
+        final RegressionPriors targetPriors, final BitSet forbiddenColumnSet, final NodeHistograms histograms,
+        final RandomData rd) throws CanceledExecutionException {
         final TreeData data = getData();
-        final RandomData rd = getRandomData();
         final TreeEnsembleLearnerConfiguration config = getConfig();
         final int maxLevels = config.getMaxLevels();
         if (maxLevels != TreeEnsembleLearnerConfiguration.MAX_LEVEL_INFINITE && currentDepth >= maxLevels) {
@@ -158,13 +162,12 @@ private SplitCandidate findBestSplitRegression(final int currentDepth, final Dat
             final TreeAttributeColumnData rootColumn = data.getColumn(config.getHardCodedRootColumn());
             return rootColumn.calcBestSplitRegression(dataMemberships, targetPriors, targetColumn, rd);
         } else {
+            if (histograms != null) {
+                histograms.build(columnSample, forbiddenColumnSet, dataMemberships);
+            }
             double bestGainValue = 0.0;
-            for (TreeAttributeColumnData col : columnSample) {
-                if (forbiddenColumnSet.get(col.getMetaData().getAttributeIndex())) {
-                    continue;
-                }
-                SplitCandidate currentColSplit =
-                    col.calcBestSplitRegression(dataMemberships, targetPriors, targetColumn, rd);
+            for (SplitCandidate currentColSplit : calcBestSplitsRegression(dataMemberships, columnSample,
+                targetPriors, targetColumn, forbiddenColumnSet, histograms, rd)) {
                 if (currentColSplit != null) {
                     double gainValue = currentColSplit.getGainValue();
                     if (gainValue > bestGainValue) {
@@ -232,13 +235,15 @@ public int compare(final SplitCandidate arg0, final SplitCandidate arg1) {
 
     private TreeNodeRegression buildTreeNode(final ExecutionMonitor exec, final int currentDepth,
         final DataMemberships dataMemberships, final ColumnSample columnSample, final TreeNodeSignature treeNodeSignature,
-        final RegressionPriors targetPriors, final BitSet forbiddenColumnSet) throws CanceledExecutionException {
+        final RegressionPriors targetPriors, final BitSet forbiddenColumnSet, final NodeHistograms histograms,
+        final RandomData rd) throws CanceledExecutionException {
         final TreeData data = getData();
-        final RandomData rd = getRandomData();
         final TreeEnsembleLearnerConfiguration config = getConfig();
         exec.checkCanceled();
-        final SplitCandidate candidate =
-            findBestSplitRegression(currentDepth, dataMemberships, columnSample, targetPriors, forbiddenColumnSet);
+        // each child gets its own random data if the tree is built in parallel
+        final boolean useIntraTreeParallelism = config.isUseIntraTreeParallelism();
+        final SplitCandidate candidate = findBestSplitRegression(currentDepth, dataMemberships, columnSample,
+            targetPriors, forbiddenColumnSet, histograms, rd);
         if (candidate == null) {
             if (config instanceof GradientBoostingLearnerConfiguration) {
                 TreeNodeRegression leaf =
@@ -257,15 +262,30 @@ private TreeNodeRegression buildTreeNode(final ExecutionMonitor exec, final int
             childConditions = surrogateSplit.getChildConditions();
             BitSet[] childMarkers = surrogateSplit.getChildMarkers();
             assert childMarkers[0].cardinality() + childMarkers[1].cardinality() == dataMemberships.getRowCount(): "Sum of rows in children does not add up to number of rows in parent.";
-            childNodes = new TreeNodeRegression[2];
+            final DataMemberships[] childMemberships = new DataMemberships[2];
+            final TreeNodeSignature[] childSignatures = new TreeNodeSignature[2];
             for (int i = 0; i < 2; i++) {
-                DataMemberships childMemberships = dataMemberships.createChildMemberships(childMarkers[i]);
-                TreeNodeSignature childSignature = getSignatureFactory().getChildSignatureFor(treeNodeSignature, (byte)i);
-                ColumnSample childColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(childSignature);
-                RegressionPriors childTargetPriors = targetColumn.getPriors(childMemberships, config);
-                childNodes[i] = buildTreeNode(exec, currentDepth + 1, childMemberships, childColumnSample, childSignature,
-                    childTargetPriors, forbiddenColumnSet);
-                childNodes[i].setTreeNodeCondition(childConditions[i]);
+                childMemberships[i] = dataMemberships.createChildMemberships(childMarkers[i]);
+                childSignatures[i] = getSignatureFactory().getChildSignatureFor(treeNodeSignature, (byte)i);
+            }
+            final NodeHistograms[] childHistograms =
+                histograms == null ? null : histograms.createChildHistograms(dataMemberships, childMemberships);
+            if (isProcessInParallel(dataMemberships)) {
+                childNodes = forkChildNodes(exec, currentDepth + 1, childMemberships, childSignatures,
+                    childConditions, forbiddenColumnSet, childHistograms, rd);
+            } else {
+                childNodes = new TreeNodeRegression[2];
+                for (int i = 0; i < 2; i++) {
+                    ColumnSample childColumnSample =
+                        getColSamplingStrategy().getColumnSampleForTreeNode(childSignatures[i]);
+                    RegressionPriors childTargetPriors = targetColumn.getPriors(childMemberships[i], config);
+                    childNodes[i] = buildTreeNode(exec, currentDepth + 1, childMemberships[i], childColumnSample,
+                        childSignatures[i], childTargetPriors, forbiddenColumnSet,
+                        childHistograms == null ? null : childHistograms[i],
+                        useIntraTreeParallelism ? createChildRandomData(rd) : rd);
+                    childNodes[i].setTreeNodeCondition(childConditions[i]);
+                    childMemberships[i] = null;
+                }
             }
         } else {
             SplitCandidate bestSplit = candidate;
@@ -279,17 +299,46 @@ private TreeNodeRegression buildTreeNode(final ExecutionMonitor exec, final int
                     "Too many children when splitting " + "attribute " + bestSplit.getColumnData()
                         + " (maximum supported: " + Short.MAX_VALUE + "): " + childConditions.length);
             }
-            childNodes = new TreeNodeRegression[childConditions.length];
-            for (int i = 0; i < childConditions.length; i++) {
-                TreeNodeCondition cond = childConditions[i];
-                DataMemberships childMemberships =
-                    dataMemberships.createChildMemberships(splitColumn.updateChildMemberships(cond, dataMemberships));
-                RegressionPriors childTargetPriors = targetColumn.getPriors(childMemberships, config);
-                TreeNodeSignature childSignature = treeNodeSignature.createChildSignature((byte)i);
-                ColumnSample childColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(childSignature);
-                childNodes[i] = buildTreeNode(exec, currentDepth + 1, childMemberships, childColumnSample, childSignature,
-                    childTargetPriors, forbiddenColumnSet);
-                childNodes[i].setTreeNodeCondition(cond);
+            final boolean fork = childConditions.length > 1 && isProcessInParallel(dataMemberships);
+            // the histograms of the children are derived from each other and forked children are built
+            // concurrently, hence all memberships are needed upfront
+            final DataMemberships[] childMemberships = new DataMemberships[childConditions.length];
+            NodeHistograms[] childHistograms = null;
+            if (histograms != null || fork) {
+                for (int i = 0; i < childConditions.length; i++) {
+                    childMemberships[i] = dataMemberships.createChildMemberships(
+                        splitColumn.updateChildMemberships(childConditions[i], dataMemberships));
+                }
+                if (histograms != null) {
+                    childHistograms = histograms.createChildHistograms(dataMemberships, childMemberships);
+                }
+            }
+            if (fork) {
+                final TreeNodeSignature[] childSignatures = new TreeNodeSignature[childConditions.length];
+                for (int i = 0; i < childConditions.length; i++) {
+                    childSignatures[i] = treeNodeSignature.createChildSignature((byte)i);
+                }
+                childNodes = forkChildNodes(exec, currentDepth + 1, childMemberships, childSignatures,
+                    childConditions, forbiddenColumnSet, childHistograms, rd);
+            } else {
+                childNodes = new TreeNodeRegression[childConditions.length];
+                for (int i = 0; i < childConditions.length; i++) {
+                    TreeNodeCondition cond = childConditions[i];
+                    if (childMemberships[i] == null) {
+                        childMemberships[i] = dataMemberships
+                            .createChildMemberships(splitColumn.updateChildMemberships(cond, dataMemberships));
+                    }
+                    RegressionPriors childTargetPriors = targetColumn.getPriors(childMemberships[i], config);
+                    TreeNodeSignature childSignature = treeNodeSignature.createChildSignature((byte)i);
+                    ColumnSample childColumnSample =
+                        getColSamplingStrategy().getColumnSampleForTreeNode(childSignature);
+                    childNodes[i] = buildTreeNode(exec, currentDepth + 1, childMemberships[i], childColumnSample,
+                        childSignature, childTargetPriors, forbiddenColumnSet,
+                        childHistograms == null ? null : childHistograms[i],
+                        useIntraTreeParallelism ? createChildRandomData(rd) : rd);
+                    childNodes[i].setTreeNodeCondition(cond);
+                    childMemberships[i] = null;
+                }
             }
             if (markAttributeAsForbidden) {
                 forbiddenColumnSet.set(attributeIndex, false);
@@ -298,6 +347,85 @@ private TreeNodeRegression buildTreeNode(final ExecutionMonitor exec, final int
         return new TreeNodeRegression(treeNodeSignature, targetPriors, childNodes);
     }
 
+    /**
+     * Builds the subtrees of the children of a node as parallel tasks. Everything that must happen in a fixed order,
+     * i.e. the creation of the signatures and random data, is done in the calling thread, each task gets its own copy
+     * of the forbidden columns. The leaves of the forked subtrees are added to the leaf list in the order in which
+     * they are completed.
+     */
+    private TreeNodeRegression[] forkChildNodes(final ExecutionMonitor exec, final int childDepth,
+        final DataMemberships[] childMemberships, final TreeNodeSignature[] childSignatures,
+        final TreeNodeCondition[] childConditions, final BitSet forbiddenColumnSet,
+        final NodeHistograms[] childHistograms, final RandomData rd) throws CanceledExecutionException {
+        final TreeEnsembleLearnerConfiguration config = getConfig();
+        final TreeTargetNumericColumnData targetColumn = getTargetData();
+        final List<NodeTask<TreeNodeRegression>> tasks = new ArrayList<>(childMemberships.length);
+        for (int i = 0; i < childMemberships.length; i++) {
+            final DataMemberships childDataMemberships = childMemberships[i];
+            final TreeNodeSignature childSignature = childSignatures[i];
+            final TreeNodeCondition childCondition = childConditions[i];
+            final ColumnSample childColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(childSignature);
+            final BitSet childForbiddenColumnSet = (BitSet)forbiddenColumnSet.clone();
+            final NodeHistograms childNodeHistograms = childHistograms == null ? null : childHistograms[i];
+            final RandomData childRd = createChildRandomData(rd);
+            tasks.add(() -> {
+                final RegressionPriors childTargetPriors = targetColumn.getPriors(childDataMemberships, config);
+                final TreeNodeRegression childNode = buildTreeNode(exec, childDepth, childDataMemberships,
+                    childColumnSample, childSignature, childTargetPriors, childForbiddenColumnSet,
+                    childNodeHistograms, childRd);
+                childNode.setTreeNodeCondition(childCondition);
+                return childNode;
+            });
+        }
+        final List<TreeNodeRegression> childNodes = TreeNodeTasks.invokeAll(tasks);
+        return childNodes.toArray(new TreeNodeRegression[childNodes.size()]);
+    }
+
+    /**
+     * Computes the best split of each column in <b>columnSample</b> that is not forbidden, in parallel for nodes with
+     * many rows.
+     *
+     * @return the best splits in the order of the columns, null for columns that can't be split
+     */
+    private List<SplitCandidate> calcBestSplitsRegression(final DataMemberships dataMemberships,
+        final ColumnSample columnSample, final RegressionPriors targetPriors,
+        final TreeTargetNumericColumnData targetColumn, final BitSet forbiddenColumnSet,
+        final NodeHistograms histograms, final RandomData rd) throws CanceledExecutionException {
+        final List<TreeAttributeColumnData> columns = new ArrayList<>(columnSample.getNumCols());
+        for (TreeAttributeColumnData col : columnSample) {
+            if (!forbiddenColumnSet.get(col.getMetaData().getAttributeIndex())) {
+                columns.add(col);
+            }
+        }
+        if (columns.size() < 2 || !isProcessInParallel(dataMemberships)) {
+            final List<SplitCandidate> splits = new ArrayList<>(columns.size());
+            for (TreeAttributeColumnData col : columns) {
+                splits.add(calcBestSplitRegression(col, dataMemberships, targetPriors, targetColumn, rd, histograms));
+            }
+            return splits;
+        }
+        final List<NodeTask<SplitCandidate>> tasks = new ArrayList<>(columns.size());
+        for (TreeAttributeColumnData col : columns) {
+            // fetch the column memberships in this thread, the data memberships cache them in a non-concurrent map
+            dataMemberships.getColumnMemberships(col.getMetaData().getAttributeIndex());
+            final RandomData colRd = createChildRandomData(rd);
+            tasks.add(() -> calcBestSplitRegression(col, dataMemberships, targetPriors, targetColumn, colRd,
+                histograms));
+        }
+        return TreeNodeTasks.invokeAll(tasks);
+    }
+
+    private static SplitCandidate calcBestSplitRegression(final TreeAttributeColumnData col,
+        final DataMemberships dataMemberships, final RegressionPriors targetPriors,
+        final TreeTargetNumericColumnData targetColumn, final RandomData rd, final NodeHistograms histograms) {
+        final NumericHistogram histogram = histograms == null ? null : histograms.get(col);
+        if (histogram != null) {
+            return ((TreeOrdinaryNumericColumnData)col).calcBestSplitRegression(histogram, dataMemberships,
+                targetPriors, rd);
+        }
+        return col.calcBestSplitRegression(dataMemberships, targetPriors, targetColumn, rd);
+    }
+
     private synchronized void addToLeafList(final TreeNodeRegression leaf) {
         m_leafs.add(leaf);
     }
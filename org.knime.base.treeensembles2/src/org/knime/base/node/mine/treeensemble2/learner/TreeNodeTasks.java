@@ -0,0 +1,126 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.treeensemble2.learner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.KNIMEConstants;
+
+/**
+ * Runs the work of a single tree node, i.e. the split search of different columns or the subtrees of sibling nodes, as
+ * tasks of the global thread pool if {@link TreeEnsembleLearnerConfiguration#isUseIntraTreeParallelism()} is set. The
+ * calling thread runs the first task itself and waits for the others invisibly, so tasks submitted from within a task
+ * don't block the pool.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class TreeNodeTasks {
+
+    /** Nodes with fewer rows are processed in the calling thread. */
+    static final int MIN_ROWS_PARALLEL = 10000;
+
+    /**
+     * The work of a single task.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    interface NodeTask<T> {
+        /**
+         * @return the result of the task
+         * @throws CanceledExecutionException if the execution was canceled
+         */
+        T call() throws CanceledExecutionException;
+    }
+
+    private TreeNodeTasks() {
+        // utility class
+    }
+
+    /**
+     * Runs all <b>tasks</b> in parallel and waits for them to finish.
+     *
+     * @param tasks the tasks to run
+     * @return the results of the tasks in the order of <b>tasks</b>
+     * @throws CanceledExecutionException if any of the tasks was canceled
+     */
+    static <T> List<T> invokeAll(final List<? extends NodeTask<T>> tasks) throws CanceledExecutionException {
+        final List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (int i = 1; i < tasks.size(); i++) {
+            futures.add(KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(tasks.get(i)::call));
+        }
+        final List<T> results = new ArrayList<>(tasks.size());
+        try {
+            if (!tasks.isEmpty()) {
+                results.add(tasks.get(0).call());
+            }
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CanceledExecutionException("Interrupted while learning tree nodes");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+        return results;
+    }
+
+}
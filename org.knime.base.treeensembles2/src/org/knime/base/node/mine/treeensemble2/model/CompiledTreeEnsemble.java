@@ -0,0 +1,522 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.treeensemble2.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToDoubleBiFunction;
+
+import org.knime.base.node.mine.treeensemble2.data.NominalValueRepresentation;
+import org.knime.base.node.mine.treeensemble2.data.TreeAttributeColumnMetaData;
+import org.knime.base.node.mine.treeensemble2.data.TreeMetaData;
+import org.knime.base.node.mine.treeensemble2.data.TreeNominalColumnMetaData;
+import org.knime.base.node.mine.treeensemble2.model.AbstractTreeEnsembleModel.TreeType;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.vector.bitvector.BitVectorValue;
+import org.knime.core.data.vector.bytevector.ByteVectorValue;
+import org.knime.core.data.vector.doublevector.DoubleVectorValue;
+
+/**
+ * The trees of a {@link TreeEnsembleModel} compiled into flat arrays for fast prediction.
+ *
+ * <p>The nodes of all trees are numbered consecutively and the children of a node occupy a contiguous range of
+ * indices, hence a node is described by the index of its first child and its number of children. The condition of a
+ * node (which decides whether the node is chosen among its siblings) is described by its kind, the index of the
+ * attribute it tests and a split value. Nominal conditions (and bit conditions) are stored as a table holding the
+ * outcome of the condition for each nominal value. The column conditions of surrogate conditions are appended after
+ * the conditions of the nodes.
+ *
+ * <p>A row is not converted into a {@link org.knime.base.node.mine.treeensemble2.data.PredictorRecord} but into a
+ * <code>double[]</code> holding the value of each attribute; nominal values are represented by their assigned integer
+ * and bits by 0 and 1. Missing and unknown values are represented by {@link Double#NaN}. Instances of this class are
+ * immutable and can be used by several threads concurrently.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public final class CompiledTreeEnsemble {
+
+    private static final byte TRUE = 0;
+
+    private static final byte LESS_THAN_OR_EQUAL = 1;
+
+    private static final byte LARGER_THAN = 2;
+
+    private static final byte NOMINAL = 3;
+
+    private static final byte SURROGATE = 4;
+
+    private final TreeType m_type;
+
+    private final int m_nrAttributes;
+
+    /** The assigned integers of the nominal values per attribute, <code>null</code> for other attributes. */
+    private final Map<String, Integer>[] m_nominalValues;
+
+    /** The index of the root node of each tree. */
+    private final int[] m_roots;
+
+    private final AbstractTreeNode[] m_nodes;
+
+    private final int[] m_firstChild;
+
+    private final int[] m_nrChildren;
+
+    /** The kind of each condition, the first conditions belong to the node with the same index. */
+    private final byte[] m_kinds;
+
+    private final int[] m_attributes;
+
+    private final double[] m_splitValues;
+
+    /**
+     * The bit offset of the outcome table of nominal conditions and the index of the first column condition of
+     * surrogate conditions.
+     */
+    private final int[] m_offsets;
+
+    /** The size of the outcome table of nominal conditions and the number of column conditions of surrogates. */
+    private final int[] m_lengths;
+
+    /** Whether missing values are accepted, for surrogate conditions the default response. */
+    private final boolean[] m_acceptsMissings;
+
+    private final long[] m_nominalTables;
+
+    private int m_nextNode;
+
+    private int m_nextCondition;
+
+    private int m_nextTableBit;
+
+    @SuppressWarnings("unchecked")
+    private CompiledTreeEnsemble(final TreeEnsembleModel model, final int nrNodes, final int nrConditions,
+        final int nrTableBits) {
+        m_type = model.getType();
+        final TreeMetaData metaData = model.getMetaData();
+        m_nrAttributes = metaData.getNrAttributes();
+        m_nominalValues = new Map[m_nrAttributes];
+        if (m_type == TreeType.Ordinary) {
+            for (int i = 0; i < m_nrAttributes; i++) {
+                final TreeAttributeColumnMetaData attribute = metaData.getAttributeMetaData(i);
+                if (attribute instanceof TreeNominalColumnMetaData) {
+                    final NominalValueRepresentation[] values = ((TreeNominalColumnMetaData)attribute).getValues();
+                    final Map<String, Integer> map = new HashMap<>((int)(values.length / 0.75 + 1));
+                    for (NominalValueRepresentation value : values) {
+                        map.putIfAbsent(value.getNominalValue(), value.getAssignedInteger());
+                    }
+                    m_nominalValues[i] = map;
+                }
+            }
+        }
+        m_roots = new int[model.getNrModels()];
+        m_nodes = new AbstractTreeNode[nrNodes];
+        m_firstChild = new int[nrNodes];
+        m_nrChildren = new int[nrNodes];
+        m_kinds = new byte[nrConditions];
+        m_attributes = new int[nrConditions];
+        m_splitValues = new double[nrConditions];
+        m_offsets = new int[nrConditions];
+        m_lengths = new int[nrConditions];
+        m_acceptsMissings = new boolean[nrConditions];
+        m_nominalTables = new long[(nrTableBits + Long.SIZE - 1) / Long.SIZE];
+        m_nextCondition = nrNodes;
+    }
+
+    /**
+     * Compiles the trees of the given model.
+     *
+     * @param model the model to compile
+     * @return the compiled model or <code>null</code> if the model contains conditions that can't be compiled, in
+     *         which case the trees need to be evaluated on a
+     *         {@link org.knime.base.node.mine.treeensemble2.data.PredictorRecord}
+     */
+    public static CompiledTreeEnsemble compile(final TreeEnsembleModel model) {
+        final int nrModels = model.getNrModels();
+        // nodes, conditions and table bits
+        final int[] counts = new int[3];
+        for (int i = 0; i < nrModels; i++) {
+            if (!count(model.getTreeModel(i).getRootNode(), counts)) {
+                return null;
+            }
+        }
+        final CompiledTreeEnsemble compiled = new CompiledTreeEnsemble(model, counts[0], counts[0] + counts[1],
+            counts[2]);
+        for (int i = 0; i < nrModels; i++) {
+            final AbstractTreeNode root = model.getTreeModel(i).getRootNode();
+            final int rootIndex = compiled.m_nextNode++;
+            compiled.m_roots[i] = rootIndex;
+            compiled.addNode(rootIndex, root);
+        }
+        assert compiled.m_nextNode == counts[0];
+        assert compiled.m_nextCondition == compiled.m_kinds.length;
+        return compiled;
+    }
+
+    /**
+     * Counts the nodes, surrogate column conditions and table bits of the subtree.
+     *
+     * @return <code>false</code> if the subtree contains a condition that can't be compiled
+     */
+    private static boolean count(final AbstractTreeNode node, final int[] counts) {
+        counts[0]++;
+        final TreeNodeCondition condition = node.getCondition();
+        if (condition instanceof AbstractTreeNodeSurrogateCondition) {
+            final AbstractTreeNodeSurrogateCondition surrogate = (AbstractTreeNodeSurrogateCondition)condition;
+            for (int i = 0; i <= surrogate.getNumSurrogates(); i++) {
+                final int tableBits = getTableBits(surrogate.getColumnCondition(i));
+                if (tableBits < 0) {
+                    return false;
+                }
+                counts[1]++;
+                counts[2] += tableBits;
+            }
+        } else {
+            final int tableBits = getTableBits(condition);
+            if (tableBits < 0) {
+                return false;
+            }
+            counts[2] += tableBits;
+        }
+        for (int i = 0; i < node.getNrChildren(); i++) {
+            if (!count(node.getChild(i), counts)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return the size of the outcome table of the condition or -1 if the condition can't be compiled */
+    private static int getTableBits(final TreeNodeCondition condition) {
+        if (condition == null || condition instanceof TreeNodeTrueCondition
+            || condition instanceof TreeNodeNumericCondition) {
+            return 0;
+        } else if (condition instanceof TreeNodeNominalCondition
+            || condition instanceof TreeNodeNominalBinaryCondition) {
+            return getNrNominalValues((TreeNodeColumnCondition)condition);
+        } else if (condition instanceof TreeNodeBitCondition) {
+            return 2;
+        }
+        return -1;
+    }
+
+    private static int getNrNominalValues(final TreeNodeColumnCondition condition) {
+        int max = -1;
+        for (NominalValueRepresentation value : ((TreeNominalColumnMetaData)condition.getColumnMetaData())
+            .getValues()) {
+            max = Math.max(max, value.getAssignedInteger());
+        }
+        return max + 1;
+    }
+
+    /** Adds the children of the node, the node itself is already placed at the given index. */
+    private void addNode(final int index, final AbstractTreeNode node) {
+        m_nodes[index] = node;
+        addCondition(index, node.getCondition());
+        final int nrChildren = node.getNrChildren();
+        final int firstChild = m_nextNode;
+        m_nextNode += nrChildren;
+        m_firstChild[index] = firstChild;
+        m_nrChildren[index] = nrChildren;
+        for (int i = 0; i < nrChildren; i++) {
+            addNode(firstChild + i, node.getChild(i));
+        }
+    }
+
+    private void addCondition(final int index, final TreeNodeCondition condition) {
+        if (condition == null || condition instanceof TreeNodeTrueCondition) {
+            m_kinds[index] = TRUE;
+        } else if (condition instanceof AbstractTreeNodeSurrogateCondition) {
+            final AbstractTreeNodeSurrogateCondition surrogate = (AbstractTreeNodeSurrogateCondition)condition;
+            final int nrConditions = surrogate.getNumSurrogates() + 1;
+            final int first = m_nextCondition;
+            m_nextCondition += nrConditions;
+            m_kinds[index] = SURROGATE;
+            m_offsets[index] = first;
+            m_lengths[index] = nrConditions;
+            m_acceptsMissings[index] = surrogate.getDefaultResponse();
+            for (int i = 0; i < nrConditions; i++) {
+                addCondition(first + i, surrogate.getColumnCondition(i));
+            }
+        } else {
+            final TreeNodeColumnCondition columnCondition = (TreeNodeColumnCondition)condition;
+            m_attributes[index] = columnCondition.getColumnMetaData().getAttributeIndex();
+            m_acceptsMissings[index] = columnCondition.acceptsMissings();
+            if (condition instanceof TreeNodeNumericCondition) {
+                final TreeNodeNumericCondition numericCondition = (TreeNodeNumericCondition)condition;
+                switch (numericCondition.getNumericOperator()) {
+                    case LessThanOrEqual:
+                    case LessThanOrEqualOrMissing:
+                        m_kinds[index] = LESS_THAN_OR_EQUAL;
+                        break;
+                    case LargerThan:
+                    case LargerThanOrMissing:
+                        m_kinds[index] = LARGER_THAN;
+                        break;
+                    default:
+                        throw new UnsupportedOperationException(
+                            "Unsupported operator: " + numericCondition.getNumericOperator());
+                }
+                m_splitValues[index] = numericCondition.getSplitValue();
+            } else {
+                m_kinds[index] = NOMINAL;
+                m_offsets[index] = m_nextTableBit;
+                if (condition instanceof TreeNodeBitCondition) {
+                    final boolean value = ((TreeNodeBitCondition)condition).getValue();
+                    m_lengths[index] = 2;
+                    setTableBit(0, !value);
+                    setTableBit(1, value);
+                } else {
+                    final int nrValues = getNrNominalValues(columnCondition);
+                    m_lengths[index] = nrValues;
+                    for (int v = 0; v < nrValues; v++) {
+                        setTableBit(v, testNominalCondition(condition, v));
+                    }
+                }
+                m_nextTableBit += m_lengths[index];
+            }
+        }
+    }
+
+    private static boolean testNominalCondition(final TreeNodeCondition condition, final int valueIndex) {
+        if (condition instanceof TreeNodeNominalBinaryCondition) {
+            return ((TreeNodeNominalBinaryCondition)condition).testCondition(valueIndex);
+        }
+        return ((TreeNodeNominalCondition)condition).getValueIndex() == valueIndex;
+    }
+
+    private void setTableBit(final int valueIndex, final boolean outcome) {
+        if (outcome) {
+            final int bit = m_nextTableBit + valueIndex;
+            m_nominalTables[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Creates the record of a row. The result can be passed to {@link #findMatchingNode(int, double[])}.
+     *
+     * @param filterRow the row containing only the learn columns in the order of the learn table
+     * @return the values of the attributes or <code>null</code> if the vector of a vector model is missing
+     */
+    public double[] createRecord(final DataRow filterRow) {
+        final double[] record = new double[m_nrAttributes];
+        switch (m_type) {
+            case Ordinary:
+                for (int i = 0; i < m_nrAttributes; i++) {
+                    record[i] = getValue(filterRow.getCell(i), i);
+                }
+                return record;
+            case BitVector:
+            case ByteVector:
+            case DoubleVector:
+                return fillVectorRecord(filterRow, record);
+            default:
+                throw new IllegalStateException("Unknown tree type " + "(not implemented): " + m_type);
+        }
+    }
+
+    private double getValue(final DataCell cell, final int attributeIndex) {
+        if (cell.isMissing()) {
+            return Double.NaN;
+        }
+        final Map<String, Integer> nominalValues = m_nominalValues[attributeIndex];
+        if (nominalValues != null) {
+            // values unknown to the model are treated as missing values
+            final Integer assignedInteger = nominalValues.get(cell.toString());
+            return assignedInteger == null ? Double.NaN : assignedInteger;
+        }
+        if (!(cell instanceof DoubleValue)) {
+            throw new IllegalStateException("Expected nominal or numeric value for attribute " + attributeIndex
+                + " but got \"" + cell.getType() + "\"");
+        }
+        // NaNs are treated as missing values (AP-7169)
+        return ((DoubleValue)cell).getDoubleValue();
+    }
+
+    private double[] fillVectorRecord(final DataRow filterRow, final double[] record) {
+        assert filterRow.getNumCells() == 1 : "Expected one cell as vector data";
+        final DataCell c = filterRow.getCell(0);
+        if (c.isMissing()) {
+            return null;
+        }
+        final long length;
+        if (m_type == TreeType.BitVector) {
+            final BitVectorValue bv = (BitVectorValue)c;
+            length = bv.length();
+            checkLength(filterRow, length);
+            for (int i = 0; i < m_nrAttributes; i++) {
+                record[i] = bv.get(i) ? 1 : 0;
+            }
+        } else if (m_type == TreeType.ByteVector) {
+            final ByteVectorValue bv = (ByteVectorValue)c;
+            length = bv.length();
+            checkLength(filterRow, length);
+            for (int i = 0; i < m_nrAttributes; i++) {
+                record[i] = bv.get(i);
+            }
+        } else {
+            final DoubleVectorValue dv = (DoubleVectorValue)c;
+            length = dv.getLength();
+            checkLength(filterRow, length);
+            for (int i = 0; i < m_nrAttributes; i++) {
+                record[i] = dv.getValue(i);
+            }
+        }
+        return record;
+    }
+
+    private void checkLength(final DataRow filterRow, final long length) {
+        if (length != m_nrAttributes) {
+            throw new IllegalArgumentException("The vector in " + filterRow.getKey().getString()
+                + " has the wrong length. (" + length + " instead of " + m_nrAttributes + ")");
+        }
+    }
+
+    /**
+     * @return the number of trees
+     */
+    public int getNrTrees() {
+        return m_roots.length;
+    }
+
+    /**
+     * @return the number of nodes of all trees
+     */
+    public int getNrNodes() {
+        return m_nodes.length;
+    }
+
+    /**
+     * @param nodeIndex the index of a node as returned by {@link #findMatchingNode(int, double[])}
+     * @return the node
+     */
+    public AbstractTreeNode getNode(final int nodeIndex) {
+        return m_nodes[nodeIndex];
+    }
+
+    /**
+     * Computes a value for each node, e.g. the prediction of a leaf, so that the value of the node returned by
+     * {@link #findMatchingNode(int, double[])} can be looked up in the array.
+     *
+     * @param function computes the value of a node from the index of its tree and the node
+     * @return the value of each node
+     */
+    public double[] createNodeValues(final ToDoubleBiFunction<Integer, AbstractTreeNode> function) {
+        final double[] values = new double[m_nodes.length];
+        for (int tree = 0; tree < m_roots.length; tree++) {
+            // the nodes of a tree are numbered consecutively, starting with its root
+            final int end = tree + 1 < m_roots.length ? m_roots[tree + 1] : m_nodes.length;
+            for (int node = m_roots[tree]; node < end; node++) {
+                values[node] = function.applyAsDouble(tree, m_nodes[node]);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Finds the node a record falls into, equivalent to {@link AbstractTreeModel#findMatchingNode(
+     * org.knime.base.node.mine.treeensemble2.data.PredictorRecord)}.
+     *
+     * @param treeIndex the index of the tree
+     * @param record the record as created by {@link #createRecord(DataRow)}
+     * @return the index of the matching node
+     */
+    public int findMatchingNode(final int treeIndex, final double[] record) {
+        int node = m_roots[treeIndex];
+        int child;
+        while ((child = findMatchingChild(node, record)) >= 0) {
+            node = child;
+        }
+        return node;
+    }
+
+    private int findMatchingChild(final int node, final double[] record) {
+        final int firstChild = m_firstChild[node];
+        final int end = firstChild + m_nrChildren[node];
+        for (int child = firstChild; child < end; child++) {
+            if (testCondition(child, record)) {
+                return child;
+            }
+        }
+        return -1;
+    }
+
+    private boolean testCondition(final int condition, final double[] record) {
+        final byte kind = m_kinds[condition];
+        if (kind == TRUE) {
+            return true;
+        }
+        if (kind == SURROGATE) {
+            final int first = m_offsets[condition];
+            final int end = first + m_lengths[condition];
+            for (int i = first; i < end; i++) {
+                if (!Double.isNaN(record[m_attributes[i]])) {
+                    return testCondition(i, record);
+                }
+            }
+            // all evaluated columns are missing
+            return m_acceptsMissings[condition];
+        }
+        final double value = record[m_attributes[condition]];
+        if (Double.isNaN(value)) {
+            return m_acceptsMissings[condition];
+        }
+        switch (kind) {
+            case LESS_THAN_OR_EQUAL:
+                return value <= m_splitValues[condition];
+            case LARGER_THAN:
+                return value > m_splitValues[condition];
+            default:
+                final int valueIndex = (int)value;
+                if (valueIndex < 0 || valueIndex >= m_lengths[condition]) {
+                    return false;
+                }
+                final int bit = m_offsets[condition] + valueIndex;
+                return (m_nominalTables[bit >>> 6] & (1L << bit)) != 0;
+        }
+    }
+}
@@ -121,6 +121,15 @@ public double predict(final PredictorRecord record) {
         return prediction;
     }
 
+    /**
+     * @param treeIdx the index of the tree
+     * @return the coefficients of the leaves of the tree
+     * @since 3.7
+     */
+    public Map<TreeNodeSignature, Double> getCoefficientMap(final int treeIdx) {
+        return m_coefficientMaps.get(treeIdx);
+    }
+
     /**
      * {@inheritDoc}
      */
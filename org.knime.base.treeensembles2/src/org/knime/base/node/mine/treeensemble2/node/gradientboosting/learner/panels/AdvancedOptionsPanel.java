@@ -115,6 +115,10 @@ public class AdvancedOptionsPanel extends JPanel {
 
     private final JCheckBox m_useAverageSplitPointsChecker;
 
+    private final JCheckBox m_useHistogramSplitsChecker;
+
+    private final JCheckBox m_useIntraTreeParallelismChecker;
+
     private final JCheckBox m_useBinaryNominalSplitsChecker;
 
     private final JSpinner m_alphaFractionSpinner;
@@ -218,6 +222,8 @@ public void actionPerformed(final ActionEvent e) {
         m_seedChecker.doClick();
 
         m_useAverageSplitPointsChecker = new JCheckBox("Use mid point splits (only for numeric attributes)");
+        m_useHistogramSplitsChecker = new JCheckBox("Use histogram splits (only for numeric attributes)");
+        m_useIntraTreeParallelismChecker = new JCheckBox("Build the nodes of a single tree in parallel");
         m_useBinaryNominalSplitsChecker = new JCheckBox("Use binary splits for nominal columns");
         m_missingValueHandlingComboBox = new JComboBox<MissingValueHandling>(MissingValueHandling.values());
 
@@ -252,6 +258,20 @@ private void initPanel() {
         add(m_useAverageSplitPointsChecker, gbc);
         gbc.gridwidth = 1;
 
+        gbc.gridx = 0;
+        gbc.gridy += 1;
+        gbc.weightx = 0.0;
+        gbc.gridwidth = 2;
+        add(m_useHistogramSplitsChecker, gbc);
+        gbc.gridwidth = 1;
+
+        gbc.gridx = 0;
+        gbc.gridy += 1;
+        gbc.weightx = 0.0;
+        gbc.gridwidth = 2;
+        add(m_useIntraTreeParallelismChecker, gbc);
+        gbc.gridwidth = 1;
+
         gbc.gridx = 0;
         gbc.gridy += 1;
         gbc.weightx = 0.0;
@@ -394,6 +414,8 @@ private void initPanel() {
     public void loadSettings(final GradientBoostingLearnerConfiguration cfg) {
         m_alphaFractionSpinner.setValue(cfg.getAlpha());
         m_useAverageSplitPointsChecker.setSelected(cfg.isUseAverageSplitPoints());
+        m_useHistogramSplitsChecker.setSelected(cfg.isUseHistogramSplits());
+        m_useIntraTreeParallelismChecker.setSelected(cfg.isUseIntraTreeParallelism());
         m_useBinaryNominalSplitsChecker.setSelected(cfg.isUseBinaryNominalSplits());
         m_missingValueHandlingComboBox.setSelectedItem(cfg.getMissingValueHandling());
 
@@ -450,6 +472,8 @@ public void loadSettings(final GradientBoostingLearnerConfiguration cfg) {
     public void saveSettings(final GradientBoostingLearnerConfiguration cfg) throws InvalidSettingsException {
         cfg.setAlpha((Double)m_alphaFractionSpinner.getValue());
         cfg.setUseAverageSplitPoints(m_useAverageSplitPointsChecker.isSelected());
+        cfg.setUseHistogramSplits(m_useHistogramSplitsChecker.isSelected());
+        cfg.setUseIntraTreeParallelism(m_useIntraTreeParallelismChecker.isSelected());
         cfg.setUseBinaryNominalSplits(m_useBinaryNominalSplitsChecker.isSelected());
         final MissingValueHandling missValHandling = (MissingValueHandling)m_missingValueHandlingComboBox.getSelectedItem();
         if (missValHandling == MissingValueHandling.Surrogate && !m_useBinaryNominalSplitsChecker.isSelected()) {
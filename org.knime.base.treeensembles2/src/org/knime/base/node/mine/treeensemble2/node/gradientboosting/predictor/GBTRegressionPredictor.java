@@ -5,11 +5,17 @@
 
 import java.util.function.Function;
 
+import org.knime.base.data.filter.column.FilterColumnRow;
 import org.knime.base.node.mine.treeensemble2.data.PredictorRecord;
+import org.knime.base.node.mine.treeensemble2.model.CompiledTreeEnsemble;
 import org.knime.base.node.mine.treeensemble2.model.GradientBoostedTreesModel;
+import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModelPortObjectSpec;
 import org.knime.base.node.mine.treeensemble2.node.predictor.AbstractPredictor;
 import org.knime.base.node.mine.treeensemble2.node.predictor.RegressionPrediction;
+import org.knime.base.node.mine.treeensemble2.node.predictor.TreeEnsemblePredictionUtil;
 import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.InvalidSettingsException;
 
 /**
  * @author Adrian Nembach, KNIME GmbH, Konstanz, Germany
@@ -18,6 +24,12 @@ public class GBTRegressionPredictor extends AbstractPredictor<RegressionPredicti
 
     private final GradientBoostedTreesModel m_model;
 
+    private final CompiledTreeEnsemble m_compiledModel;
+
+    private final double[] m_coefficients;
+
+    private final int[] m_filterIndices;
+
     /**
      * Constructor for a {@link GBTRegressionPredictor}.
      *
@@ -28,6 +40,51 @@ public GBTRegressionPredictor(final GradientBoostedTreesModel model,
         final Function<DataRow, PredictorRecord> rowConverter) {
         super(rowConverter);
         m_model = model;
+        m_compiledModel = null;
+        m_coefficients = null;
+        m_filterIndices = null;
+    }
+
+    /**
+     * Constructor for a {@link GBTRegressionPredictor} that predicts on the compiled trees of the model (see
+     * {@link CompiledTreeEnsemble}) if possible.
+     *
+     * @param model the gbt model, may be <code>null</code> during configure
+     * @param modelSpec the spec of the model
+     * @param predictSpec the spec of the table to predict
+     * @throws InvalidSettingsException if <b>predictSpec</b> is missing some columns the model needs
+     * @since 3.7
+     */
+    public GBTRegressionPredictor(final GradientBoostedTreesModel model,
+        final TreeEnsembleModelPortObjectSpec modelSpec, final DataTableSpec predictSpec)
+        throws InvalidSettingsException {
+        super(TreeEnsemblePredictionUtil.createRowConverter(modelSpec, model, predictSpec));
+        m_model = model;
+        m_compiledModel = model == null ? null : CompiledTreeEnsemble.compile(model);
+        m_filterIndices = modelSpec.calculateFilterIndices(predictSpec);
+        m_coefficients = m_compiledModel == null ? null : m_compiledModel.createNodeValues((tree, node) -> {
+            final Double coefficient = model.getCoefficientMap(tree).get(node.getSignature());
+            return coefficient == null ? Double.NaN : coefficient;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RegressionPrediction predict(final DataRow row) {
+        if (m_compiledModel != null) {
+            final double[] record = m_compiledModel.createRecord(new FilterColumnRow(row, m_filterIndices));
+            if (record != null) {
+                double prediction = m_model.getInitialValue();
+                for (int i = 0; i < m_compiledModel.getNrTrees(); i++) {
+                    prediction += m_coefficients[m_compiledModel.findMatchingNode(i, record)];
+                }
+                final double p = prediction;
+                return () -> p;
+            }
+        }
+        return super.predict(row);
     }
 
     /* (non-Javadoc)
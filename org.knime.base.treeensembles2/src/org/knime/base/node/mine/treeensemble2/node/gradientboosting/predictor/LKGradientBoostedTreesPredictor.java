@@ -6,12 +6,18 @@
 import java.util.Arrays;
 import java.util.function.Function;
 
+import org.knime.base.data.filter.column.FilterColumnRow;
 import org.knime.base.node.mine.treeensemble2.data.PredictorRecord;
+import org.knime.base.node.mine.treeensemble2.model.CompiledTreeEnsemble;
 import org.knime.base.node.mine.treeensemble2.model.MultiClassGradientBoostedTreesModel;
+import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModelPortObjectSpec;
 import org.knime.base.node.mine.treeensemble2.model.TreeNodeRegression;
 import org.knime.base.node.mine.treeensemble2.node.predictor.AbstractPredictor;
 import org.knime.base.node.mine.treeensemble2.node.predictor.ClassificationPrediction;
+import org.knime.base.node.mine.treeensemble2.node.predictor.TreeEnsemblePredictionUtil;
 import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.InvalidSettingsException;
 
 /**
  * @author Adrian Nembach, KNIME GmbH, Konstanz, Germany
@@ -22,6 +28,12 @@ public class LKGradientBoostedTreesPredictor extends AbstractPredictor<Classific
 
     private final boolean m_calculateProbabilities;
 
+    private final CompiledTreeEnsemble m_compiledModel;
+
+    private final double[] m_coefficients;
+
+    private final int[] m_filterIndices;
+
     /**
      * Constructor for classification gbt predictors.
      *
@@ -34,6 +46,50 @@ public LKGradientBoostedTreesPredictor(final MultiClassGradientBoostedTreesModel
         super(rowConverter);
         m_model = model;
         m_calculateProbabilities = calculateProbabilities;
+        m_compiledModel = null;
+        m_coefficients = null;
+        m_filterIndices = null;
+    }
+
+    /**
+     * Constructor for classification gbt predictors that predict on the compiled trees of the model (see
+     * {@link CompiledTreeEnsemble}) if possible.
+     *
+     * @param model the gradient boosted trees model, may be <code>null</code> during configure
+     * @param calculateProbabilities indicates whether probabilities should be calculated
+     * @param modelSpec the spec of the model
+     * @param predictSpec the spec of the table to predict
+     * @throws InvalidSettingsException if <b>predictSpec</b> is missing some columns the model needs
+     * @since 3.7
+     */
+    public LKGradientBoostedTreesPredictor(final MultiClassGradientBoostedTreesModel model,
+        final boolean calculateProbabilities, final TreeEnsembleModelPortObjectSpec modelSpec,
+        final DataTableSpec predictSpec) throws InvalidSettingsException {
+        super(TreeEnsemblePredictionUtil.createRowConverter(modelSpec, model, predictSpec));
+        m_model = model;
+        m_calculateProbabilities = calculateProbabilities;
+        m_compiledModel = model == null ? null : CompiledTreeEnsemble.compile(model);
+        m_filterIndices = modelSpec.calculateFilterIndices(predictSpec);
+        m_coefficients = m_compiledModel == null ? null : m_compiledModel.createNodeValues((tree, node) -> {
+            final int nrClasses = model.getNrClasses();
+            final Double coefficient =
+                model.getCoefficientMap(tree / nrClasses, tree % nrClasses).get(node.getSignature());
+            return coefficient == null ? Double.NaN : coefficient;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ClassificationPrediction predict(final DataRow row) {
+        if (m_compiledModel != null) {
+            final double[] record = m_compiledModel.createRecord(new FilterColumnRow(row, m_filterIndices));
+            if (record != null) {
+                return predictLogits(calculateLogits(record));
+            }
+        }
+        return super.predict(row);
     }
 
     /* (non-Javadoc)
@@ -41,7 +97,10 @@ public LKGradientBoostedTreesPredictor(final MultiClassGradientBoostedTreesModel
      */
     @Override
     public ClassificationPrediction predictRecord(final PredictorRecord record) {
-        double[] logits = calculateLogits(record);
+        return predictLogits(calculateLogits(record));
+    }
+
+    private ClassificationPrediction predictLogits(final double[] logits) {
         if (m_calculateProbabilities) {
             transformToProbabilities(logits);
             return new LKGBTPrediction(argmax(logits), logits);
@@ -64,6 +123,20 @@ private double[] calculateLogits(final PredictorRecord record) {
         return logits;
     }
 
+    private double[] calculateLogits(final double[] record) {
+        int nrClasses = m_model.getNrClasses();
+        int nrLevels = m_model.getNrLevels();
+        final double[] logits = new double[nrClasses];
+        Arrays.fill(logits, m_model.getInitialValue());
+        for (int i = 0; i < nrLevels; i++) {
+            for (int j = 0; j < nrClasses; j++) {
+                // the trees are stored level by level (see MultiClassGradientBoostedTreesModel#getModel)
+                logits[j] += m_coefficients[m_compiledModel.findMatchingNode(i * nrClasses + j, record)];
+            }
+        }
+        return logits;
+    }
+
     private void transformToProbabilities(final double[] logits) {
         double[] probabilities = logits;
         double expSum = 0;
@@ -132,7 +132,7 @@ private PredictionRearrangerCreator createPredictionRearrangerCreator(final Data
         PredictionRearrangerCreator crc =
             new PredictionRearrangerCreator(testSpec, new LKGradientBoostedTreesPredictor(model,
                 m_configuration.isAppendClassConfidences() || m_configuration.isAppendPredictionConfidence(),
-                TreeEnsemblePredictionUtil.createRowConverter(modelSpec, model, testSpec)));
+                modelSpec, testSpec));
         TreeEnsemblePredictionUtil.setupRearrangerCreatorGBT(m_pre36, crc, modelSpec, model, m_configuration);
         return crc;
     }
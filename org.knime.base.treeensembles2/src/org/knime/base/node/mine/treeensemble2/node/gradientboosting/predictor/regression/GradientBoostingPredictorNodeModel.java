@@ -57,7 +57,6 @@
 import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModelPortObjectSpec;
 import org.knime.base.node.mine.treeensemble2.node.gradientboosting.predictor.GBTRegressionPredictor;
 import org.knime.base.node.mine.treeensemble2.node.predictor.PredictionRearrangerCreator;
-import org.knime.base.node.mine.treeensemble2.node.predictor.TreeEnsemblePredictionUtil;
 import org.knime.base.node.mine.treeensemble2.node.predictor.TreeEnsemblePredictorConfiguration;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.container.ColumnRearranger;
@@ -121,8 +120,7 @@ private PredictionRearrangerCreator createRearrangerCreator(final DataTableSpec
         final TreeEnsembleModelPortObjectSpec modelSpec, final GradientBoostedTreesModel model)
         throws InvalidSettingsException {
         PredictionRearrangerCreator prc = new PredictionRearrangerCreator(predictSpec,
-            new GBTRegressionPredictor(model,
-            TreeEnsemblePredictionUtil.createRowConverter(modelSpec, model, predictSpec)));
+            new GBTRegressionPredictor(model, modelSpec, predictSpec));
         prc.addRegressionPrediction(m_configuration.getPredictionColumnName());
         return prc;
     }
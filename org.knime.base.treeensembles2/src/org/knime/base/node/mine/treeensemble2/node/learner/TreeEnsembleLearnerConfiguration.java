@@ -115,6 +115,10 @@ public class TreeEnsembleLearnerConfiguration {
 
     private static final String KEY_USE_BINARY_NOMINAL_SPLITS = "useBinaryNominalSplits";
 
+    private static final String KEY_USE_HISTOGRAM_SPLITS = "useHistogramSplits";
+
+    private static final String KEY_USE_INTRA_TREE_PARALLELISM = "useIntraTreeParallelism";
+
     private static final String KEY_SPLIT_CRITERION = "splitCriterion";
 
     private static final String KEY_MISSING_VALUE_HANDLING = "missingValueHandling";
@@ -280,6 +284,25 @@ public enum ColumnSamplingMode {
      */
     public static final boolean DEF_BINARY_NOMINAL_SPLITS = true;
 
+    /**
+     * Default for the use of histogram (binned) split finding in numeric attributes
+     * @since 3.7
+     */
+    public static final boolean DEF_HISTOGRAM_SPLITS = false;
+
+    /**
+     * Maximum number of bins a numeric attribute is quantized into if histogram split finding is used
+     * @since 3.7
+     */
+    public static final int MAX_HISTOGRAM_BINS = 256;
+
+    /**
+     * Default for building the nodes of a single tree in parallel (only applies to new configurations, settings
+     * saved before 3.7 load as false so that their models don't change)
+     * @since 3.7
+     */
+    public static final boolean DEF_INTRA_TREE_PARALLELISM = true;
+
     /**
      * Default for saving the target distribution in each node
      */
@@ -316,6 +339,10 @@ public enum ColumnSamplingMode {
 
     private boolean m_useBinaryNominalSplits = DEF_BINARY_NOMINAL_SPLITS;
 
+    private boolean m_useHistogramSplits = DEF_HISTOGRAM_SPLITS;
+
+    private boolean m_useIntraTreeParallelism = DEF_INTRA_TREE_PARALLELISM;
+
     private SplitCriterion m_splitCriterion;
 
     private MissingValueHandling m_missingValueHandling = DEF_MISSING_VALUE_HANDLING;
@@ -689,6 +716,40 @@ public void setUseBinaryNominalSplits(final boolean useBinaryNominalSplits) {
         m_useBinaryNominalSplits = useBinaryNominalSplits;
     }
 
+    /**
+     * @return true if numeric attributes are quantized into at most {@link #MAX_HISTOGRAM_BINS} bins and the splits
+     *         are searched on the bin boundaries only
+     * @since 3.7
+     */
+    public boolean isUseHistogramSplits() {
+        return m_useHistogramSplits;
+    }
+
+    /**
+     * @param useHistogramSplits set to true if splits on numeric attributes should be searched on histograms
+     * @since 3.7
+     */
+    public void setUseHistogramSplits(final boolean useHistogramSplits) {
+        m_useHistogramSplits = useHistogramSplits;
+    }
+
+    /**
+     * @return true if the split candidates of different columns and the subtrees of sibling nodes are computed in
+     *         parallel while learning a single tree
+     * @since 3.7
+     */
+    public boolean isUseIntraTreeParallelism() {
+        return m_useIntraTreeParallelism;
+    }
+
+    /**
+     * @param useIntraTreeParallelism set to true if the nodes of a single tree should be built in parallel
+     * @since 3.7
+     */
+    public void setUseIntraTreeParallelism(final boolean useIntraTreeParallelism) {
+        m_useIntraTreeParallelism = useIntraTreeParallelism;
+    }
+
     /**
      * @return the name of the fingerprint column to learn from (each bit position is an binary attribute) or null if to
      *         learn from a set of columns.
@@ -815,6 +876,8 @@ public void save(final NodeSettingsWO settings) {
         settings.addString(KEY_MISSING_VALUE_HANDLING, m_missingValueHandling.name());
         settings.addBoolean(KEY_USE_AVERAGE_SPLIT_POINTS, m_useAverageSplitPoints);
         settings.addBoolean(KEY_USE_BINARY_NOMINAL_SPLITS, m_useBinaryNominalSplits);
+        settings.addBoolean(KEY_USE_HISTOGRAM_SPLITS, m_useHistogramSplits);
+        settings.addBoolean(KEY_USE_INTRA_TREE_PARALLELISM, m_useIntraTreeParallelism);
         settings.addString(KEY_FINGERPRINT_COLUMN, m_fingerprintColumn);
         //        m_columnFilterConfig = new DataColumnSpecFilterConfiguration(KEY_COLUMN_FILTER_CONFIG);
         m_columnFilterConfig.saveConfiguration(settings);
@@ -890,6 +953,10 @@ public void loadInModel(final NodeSettingsRO settings) throws InvalidSettingsExc
         }
         setUseAverageSplitPoints(settings.getBoolean(KEY_USE_AVERAGE_SPLIT_POINTS));
         setUseBinaryNominalSplits(settings.getBoolean(KEY_USE_BINARY_NOMINAL_SPLITS, false));
+        // added in 3.7
+        setUseHistogramSplits(settings.getBoolean(KEY_USE_HISTOGRAM_SPLITS, DEF_HISTOGRAM_SPLITS));
+        // added in 3.7, false for old settings as the parallel learner draws its random numbers differently
+        setUseIntraTreeParallelism(settings.getBoolean(KEY_USE_INTRA_TREE_PARALLELISM, false));
         setFingerprintColumn(settings.getString(KEY_FINGERPRINT_COLUMN));
         m_columnFilterConfig.loadConfigurationInModel(settings);
         //        setIncludeAllColumns(settings.getBoolean(KEY_INCLUDE_ALL_COLUMNS));
@@ -1074,6 +1141,8 @@ public void loadInDialog(final NodeSettingsRO settings, final DataTableSpec inSp
         m_splitCriterion = splitCriterion;
         m_useAverageSplitPoints = settings.getBoolean(KEY_USE_AVERAGE_SPLIT_POINTS, DEF_AVERAGE_SPLIT_POINTS);
         m_useBinaryNominalSplits = settings.getBoolean(KEY_USE_BINARY_NOMINAL_SPLITS, DEF_BINARY_NOMINAL_SPLITS);
+        m_useHistogramSplits = settings.getBoolean(KEY_USE_HISTOGRAM_SPLITS, DEF_HISTOGRAM_SPLITS);
+        m_useIntraTreeParallelism = settings.getBoolean(KEY_USE_INTRA_TREE_PARALLELISM, false);
 
         String missingValueHandlingS =
             settings.getString(KEY_MISSING_VALUE_HANDLING, DEF_MISSING_VALUE_HANDLING.name());
@@ -87,6 +87,10 @@ public final class TreeOptionsPanel extends JPanel {
 
     private final JCheckBox m_useAverageSplitPointsChecker;
 
+    private final JCheckBox m_useHistogramSplitsChecker;
+
+    private final JCheckBox m_useIntraTreeParallelismChecker;
+
     private final JCheckBox m_useBinaryNominalSplitsChecker;
 
     private final JCheckBox m_maxLevelChecker;
@@ -122,6 +126,8 @@ public void stateChanged(final ChangeEvent e) {
         });
         m_splitCriterionsBox = new JComboBox(SplitCriterion.values());
         m_useAverageSplitPointsChecker = new JCheckBox("Use mid point splits (only for numeric attributes)");
+        m_useHistogramSplitsChecker = new JCheckBox("Use histogram splits (only for numeric attributes)");
+        m_useIntraTreeParallelismChecker = new JCheckBox("Build the nodes of a single tree in parallel");
         m_useBinaryNominalSplitsChecker = new JCheckBox("Use binary splits for nominal columns.");
         m_maxLevelSpinner = new JSpinner(new SpinnerNumberModel(3, 1, Integer.MAX_VALUE, 1));
         m_maxLevelChecker = new JCheckBox("Limit number of levels (tree depth)");
@@ -192,6 +198,20 @@ private void initPanel() {
         add(m_useAverageSplitPointsChecker, gbc);
         gbc.gridwidth = 1;
 
+        gbc.gridx = 0;
+        gbc.gridy += 1;
+        gbc.weightx = 0.0;
+        gbc.gridwidth = 2;
+        add(m_useHistogramSplitsChecker, gbc);
+        gbc.gridwidth = 1;
+
+        gbc.gridx = 0;
+        gbc.gridy += 1;
+        gbc.weightx = 0.0;
+        gbc.gridwidth = 2;
+        add(m_useIntraTreeParallelismChecker, gbc);
+        gbc.gridwidth = 1;
+
         gbc.gridx = 0;
         gbc.gridy += 1;
         gbc.weightx = 0.0;
@@ -260,6 +280,8 @@ public void loadSettingsFrom(final DataTableSpec inSpec, final TreeEnsembleLearn
         }
         m_splitCriterionsBox.setSelectedItem(cfg.getSplitCriterion());
         m_useAverageSplitPointsChecker.setSelected(cfg.isUseAverageSplitPoints());
+        m_useHistogramSplitsChecker.setSelected(cfg.isUseHistogramSplits());
+        m_useIntraTreeParallelismChecker.setSelected(cfg.isUseIntraTreeParallelism());
         m_useBinaryNominalSplitsChecker.setSelected(cfg.isUseBinaryNominalSplits());
         int maxLevel = cfg.getMaxLevels();
         if ((maxLevel != TreeEnsembleLearnerConfiguration.MAX_LEVEL_INFINITE) != m_maxLevelChecker.isSelected()) {
@@ -335,6 +357,8 @@ private void newTargetSelected() {
     public void saveSettings(final TreeEnsembleLearnerConfiguration cfg) throws InvalidSettingsException {
         cfg.setSplitCriterion((SplitCriterion)m_splitCriterionsBox.getSelectedItem());
         cfg.setUseAverageSplitPoints(m_useAverageSplitPointsChecker.isSelected());
+        cfg.setUseHistogramSplits(m_useHistogramSplitsChecker.isSelected());
+        cfg.setUseIntraTreeParallelism(m_useIntraTreeParallelismChecker.isSelected());
         cfg.setUseBinaryNominalSplits(m_useBinaryNominalSplitsChecker.isSelected());
         int maxLevel =
             m_maxLevelChecker.isSelected() ? (Integer)m_maxLevelSpinner.getValue()
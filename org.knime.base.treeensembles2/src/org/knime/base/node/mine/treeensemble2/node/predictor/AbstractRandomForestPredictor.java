@@ -9,6 +9,7 @@
 import org.knime.base.data.filter.column.FilterColumnRow;
 import org.knime.base.node.mine.treeensemble2.data.PredictorRecord;
 import org.knime.base.node.mine.treeensemble2.data.TreeTargetColumnData;
+import org.knime.base.node.mine.treeensemble2.model.CompiledTreeEnsemble;
 import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModel;
 import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModelPortObjectSpec;
 import org.knime.base.node.mine.treeensemble2.sample.row.RowSample;
@@ -29,6 +30,12 @@
 
     protected final TreeEnsembleModel m_model;
 
+    /**
+     * The compiled trees of the model or <code>null</code> if the model is not available or can't be compiled.
+     * @since 3.7
+     */
+    protected final CompiledTreeEnsemble m_compiledModel;
+
     private final DataTableSpec m_learnSpec;
 
     private final int[] m_filterIndices;
@@ -42,6 +49,7 @@
     public AbstractRandomForestPredictor(final TreeEnsembleModel model, final TreeEnsembleModelPortObjectSpec modelSpec,
         final DataTableSpec predictSpec) throws InvalidSettingsException {
         m_model = model;
+        m_compiledModel = model == null ? null : CompiledTreeEnsemble.compile(model);
         m_filterIndices = modelSpec.calculateFilterIndices(predictSpec);
         m_learnSpec = modelSpec.getLearnTableSpec();
     }
@@ -67,6 +75,12 @@ public AbstractRandomForestPredictor(final TreeEnsembleModel model, final TreeEn
     @Override
     public P predict(final DataRow row) {
         FilterColumnRow filterRow = new FilterColumnRow(row, m_filterIndices);
+        if (m_compiledModel != null) {
+            final double[] record = m_compiledModel.createRecord(filterRow);
+            if (record != null) {
+                return predictRecord(record, row.getKey());
+            }
+        }
         return predictRecord(m_model.createPredictorRecord(filterRow, m_learnSpec), row.getKey());
     }
 
@@ -77,6 +91,16 @@ public P predict(final DataRow row) {
      */
     protected abstract P predictRecord(PredictorRecord record, RowKey key);
 
+    /**
+     * Predicts on the compiled trees of the model, only called if the model could be compiled.
+     *
+     * @param record the record to predict as created by {@link CompiledTreeEnsemble#createRecord(DataRow)}
+     * @param key the row key to access out of bag information
+     * @return the prediction
+     * @since 3.7
+     */
+    protected abstract P predictRecord(double[] record, RowKey key);
+
     private void setOutofBagFilter(final RowSample[] modelRowSamples, final TreeTargetColumnData targetColumnData) {
         if (modelRowSamples == null || targetColumnData == null) {
             throw new NullPointerException("Argument must not be null.");
@@ -3,6 +3,8 @@
  */
 package org.knime.base.node.mine.treeensemble2.node.predictor.classification;
 
+import java.util.function.IntFunction;
+
 import org.knime.base.node.mine.treeensemble2.data.PredictorRecord;
 import org.knime.base.node.mine.treeensemble2.data.TreeTargetColumnData;
 import org.knime.base.node.mine.treeensemble2.model.TreeEnsembleModel;
@@ -60,23 +62,38 @@ public RandomForestClassificationPredictor(final TreeEnsembleModel model,
      */
     @Override
     protected RandomForestClassificationPrediction predictRecord(final PredictorRecord record, final RowKey key) {
-        return new RFClassificationPrediction(record, key, hasOutOfBagFilter());
+        return new RFClassificationPrediction(i -> {
+            TreeModelClassification m = m_model.getTreeModelClassification(i);
+            return m.findMatchingNode(record);
+        }, key, hasOutOfBagFilter());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected RandomForestClassificationPrediction predictRecord(final double[] record, final RowKey key) {
+        return new RFClassificationPrediction(
+            i -> (TreeNodeClassification)m_compiledModel.getNode(m_compiledModel.findMatchingNode(i, record)), key,
+            hasOutOfBagFilter());
     }
 
     private class RFClassificationPrediction implements RandomForestClassificationPrediction {
 
         private final Voting m_voting;
 
-        RFClassificationPrediction(final PredictorRecord record, final RowKey key, final boolean hasOutOfBagFilter) {
+        /**
+         * @param treeMatch returns the leaf the row falls into for the tree with the given index
+         */
+        RFClassificationPrediction(final IntFunction<TreeNodeClassification> treeMatch, final RowKey key,
+            final boolean hasOutOfBagFilter) {
             m_voting = m_votingFactory.createVoting();
             final int nrModels = m_model.getNrModels();
             for (int i = 0; i < nrModels; i++) {
                 if (hasOutOfBagFilter && isRowPartOfTrainingData(key, i)) {
                     // ignore, row was used to train the model
                 } else {
-                    TreeModelClassification m = m_model.getTreeModelClassification(i);
-                    TreeNodeClassification match = m.findMatchingNode(record);
-                    m_voting.addVote(match);
+                    m_voting.addVote(treeMatch.apply(i));
                 }
             }
         }
@@ -3,6 +3,8 @@
  */
 package org.knime.base.node.mine.treeensemble2.node.predictor.regression;
 
+import java.util.function.IntToDoubleFunction;
+
 import org.apache.commons.math.stat.descriptive.moment.Mean;
 import org.apache.commons.math.stat.descriptive.moment.Variance;
 import org.knime.base.node.mine.treeensemble2.data.PredictorRecord;
@@ -23,6 +25,9 @@
  */
 public class RandomForestRegressionPredictor extends AbstractRandomForestPredictor<RandomForestRegressionPrediction> {
 
+    /** The mean of each node of the compiled model, <code>null</code> if the model isn't compiled. */
+    private final double[] m_nodeMeans;
+
     /**
      * @param model
      * @param modelSpec
@@ -33,6 +38,7 @@ public RandomForestRegressionPredictor(final TreeEnsembleModel model,
         final TreeEnsembleModelPortObjectSpec modelSpec, final DataTableSpec predictSpec)
         throws InvalidSettingsException {
         super(model, modelSpec, predictSpec);
+        m_nodeMeans = createNodeMeans();
     }
 
     /**
@@ -48,6 +54,12 @@ public RandomForestRegressionPredictor(final TreeEnsembleModel model,
         final RowSample[] modelRowSamples, final TreeTargetColumnData targetColumnData)
         throws InvalidSettingsException {
         super(model, modelSpec, predictSpec, modelRowSamples, targetColumnData);
+        m_nodeMeans = createNodeMeans();
+    }
+
+    private double[] createNodeMeans() {
+        return m_compiledModel == null ? null
+            : m_compiledModel.createNodeValues((tree, node) -> ((TreeNodeRegression)node).getMean());
     }
 
     /* (non-Javadoc)
@@ -55,7 +67,20 @@ public RandomForestRegressionPredictor(final TreeEnsembleModel model,
      */
     @Override
     protected RandomForestRegressionPrediction predictRecord(final PredictorRecord record, final RowKey key) {
-        return new RFRegressionPrediction(record, key, hasOutOfBagFilter());
+        return new RFRegressionPrediction(i -> {
+            TreeModelRegression m = m_model.getTreeModelRegression(i);
+            TreeNodeRegression match = m.findMatchingNode(record);
+            return match.getMean();
+        }, key, hasOutOfBagFilter());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected RandomForestRegressionPrediction predictRecord(final double[] record, final RowKey key) {
+        return new RFRegressionPrediction(i -> m_nodeMeans[m_compiledModel.findMatchingNode(i, record)], key,
+            hasOutOfBagFilter());
     }
 
     private class RFRegressionPrediction implements RandomForestRegressionPrediction {
@@ -67,9 +92,10 @@ private class RFRegressionPrediction implements RandomForestRegressionPrediction
         private final int m_modelCount;
 
         /**
-         *
+         * @param treeMean returns the mean of the leaf the row falls into for the tree with the given index
          */
-        RFRegressionPrediction(final PredictorRecord record, final RowKey key, final boolean hasOutOfBagFilter) {
+        RFRegressionPrediction(final IntToDoubleFunction treeMean, final RowKey key,
+            final boolean hasOutOfBagFilter) {
             Mean mean = new Mean();
             Variance variance = new Variance();
             final int nrModels = m_model.getNrModels();
@@ -77,9 +103,7 @@ private class RFRegressionPrediction implements RandomForestRegressionPrediction
                 if (hasOutOfBagFilter && isRowPartOfTrainingData(key, i)) {
                     // ignore, row was used to train the model
                 } else {
-                    TreeModelRegression m = m_model.getTreeModelRegression(i);
-                    TreeNodeRegression match = m.findMatchingNode(record);
-                    double nodeMean = match.getMean();
+                    double nodeMean = treeMean.applyAsDouble(i);
                     mean.increment(nodeMean);
                     variance.increment(nodeMean);
                 }
@@ -145,7 +145,7 @@ protected PortObject[] execute(final PortObject[] inData,
                 exec.createDataContainer(fTable.getDataTableSpec(), /* initDomain= */
                 true);
         int row = 0;
-        FileRowIterator it = fTable.iterator();
+        AbstractFileRowIterator it = fTable.iterator();
         try {
             if (it.getZipEntryName() != null) {
                 // seems we are reading a ZIP archive.
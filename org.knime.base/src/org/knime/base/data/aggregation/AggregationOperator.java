@@ -46,9 +46,19 @@
 package org.knime.base.data.aggregation;
 
 import java.awt.Component;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collection;
 
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
@@ -56,6 +66,7 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.data.util.ClassNameCellSerializer;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeLogger;
@@ -449,6 +460,183 @@ public final void reset() {
      */
     protected abstract void resetInternal();
 
+    /**
+     * Returns <code>true</code> if the intermediate state of this operator can be combined with the state of another
+     * instance using {@link #combine(AggregationOperator)} and written to and read from a stream using
+     * {@link #saveState(DataOutput)} and {@link #loadState(DataInput)}. The rows of a group can then be aggregated in
+     * independent chunks, e.g. by several threads, and the partial results combined afterwards.
+     * Combinable operators override this method together with {@link #combineInternal(AggregationOperator)},
+     * {@link #saveStateInternal(DataCellDataOutput)} and {@link #loadStateInternal(DataCellDataInput)}. Subclasses of
+     * combinable operators that maintain additional state have to override this method and return <code>false</code>
+     * unless they handle the additional state as well.
+     *
+     * @return <code>true</code> if partial results can be combined, <code>false</code> by default
+     * @since 3.7
+     */
+    public boolean isCombinable() {
+        return false;
+    }
+
+    /**
+     * Combines the partial result of the given operator into this operator. The given operator has to be of the same
+     * class and has to be created with the same settings. It has to hold the partial result of rows that follow the
+     * rows aggregated by this operator in the input, which matters for order dependent methods such as first, last or
+     * list. The given operator is not modified but should not be used afterwards since both operators might share
+     * objects.
+     *
+     * @param other the operator with the partial result of the subsequent rows
+     * @throws UnsupportedOperationException if this operator is not {@link #isCombinable() combinable}
+     * @throws IllegalArgumentException if the given operator is of a different class
+     * @since 3.7
+     */
+    public final void combine(final AggregationOperator other) {
+        if (other == null) {
+            throw new NullPointerException("operator must not be null");
+        }
+        checkCombinable();
+        if (other.getClass() != getClass()) {
+            throw new IllegalArgumentException("Operator of class " + other.getClass().getName()
+                + " can't be combined with operator of class " + getClass().getName());
+        }
+        m_missingValuesCount += other.m_missingValuesCount;
+        if (m_skipped) {
+            return;
+        }
+        if (other.m_skipped) {
+            m_skipped = true;
+            m_skipMsg = other.m_skipMsg;
+            return;
+        }
+        m_skipped = combineInternal(other);
+    }
+
+    /**
+     * Combines the state of the given operator into the state of this operator. Only called if neither of the two
+     * operators has been skipped. Has to be overridden by {@link #isCombinable() combinable} operators.
+     *
+     * @param other the operator of the same class with the partial result of the subsequent rows
+     * @return <code>true</code> if this column should be skipped in further calculations
+     * @see #combine(AggregationOperator)
+     * @since 3.7
+     */
+    protected boolean combineInternal(final AggregationOperator other) {
+        throw new UnsupportedOperationException("Operator '" + getLabel() + "' can't be combined");
+    }
+
+    /**
+     * Writes the intermediate state of this operator to the given output.
+     *
+     * @param out the output to write to
+     * @throws IOException if the state can't be written
+     * @throws UnsupportedOperationException if this operator is not {@link #isCombinable() combinable}
+     * @see #loadState(DataInput)
+     * @since 3.7
+     */
+    public final void saveState(final DataOutput out) throws IOException {
+        checkCombinable();
+        out.writeBoolean(m_skipped);
+        out.writeUTF(m_skipMsg == null ? "" : m_skipMsg);
+        out.writeLong(m_missingValuesCount);
+        if (!m_skipped) {
+            saveStateInternal(new StateOutput(out));
+        }
+    }
+
+    /**
+     * Replaces the state of this operator by the state read from the given input. The state has to be written by
+     * {@link #saveState(DataOutput)} of an operator of the same class with the same settings.
+     *
+     * @param in the input to read from
+     * @throws IOException if the state can't be read
+     * @throws UnsupportedOperationException if this operator is not {@link #isCombinable() combinable}
+     * @since 3.7
+     */
+    public final void loadState(final DataInput in) throws IOException {
+        checkCombinable();
+        reset();
+        m_skipped = in.readBoolean();
+        m_skipMsg = in.readUTF();
+        m_missingValuesCount = in.readLong();
+        if (!m_skipped) {
+            loadStateInternal(new StateInput(in));
+        }
+    }
+
+    /**
+     * Writes the operator specific state. Has to be overridden by {@link #isCombinable() combinable} operators.
+     *
+     * @param out the output to write to, supports writing {@link DataCell}s
+     * @throws IOException if the state can't be written
+     * @since 3.7
+     */
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        throw new UnsupportedOperationException("Operator '" + getLabel() + "' can't save its state");
+    }
+
+    /**
+     * Reads the operator specific state written by {@link #saveStateInternal(DataCellDataOutput)}. The operator has
+     * been reset before. Has to be overridden by {@link #isCombinable() combinable} operators.
+     *
+     * @param in the input to read from, supports reading {@link DataCell}s
+     * @throws IOException if the state can't be read
+     * @since 3.7
+     */
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        throw new UnsupportedOperationException("Operator '" + getLabel() + "' can't load its state");
+    }
+
+    private void checkCombinable() {
+        if (!isCombinable()) {
+            throw new UnsupportedOperationException(
+                "Operator '" + getLabel() + "' doesn't support combining partial results");
+        }
+    }
+
+    /** Output passed to {@link #saveStateInternal(DataCellDataOutput)}, writes to the output given by the caller. */
+    private static final class StateOutput extends DataOutputStream implements DataCellDataOutput {
+
+        StateOutput(final DataOutput out) {
+            super(out instanceof OutputStream ? (OutputStream)out : new OutputStream() {
+                @Override
+                public void write(final int b) throws IOException {
+                    out.write(b);
+                }
+
+                @Override
+                public void write(final byte[] b, final int off, final int len) throws IOException {
+                    out.write(b, off, len);
+                }
+            });
+        }
+
+        @Override
+        public void writeDataCell(final DataCell cell) throws IOException {
+            ClassNameCellSerializer.writeCell(cell, this);
+        }
+    }
+
+    /** Counterpart to {@link StateOutput}, never reads beyond the state of the operator. */
+    private static final class StateInput extends DataInputStream implements DataCellDataInput {
+
+        StateInput(final DataInput in) {
+            super(in instanceof InputStream ? (InputStream)in : new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    try {
+                        return in.readUnsignedByte();
+                    } catch (final EOFException e) {
+                        return -1;
+                    }
+                }
+            });
+        }
+
+        @Override
+        public DataCell readDataCell() throws IOException {
+            return ClassNameCellSerializer.readCell(this);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
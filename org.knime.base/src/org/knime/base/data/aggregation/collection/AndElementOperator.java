@@ -45,6 +45,7 @@
 
 package org.knime.base.data.aggregation.collection;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -56,6 +57,8 @@
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataType;
 import org.knime.core.data.collection.CollectionCellFactory;
 import org.knime.core.data.collection.CollectionDataValue;
@@ -180,6 +183,62 @@ protected void resetInternal() {
         m_containsMissing = false;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean combineInternal(final AggregationOperator other) {
+        final AndElementOperator andOperator = (AndElementOperator)other;
+        if (andOperator.m_first) {
+            //the other operator hasn't seen any collection
+            return false;
+        }
+        if (m_first) {
+            m_vals.addAll(andOperator.m_vals);
+            m_first = false;
+        } else {
+            m_vals.retainAll(andOperator.m_vals);
+        }
+        if (andOperator.m_containsMissing) {
+            m_vals.clear();
+            m_containsMissing = true;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        out.writeBoolean(m_first);
+        out.writeBoolean(m_containsMissing);
+        out.writeInt(m_vals.size());
+        for (final DataCell cell : m_vals) {
+            out.writeDataCell(cell);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        m_first = in.readBoolean();
+        m_containsMissing = in.readBoolean();
+        for (int i = 0, size = in.readInt(); i < size; i++) {
+            m_vals.add(in.readDataCell());
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -45,11 +45,15 @@
 
 package org.knime.base.data.aggregation.collection;
 
+import java.io.IOException;
+
 import org.knime.base.data.aggregation.AggregationOperator;
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataType;
 import org.knime.core.data.collection.CollectionDataValue;
 import org.knime.core.data.def.IntCell;
@@ -134,6 +138,39 @@ protected void resetInternal() {
         m_counter = 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean combineInternal(final AggregationOperator other) {
+        m_counter += ((ElementCountOperator)other).m_counter;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        out.writeInt(m_counter);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        m_counter = in.readInt();
+    }
+
     /**
      * {@inheritDoc}
      */
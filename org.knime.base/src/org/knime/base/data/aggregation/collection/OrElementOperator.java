@@ -45,6 +45,7 @@
 
 package org.knime.base.data.aggregation.collection;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
@@ -55,6 +56,8 @@
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataType;
 import org.knime.core.data.collection.CollectionCellFactory;
 import org.knime.core.data.collection.CollectionDataValue;
@@ -162,6 +165,53 @@ protected void resetInternal() {
         m_vals.clear();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean combineInternal(final AggregationOperator other) {
+        for (final DataCell cell : ((OrElementOperator)other).m_vals) {
+            if (m_vals.contains(cell)) {
+                continue;
+            }
+            if (m_vals.size() >= getMaxUniqueValues()) {
+                setSkipMessage("Group contains too many unique values");
+                return true;
+            }
+            m_vals.add(cell);
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        out.writeInt(m_vals.size());
+        for (final DataCell cell : m_vals) {
+            out.writeDataCell(cell);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        for (int i = 0, size = in.readInt(); i < size; i++) {
+            m_vals.add(in.readDataCell());
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -45,6 +45,7 @@
 
 package org.knime.base.data.aggregation.collection;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -56,6 +57,8 @@
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataType;
 import org.knime.core.data.collection.CollectionCellFactory;
 import org.knime.core.data.collection.CollectionDataValue;
@@ -166,6 +169,63 @@ protected void resetInternal() {
         m_allVals.clear();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean combineInternal(final AggregationOperator other) {
+        final XORElementOperator xorOperator = (XORElementOperator)other;
+        //elements that occur in both parts occur more than once
+        m_vals.removeAll(xorOperator.m_allVals);
+        for (final DataCell cell : xorOperator.m_vals) {
+            if (!m_allVals.contains(cell)) {
+                if (m_vals.size() + 1 >= getMaxUniqueValues()) {
+                    setSkipMessage("Group contains too many unique values");
+                    return true;
+                }
+                m_vals.add(cell);
+            }
+        }
+        m_allVals.addAll(xorOperator.m_allVals);
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        out.writeInt(m_vals.size());
+        for (final DataCell cell : m_vals) {
+            out.writeDataCell(cell);
+        }
+        out.writeInt(m_allVals.size());
+        for (final DataCell cell : m_allVals) {
+            out.writeDataCell(cell);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        for (int i = 0, size = in.readInt(); i < size; i++) {
+            m_vals.add(in.readDataCell());
+        }
+        for (int i = 0, size = in.readInt(); i < size; i++) {
+            m_allVals.add(in.readDataCell());
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -48,11 +48,15 @@
  */
 package org.knime.base.data.aggregation.general;
 
+import java.io.IOException;
+
 import org.knime.base.data.aggregation.AggregationOperator;
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValueComparator;
 
@@ -160,4 +164,54 @@ protected void resetInternal() {
         m_min = null;
         m_max = null;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean combineInternal(final AggregationOperator other) {
+        final AbstractRangeOperator rangeOperator = (AbstractRangeOperator)other;
+        if (rangeOperator.m_min == null || rangeOperator.m_max == null) {
+            return false;
+        }
+        if (m_min == null || m_comparator.compare(m_min, rangeOperator.m_min) > 0) {
+            m_min = rangeOperator.m_min;
+        }
+        if (m_max == null || m_comparator.compare(m_max, rangeOperator.m_max) < 0) {
+            m_max = rangeOperator.m_max;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        final boolean hasValues = m_min != null && m_max != null;
+        out.writeBoolean(hasValues);
+        if (hasValues) {
+            out.writeDataCell(m_min);
+            out.writeDataCell(m_max);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        if (in.readBoolean()) {
+            m_min = in.readDataCell();
+            m_max = in.readDataCell();
+        }
+    }
 }
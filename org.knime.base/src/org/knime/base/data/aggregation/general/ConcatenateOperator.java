@@ -45,11 +45,15 @@
 
 package org.knime.base.data.aggregation.general;
 
+import java.io.IOException;
+
 import org.knime.base.data.aggregation.AggregationOperator;
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
 import org.knime.core.data.def.StringCell;
@@ -143,6 +147,53 @@ protected void resetInternal() {
         m_first = true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean combineInternal(final AggregationOperator other) {
+        final ConcatenateOperator concatOperator = (ConcatenateOperator)other;
+        if (concatOperator.m_first) {
+            return false;
+        }
+        if (m_first) {
+            m_first = false;
+        } else {
+            m_buf.append(getValueDelimiter());
+        }
+        m_buf.append(concatOperator.m_buf);
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        out.writeBoolean(m_first);
+        out.writeInt(m_buf.length());
+        out.writeChars(m_buf.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        m_first = in.readBoolean();
+        for (int i = 0, length = in.readInt(); i < length; i++) {
+            m_buf.append(in.readChar());
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
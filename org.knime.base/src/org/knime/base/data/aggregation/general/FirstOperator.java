@@ -45,11 +45,15 @@
 
 package org.knime.base.data.aggregation.general;
 
+import java.io.IOException;
+
 import org.knime.base.data.aggregation.AggregationOperator;
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
 
@@ -131,6 +135,46 @@ protected void resetInternal() {
         m_firstCell = null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean combineInternal(final AggregationOperator other) {
+        if (m_firstCell == null) {
+            m_firstCell = ((FirstOperator)other).m_firstCell;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        out.writeBoolean(m_firstCell != null);
+        if (m_firstCell != null) {
+            out.writeDataCell(m_firstCell);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        if (in.readBoolean()) {
+            m_firstCell = in.readDataCell();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,276 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation.general;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Distinct count estimator following Flajolet et al., "HyperLogLog: the analysis of a near-optimal cardinality
+ * estimation algorithm". The 64 bit hash of a value selects one of <code>2^precision</code> registers by its highest
+ * bits; the register keeps the maximum position of the first set bit in the remaining bits. The relative standard
+ * error of the estimate is <code>1.04 / sqrt(2^precision)</code>.
+ *
+ * <p>As long as only few distinct values have been seen the sketch stores the hashes themselves in a small open
+ * addressing table of the same size as the registers and returns the exact number of distinct hashes. Small groups
+ * therefore get exact counts and only large groups pay for the dense register array.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class HyperLogLog {
+
+    /** The default precision, results in 4096 registers and a standard error of 1.6%. */
+    static final int DEFAULT_PRECISION = 12;
+
+    private static final int MIN_PRECISION = 4;
+
+    private static final int MAX_PRECISION = 18;
+
+    private final int m_precision;
+
+    /** The registers, <code>null</code> while in sparse mode. */
+    private byte[] m_registers;
+
+    /** Open addressing table of the distinct hashes, 0 marks an empty slot; <code>null</code> in dense mode. */
+    private long[] m_hashes;
+
+    private int m_nrHashes;
+
+    /**
+     * @param precision the number of bits used to select the register
+     */
+    HyperLogLog(final int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(
+                "Precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION + ": " + precision);
+        }
+        m_precision = precision;
+        reset();
+    }
+
+    /** Removes all values from the sketch. */
+    void reset() {
+        m_registers = null;
+        // 2^precision / 8 longs use as much memory as the registers
+        m_hashes = new long[1 << (m_precision - 3)];
+        m_nrHashes = 0;
+    }
+
+    /**
+     * @param hash the 64 bit hash of the value to add, needs to be well distributed (see {@link #mix(long)})
+     */
+    void update(final long hash) {
+        if (m_hashes != null) {
+            addSparse(hash);
+        } else {
+            addDense(hash);
+        }
+    }
+
+    private void addSparse(final long hash) {
+        // 0 marks empty slots, map it to an arbitrary other value
+        final long key = hash == 0 ? 1 : hash;
+        final int mask = m_hashes.length - 1;
+        int pos = (int)(key >>> 32 ^ key) & mask;
+        while (m_hashes[pos] != 0) {
+            if (m_hashes[pos] == key) {
+                return;
+            }
+            pos = (pos + 1) & mask;
+        }
+        m_hashes[pos] = key;
+        m_nrHashes++;
+        // keep the load factor below 1/2
+        if (2 * m_nrHashes > m_hashes.length) {
+            toDense();
+        }
+    }
+
+    private void addDense(final long hash) {
+        final int idx = (int)(hash >>> (Long.SIZE - m_precision));
+        // the sentinel bit limits the rank to 64 - precision + 1
+        final long w = (hash << m_precision) | (1L << (m_precision - 1));
+        final byte rank = (byte)(Long.numberOfLeadingZeros(w) + 1);
+        if (rank > m_registers[idx]) {
+            m_registers[idx] = rank;
+        }
+    }
+
+    private void toDense() {
+        final long[] hashes = m_hashes;
+        m_hashes = null;
+        m_nrHashes = 0;
+        m_registers = new byte[1 << m_precision];
+        for (long h : hashes) {
+            if (h != 0) {
+                addDense(h);
+            }
+        }
+    }
+
+    /**
+     * Merges the given sketch into this sketch. Both sketches need to use the same precision.
+     *
+     * @param other the sketch to merge, not modified
+     */
+    void merge(final HyperLogLog other) {
+        if (other.m_precision != m_precision) {
+            throw new IllegalArgumentException("Sketches with different precision can't be merged");
+        }
+        if (other.m_hashes != null) {
+            for (long h : other.m_hashes) {
+                if (h != 0) {
+                    update(h);
+                }
+            }
+            return;
+        }
+        if (m_hashes != null) {
+            toDense();
+        }
+        for (int i = 0; i < m_registers.length; i++) {
+            if (other.m_registers[i] > m_registers[i]) {
+                m_registers[i] = other.m_registers[i];
+            }
+        }
+    }
+
+    /**
+     * @return the estimated number of distinct values
+     */
+    long getEstimate() {
+        if (m_hashes != null) {
+            return m_nrHashes;
+        }
+        final int m = m_registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : m_registers) {
+            sum += Double.longBitsToDouble((1023L - r) << 52);
+            if (r == 0) {
+                zeros++;
+            }
+        }
+        final double alpha = 0.7213 / (1 + 1.079 / m);
+        final double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // small range correction: linear counting
+            return Math.round(m * Math.log((double)m / zeros));
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * @param out the output to write the state of this sketch to
+     * @throws IOException if the state could not be written
+     */
+    void save(final DataOutput out) throws IOException {
+        out.writeInt(m_precision);
+        final boolean sparse = m_hashes != null;
+        out.writeBoolean(sparse);
+        if (sparse) {
+            out.writeInt(m_nrHashes);
+            for (long h : m_hashes) {
+                if (h != 0) {
+                    out.writeLong(h);
+                }
+            }
+        } else {
+            out.write(m_registers);
+        }
+    }
+
+    /**
+     * @param in the input to read the state of this sketch from as written by {@link #save(DataOutput)}
+     * @throws IOException if the state could not be read or was written by a sketch with different precision
+     */
+    void load(final DataInput in) throws IOException {
+        final int precision = in.readInt();
+        if (precision != m_precision) {
+            throw new IOException("Sketch state with precision " + precision
+                + " can't be loaded into sketch with precision " + m_precision);
+        }
+        reset();
+        if (in.readBoolean()) {
+            final int nrHashes = in.readInt();
+            for (int i = 0; i < nrHashes; i++) {
+                addSparse(in.readLong());
+            }
+        } else {
+            m_hashes = null;
+            m_registers = new byte[1 << m_precision];
+            in.readFully(m_registers);
+        }
+    }
+
+    /**
+     * Finalization step of MurmurHash3, spreads the bits of the given (e.g. 32 bit) hash code over all 64 bits.
+     *
+     * @param h the hash code
+     * @return the mixed hash
+     */
+    static long mix(final long h) {
+        long k = h;
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    /**
+     * @param s the string to hash
+     * @return a 64 bit hash of the string, avoids the collisions of the 32 bit {@link String#hashCode()}
+     */
+    static long hash(final String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, length = s.length(); i < length; i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+}
@@ -45,7 +45,11 @@
 
 package org.knime.base.data.aggregation.general;
 
+import java.io.IOException;
+
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
 
@@ -130,6 +134,47 @@ protected void resetInternal() {
         m_lastCell = null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean combineInternal(final AggregationOperator other) {
+        final DataCell otherLast = ((LastOperator)other).m_lastCell;
+        if (otherLast != null) {
+            m_lastCell = otherLast;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        out.writeBoolean(m_lastCell != null);
+        if (m_lastCell != null) {
+            out.writeDataCell(m_lastCell);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        if (in.readBoolean()) {
+            m_lastCell = in.readDataCell();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
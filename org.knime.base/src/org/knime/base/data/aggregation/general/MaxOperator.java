@@ -45,11 +45,15 @@
 
 package org.knime.base.data.aggregation.general;
 
+import java.io.IOException;
+
 import org.knime.base.data.aggregation.AggregationOperator;
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
 import org.knime.core.data.DataValueComparator;
@@ -147,6 +151,47 @@ protected void resetInternal() {
         m_maxVal = null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean combineInternal(final AggregationOperator other) {
+        final DataCell otherMax = ((MaxOperator)other).m_maxVal;
+        if (otherMax != null && (m_maxVal == null || m_comparator.compare(otherMax, m_maxVal) > 0)) {
+            m_maxVal = otherMax;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        out.writeBoolean(m_maxVal != null);
+        if (m_maxVal != null) {
+            out.writeDataCell(m_maxVal);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        if (in.readBoolean()) {
+            m_maxVal = in.readDataCell();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -45,6 +45,7 @@
 
 package org.knime.base.data.aggregation.general;
 
+import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -55,6 +56,8 @@
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
 import org.knime.core.data.def.StringCell;
@@ -172,6 +175,58 @@ protected void resetInternal() {
         m_vals.clear();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean combineInternal(final AggregationOperator other) {
+        final Map<DataCell, MutableInteger> otherVals = ((UniqueConcatenateWithCountOperator)other).m_vals;
+        for (final Entry<DataCell, MutableInteger> entry : otherVals.entrySet()) {
+            final MutableInteger counter = m_vals.get(entry.getKey());
+            if (counter != null) {
+                counter.add(entry.getValue().intValue());
+                continue;
+            }
+            if (m_vals.size() >= getMaxUniqueValues()) {
+                setSkipMessage("Group contains too many unique values");
+                return true;
+            }
+            m_vals.put(entry.getKey(), new MutableInteger(entry.getValue().intValue()));
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        out.writeInt(m_vals.size());
+        for (final Entry<DataCell, MutableInteger> entry : m_vals.entrySet()) {
+            out.writeDataCell(entry.getKey());
+            out.writeInt(entry.getValue().intValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        for (int i = 0, size = in.readInt(); i < size; i++) {
+            final DataCell cell = in.readDataCell();
+            m_vals.put(cell, new MutableInteger(in.readInt()));
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
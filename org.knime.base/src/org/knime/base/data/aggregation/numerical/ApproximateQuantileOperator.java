@@ -0,0 +1,341 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation.numerical;
+
+import java.io.IOException;
+
+import javax.swing.JPanel;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.OperatorColumnSettings;
+import org.knime.base.data.aggregation.OperatorData;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+import org.knime.core.node.defaultnodesettings.SettingsModelDouble;
+
+/**
+ * Estimates a quantile per group using a {@link KllSketch}. In contrast to the {@link QuantileOperator} and the
+ * {@link MedianOperator} the values of a group are not kept in memory; the sketch holds at most a few hundred values
+ * per group independent of the group size.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public class ApproximateQuantileOperator extends AggregationOperator {
+
+    private static final DataType TYPE = DoubleCell.TYPE;
+
+    private final KllSketch m_sketch = new KllSketch(KllSketch.DEFAULT_K);
+
+    private ApproximateQuantileSettingsPanel m_settingsPanel;
+
+    private final ApproximateQuantileSettings m_settings = new ApproximateQuantileSettings();
+
+    /**
+     * Constructor for class ApproximateQuantileOperator.
+     *
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     */
+    public ApproximateQuantileOperator(final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        this(new OperatorData("Quantile (approximate)", false, false, DoubleValue.class, false), globalSettings,
+            AggregationOperator.setInclMissingFlag(opColSettings, false),
+            ApproximateQuantileSettings.DEFAULT_QUANTILE);
+    }
+
+    /**
+     * Constructor for class ApproximateQuantileOperator.
+     *
+     * @param operatorData the operator data
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     * @param quantile the quantile value
+     */
+    protected ApproximateQuantileOperator(final OperatorData operatorData, final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings, final double quantile) {
+        super(operatorData, globalSettings, opColSettings);
+        m_settings.setQuantile(quantile);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AggregationOperator createInstance(final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        return new ApproximateQuantileOperator(getOperatorData(), globalSettings, opColSettings,
+            m_settings.getFunctionModel().getDoubleValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataType getDataType(final DataType origType) {
+        return TYPE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean computeInternal(final DataCell cell) {
+        m_sketch.update(((DoubleValue)cell).getDoubleValue());
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataCell getResultInternal() {
+        if (m_sketch.getCount() == 0) {
+            return DataType.getMissingCell();
+        }
+        return new DoubleCell(m_sketch.getQuantile(m_settings.getFunctionModel().getDoubleValue()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void resetInternal() {
+        m_sketch.reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean combineInternal(final AggregationOperator other) {
+        m_sketch.merge(((ApproximateQuantileOperator)other).m_sketch);
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        m_sketch.save(out);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        m_sketch.load(in);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getColumnLabel() {
+        return m_settings.getFunctionModel().getDoubleValue() + "-quantile (approximate)";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return "Estimates the quantile per group with bounded memory.";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDetailedDescription() {
+        return "Estimates the quantile per group by skipping missing cells. In contrast to the exact quantile and "
+            + "median methods the values of a group are not kept in memory. Instead a KLL sketch (see "
+            + "<a href=\"https://arxiv.org/abs/1603.05346\">here</a>) holding at most a few hundred values is used. "
+            + "The rank of the returned value differs by less than one percent of the group size from the rank of "
+            + "the exact quantile.";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasOptionalSettings() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ApproximateQuantileSettingsPanel getSettingsPanel() {
+        if (m_settingsPanel == null) {
+            m_settingsPanel = new ApproximateQuantileSettingsPanel(m_settings);
+        }
+        return m_settingsPanel;
+    }
+
+    @Override
+    public void loadValidatedSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_settings.loadSettingsFrom(settings);
+    }
+
+    @Override
+    public void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec spec)
+        throws NotConfigurableException {
+        getSettingsPanel().loadSettingsFrom(settings, spec);
+    }
+
+    @Override
+    public void saveSettingsTo(final NodeSettingsWO settings) {
+        m_settings.saveSettingsTo(settings);
+    }
+
+    @Override
+    public void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_settings.validateSettings(settings);
+    }
+
+    @Override
+    public void validate() throws InvalidSettingsException {
+        m_settings.validate();
+    }
+
+    /**
+     * {@link JPanel} that allows the user to specify the quantile.
+     */
+    private class ApproximateQuantileSettingsPanel extends JPanel {
+
+        private static final long serialVersionUID = 1;
+
+        private final DialogComponentNumber m_functionComponent;
+
+        /**
+         * @param settings the {@link ApproximateQuantileSettings} to use
+         */
+        ApproximateQuantileSettingsPanel(final ApproximateQuantileSettings settings) {
+            m_functionComponent = new DialogComponentNumber(settings.getFunctionModel(), "Quantile: ", 0.1);
+            add(m_functionComponent.getComponentPanel());
+        }
+
+        /**
+         * Read value(s) of this dialog component from the configuration object. This method will be called by the
+         * dialog pane only.
+         *
+         * @param settings the <code>NodeSettings</code> to read from
+         * @param spec the input {@link DataTableSpec}
+         * @throws NotConfigurableException If there is no chance for the dialog component to be valid (i.e. the
+         *             settings are valid), e.g. if the given spec lacks some important columns or column types.
+         */
+        void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec spec)
+            throws NotConfigurableException {
+            m_functionComponent.loadSettingsFrom(settings, new DataTableSpec[]{spec});
+        }
+    }
+
+    /**
+     * Class that saves the settings of the {@link ApproximateQuantileSettingsPanel}.
+     */
+    private static class ApproximateQuantileSettings {
+
+        private static final String CFG_CUSTOM_QUANTILE = "customQuantile";
+
+        /** The default quantile. */
+        static final double DEFAULT_QUANTILE = 0.5;
+
+        private final SettingsModelDouble m_function = new SettingsModelDouble(CFG_CUSTOM_QUANTILE, DEFAULT_QUANTILE);
+
+        void validate() throws InvalidSettingsException {
+            checkBoundary(m_function.getDoubleValue());
+        }
+
+        private static void checkBoundary(final double val) throws InvalidSettingsException {
+            if (val <= 0 || val > 1) {
+                throw new InvalidSettingsException("Quantile must be greater than 0 and less or equal than 1");
+            }
+        }
+
+        void setQuantile(final double quantile) {
+            m_function.setDoubleValue(quantile);
+        }
+
+        SettingsModelDouble getFunctionModel() {
+            return m_function;
+        }
+
+        void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+            checkBoundary(
+                ((SettingsModelDouble)m_function.createCloneWithValidatedValue(settings)).getDoubleValue());
+        }
+
+        void loadSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+            m_function.loadSettingsFrom(settings);
+        }
+
+        void saveSettingsTo(final NodeSettingsWO settings) {
+            m_function.saveSettingsTo(settings);
+        }
+    }
+}
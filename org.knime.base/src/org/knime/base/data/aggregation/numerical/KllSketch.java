@@ -0,0 +1,342 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation.numerical;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Quantile sketch following Karnin, Lang and Liberty, "Optimal Quantile Approximation in Streams" (KLL). Values are
+ * kept in a hierarchy of levels; an item on level <code>h</code> represents <code>2^h</code> input values. Whenever
+ * the sketch exceeds its capacity the lowest level that is full is sorted and every other item is promoted to the
+ * next level. The capacity of a level shrinks geometrically with its distance to the top level, hence the sketch
+ * holds at most about <code>3k</code> values independent of the number of input values. The rank error is roughly
+ * <code>1.7 / k</code>.
+ *
+ * <p>Compaction uses a pseudo random generator with a fixed seed, which makes the result depend only on the input
+ * order and not on the run.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class KllSketch {
+
+    /** The default accuracy parameter, results in a rank error of less than one percent. */
+    static final int DEFAULT_K = 200;
+
+    private static final int MIN_LEVEL_CAPACITY = 8;
+
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final int m_k;
+
+    private double[][] m_levels;
+
+    private int[] m_sizes;
+
+    private int m_numLevels;
+
+    private long m_count;
+
+    private double m_min;
+
+    private double m_max;
+
+    private long m_random;
+
+    /**
+     * @param k the accuracy parameter, larger values increase accuracy and memory consumption
+     */
+    KllSketch(final int k) {
+        if (k < MIN_LEVEL_CAPACITY) {
+            throw new IllegalArgumentException("k must be at least " + MIN_LEVEL_CAPACITY);
+        }
+        m_k = k;
+        reset();
+    }
+
+    /** Removes all values from the sketch. */
+    void reset() {
+        m_levels = new double[][]{new double[MIN_LEVEL_CAPACITY]};
+        m_sizes = new int[1];
+        m_numLevels = 1;
+        m_count = 0;
+        m_min = Double.NaN;
+        m_max = Double.NaN;
+        m_random = SEED;
+    }
+
+    /**
+     * @return the number of values added to this sketch
+     */
+    long getCount() {
+        return m_count;
+    }
+
+    /**
+     * @param value the value to add
+     */
+    void update(final double value) {
+        if (m_count == 0) {
+            m_min = value;
+            m_max = value;
+        } else {
+            m_min = Math.min(m_min, value);
+            m_max = Math.max(m_max, value);
+        }
+        m_count++;
+        append(0, value);
+        compress();
+    }
+
+    /**
+     * Merges the given sketch into this sketch. Both sketches need to use the same accuracy parameter.
+     *
+     * @param other the sketch to merge, not modified
+     */
+    void merge(final KllSketch other) {
+        if (other.m_k != m_k) {
+            throw new IllegalArgumentException("Sketches with different accuracy can't be merged");
+        }
+        if (other.m_count == 0) {
+            return;
+        }
+        if (m_count == 0) {
+            m_min = other.m_min;
+            m_max = other.m_max;
+        } else {
+            m_min = Math.min(m_min, other.m_min);
+            m_max = Math.max(m_max, other.m_max);
+        }
+        m_count += other.m_count;
+        for (int h = 0; h < other.m_numLevels; h++) {
+            for (int i = 0; i < other.m_sizes[h]; i++) {
+                append(h, other.m_levels[h][i]);
+            }
+        }
+        compress();
+    }
+
+    /**
+     * @param quantile the quantile in the range [0, 1]
+     * @return the estimated quantile or {@link Double#NaN} if the sketch is empty
+     */
+    double getQuantile(final double quantile) {
+        if (m_count == 0) {
+            return Double.NaN;
+        }
+        if (quantile <= 0) {
+            return m_min;
+        }
+        if (quantile >= 1) {
+            return m_max;
+        }
+        int nrItems = 0;
+        for (int h = 0; h < m_numLevels; h++) {
+            nrItems += m_sizes[h];
+        }
+        // merge the sorted levels into one sorted sequence of (value, level) pairs
+        final double[] values = new double[nrItems];
+        final int[] levels = new int[nrItems];
+        int pos = 0;
+        for (int h = 0; h < m_numLevels; h++) {
+            Arrays.sort(m_levels[h], 0, m_sizes[h]);
+            pos = mergeSorted(values, levels, pos, m_levels[h], m_sizes[h], h);
+        }
+        final double rank = quantile * m_count;
+        long weight = 0;
+        for (int i = 0; i < nrItems; i++) {
+            weight += 1L << levels[i];
+            if (weight >= rank) {
+                return values[i];
+            }
+        }
+        return m_max;
+    }
+
+    /**
+     * Merges the sorted level into the sorted prefix of <code>values</code>.
+     *
+     * @return the new length of the sorted prefix
+     */
+    private static int mergeSorted(final double[] values, final int[] levels, final int length,
+        final double[] level, final int levelSize, final int h) {
+        int i = length - 1;
+        int j = levelSize - 1;
+        int k = length + levelSize - 1;
+        while (j >= 0) {
+            if (i >= 0 && values[i] > level[j]) {
+                values[k] = values[i];
+                levels[k--] = levels[i--];
+            } else {
+                values[k] = level[j--];
+                levels[k--] = h;
+            }
+        }
+        return length + levelSize;
+    }
+
+    private void append(final int h, final double value) {
+        while (h >= m_numLevels) {
+            addLevel();
+        }
+        double[] level = m_levels[h];
+        if (m_sizes[h] == level.length) {
+            level = Arrays.copyOf(level, 2 * level.length);
+            m_levels[h] = level;
+        }
+        level[m_sizes[h]++] = value;
+    }
+
+    private void addLevel() {
+        if (m_numLevels == m_levels.length) {
+            m_levels = Arrays.copyOf(m_levels, 2 * m_numLevels);
+            m_sizes = Arrays.copyOf(m_sizes, 2 * m_numLevels);
+        }
+        m_levels[m_numLevels] = new double[MIN_LEVEL_CAPACITY];
+        m_sizes[m_numLevels] = 0;
+        m_numLevels++;
+    }
+
+    private int getCapacity(final int h) {
+        final int depth = m_numLevels - 1 - h;
+        return Math.max(MIN_LEVEL_CAPACITY, (int)Math.ceil(m_k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    /** Compacts full levels until the sketch is within its capacity. */
+    private void compress() {
+        while (true) {
+            int size = 0;
+            int capacity = 0;
+            for (int h = 0; h < m_numLevels; h++) {
+                size += m_sizes[h];
+                capacity += getCapacity(h);
+            }
+            if (size < capacity) {
+                return;
+            }
+            for (int h = 0; h < m_numLevels; h++) {
+                if (m_sizes[h] >= getCapacity(h)) {
+                    compact(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Promotes every other item of the sorted level to the next level, keeps one item if the size is odd. */
+    private void compact(final int h) {
+        if (h == m_numLevels - 1) {
+            addLevel();
+        }
+        final double[] level = m_levels[h];
+        final int size = m_sizes[h];
+        Arrays.sort(level, 0, size);
+        final int start = size % 2;
+        for (int i = start + nextBit(); i < size; i += 2) {
+            append(h + 1, level[i]);
+        }
+        // the odd item (if any) is the smallest one and stays on this level
+        m_sizes[h] = start;
+    }
+
+    private int nextBit() {
+        // xorshift64
+        m_random ^= m_random << 13;
+        m_random ^= m_random >>> 7;
+        m_random ^= m_random << 17;
+        return (int)(m_random & 1);
+    }
+
+    /**
+     * @param out the output to write the state of this sketch to
+     * @throws IOException if the state could not be written
+     */
+    void save(final DataOutput out) throws IOException {
+        out.writeInt(m_k);
+        out.writeLong(m_count);
+        out.writeDouble(m_min);
+        out.writeDouble(m_max);
+        out.writeLong(m_random);
+        out.writeInt(m_numLevels);
+        for (int h = 0; h < m_numLevels; h++) {
+            out.writeInt(m_sizes[h]);
+            for (int i = 0; i < m_sizes[h]; i++) {
+                out.writeDouble(m_levels[h][i]);
+            }
+        }
+    }
+
+    /**
+     * @param in the input to read the state of this sketch from as written by {@link #save(DataOutput)}
+     * @throws IOException if the state could not be read or was written by a sketch with different accuracy
+     */
+    void load(final DataInput in) throws IOException {
+        final int k = in.readInt();
+        if (k != m_k) {
+            throw new IOException("Sketch state with accuracy " + k + " can't be loaded into sketch with accuracy "
+                + m_k);
+        }
+        m_count = in.readLong();
+        m_min = in.readDouble();
+        m_max = in.readDouble();
+        m_random = in.readLong();
+        m_numLevels = in.readInt();
+        m_levels = new double[Math.max(1, m_numLevels)][];
+        m_sizes = new int[m_levels.length];
+        for (int h = 0; h < m_numLevels; h++) {
+            final int size = in.readInt();
+            final double[] level = new double[Math.max(MIN_LEVEL_CAPACITY, size)];
+            for (int i = 0; i < size; i++) {
+                level[i] = in.readDouble();
+            }
+            m_levels[h] = level;
+            m_sizes[h] = size;
+        }
+    }
+}
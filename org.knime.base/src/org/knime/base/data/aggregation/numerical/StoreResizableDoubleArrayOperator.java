@@ -48,12 +48,16 @@
  */
 package org.knime.base.data.aggregation.numerical;
 
+import java.io.IOException;
+
 import org.apache.commons.math.util.ResizableDoubleArray;
 import org.knime.base.data.aggregation.AggregationOperator;
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DoubleValue;
 
 /**
@@ -107,6 +111,57 @@ protected void resetInternal() {
         m_cells.clear();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean combineInternal(final AggregationOperator other) {
+        final ResizableDoubleArray otherCells = ((StoreResizableDoubleArrayOperator)other).m_cells;
+        if (m_cells.getNumElements() + otherCells.getNumElements() > getMaxUniqueValues()) {
+            setSkipMessage("Group contains too many values");
+            return true;
+        }
+        try {
+            for (int i = 0, length = otherCells.getNumElements(); i < length; i++) {
+                m_cells.addElement(otherCells.getElement(i));
+            }
+        } catch (final OutOfMemoryError e) {
+            setSkipMessage("Group requires too much storage");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        final int length = m_cells.getNumElements();
+        out.writeInt(length);
+        for (int i = 0; i < length; i++) {
+            out.writeDouble(m_cells.getElement(i));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        for (int i = 0, length = in.readInt(); i < length; i++) {
+            m_cells.addElement(in.readDouble());
+        }
+    }
+
     /**
      * @return ResizableDoubleArray m_cells
      */
@@ -45,11 +45,15 @@
 
 package org.knime.base.data.aggregation.numerical;
 
+import java.io.IOException;
+
 import org.knime.base.data.aggregation.AggregationOperator;
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
 import org.knime.core.data.def.DoubleCell;
@@ -151,6 +155,46 @@ protected void resetInternal() {
         m_validCount = 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean combineInternal(final AggregationOperator other) {
+        final VarianceOperator varianceOperator = (VarianceOperator)other;
+        m_validCount += varianceOperator.m_validCount;
+        m_sum += varianceOperator.m_sum;
+        m_sumSquare += varianceOperator.m_sumSquare;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void saveStateInternal(final DataCellDataOutput out) throws IOException {
+        out.writeInt(m_validCount);
+        out.writeDouble(m_sum);
+        out.writeDouble(m_sumSquare);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadStateInternal(final DataCellDataInput in) throws IOException {
+        m_validCount = in.readInt();
+        m_sum = in.readDouble();
+        m_sumSquare = in.readDouble();
+    }
+
     /**
      * {@inheritDoc}
      */
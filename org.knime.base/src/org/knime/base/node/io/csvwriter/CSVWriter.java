@@ -50,18 +50,36 @@
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.streamable.DataTableRowInput;
 import org.knime.core.node.streamable.RowInput;
+import org.knime.core.util.GzipChunkEncoder;
+import org.knime.core.util.GzipChunkEncoder.DeflatedChunk;
+import org.knime.core.util.ThreadPool;
 
 /**
  * Class to write a {@link org.knime.core.data.DataTable} to an output stream.
@@ -70,12 +88,46 @@
  */
 public class CSVWriter extends BufferedWriter {
 
+    /** Tables with less rows are never written in parallel. */
+    private static final long MIN_PARALLEL_ROWS = 10000;
+
+    /** Number of rows in the first batch, the size of the following batches depends on the length of the rows. */
+    private static final int INITIAL_BATCH_SIZE = 1000;
+
+    private static final int MAX_BATCH_SIZE = 100000;
+
+    /** Number of characters each batch should roughly contain. */
+    private static final int BATCH_CHARS = 1 << 20;
+
+    /** Characters in the string representation of int, long, and double cells. */
+    private static final String NUMBER_CHARS = "0123456789-+.EInfityNa";
+
+    /** The formatted bytes of a batch of rows, deflated if the output is compressed. */
+    private static final class Batch {
+        /** Null if the output is compressed. */
+        private ByteBuffer m_bytes;
+
+        /** Null if the output isn't compressed. */
+        private DeflatedChunk m_deflated;
+
+        private int m_rowCount;
+
+        private int m_charCount;
+
+        private String m_warning;
+    }
+
     private final FileWriterSettings m_settings;
 
     private String m_lastWarning;
 
     private String m_newLine;
 
+    /** The stream the writer writes into if it was created for a channel, <code>null</code> otherwise. */
+    private ChunkedChannelOutputStream m_channelOut;
+
+    private Charset m_charset;
+
     /**
      * Creates a new writer with default settings.
      *
@@ -130,6 +182,29 @@ public CSVWriter(final Writer writer, final FileWriterSettings settings) {
         }
     }
 
+    /**
+     * Creates a new instance which writes tables into the given channel. The output is collected in large buffers
+     * before it is written to the channel. Large tables are formatted in parallel, in batches of rows, which are
+     * written in their original order.
+     *
+     * @param channel the channel to write to, it's closed when this writer is closed
+     * @param settings the object holding all settings, influencing how data tables are written to file
+     * @param charset the character set to encode the data with
+     * @param gzip if true, the output is gzip compressed. The batches are then compressed in parallel, too, all of
+     *            them becoming part of a single gzip member.
+     * @since 3.7
+     */
+    public CSVWriter(final WritableByteChannel channel, final FileWriterSettings settings, final Charset charset,
+        final boolean gzip) {
+        this(new ChunkedChannelOutputStream(channel, gzip), settings, charset);
+    }
+
+    private CSVWriter(final ChunkedChannelOutputStream out, final FileWriterSettings settings, final Charset charset) {
+        this(new OutputStreamWriter(out, charset), settings);
+        m_channelOut = out;
+        m_charset = charset;
+    }
+
     /**
      * @return the settings object that configures this writer. Modifying it
      *         influences its behavior.
@@ -205,6 +280,13 @@ public void write(final RowInput input, final ExecutionMonitor exec)
             rowCnt = ((DataTableRowInput)input).getRowCount();
         }
 
+        final RowFormatter formatter = new RowFormatter(inSpec);
+        if (canWriteInParallel(rowCnt)) {
+            writeInParallel(input, formatter, exec, rowCnt);
+            return;
+        }
+
+        final StringBuilder line = new StringBuilder();
         DataRow row;
         while ((row = input.poll()) != null) {
 
@@ -223,33 +305,204 @@ public void write(final RowInput input, final ExecutionMonitor exec)
             // Check if execution was canceled !
             exec.checkCanceled();
 
-            // write the columns
-            first = true;
+            line.setLength(0);
+            String warning = formatter.appendRow(line, row, i);
+            if (m_lastWarning == null) {
+                m_lastWarning = warning;
+            }
+            write(line.toString());
+            newLine();
+            i++;
+        }
+
+    }
+
+    /**
+     * Rows are formatted in parallel only by writers created for a channel (and not by subclasses, which may rely on
+     * being called sequentially), if the table is large and each chunk of characters can be encoded on its own.
+     */
+    private boolean canWriteInParallel(final long rowCnt) {
+        if (m_channelOut == null || getClass() != CSVWriter.class
+            || KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads() < 2
+            || (rowCnt >= 0 && rowCnt < MIN_PARALLEL_ROWS)) {
+            return false;
+        }
+        // encoders writing a byte order mark (e.g. UTF-16) would write it in front of each batch
+        return "aa".getBytes(m_charset).length == 2 * "a".getBytes(m_charset).length;
+    }
+
+    /**
+     * Formats batches of rows in a sub pool of the global thread pool and writes them in their original order.
+     */
+    private void writeInParallel(final RowInput input, final RowFormatter formatter, final ExecutionMonitor exec,
+        final long rowCnt) throws IOException, CanceledExecutionException, InterruptedException {
+        // what was written so far (e.g. the column headers) must precede the batches
+        flush();
+
+        final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool();
+        final ArrayDeque<Future<Batch>> pending = new ArrayDeque<Future<Batch>>();
+        final int maxPending = 2 * pool.getMaxThreads();
+        int batchSize = INITIAL_BATCH_SIZE;
+        long written = 0;
+        long submitted = 0;
+        try {
+            List<DataRow> rows = new ArrayList<DataRow>(batchSize);
+            DataRow row;
+            while (true) {
+                row = input.poll();
+                if (row != null) {
+                    rows.add(row);
+                }
+                if (rows.size() >= batchSize || (row == null && !rows.isEmpty())) {
+                    final List<DataRow> batchRows = rows;
+                    final long firstRow = submitted;
+                    pending.add(pool.enqueue(() -> formatBatch(formatter, batchRows, firstRow)));
+                    submitted += rows.size();
+                    rows = new ArrayList<DataRow>(batchSize);
+                }
+                while (!pending.isEmpty() && (pending.size() >= maxPending || row == null)) {
+                    final Batch batch = getBatch(pending.poll());
+                    m_channelOut.writeChunk(batch.m_bytes, batch.m_deflated);
+                    if (m_lastWarning == null) {
+                        m_lastWarning = batch.m_warning;
+                    }
+                    written += batch.m_rowCount;
+                    // aim at batches of roughly the same number of characters
+                    final long charsPerRow = Math.max(1, batch.m_charCount / Math.max(1, batch.m_rowCount));
+                    batchSize = (int)Math.max(1, Math.min(MAX_BATCH_SIZE, BATCH_CHARS / charsPerRow));
+
+                    final String msg = "Writing row " + written + (rowCnt > 0 ? " of " + rowCnt : "");
+                    if (rowCnt > 0) {
+                        exec.setProgress(written / (double)rowCnt, msg);
+                    } else {
+                        exec.setMessage(msg);
+                    }
+                    exec.checkCanceled();
+                }
+                if (row == null) {
+                    break;
+                }
+            }
+        } finally {
+            for (Future<Batch> f : pending) {
+                f.cancel(true);
+            }
+        }
+    }
+
+    private Batch formatBatch(final RowFormatter formatter, final List<DataRow> rows, final long firstRow)
+        throws IOException {
+        final StringBuilder chars = new StringBuilder(BATCH_CHARS + BATCH_CHARS / 4);
+        final Batch batch = new Batch();
+        long rowIdx = firstRow;
+        for (DataRow row : rows) {
+            final String warning = formatter.appendRow(chars, row, rowIdx++);
+            if (batch.m_warning == null) {
+                batch.m_warning = warning;
+            }
+            chars.append(m_newLine);
+        }
+        batch.m_rowCount = rows.size();
+        batch.m_charCount = chars.length();
+        final ByteBuffer bytes = m_charset.encode(CharBuffer.wrap(chars));
+        if (m_channelOut.m_gzip) {
+            batch.m_deflated = GzipChunkEncoder.deflate(bytes.array(), bytes.arrayOffset() + bytes.position(),
+                bytes.remaining(), null);
+        } else {
+            batch.m_bytes = bytes;
+        }
+        return batch;
+    }
+
+    private static Batch getBatch(final Future<Batch> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Formats data rows according to the writer's settings. It doesn't change after its creation and can be used by
+     * multiple threads concurrently.
+     */
+    private final class RowFormatter {
+        private final int m_colCount;
+
+        private final boolean[] m_numerical;
+
+        /** True if numbers are written unchanged, i.e. neither quoted nor with a different decimal separator. */
+        private final boolean m_plainNumbers;
+
+        RowFormatter(final DataTableSpec spec) {
+            m_colCount = spec.getNumColumns();
+            m_numerical = new boolean[m_colCount];
+            for (int c = 0; c < m_colCount; c++) {
+                m_numerical[c] = spec.getColumnSpec(c).getType().isCompatible(DoubleValue.class);
+            }
+            m_plainNumbers = numbersAreWrittenPlain();
+        }
+
+        private boolean numbersAreWrittenPlain() {
+            // subclasses may quote numbers differently
+            if (CSVWriter.this.getClass() != CSVWriter.class || m_settings.getDecimalSeparator() != '.') {
+                return false;
+            }
+            final String sep = m_settings.getColSeparator();
+            switch (m_settings.getQuoteMode()) {
+                case STRINGS:
+                    return true;
+                case REPLACE:
+                    return sep.isEmpty() || !consistsOfNumberChars(sep);
+                case IF_NEEDED:
+                    return !sep.isEmpty() && !consistsOfNumberChars(sep)
+                        && (m_settings.getMissValuePattern().isEmpty()
+                            || !consistsOfNumberChars(m_settings.getMissValuePattern()));
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Appends the row (without line ending) to the string builder.
+         *
+         * @return a warning if the row couldn't be written as intended, or <code>null</code>
+         */
+        String appendRow(final StringBuilder sb, final DataRow row, final long rowIdx) {
+            String warning = null;
+            boolean first = true;
             // first, the row id
             if (m_settings.writeRowID()) {
-                write(quoteString(row.getKey().getString(), false));
+                sb.append(quoteString(row.getKey().getString(), false));
                 first = false;
             }
             // now all data cells
-            for (int c = 0; c < colCount; c++) {
+            for (int c = 0; c < m_colCount; c++) {
 
                 DataCell colValue = row.getCell(c);
                 if (!first) {
-                    write(m_settings.getColSeparator());
+                    sb.append(m_settings.getColSeparator());
                 }
                 first = false;
 
                 if (colValue.isMissing()) {
                     // never quote missing patterns.
-                    write(m_settings.getMissValuePattern());
+                    sb.append(m_settings.getMissValuePattern());
+                } else if (m_plainNumbers && m_numerical[c] && appendNumber(sb, colValue)) {
+                    // written without creating a string
+                    continue;
                 } else {
-                    boolean isNumerical = false;
-                    DataType type = inSpec.getColumnSpec(c).getType();
+                    boolean isNumerical = m_numerical[c];
                     String strVal = colValue.toString();
 
-                    if (type.isCompatible(DoubleValue.class)) {
-                        isNumerical = true;
-                    }
                     if (isNumerical
                             && (m_settings.getDecimalSeparator() != '.')) {
                         // use the new separator only if it is not already
@@ -260,23 +513,50 @@ public void write(final RowInput input, final ExecutionMonitor exec)
                                     replaceDecimalSeparator(strVal, m_settings
                                             .getDecimalSeparator());
                         } else {
-                            if (m_lastWarning == null) {
-                                m_lastWarning = "Specified decimal separator ('"
+                            if (warning == null) {
+                                warning = "Specified decimal separator ('"
                                     + m_settings.getDecimalSeparator() + "') is"
                                     + " contained in the numerical value. "
                                     + "Not replacing decimal separator (e.g. "
-                                    + "in row #" + i + " column #" + c + ").";
+                                    + "in row #" + rowIdx + " column #" + c + ").";
                             }
                         }
                     }
-                    write(quoteString(strVal, isNumerical));
+                    sb.append(quoteString(strVal, isNumerical));
 
                 }
             }
-            newLine();
-            i++;
+            return warning;
+        }
+    }
+
+    /**
+     * Appends the same characters as {@link DataCell#toString()} for int, long and double cells.
+     *
+     * @return false, if the cell is of another type and wasn't appended
+     */
+    private static boolean appendNumber(final StringBuilder sb, final DataCell cell) {
+        final Class<?> cellClass = cell.getClass();
+        if (cellClass == DoubleCell.class) {
+            sb.append(((DoubleCell)cell).getDoubleValue());
+        } else if (cellClass == IntCell.class) {
+            sb.append(((IntCell)cell).getIntValue());
+        } else if (cellClass == LongCell.class) {
+            sb.append(((LongCell)cell).getLongValue());
+        } else {
+            return false;
         }
+        return true;
+    }
 
+    /** @return true, if all characters of the string could be part of a number written by {@link #appendNumber} */
+    private static boolean consistsOfNumberChars(final String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (NUMBER_CHARS.indexOf(s.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -479,4 +759,132 @@ public String getLastWarningMessage() {
     public void newLine() throws IOException {
         write(m_newLine);
     }
+
+    /**
+     * Collects the written bytes in a large buffer and writes it to a channel once it's full (or flushed). If the
+     * output is compressed, it is a single gzip member (see {@link GzipChunkEncoder}): each full buffer and each batch
+     * written in parallel is deflated on its own, and the header and trailer are written once. Like a
+     * {@link java.util.zip.GZIPOutputStream}, the compressed stream doesn't write anything on {@link #flush()}.
+     */
+    private static final class ChunkedChannelOutputStream extends OutputStream {
+        private static final int BUFFER_SIZE = 1 << 20;
+
+        private final WritableByteChannel m_channel;
+
+        private final boolean m_gzip;
+
+        /** Null if the output isn't compressed. */
+        private final GzipChunkEncoder m_encoder;
+
+        private final byte[] m_buffer = new byte[BUFFER_SIZE];
+
+        private int m_count;
+
+        /** The end of the data deflated last, used as dictionary for the next buffer; null if not known. */
+        private byte[] m_dictionary;
+
+        private boolean m_isHeaderWritten;
+
+        ChunkedChannelOutputStream(final WritableByteChannel channel, final boolean gzip) {
+            m_channel = channel;
+            m_gzip = gzip;
+            m_encoder = gzip ? new GzipChunkEncoder() : null;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (m_count == m_buffer.length) {
+                writeBuffer();
+            }
+            m_buffer[m_count++] = (byte)b;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            int done = 0;
+            while (done < len) {
+                if (m_count == m_buffer.length) {
+                    writeBuffer();
+                }
+                final int n = Math.min(len - done, m_buffer.length - m_count);
+                System.arraycopy(b, off + done, m_buffer, m_count, n);
+                m_count += n;
+                done += n;
+            }
+        }
+
+        /** Writes the buffered bytes to the channel, unless the output is compressed (see class description). */
+        @Override
+        public void flush() throws IOException {
+            if (!m_gzip) {
+                writeBuffer();
+            }
+        }
+
+        /** Writes the buffered bytes to the channel, deflated if the output is compressed. */
+        private void writeBuffer() throws IOException {
+            if (m_count == 0) {
+                return;
+            }
+            if (m_gzip) {
+                writeDeflated(GzipChunkEncoder.deflate(m_buffer, 0, m_count, m_dictionary));
+                m_dictionary = Arrays.copyOfRange(m_buffer, Math.max(0, m_count - GzipChunkEncoder.DICTIONARY_SIZE),
+                    m_count);
+            } else {
+                writeFully(ByteBuffer.wrap(m_buffer, 0, m_count));
+            }
+            m_count = 0;
+        }
+
+        /**
+         * Writes a chunk directly to the channel, after the buffered bytes.
+         *
+         * @param bytes the bytes to write if the output isn't compressed
+         * @param deflated the deflated bytes to write if the output is compressed
+         */
+        void writeChunk(final ByteBuffer bytes, final DeflatedChunk deflated) throws IOException {
+            writeBuffer();
+            if (m_gzip) {
+                writeDeflated(deflated);
+                // deflated without dictionary, the next buffer can't refer to its data either
+                m_dictionary = null;
+            } else {
+                writeFully(bytes);
+            }
+        }
+
+        /** Writes deflated data, which must be written in order, preceded by the gzip header. */
+        private void writeDeflated(final DeflatedChunk deflated) throws IOException {
+            writeHeader();
+            m_encoder.add(deflated);
+            writeFully(deflated.toByteBuffer());
+        }
+
+        private void writeHeader() throws IOException {
+            if (!m_isHeaderWritten) {
+                writeFully(ByteBuffer.wrap(GzipChunkEncoder.getHeader()));
+                m_isHeaderWritten = true;
+            }
+        }
+
+        private void writeFully(final ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                m_channel.write(bytes);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                writeBuffer();
+                if (m_gzip) {
+                    // even an empty file must be a valid gzip file
+                    writeHeader();
+                    writeFully(ByteBuffer.wrap(m_encoder.getTrailer()));
+                }
+            } finally {
+                m_channel.close();
+            }
+        }
+    }
 }
@@ -48,22 +48,21 @@
  */
 package org.knime.base.node.io.csvwriter;
 
-import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.Date;
-import java.util.zip.GZIPOutputStream;
 
 import org.knime.base.node.io.csvwriter.FileWriterNodeSettings.FileOverwritePolicy;
 import org.knime.core.data.DataTableSpec;
@@ -253,7 +252,7 @@ private BufferedDataTable[] doIt(final BufferedDataTable data, final RowInput in
         Path localPath = FileUtil.resolveToPath(url);
 
         boolean writeColHeader = m_settings.writeColumnHeader();
-        OutputStream tempOut;
+        WritableByteChannel tempOut;
         URLConnection urlConnection = null;
         boolean appendToFile;
         if (localPath != null) {
@@ -268,15 +267,16 @@ private BufferedDataTable[] doIt(final BufferedDataTable data, final RowInput in
                 appendToFile = false;
             }
             if (appendToFile) {
-                tempOut = Files.newOutputStream(localPath, StandardOpenOption.APPEND);
+                tempOut = FileChannel.open(localPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
             } else {
-                tempOut = Files.newOutputStream(localPath);
+                tempOut = FileChannel.open(localPath, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
             }
         } else {
             CheckUtils.checkState(m_settings.getFileOverwritePolicy() != FileOverwritePolicy.Append,
                 url + " points to a remote file but append to remote files is not possible!");
             urlConnection = FileUtil.openOutputConnection(url, "PUT");
-            tempOut = urlConnection.getOutputStream();
+            tempOut = Channels.newChannel(urlConnection.getOutputStream());
             appendToFile = false;
         }
 
@@ -284,16 +284,13 @@ private BufferedDataTable[] doIt(final BufferedDataTable data, final RowInput in
         FileWriterSettings writerSettings = new FileWriterSettings(m_settings);
         writerSettings.setWriteColumnHeader(writeColHeader);
 
-        if (m_settings.isGzipOutput()) {
-            tempOut = new GZIPOutputStream(tempOut);
-        }
-        tempOut = new BufferedOutputStream(tempOut);
         Charset charSet = Charset.defaultCharset();
         String encoding = writerSettings.getCharacterEncoding();
         if (encoding != null) {
             charSet = Charset.forName(encoding);
         }
-        CSVWriter tableWriter = new CSVWriter(new OutputStreamWriter(tempOut, charSet), writerSettings);
+        // the writer buffers (and compresses) the output itself
+        CSVWriter tableWriter = new CSVWriter(tempOut, writerSettings, charSet, m_settings.isGzipOutput());
         // write the comment header, if we are supposed to
         String tableName;
         if (input == null) {
@@ -0,0 +1,95 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.io.filereader;
+
+import org.knime.core.data.container.CloseableRowIterator;
+
+/**
+ * Base class of the row iterators of the {@link FileTable}, i.e. the sequential {@link FileRowIterator} and the
+ * {@link ParallelFileRowIterator}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+abstract class AbstractFileRowIterator extends CloseableRowIterator {
+
+    /**
+     * Call this before releasing the last reference to this iterator. It closes the underlying source. Especially if
+     * the iterator didn't run to the end of the table, it is required to call this method. Otherwise the file handle
+     * is not released until the garbage collector cleans up. A call to {@link #next()} after disposing of the
+     * iterator has undefined behavior.
+     */
+    public abstract void dispose();
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        dispose();
+    }
+
+    /**
+     * The settings allow for specifying a maximum number of rows. This method can be used to find out, if the source
+     * has more data than actually returned by the iterator. The result is only accurate, after the {@link #hasNext()}
+     * method returned <code>false</code>.
+     *
+     * @return true, if the iterator didn't return all rows of the source (due to its settings). Only accurate after
+     *         the iterator finished ({@link #hasNext()} returned false).
+     */
+    public abstract boolean iteratorEndedEarly();
+
+    /**
+     * If the source read was a ZIP archive this method tests if there are more than one entry in the archive. If the
+     * source was not compressed or a gzip file, it always returns false. If the EOF has not been read from the
+     * source, the result is always false.
+     *
+     * @return true, if the source was read til the end and it is a ZIP archive with more than one entry
+     */
+    public abstract boolean zippedSourceHasMoreEntries();
+
+    /**
+     * @return if the underlying source is a ZIP archive it returns the entry read. Null if not a ZIP source.
+     */
+    public abstract String getZipEntryName();
+
+}
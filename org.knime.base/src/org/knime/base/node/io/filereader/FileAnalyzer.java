@@ -48,9 +48,14 @@
 package org.knime.base.node.io.filereader;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
@@ -68,6 +73,7 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeSettings;
 import org.knime.core.node.tableview.TableContentModel;
 import org.knime.core.util.tokenizer.Comment;
 import org.knime.core.util.tokenizer.Delimiter;
@@ -104,6 +110,23 @@ public final class FileAnalyzer {
     /** The node logger for this class. */
     private static final NodeLogger LOGGER = NodeLogger.getLogger(FileAnalyzer.class);
 
+    /** Number of analysis results kept in the cache. */
+    private static final int CACHE_SIZE = 16;
+
+    /**
+     * The results of the recent (complete) analyses of local files. The key is made of the file, its size and
+     * modification time and the user settings. The cached settings are never handed out, only copies of them.
+     */
+    private static final Map<String, FileReaderNodeSettings> CACHE =
+        Collections.synchronizedMap(new LinkedHashMap<String, FileReaderNodeSettings>(CACHE_SIZE, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, FileReaderNodeSettings> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        });
+
     private FileAnalyzer() {
         // use static methods only
     }
@@ -118,7 +141,9 @@ private FileAnalyzer() {
      *            fixed.
      * @param exec used to check for cancellations and to report progress. Could be null. If a
      *            {@link FileReaderExecutionMonitor} is provided it is distinguished between user cancellations cutting
-     *            the analysis short, and interrupts that return immediately and return null as result.
+     *            the analysis short, and interrupts that return immediately and return null as result. If it is
+     *            set to {@link FileReaderExecutionMonitor#setSampleLargeFiles(boolean) sample large files}, only a
+     *            few blocks of large local files are analyzed.
      * @return settings that supposably provide more or less useful results. It will always be a non-null object - but
      *         may not contain any settings if guessing was just too hard.
      * @throws IOException if there was an error reading from the URL
@@ -136,6 +161,18 @@ public static FileReaderNodeSettings analyze(final FileReaderNodeSettings userSe
             execMon = new FileReaderExecutionMonitor();
         }
 
+        // unchanged local files are not analyzed again with the same settings
+        final boolean sampleLargeFiles = (execMon instanceof FileReaderExecutionMonitor)
+            && ((FileReaderExecutionMonitor)execMon).getSampleLargeFiles();
+        final String cacheKey = createCacheKey(userSettings, sampleLargeFiles);
+        if (cacheKey != null) {
+            final FileReaderNodeSettings cached = CACHE.get(cacheKey);
+            if (cached != null) {
+                execMon.setProgress(1.0);
+                return new FileReaderNodeSettings(cached);
+            }
+        }
+
         // create the new and empty settings
         FileReaderNodeSettings result = new FileReaderNodeSettings();
 
@@ -163,10 +200,17 @@ public static FileReaderNodeSettings analyze(final FileReaderNodeSettings userSe
                 result.setCharsetUserSet(true);
             }
 
+            final FileSample sample =
+                sampleLargeFiles ? FileSample.create(userSettings, result.getCharsetName()) : FileSample.ENTIRE_FILE;
+            if (sample.isSampled()) {
+                LOGGER.debug("Analyzing a sample of the file '" + userSettings.getDataFileLocation() + "' only");
+                result.setAnalyzeUsedAllRows(false);
+            }
+
             ExecutionMonitor subExec = execMon.createSubProgress(COMMENT_SUB);
             if (!userSettings.isCommentUserSet()) {
                 // only guess comment patterns if user didn't provide any
-                addComments(result, subExec);
+                addComments(result, sample, subExec);
                 result.setCommentUserSet(false);
             } else {
                 // take over user settings.
@@ -182,7 +226,7 @@ public static FileReaderNodeSettings analyze(final FileReaderNodeSettings userSe
             subExec = execMon.createSubProgress(QUOTES_SUB);
             if (!userSettings.isQuoteUserSet()) {
                 // only guess quotes if user didn't specify any
-                addQuotes(result, subExec);
+                addQuotes(result, sample, subExec);
                 result.setQuoteUserSet(false);
             } else {
                 // take over user settings.
@@ -220,7 +264,7 @@ public static FileReaderNodeSettings analyze(final FileReaderNodeSettings userSe
             // honors user settings
             subExec = execMon.createSubProgress(DELIMS_SUB);
 
-            setDelimitersAndColNum(userSettings, result, subExec);
+            setDelimitersAndColNum(userSettings, result, sample, subExec);
 
             assert result.getNumberOfColumns() > 0;
             subExec.setProgress(1.0);
@@ -236,7 +280,7 @@ public static FileReaderNodeSettings analyze(final FileReaderNodeSettings userSe
                 boolean hasRowHeaders;
                 if (result.getNumberOfColumns() > 1) {
                     // if we have at least 2 cols, one of them could be headers
-                    hasRowHeaders = checkRowHeader(result, subExec);
+                    hasRowHeaders = checkRowHeader(result, sample, subExec);
                 } else {
                     hasRowHeaders = false;
                 }
@@ -253,7 +297,7 @@ public static FileReaderNodeSettings analyze(final FileReaderNodeSettings userSe
 
             // guesses (or copies) column types and names.
             subExec = execMon.createSubProgress(TYPES_SUB + COLHDR_SUB);
-            Vector<ColProperty> columnProps = createColumnProperties(userSettings, result, subExec);
+            Vector<ColProperty> columnProps = createColumnProperties(userSettings, result, sample, subExec);
             result.setColumnProperties(columnProps);
             subExec.setProgress(1.0);
 
@@ -274,6 +318,10 @@ public static FileReaderNodeSettings analyze(final FileReaderNodeSettings userSe
 
             execMon.setProgress(1.0);
 
+            if (cacheKey != null && !cutItShort(execMon)) {
+                CACHE.put(cacheKey, new FileReaderNodeSettings(result));
+            }
+
         } catch (InterruptedExecutionException iee) {
             return null;
         }
@@ -282,6 +330,40 @@ public static FileReaderNodeSettings analyze(final FileReaderNodeSettings userSe
 
     }
 
+    /**
+     * Creates the key of the analysis result in the {@link #CACHE}. It contains the file, its size and modification
+     * time and all user settings (including the flags telling which of them are set by the user).
+     *
+     * @param userSettings the settings the user provided
+     * @param sampleLargeFiles whether large files are analyzed on a sample only
+     * @return the key, or <code>null</code> if the result can't be cached (because the file is not a local file)
+     */
+    private static String createCacheKey(final FileReaderNodeSettings userSettings, final boolean sampleLargeFiles) {
+        final File file = FileSample.getLocalFile(userSettings.getDataFileLocation());
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        final NodeSettings settings = new NodeSettings("analysis");
+        userSettings.saveToConfiguration(settings);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            settings.saveToXML(out);
+        } catch (IOException ioe) {
+            return null;
+        }
+        final boolean[] userSet = {userSettings.isCharsetUserSet(), userSettings.isCommentUserSet(),
+            userSettings.isQuoteUserSet(), userSettings.isWhiteSpaceUserSet(), userSettings.isDelimiterUserSet(),
+            userSettings.isFileHasRowHeadersUserSet(), userSettings.isFileHasColumnHeadersUserSet(),
+            userSettings.isIgnoreEmptyLinesUserSet(), userSettings.decimalSeparatorUserSet(),
+            userSettings.ignoreDelimsAtEORUserSet(), sampleLargeFiles};
+        final StringBuilder key = new StringBuilder(file.getAbsolutePath());
+        key.append('|').append(file.length()).append('|').append(file.lastModified()).append('|');
+        for (boolean b : userSet) {
+            key.append(b ? '1' : '0');
+        }
+        return key.append('|').append(new String(out.toByteArray(), StandardCharsets.UTF_8)).toString();
+    }
+
     /**
      * If the specified {@link ExecutionMonitor} is a {@link FileReaderExecutionMonitor} this method throws an
      * exception, if the execution is supposed to be interrupted. Otherwise it just returns.
@@ -346,17 +428,18 @@ private static int getShortCutLines(final ExecutionMonitor exec) {
      * @param userSettings settings user provided. Must be honored!
      * @param result the settings so far, must contain data url, delimiters, comments, quotes, colNumber, and rowHeader
      *            flag
+     * @param sample the part of the file to look at
      * @param exec to check for cancellations and report progress to
      * @return a vector of colProperty objects, having the columnSpec set and the useFileHeader flag
      * @throws IOException if an I/O error occurs
      */
     private static Vector<ColProperty> createColumnProperties(final FileReaderNodeSettings userSettings,
-        final FileReaderNodeSettings result, final ExecutionMonitor exec)
+        final FileReaderNodeSettings result, final FileSample sample, final ExecutionMonitor exec)
             throws IOException, InterruptedExecutionException {
 
         // first detect the type of each column
         ExecutionMonitor subExec = exec.createSubProgress(TYPES_SUB);
-        ColProperty[] colProps = createColumnTypes(userSettings, result, subExec);
+        ColProperty[] colProps = createColumnTypes(userSettings, result, sample, subExec);
         // extract the column types and column missing values from the result
         // of the above method call
         DataType[] columnTypes = new DataType[colProps.length];
@@ -378,7 +461,7 @@ private static Vector<ColProperty> createColumnProperties(final FileReaderNodeSe
         String scndLineRowHeader = null;
         String[] columnHeaders = new String[result.getNumberOfColumns()];
 
-        BufferedReader reader = result.createNewInputReader();
+        BufferedReader reader = sample.createReader(result);
         Tokenizer tokenizer = new Tokenizer(reader);
         tokenizer.setSettings(result);
 
@@ -523,14 +606,15 @@ private static Vector<ColProperty> createColumnProperties(final FileReaderNodeSe
      * same (possibly empty) string followed by a constantly incremented number.
      *
      * @param settings the file to look at with corresponding settings
+     * @param sample the part of the file to look at
      * @return true if it's reasonable to assume the file has row headers
      * @throws IOException if an I/O error occurs
      * @throws InterruptedExecutionException if analysis should be interrupted immediately
      */
-    private static boolean checkRowHeader(final FileReaderNodeSettings settings, final ExecutionMonitor exec)
-        throws IOException, InterruptedExecutionException {
+    private static boolean checkRowHeader(final FileReaderNodeSettings settings, final FileSample sample,
+        final ExecutionMonitor exec) throws IOException, InterruptedExecutionException {
 
-        BufferedFileReader reader = settings.createNewInputReader();
+        BufferedFileReader reader = sample.createReader(settings);
         final double fileSize = reader.getFileSize();
         long linesRead = 0;
 
@@ -733,9 +817,9 @@ private static Vector<ColProperty> createColProps(final String[] colNames, final
     }
 
     private static ColProperty[] createColumnTypes(final FileReaderNodeSettings userSettings,
-        final FileReaderNodeSettings result, final ExecutionMonitor exec)
+        final FileReaderNodeSettings result, final FileSample sample, final ExecutionMonitor exec)
             throws IOException, InterruptedExecutionException {
-        BufferedFileReader reader = result.createNewInputReader();
+        BufferedFileReader reader = sample.createReader(result);
         long fileSize = reader.getFileSize();
 
         exec.setProgress("Guessing column types");
@@ -764,6 +848,8 @@ private static ColProperty[] createColumnTypes(final FileReaderNodeSettings user
         // we can use this missing value pattern only if we also got a real
         // value for that same column
         boolean[] gotValue = new boolean[result.getNumberOfColumns()];
+        // the number of columns that could still turn out to be numeric
+        int numericCols = 0;
 
         for (int t = 0; t < types.length; t++) {
             // set user type - if set.
@@ -771,6 +857,7 @@ private static ColProperty[] createColumnTypes(final FileReaderNodeSettings user
                 types[t] = userTypes[t];
             } else {
                 types[t] = IntCell.TYPE;
+                numericCols++;
             }
             // initialize the data structures:
             missValPattern[t] = null;
@@ -788,7 +875,8 @@ private static ColProperty[] createColumnTypes(final FileReaderNodeSettings user
 
         try {
             // close the stream on an exception
-            while (true) {
+            // once all types are determined the rest of the file can't change them
+            while (numericCols > 0) {
 
                 String token = tokenizer.nextToken();
 
@@ -890,6 +978,7 @@ private static ColProperty[] createColumnTypes(final FileReaderNodeSettings user
                     // lets accept everything: StringCell
                     types[colIdx] = StringCell.TYPE;
                     gotValue[colIdx] = true;
+                    numericCols--;
                 }
 
             }
@@ -957,17 +1046,18 @@ private static ColProperty[] createColumnTypes(final FileReaderNodeSettings user
      * of lines (even if we are not supposed to cut the analysis short).
      *
      * @param settings object containing the data file location. The method will add comment patterns to this object.
+     * @param sample the part of the file to look at
      * @param exec to check for cancellations and to report progress
      * @throws IOException if an I/O error occurs
      */
-    private static void addComments(final FileReaderNodeSettings settings, final ExecutionMonitor exec)
-        throws IOException, InterruptedExecutionException {
+    private static void addComments(final FileReaderNodeSettings settings, final FileSample sample,
+        final ExecutionMonitor exec) throws IOException, InterruptedExecutionException {
 
         assert settings != null;
         assert settings.getDataFileLocation() != null;
         assert settings.getAllComments().size() == 0;
 
-        BufferedReader reader = settings.createNewInputReader();
+        BufferedReader reader = sample.createReader(settings);
 
         exec.setProgress("Guessing comment pattern");
 
@@ -1029,18 +1119,19 @@ private static void addComments(final FileReaderNodeSettings settings, final Exe
      *
      * @param settings the object to add quote settings to. Must contain file location and possibly comments - but no
      *            delimiters yet!
+     * @param sample the part of the file to look at
      * @param exec to check for cancellations and to report progress
      * @throws IOException if an I/O error occurs
      * @throws InterruptedExecutionException if analysis was interrupted
      */
-    private static void addQuotes(final FileReaderNodeSettings settings, final ExecutionMonitor exec)
-        throws IOException, InterruptedExecutionException {
+    private static void addQuotes(final FileReaderNodeSettings settings, final FileSample sample,
+        final ExecutionMonitor exec) throws IOException, InterruptedExecutionException {
         assert settings != null;
         assert settings.getAllQuotes().size() == 0;
         assert settings.getDataFileLocation() != null;
         assert settings.getAllDelimiters().size() == 0;
 
-        BufferedFileReader reader = settings.createNewInputReader();
+        BufferedFileReader reader = sample.createReader(settings);
         Tokenizer tokenizer = new Tokenizer(reader);
         double fileSize = reader.getFileSize();
         exec.setProgress("Guessing quotes");
@@ -1173,7 +1264,7 @@ private static void addQuotes(final FileReaderNodeSettings settings, final Execu
      * delimiters will be set. A row delimiter ('\n' and '\r') is always set.
      */
     private static void setDelimitersAndColNum(final FileReaderNodeSettings userSettings,
-        final FileReaderNodeSettings result, final ExecutionMonitor exec)
+        final FileReaderNodeSettings result, final FileSample sample, final ExecutionMonitor exec)
             throws IOException, InterruptedExecutionException {
 
         assert result != null;
@@ -1197,7 +1288,7 @@ private static void setDelimitersAndColNum(final FileReaderNodeSettings userSett
                     result.addRowDelimiter("\r", true);
                     result.addDelimiterPattern(";", false, false, false);
 
-                    if (testDelimiterSettingsSetColNum(result, subExec)) {
+                    if (testDelimiterSettingsSetColNum(result, sample, subExec)) {
                         return;
                     }
                 } catch (IllegalArgumentException iae) {
@@ -1217,7 +1308,7 @@ private static void setDelimitersAndColNum(final FileReaderNodeSettings userSett
                     result.addRowDelimiter("\r", true);
                     result.addDelimiterPattern(",", false, false, false);
 
-                    if (testDelimiterSettingsSetColNum(result, subExec)) {
+                    if (testDelimiterSettingsSetColNum(result, sample, subExec)) {
                         return;
                     }
                 } catch (IllegalArgumentException iae) {
@@ -1238,7 +1329,7 @@ private static void setDelimitersAndColNum(final FileReaderNodeSettings userSett
 
                     result.addDelimiterPattern("\t", false, false, false);
 
-                    if (testDelimiterSettingsSetColNum(result, subExec)) {
+                    if (testDelimiterSettingsSetColNum(result, sample, subExec)) {
                         return;
                     }
                 } catch (IllegalArgumentException iae) {
@@ -1261,7 +1352,7 @@ private static void setDelimitersAndColNum(final FileReaderNodeSettings userSett
                     result.addDelimiterPattern(" ", true, false, false);
                     result.setIgnoreEmptyTokensAtEndOfRow(true);
 
-                    if (testDelimiterSettingsSetColNum(result, subExec)) {
+                    if (testDelimiterSettingsSetColNum(result, sample, subExec)) {
                         return;
                     }
                 } catch (IllegalArgumentException iae) {
@@ -1281,7 +1372,7 @@ private static void setDelimitersAndColNum(final FileReaderNodeSettings userSett
                     result.addRowDelimiter("\r", true);
                     result.addDelimiterPattern(" ", true, false, false);
 
-                    if (testDelimiterSettingsSetColNum(result, subExec)) {
+                    if (testDelimiterSettingsSetColNum(result, sample, subExec)) {
                         return;
                     }
                 } catch (IllegalArgumentException iae) {
@@ -1316,7 +1407,7 @@ private static void setDelimitersAndColNum(final FileReaderNodeSettings userSett
             }
             // set the number of cols that we read in with user presets.
             // take the maximum if rows have different num of cols.
-            result.setNumberOfColumns(getMaximumNumberOfColumns(result, exec));
+            result.setNumberOfColumns(getMaximumNumberOfColumns(result, sample, exec));
         }
 
         return;
@@ -1348,9 +1439,9 @@ private static ExecutionMonitor createSubExecWithRemainder(final ExecutionMonito
      * fill the row, in case a later row has more (non-empty) tokens.
      */
     private static boolean testDelimiterSettingsSetColNum(final FileReaderNodeSettings settings,
-        final ExecutionMonitor exec) throws IOException, InterruptedExecutionException {
+        final FileSample sample, final ExecutionMonitor exec) throws IOException, InterruptedExecutionException {
 
-        BufferedFileReader reader = settings.createNewInputReader();
+        BufferedFileReader reader = sample.createReader(settings);
         Tokenizer tokenizer = new Tokenizer(reader);
         tokenizer.setSettings(settings);
 
@@ -1494,10 +1585,10 @@ private static boolean testDelimiterSettingsSetColNum(final FileReaderNodeSettin
 
     }
 
-    private static int getMaximumNumberOfColumns(final FileReaderNodeSettings settings, final ExecutionMonitor exec)
-        throws IOException, InterruptedExecutionException {
+    private static int getMaximumNumberOfColumns(final FileReaderNodeSettings settings, final FileSample sample,
+        final ExecutionMonitor exec) throws IOException, InterruptedExecutionException {
 
-        BufferedFileReader reader = settings.createNewInputReader();
+        BufferedFileReader reader = sample.createReader(settings);
         Tokenizer tokenizer = new Tokenizer(reader);
         tokenizer.setSettings(settings);
         double fileSize = reader.getFileSize();
@@ -47,6 +47,7 @@
  */
 package org.knime.base.node.io.filereader;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.knime.core.node.CanceledExecutionException;
@@ -75,6 +76,8 @@ public class FileReaderExecutionMonitor extends ExecutionMonitor {
 
     private final AtomicInteger m_shortCutLines = new AtomicInteger(FileAnalyzer.NUMOFLINES);
 
+    private final AtomicBoolean m_sampleLargeFiles = new AtomicBoolean(false);
+
     /**
      * Creates a new object with a default progress monitor.
      * @since 3.4
@@ -194,6 +197,29 @@ public void setShortCutLines(final int numOfLines) {
         m_shortCutLines.set(numOfLines);
     }
 
+    /**
+     * @return true, if large local files should be analyzed on samples read from a few positions in the file only
+     * @since 3.7
+     */
+    public boolean getSampleLargeFiles() {
+        if (m_parent != null) {
+            return m_parent.getSampleLargeFiles();
+        }
+        return m_sampleLargeFiles.get();
+    }
+
+    /**
+     * Sets whether the {@link FileAnalyzer} should look at samples of large local files only, instead of reading
+     * them entirely. Analyses based on samples are not flagged as having used all rows.
+     *
+     * @param sample true, if large files should be sampled
+     * @since 3.7
+     */
+    public void setSampleLargeFiles(final boolean sample) {
+        assert m_parent == null;
+        m_sampleLargeFiles.set(sample);
+    }
+
     /**
      * {@inheritDoc}
      */
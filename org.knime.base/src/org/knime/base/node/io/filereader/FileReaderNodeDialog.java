@@ -1447,6 +1447,8 @@ protected void analyzeAction() {
             // We use our own progress monitor, we need to distinguish
             // between user cancel and code interrupts.
             m_analysisExecMonitor = new FileReaderExecutionMonitor();
+            // big files are analyzed on a sample to keep the dialog responsive
+            m_analysisExecMonitor.setSampleLargeFiles(true);
             m_analysisExecMonitor.getProgressMonitor().addProgressListener(
                     new NodeProgressListener() {
                         @Override
@@ -1545,6 +1547,11 @@ public void run() {
                                     + "are based on a partial file analysis "
                                     + "only! Please verify.");
                         }
+                    } else if ((newSettings != null)
+                            && !newSettings.analyzeUsedAllRows()) {
+                        setAnalWarningText("WARNING: suggested settings "
+                                + "are based on a sample of the file "
+                                + "only! Please verify.");
                     } else {
                         setAnalWarningText("");
                     }
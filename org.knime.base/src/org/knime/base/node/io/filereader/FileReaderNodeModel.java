@@ -190,7 +190,7 @@ public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final
                 RowOutput rowOutput = (RowOutput)outputs[0]; // data output port
 
                 int row = 0;
-                FileRowIterator it = fTable.iterator();
+                AbstractFileRowIterator it = fTable.iterator();
                 try {
                     if (it.getZipEntryName() != null) {
                         // seems we are reading a ZIP archive.
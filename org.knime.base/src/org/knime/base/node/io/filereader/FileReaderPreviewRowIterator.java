@@ -62,7 +62,7 @@
 class FileReaderPreviewRowIterator extends RowIterator {
 
     // the underlying iterator we wrap and catch the exceptions from
-    private FileRowIterator m_rowIter;
+    private AbstractFileRowIterator m_rowIter;
 
     private FileReaderPreviewTable m_table;
 
@@ -78,7 +78,7 @@ class FileReaderPreviewRowIterator extends RowIterator {
      *            Needed to pull the sprc from for creating the row in case of
      *            an error/exception and to tell the table an error occurred.
      */
-    FileReaderPreviewRowIterator(final FileRowIterator rowIterator,
+    FileReaderPreviewRowIterator(final AbstractFileRowIterator rowIterator,
             final FileReaderPreviewTable previewTable) {
         m_rowIter = rowIterator;
         m_table = previewTable;
@@ -54,7 +54,6 @@
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
-import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.util.MutableInteger;
@@ -70,7 +69,7 @@
  *
  * @see org.knime.core.data.RowIterator
  */
-class FileRowIterator extends CloseableRowIterator {
+class FileRowIterator extends AbstractFileRowIterator {
 
     /* The tokenizer reads the next token from the input stream. */
     private final Tokenizer m_tokenizer;
@@ -94,6 +93,9 @@ class FileRowIterator extends CloseableRowIterator {
     // we associate with it the last used suffix, to make it unique
     private final HashMap<String, Number> m_rowIDhash;
 
+    // true if the row header of the last row was missing in the file
+    private boolean m_lastRowHeaderMissing;
+
     // Used in the above hash to indicate that duplicate of that row was found.
     private static final Integer NOSUFFIX = 0;
 
@@ -137,6 +139,25 @@ class FileRowIterator extends CloseableRowIterator {
     FileRowIterator(final FileReaderSettings frSettings,
             final DataTableSpec tableSpec, final boolean[] skipColumns,
             final ExecutionContext exec) throws IOException {
+        this(frSettings, tableSpec, skipColumns,
+                frSettings.createNewInputReader(), exec);
+    }
+
+    /**
+     * Creates a row iterator reading from the specified source instead of
+     * the data file location of the settings.
+     *
+     * @param frSettings object containing the hows to read the data
+     * @param tableSpec the spec defining the structure of the rows to create
+     * @param skipColumns array with the element set to true if the
+     *            corresponding column should be skipped
+     * @param source the reader to read the data from
+     * @param exec the execution context to report the progress to, can be
+     *            <code>null</code>
+     */
+    FileRowIterator(final FileReaderSettings frSettings,
+            final DataTableSpec tableSpec, final boolean[] skipColumns,
+            final BufferedFileReader source, final ExecutionContext exec) {
 
         if (skipColumns.length < tableSpec.getNumColumns()) {
             throw new IllegalArgumentException("The number of columns can't"
@@ -160,7 +181,7 @@ class FileRowIterator extends CloseableRowIterator {
         m_exec = exec;
         m_lastReport = 0;
 
-        m_source = m_frSettings.createNewInputReader();
+        m_source = source;
         m_tokenizer = new Tokenizer(m_source);
 
         // set the tokenizer related settings in the tokenizer
@@ -225,12 +246,9 @@ protected void finalize() throws Throwable {
     }
 
     /**
-     * Call this before releasing the last reference to this iterator. It closes
-     * the underlying source. Especially if the iterator didn't run to the end
-     * of the table, it is required to call this method. Otherwise the file
-     * handle is not released until the garbage collector cleans up. A call to
-     * {@link #next()} after disposing of the iterator has undefined behavior.
+     * {@inheritDoc}
      */
+    @Override
     public void dispose() {
         try {
             m_source.close();
@@ -239,12 +257,6 @@ public void dispose() {
         }
     }
 
-    /** {@inheritDoc} */
-    @Override
-    public void close() {
-        dispose();
-    }
-
     /**
      * {@inheritDoc}
      */
@@ -571,7 +583,9 @@ private String createRowHeader(final int rowNumber) {
         if (m_rowHeaderPrefix == null) {
             assert fileHeader != null;
             String newRowHeader;
-            if (fileHeader.equals("") && !m_tokenizer.lastTokenWasQuoted()) {
+            m_lastRowHeaderMissing =
+                    fileHeader.equals("") && !m_tokenizer.lastTokenWasQuoted();
+            if (m_lastRowHeaderMissing) {
                 // seems we got a missing row delimiter. Let's build one.
                 newRowHeader = DataType.getMissingCell().toString() + rowNumber;
             } else {
@@ -580,7 +594,7 @@ private String createRowHeader(final int rowNumber) {
 
             if (m_frSettings.uniquifyRowIDs()) {
                 // see if it's unique - and if not make it unique.
-                newRowHeader = uniquifyRowHeader(newRowHeader);
+                newRowHeader = uniquifyRowHeader(newRowHeader, m_rowIDhash);
             }
 
             return newRowHeader;
@@ -598,9 +612,10 @@ private String createRowHeader(final int rowNumber) {
      * unique row header, which could be the same than the one passed in (and
      * adds any rowheader returned to the hash set).
      */
-    private String uniquifyRowHeader(final String newRowHeader) {
+    static String uniquifyRowHeader(final String newRowHeader,
+            final HashMap<String, Number> rowIDhash) {
 
-        Number oldSuffix = m_rowIDhash.put(newRowHeader, NOSUFFIX);
+        Number oldSuffix = rowIDhash.put(newRowHeader, NOSUFFIX);
 
         if (oldSuffix == null) {
             // haven't seen the rowID so far.
@@ -620,17 +635,17 @@ private String uniquifyRowHeader(final String newRowHeader) {
             if (oldSuffix.equals(NOSUFFIX)) {
                 // until now the NOSUFFIX placeholder was in the hash
                 assert idx - 1 == NOSUFFIX.intValue();
-                m_rowIDhash.put(result, new MutableInteger(idx));
+                rowIDhash.put(result, new MutableInteger(idx));
             } else {
                 assert oldSuffix instanceof MutableInteger;
                 ((MutableInteger)oldSuffix).inc();
                 assert idx == oldSuffix.intValue();
                 // put back the old (incr.) suffix (overridden with NOSUFFIX).
-                m_rowIDhash.put(result, oldSuffix);
+                rowIDhash.put(result, oldSuffix);
             }
 
             result = result + "_" + idx;
-            oldSuffix = m_rowIDhash.put(result, NOSUFFIX);
+            oldSuffix = rowIDhash.put(result, NOSUFFIX);
 
         }
 
@@ -672,36 +687,34 @@ private FileReaderException prepareForException(final String msg,
     }
 
     /**
-     * The settings allow for specifying a maximum number of rows. This method
-     * can be used to find out, if the source has more data than actually
-     * returned by the iterator. The result is only accurate, after the
-     * {@link #hasNext()} method returned <code>false</code>.
-     *
-     * @return true, if the iterator didn't return all rows of the source (due
-     *         to its settings). Only accurate after the iterator finished
-     *         ({@link #hasNext()} returned false).
+     * @return true, if the file contained no row header for the row returned
+     *         last (and the iterator made one up). Only meaningful if the
+     *         settings tell that the file has row headers.
+     */
+    boolean lastRowHeaderWasMissing() {
+        return m_lastRowHeaderMissing;
+    }
+
+    /**
+     * {@inheritDoc}
      */
+    @Override
     public boolean iteratorEndedEarly() {
         return m_fileWasNotCompletelyRead;
     }
 
     /**
-     * If the source read was a ZIP archive this method tests if there are more
-     * than one entry in the archive. If the source was not compressed or a gzip
-     * file, it always returns false. If the EOF has not been read from the
-     * source, the result is always false.
-     *
-     * @return true, if the source was read til the end and it is a ZIP archive
-     *         with more than one entry
+     * {@inheritDoc}
      */
+    @Override
     public boolean zippedSourceHasMoreEntries() {
         return m_source.hasMoreZipEntries();
     }
 
     /**
-     * @return if the underlying source is a ZIP archive it returns the entry
-     *         read. Null if not a ZIP source.
+     * {@inheritDoc}
      */
+    @Override
     public String getZipEntryName() {
         return m_source.getZipEntryName();
     }
@@ -0,0 +1,214 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.io.filereader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.knime.base.node.util.BufferedFileReader;
+import org.knime.core.util.FileUtil;
+import org.knime.core.util.tokenizer.Comment;
+
+/**
+ * The part of a data file the {@link FileAnalyzer} looks at. For large, local, uncompressed files this is a bounded
+ * sample: the lines at the beginning of the file, followed by complete lines read from the middle and from a few
+ * random positions in the file. The sample is cut at line feeds only, which is why files with quotes spanning
+ * multiple lines, with line continuations or with other row delimiters are always read entirely.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class FileSample {
+
+    /** Files smaller than this are always read entirely. */
+    static final long MIN_FILE_SIZE = 32L << 20;
+
+    /** Number of bytes read from the beginning of the file. */
+    private static final int HEAD_SIZE = 4 << 20;
+
+    /** Number of bytes read from the middle and from each random position in the file. */
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    private static final int RANDOM_BLOCKS = 4;
+
+    /** The sample reading the entire file. */
+    static final FileSample ENTIRE_FILE = new FileSample(null, null);
+
+    private final byte[] m_bytes;
+
+    private final Charset m_charset;
+
+    private FileSample(final byte[] bytes, final Charset charset) {
+        m_bytes = bytes;
+        m_charset = charset;
+    }
+
+    /**
+     * Reads a sample of the data file specified in the settings, if the file is large enough and the settings allow
+     * cutting it at line feeds.
+     *
+     * @param userSettings the settings the user provided, containing the data file location
+     * @param charsetName the character set of the file, or <code>null</code> for the VM's default
+     * @return the sample of the file, or {@link #ENTIRE_FILE} if the file can't (or needn't) be sampled
+     * @throws IOException if the file can't be read
+     */
+    static FileSample create(final FileReaderNodeSettings userSettings, final String charsetName)
+        throws IOException {
+        final Charset charset = ParallelFileRowIterator.getCharset(charsetName);
+        final File file = getLocalFile(userSettings.getDataFileLocation());
+        if (charset == null || file == null || !file.isFile() || file.length() < MIN_FILE_SIZE
+            || userSettings.allowLFinQuotes() || userSettings.getLineContinuationCharacter() != null
+            || (userSettings.isDelimiterUserSet() && !userSettings.isRowDelimiter("\n", false))) {
+            return ENTIRE_FILE;
+        }
+        if (userSettings.isCommentUserSet()) {
+            for (Comment c : userSettings.getAllComments()) {
+                if (!"\n".equals(c.getEnd())) {
+                    return ENTIRE_FILE;
+                }
+            }
+        }
+        if (ParallelFileRowIterator.isCompressed(file)) {
+            return ENTIRE_FILE;
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            final long length = raf.length();
+            final ByteArrayOutputStream sample =
+                new ByteArrayOutputStream(HEAD_SIZE + (RANDOM_BLOCKS + 1) * BLOCK_SIZE);
+            final byte[] buf = new byte[HEAD_SIZE];
+            int read = read(raf, 0, buf, HEAD_SIZE);
+            final int headEnd = lastIndexOfLF(buf, read);
+            if (headEnd < 0) {
+                // not even one line in the head - the sample would be useless
+                return ENTIRE_FILE;
+            }
+            sample.write(buf, 0, headEnd + 1);
+
+            // the middle block plus random blocks, always the same ones for the same file size
+            final long[] offsets = new long[RANDOM_BLOCKS + 1];
+            offsets[0] = length / 2;
+            final Random rand = new Random(length);
+            for (int i = 1; i < offsets.length; i++) {
+                offsets[i] = read + (long)(rand.nextDouble() * (length - read - BLOCK_SIZE));
+            }
+            Arrays.sort(offsets);
+            long next = read;
+            for (long offset : offsets) {
+                final long start = Math.max(offset, next);
+                read = read(raf, start, buf, BLOCK_SIZE);
+                // skip the (possibly partial) first line and cut off the last one
+                int first = 0;
+                while (first < read && buf[first] != '\n') {
+                    first++;
+                }
+                final int last = lastIndexOfLF(buf, read);
+                if (last > first) {
+                    sample.write(buf, first + 1, last - first);
+                }
+                next = start + read;
+            }
+            return new FileSample(sample.toByteArray(), charset);
+        }
+    }
+
+    /**
+     * @return true, if this is only a part of the file
+     */
+    boolean isSampled() {
+        return m_bytes != null;
+    }
+
+    /**
+     * @param settings the settings containing the data file location and character set
+     * @return a new reader reading the sample, or the entire file if it's not sampled
+     * @throws IOException if an I/O error occurred when opening the file
+     */
+    BufferedFileReader createReader(final FileReaderNodeSettings settings) throws IOException {
+        if (m_bytes == null) {
+            return settings.createNewInputReader();
+        }
+        return BufferedFileReader.createNewReader(new ByteArrayInputStream(m_bytes), m_charset);
+    }
+
+    /**
+     * @param url the location of a file
+     * @return the local file the URL points to, or <code>null</code> if it's not a local file
+     */
+    static File getLocalFile(final URL url) {
+        try {
+            return url == null ? null : FileUtil.getFileFromURL(url);
+        } catch (IllegalArgumentException e) {
+            // not a local file
+            return null;
+        }
+    }
+
+    private static int read(final RandomAccessFile raf, final long pos, final byte[] buf, final int len)
+        throws IOException {
+        raf.seek(pos);
+        int read = 0;
+        int n;
+        while (read < len && (n = raf.read(buf, read, len - read)) >= 0) {
+            read += n;
+        }
+        return read;
+    }
+
+    private static int lastIndexOfLF(final byte[] buf, final int len) {
+        for (int i = len - 1; i >= 0; i--) {
+            if (buf[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
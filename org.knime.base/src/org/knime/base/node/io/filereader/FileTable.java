@@ -93,7 +93,7 @@ public class FileTable implements DataTable {
     private final boolean[] m_skipColums;
 
     // list of all iterators to close the source, when the table is disposed of
-    private final LinkedList<WeakReference<FileRowIterator>> m_iterators;
+    private final LinkedList<WeakReference<AbstractFileRowIterator>> m_iterators;
 
     /**
      * Creates a new file table with the structure defined in tableSpec and
@@ -151,7 +151,7 @@ public FileTable(final DataTableSpec tableSpec,
                     + "include is different from the number of columns in the"
                     + " table spec.");
         }
-        m_iterators = new LinkedList<WeakReference<FileRowIterator>>();
+        m_iterators = new LinkedList<WeakReference<AbstractFileRowIterator>>();
         m_tableSpec = tableSpec;
         m_frSettings = frSettings;
         m_skipColums = skipColumns;
@@ -178,8 +178,8 @@ protected void finalize() throws Throwable {
      */
     public void dispose() {
         synchronized (m_iterators) {
-            for (WeakReference<FileRowIterator> w : m_iterators) {
-                FileRowIterator i = w.get();
+            for (WeakReference<AbstractFileRowIterator> w : m_iterators) {
+                AbstractFileRowIterator i = w.get();
                 if (i != null) {
                     i.dispose();
                 }
@@ -197,13 +197,21 @@ private static boolean[] createFalseArray(final int length) {
     /**
      * {@inheritDoc}
      */
-    public FileRowIterator iterator() {
+    public AbstractFileRowIterator iterator() {
         try {
             synchronized (m_iterators) {
-                FileRowIterator i =
-                        new FileRowIterator(m_frSettings, m_tableSpec,
-                                m_skipColums, m_exec);
-                m_iterators.add(new WeakReference<FileRowIterator>(i));
+                AbstractFileRowIterator i;
+                // large files are read in parallel during execution (not
+                // for the preview in the dialog, which has no exec context)
+                if (m_exec != null && ParallelFileRowIterator
+                        .canReadInParallel(m_frSettings)) {
+                    i = new ParallelFileRowIterator(m_frSettings,
+                            m_tableSpec, m_skipColums, m_exec);
+                } else {
+                    i = new FileRowIterator(m_frSettings, m_tableSpec,
+                            m_skipColums, m_exec);
+                }
+                m_iterators.add(new WeakReference<AbstractFileRowIterator>(i));
                 return i;
 
             }
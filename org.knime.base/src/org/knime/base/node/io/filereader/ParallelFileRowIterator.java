@@ -0,0 +1,825 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.io.filereader;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.base.node.util.BufferedFileReader;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.FileUtil;
+import org.knime.core.util.ThreadPool;
+import org.knime.core.util.tokenizer.Comment;
+import org.knime.core.util.tokenizer.Delimiter;
+import org.knime.core.util.tokenizer.Quote;
+
+/**
+ * Row iterator for the {@link FileTable} that reads large local files in parallel. The file is cut into chunks of
+ * about {@link #CHUNK_SIZE} bytes at record boundaries, each chunk is parsed by its own {@link FileRowIterator} in a
+ * sub pool of the global thread pool and the rows are returned in the order of the file. The row IDs are assigned
+ * (and made unique) when the chunks are put together, so the rows are the same as the ones of a single sequential
+ * iterator.
+ * <p>
+ * The record boundaries are found by a scanner on the raw bytes that follows quotes, escape characters and line
+ * comments the same way the tokenizer does. It is therefore only used for settings where records end with a LF and
+ * all special characters are single bytes, see {@link #canReadInParallel(FileReaderSettings)}. If a chunk can't be
+ * parsed, the iterator continues with a sequential iterator at the first row of that chunk, which then reports the
+ * error (with the correct line number) as if the file had been read sequentially from the start.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ParallelFileRowIterator extends AbstractFileRowIterator {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ParallelFileRowIterator.class);
+
+    /** The minimum size of a file to be read in parallel. */
+    static final long MIN_FILE_SIZE = 16L << 20;
+
+    /** The approximate number of bytes in each chunk. */
+    static final int CHUNK_SIZE = 2 << 20;
+
+    // records longer than this (usually an unbalanced quote) make the iterator continue sequentially
+    private static final int MAX_CHUNK_SIZE = 256 << 20;
+
+    /** The rows of one parsed chunk. */
+    private static final class Chunk {
+        private final List<DataRow> m_rows = new ArrayList<DataRow>();
+
+        // the rows whose header was missing in the file
+        private final BitSet m_missingRowHeaders = new BitSet();
+
+        // the file offset after the chunk's last byte
+        private final long m_endOffset;
+
+        Chunk(final long endOffset) {
+            m_endOffset = endOffset;
+        }
+    }
+
+    private final FileReaderSettings m_settings;
+
+    // the settings for parsing the first chunk and all other chunks, respectively
+    private final FileReaderSettings m_firstChunkSettings;
+
+    private final FileReaderSettings m_chunkSettings;
+
+    private final DataTableSpec m_tableSpec;
+
+    private final boolean[] m_skipColumns;
+
+    private final ExecutionContext m_exec;
+
+    private final Charset m_charset;
+
+    private final long m_fileSize;
+
+    // the prefix of the generated row IDs, null if the IDs are read from the file
+    private final String m_rowHeaderPrefix;
+
+    private final HashMap<String, Number> m_rowIDhash = new HashMap<String, Number>();
+
+    private final RecordScanner m_scanner;
+
+    // the pool of the workers parsing the chunks
+    private final ThreadPool m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool();
+
+    private final ArrayDeque<Future<Chunk>> m_pendingChunks = new ArrayDeque<Future<Chunk>>();
+
+    private final InputStream m_in;
+
+    // the bytes read but not yet handed to a worker, the first m_scanned bytes have been scanned already
+    private byte[] m_buffer = new byte[CHUNK_SIZE];
+
+    private int m_length;
+
+    private int m_scanned;
+
+    // the file offset of the first byte in the buffer
+    private long m_offset;
+
+    private boolean m_eof;
+
+    private boolean m_firstChunk = true;
+
+    // true if no further chunks are read in parallel
+    private boolean m_stopParallelReading;
+
+    private boolean m_disposed;
+
+    private Chunk m_chunk;
+
+    private int m_chunkRow;
+
+    // the number of rows returned so far
+    private long m_rowNumber;
+
+    // once set, all remaining rows are read by this iterator
+    private FileRowIterator m_sequential;
+
+    /**
+     * Creates a new iterator. The settings must have been checked with {@link #canReadInParallel(FileReaderSettings)}.
+     *
+     * @param frSettings object containing the wheres and hows to read the data
+     * @param tableSpec the spec defining the structure of the rows to create
+     * @param skipColumns array with the element set to true if the corresponding column should be skipped
+     * @param exec the execution context to report the progress to
+     * @throws IOException if it couldn't open the data file
+     */
+    ParallelFileRowIterator(final FileReaderSettings frSettings, final DataTableSpec tableSpec,
+        final boolean[] skipColumns, final ExecutionContext exec) throws IOException {
+        m_settings = frSettings;
+        m_tableSpec = tableSpec;
+        m_skipColumns = skipColumns;
+        m_exec = exec;
+        m_charset = getCharset(frSettings.getCharsetName());
+
+        // the row IDs are made unique when the chunks are put together
+        m_firstChunkSettings = new FileReaderSettings(frSettings);
+        m_firstChunkSettings.setUniquifyRowIDs(false);
+        m_chunkSettings = new FileReaderSettings(m_firstChunkSettings);
+        m_chunkSettings.setFileHasColumnHeaders(false);
+        m_chunkSettings.setSkipFirstLines(0);
+
+        if (frSettings.getFileHasRowHeaders()) {
+            m_rowHeaderPrefix = null;
+        } else if (frSettings.getRowHeaderPrefix() != null) {
+            m_rowHeaderPrefix = frSettings.getRowHeaderPrefix();
+        } else {
+            m_rowHeaderPrefix = FileReaderSettings.DEF_ROWPREFIX;
+        }
+
+        m_scanner = new RecordScanner(frSettings);
+        final File file = FileUtil.getFileFromURL(frSettings.getDataFileLocation());
+        m_fileSize = file.length();
+        m_in = new FileInputStream(file);
+        LOGGER.debug("Reading '" + file + "' in chunks of " + CHUNK_SIZE + " bytes with " + m_pool.getMaxThreads()
+            + " threads");
+    }
+
+    /**
+     * Checks whether a file can be read in parallel with the specified settings. This is the case for large, local,
+     * uncompressed files whose records are delimited by a LF (not combined with other delimiters and without line
+     * continuations), with single character quotes and line comments only, in a character set that encodes the special
+     * characters as single (ASCII) bytes. Also, the number of rows to read must not be limited.
+     *
+     * @param settings the settings to check
+     * @return true if the file can be read with a {@link ParallelFileRowIterator}
+     */
+    static boolean canReadInParallel(final FileReaderSettings settings) {
+        if (KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads() < 2 || settings.getMaximumNumberOfRowsToRead() >= 0
+            || settings.getLineContinuationCharacter() != null || settings.getCombineMultipleDelimiters()
+            || getCharset(settings.getCharsetName()) == null) {
+            return false;
+        }
+
+        // characters that must not be part of any column delimiter
+        final StringBuilder specialChars = new StringBuilder("\n\r");
+        for (Quote q : settings.getAllQuotes()) {
+            if (q.getLeft().length() != 1 || !q.getLeft().equals(q.getRight()) || !isSpecialChar(q.getLeft().charAt(0))
+                || (q.hasEscapeChar() && !isSpecialChar(q.getEscape()))) {
+                return false;
+            }
+            specialChars.append(q.getLeft());
+        }
+        for (Comment c : settings.getAllComments()) {
+            if (!"\n".equals(c.getEnd()) || c.getBegin().isEmpty()) {
+                return false;
+            }
+            for (char ch : c.getBegin().toCharArray()) {
+                if (!isSpecialChar(ch)) {
+                    return false;
+                }
+            }
+            specialChars.append(c.getFirstCharOfBegin());
+        }
+        boolean hasLFRowDelimiter = false;
+        for (Delimiter d : settings.getAllDelimiters()) {
+            final String pattern = d.getDelimiter();
+            if (pattern.equals("\n") && settings.isRowDelimiter(pattern, false)) {
+                hasLFRowDelimiter = true;
+            } else {
+                for (int i = 0; i < specialChars.length(); i++) {
+                    if (pattern.indexOf(specialChars.charAt(i)) >= 0) {
+                        return false;
+                    }
+                }
+                if (settings.isRowDelimiter(pattern, false)) {
+                    return false;
+                }
+            }
+        }
+        if (!hasLFRowDelimiter) {
+            return false;
+        }
+
+        final URL url = settings.getDataFileLocation();
+        final File file;
+        try {
+            file = url == null ? null : FileUtil.getFileFromURL(url);
+        } catch (IllegalArgumentException e) {
+            // not a local file
+            return false;
+        }
+        return file != null && file.isFile() && file.length() >= MIN_FILE_SIZE && !isCompressed(file);
+    }
+
+    /** @return true for printable ASCII characters and tabs */
+    private static boolean isSpecialChar(final char c) {
+        return c == '\t' || (c >= ' ' && c < 127);
+    }
+
+    /**
+     * @param charsetName the name of the character set, or <code>null</code> for the VM's default
+     * @return the character set if it encodes all ASCII characters (and only those) as single bytes with the same
+     *         value, <code>null</code> otherwise
+     */
+    static Charset getCharset(final String charsetName) {
+        final Charset cs;
+        try {
+            cs = charsetName == null ? Charset.defaultCharset() : Charset.forName(charsetName);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (StandardCharsets.UTF_8.equals(cs) || StandardCharsets.US_ASCII.equals(cs)) {
+            return cs;
+        }
+        if (!cs.canEncode() || cs.newEncoder().maxBytesPerChar() != 1) {
+            return null;
+        }
+        final byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte)i;
+        }
+        final String decoded = new String(bytes, cs);
+        if (decoded.length() != bytes.length) {
+            return null;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            final char c = decoded.charAt(i);
+            if (i < 128 ? c != i : c < 128) {
+                return null;
+            }
+        }
+        return cs;
+    }
+
+    /** @return true if the file starts with the GZIP or ZIP magic number */
+    static boolean isCompressed(final File file) {
+        final byte[] magic = new byte[4];
+        try (InputStream in = new FileInputStream(file)) {
+            int read = 0;
+            int n;
+            while (read < magic.length && (n = in.read(magic, read, magic.length - read)) >= 0) {
+                read += n;
+            }
+        } catch (IOException e) {
+            return true;
+        }
+        return (magic[0] == (byte)0x1f && magic[1] == (byte)0x8b)
+            || (magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        while (m_sequential == null && (m_chunk == null || m_chunkRow >= m_chunk.m_rows.size())) {
+            if (!nextChunk()) {
+                break;
+            }
+        }
+        if (m_sequential != null) {
+            return m_sequential.hasNext();
+        }
+        return m_chunk != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("The row iterator proceeded beyond the last line of '"
+                + m_settings.getDataFileLocation().toString() + "'.");
+        }
+        if (m_sequential != null) {
+            return m_sequential.next();
+        }
+        final int index = m_chunkRow++;
+        final DataRow row = m_chunk.m_rows.set(index, null);
+        final String rowHeader = createRowHeader(row, m_chunk.m_missingRowHeaders.get(index));
+        m_rowNumber++;
+        return rowHeader.equals(row.getKey().getString()) ? row : new DefaultRow(rowHeader, row);
+    }
+
+    /* Creates the row header like a sequential iterator does for the m_rowNumber-th row. */
+    private String createRowHeader(final DataRow row, final boolean missingInFile) {
+        if (m_rowHeaderPrefix != null) {
+            return m_rowHeaderPrefix + m_rowNumber;
+        }
+        String rowHeader =
+            missingInFile ? DataType.getMissingCell().toString() + m_rowNumber : row.getKey().getString();
+        if (m_settings.uniquifyRowIDs()) {
+            rowHeader = FileRowIterator.uniquifyRowHeader(rowHeader, m_rowIDhash);
+        }
+        return rowHeader;
+    }
+
+    /**
+     * Makes the next parsed chunk the current one, submitting new chunks to the workers.
+     *
+     * @return false if there are no more chunks, either because the end of the file was reached or because the
+     *         remaining rows are read by the sequential iterator
+     */
+    private boolean nextChunk() {
+        m_chunk = null;
+        if (m_disposed) {
+            return false;
+        }
+        if (!m_stopParallelReading) {
+            try {
+                submitChunks();
+            } catch (IOException ioe) {
+                // the sequential iterator will report it (again)
+                LOGGER.debug("Reading in parallel failed: " + ioe.getMessage(), ioe);
+                stopParallelReading();
+            }
+        }
+        final Future<Chunk> future = m_pendingChunks.poll();
+        if (future == null) {
+            if (m_stopParallelReading) {
+                readSequentially();
+            } else {
+                dispose();
+            }
+            return false;
+        }
+        try {
+            m_chunk = future.get();
+        } catch (InterruptedException ie) {
+            dispose();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reading '" + m_settings.getDataFileLocation() + "' was interrupted", ie);
+        } catch (ExecutionException ee) {
+            // let the sequential iterator fail with the exact error (and line number)
+            LOGGER.debug("Chunk could not be parsed, continuing sequentially: " + ee.getCause().getMessage(),
+                ee.getCause());
+            readSequentially();
+            return false;
+        }
+        m_chunkRow = 0;
+        if (m_exec != null && m_fileSize > 0) {
+            m_exec.setProgress(m_chunk.m_endOffset / (double)m_fileSize);
+        }
+        return true;
+    }
+
+    /* Reads and submits new chunks until enough of them are pending or the file is read completely. */
+    private void submitChunks() throws IOException {
+        while (!m_stopParallelReading && m_pendingChunks.size() < m_pool.getMaxThreads() + 2
+            && (!m_eof || m_length > 0)) {
+            final byte[] bytes = readChunk();
+            if (bytes == null) {
+                stopParallelReading();
+                return;
+            }
+            final FileReaderSettings settings = m_firstChunk ? m_firstChunkSettings : m_chunkSettings;
+            m_firstChunk = false;
+            final long endOffset = m_offset;
+            m_pendingChunks.add(m_pool.enqueue(() -> parseChunk(bytes, settings, endOffset)));
+        }
+    }
+
+    /**
+     * Reads the bytes up to the last record boundary in the buffer (or to the end of the file).
+     *
+     * @return the bytes of the next chunk or <code>null</code> if no record boundary was found within
+     *         {@link #MAX_CHUNK_SIZE} bytes
+     */
+    private byte[] readChunk() throws IOException {
+        while (true) {
+            while (!m_eof && m_length < m_buffer.length) {
+                final int read = m_in.read(m_buffer, m_length, m_buffer.length - m_length);
+                if (read < 0) {
+                    m_eof = true;
+                    m_in.close();
+                } else {
+                    m_length += read;
+                }
+            }
+            m_scanned = m_scanner.scan(m_buffer, m_scanned, m_length, m_eof);
+
+            final int end;
+            if (m_eof) {
+                end = m_length;
+            } else if (m_scanner.getBoundary() > 0) {
+                end = m_scanner.getBoundary();
+            } else if (m_buffer.length < MAX_CHUNK_SIZE) {
+                // a single record fills the entire buffer
+                m_buffer = Arrays.copyOf(m_buffer, 2 * m_buffer.length);
+                continue;
+            } else {
+                return null;
+            }
+
+            final byte[] chunk = Arrays.copyOf(m_buffer, end);
+            System.arraycopy(m_buffer, end, m_buffer, 0, m_length - end);
+            m_length -= end;
+            m_scanned -= end;
+            m_offset += end;
+            m_scanner.clearBoundary();
+            return chunk;
+        }
+    }
+
+    /* Parses the rows of a chunk, executed by the workers. */
+    private Chunk parseChunk(final byte[] bytes, final FileReaderSettings settings, final long endOffset) {
+        final Chunk chunk = new Chunk(endOffset);
+        final FileRowIterator it = new FileRowIterator(settings, m_tableSpec, m_skipColumns,
+            BufferedFileReader.createNewReader(new ByteArrayInputStream(bytes), m_charset), null);
+        try {
+            while (it.hasNext()) {
+                chunk.m_rows.add(it.next());
+                if (it.lastRowHeaderWasMissing()) {
+                    chunk.m_missingRowHeaders.set(chunk.m_rows.size() - 1);
+                }
+            }
+        } finally {
+            it.dispose();
+        }
+        return chunk;
+    }
+
+    /* Stops reading chunks, the pending chunks are still returned. */
+    private void stopParallelReading() {
+        m_stopParallelReading = true;
+        try {
+            m_in.close();
+        } catch (IOException ioe) {
+            // then don't close it
+        }
+    }
+
+    /* Opens a sequential iterator and moves it behind the rows returned so far. */
+    private void readSequentially() {
+        dispose();
+        try {
+            m_sequential = new FileRowIterator(m_settings, m_tableSpec, m_skipColumns, m_exec);
+        } catch (IOException ioe) {
+            throw new IllegalStateException("I/O Error occurred while trying to open a stream to '"
+                + m_settings.getDataFileLocation() + "': " + ioe.getMessage(), ioe);
+        }
+        for (long i = 0; i < m_rowNumber; i++) {
+            m_sequential.next();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void dispose() {
+        m_disposed = true;
+        stopParallelReading();
+        for (Future<Chunk> f : m_pendingChunks) {
+            f.cancel(true);
+        }
+        m_pendingChunks.clear();
+        m_chunk = null;
+        if (m_sequential != null) {
+            m_sequential.dispose();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean iteratorEndedEarly() {
+        return m_sequential != null && m_sequential.iteratorEndedEarly();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean zippedSourceHasMoreEntries() {
+        // compressed files are never read in parallel
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getZipEntryName() {
+        return null;
+    }
+
+    /**
+     * Finds record boundaries in the raw bytes of a file. A record boundary is the position after a LF (or CR LF)
+     * that is not part of a quoted string or a comment, and that isn't followed by another LF. No boundary is reported
+     * within the lines to skip and before the end of the column header line.
+     */
+    static final class RecordScanner {
+        private static final int SKIP = 0;
+
+        private static final int NORMAL = 1;
+
+        private static final int AFTER_LF = 2;
+
+        private static final int AFTER_LF_CR = 3;
+
+        private static final int QUOTED = 4;
+
+        private static final int ESCAPED = 5;
+
+        private static final int COMMENT = 6;
+
+        private static final int AFTER_COMMENT = 7;
+
+        private static final int AFTER_COMMENT_CR = 8;
+
+        private static final int ESCAPED_CR = 9;
+
+        // the quote index for the first quote with a certain character, -1 if there is none
+        private final int[] m_quoteIndex = new int[256];
+
+        private final int[] m_quoteChars;
+
+        private final int[] m_escapeChars;
+
+        private final boolean m_allowLFinQuotes;
+
+        private final boolean[] m_commentStart = new boolean[256];
+
+        private final byte[][] m_commentBegins;
+
+        private final boolean m_hasColumnHeader;
+
+        private long m_linesToSkip;
+
+        private int m_state;
+
+        private int m_quote;
+
+        // true if any data was read, i.e. the column header line (if any) started
+        private boolean m_dataSeen;
+
+        private int m_boundary = -1;
+
+        /**
+         * @param settings the settings of the file to scan, which must have passed
+         *            {@link ParallelFileRowIterator#canReadInParallel(FileReaderSettings)}
+         */
+        RecordScanner(final FileReaderSettings settings) {
+            Arrays.fill(m_quoteIndex, -1);
+            final List<Quote> quotes = settings.getAllQuotes();
+            m_quoteChars = new int[quotes.size()];
+            m_escapeChars = new int[quotes.size()];
+            for (int i = 0; i < quotes.size(); i++) {
+                final Quote q = quotes.get(i);
+                m_quoteChars[i] = q.getLeft().charAt(0);
+                m_escapeChars[i] = q.hasEscapeChar() ? q.getEscape() : -1;
+                if (m_quoteIndex[m_quoteChars[i]] < 0) {
+                    m_quoteIndex[m_quoteChars[i]] = i;
+                }
+            }
+            m_allowLFinQuotes = settings.allowLFinQuotes();
+            final List<Comment> comments = settings.getAllComments();
+            m_commentBegins = new byte[comments.size()][];
+            for (int i = 0; i < comments.size(); i++) {
+                m_commentBegins[i] = comments.get(i).getBegin().getBytes(StandardCharsets.US_ASCII);
+                m_commentStart[m_commentBegins[i][0]] = true;
+            }
+            m_hasColumnHeader = settings.getFileHasColumnHeaders();
+            m_linesToSkip = settings.getSkipFirstLines();
+            m_state = m_linesToSkip > 0 ? SKIP : NORMAL;
+        }
+
+        /**
+         * Scans the bytes in <code>buf[from, to)</code> and remembers the last record boundary.
+         *
+         * @param buf the bytes
+         * @param from the index of the first byte to scan
+         * @param to the index after the last byte to scan
+         * @param eof true if there are no bytes after <code>to</code>
+         * @return the index of the first byte not scanned, which is less than <code>to</code> only if more bytes are
+         *         needed to decide about the state
+         */
+        int scan(final byte[] buf, final int from, final int to, final boolean eof) {
+            int i = from;
+            while (i < to) {
+                final int b = buf[i] & 0xFF;
+                switch (m_state) {
+                    case SKIP:
+                        if (b == '\n' && --m_linesToSkip <= 0) {
+                            m_state = NORMAL;
+                        }
+                        i++;
+                        break;
+                    case AFTER_LF:
+                        if (b == '\n') {
+                            i++;
+                        } else if (b == '\r') {
+                            m_state = AFTER_LF_CR;
+                            i++;
+                        } else {
+                            setBoundary(i);
+                            m_state = NORMAL;
+                        }
+                        break;
+                    case AFTER_LF_CR:
+                        if (b == '\n') {
+                            m_state = AFTER_LF;
+                            i++;
+                        } else {
+                            // the CR is an ordinary character starting the next record
+                            setBoundary(i - 1);
+                            m_state = NORMAL;
+                        }
+                        break;
+                    case QUOTED:
+                        if (b == m_escapeChars[m_quote]) {
+                            m_state = ESCAPED;
+                        } else if (b == m_quoteChars[m_quote]) {
+                            m_state = NORMAL;
+                        } else if (b == '\n' && !m_allowLFinQuotes) {
+                            // the tokenizer fails here, the chunk (up to here) is read sequentially then
+                            m_state = AFTER_LF;
+                        }
+                        i++;
+                        break;
+                    case ESCAPED:
+                        // the tokenizer reads CR LF as a single (escaped) LF
+                        m_state = b == '\r' ? ESCAPED_CR : QUOTED;
+                        i++;
+                        break;
+                    case ESCAPED_CR:
+                        if (b == '\n') {
+                            i++;
+                        }
+                        m_state = QUOTED;
+                        break;
+                    case COMMENT:
+                        if (b == '\n') {
+                            m_state = AFTER_COMMENT;
+                        }
+                        i++;
+                        break;
+                    case AFTER_COMMENT:
+                        // the tokenizer swallows the LFs after a comment if no token was started before
+                        if (b == '\n') {
+                            i++;
+                        } else if (b == '\r') {
+                            m_state = AFTER_COMMENT_CR;
+                            i++;
+                        } else {
+                            m_state = NORMAL;
+                        }
+                        break;
+                    case AFTER_COMMENT_CR:
+                        if (b == '\n') {
+                            m_state = AFTER_COMMENT;
+                            i++;
+                        } else {
+                            m_state = NORMAL;
+                        }
+                        break;
+                    default: // NORMAL
+                        if (b == '\n') {
+                            m_state = AFTER_LF;
+                            i++;
+                            break;
+                        }
+                        if (m_commentStart[b]) {
+                            final int length = matchComment(buf, i, to, eof);
+                            if (length < 0) {
+                                return i;
+                            } else if (length > 0) {
+                                m_state = COMMENT;
+                                i += length;
+                                break;
+                            }
+                        }
+                        if (b != '\r') {
+                            m_dataSeen = true;
+                        }
+                        if (m_quoteIndex[b] >= 0) {
+                            m_quote = m_quoteIndex[b];
+                            m_state = QUOTED;
+                        }
+                        i++;
+                        break;
+                }
+            }
+            return i;
+        }
+
+        /*
+         * Returns the length of the comment begin pattern at buf[from], 0 if there is none, and -1 if more bytes are
+         * needed to decide. Like the tokenizer it matches the shortest pattern, of equally long patterns the first.
+         */
+        private int matchComment(final byte[] buf, final int from, final int to, final boolean eof) {
+            int result = 0;
+            boolean needMore = false;
+            for (byte[] begin : m_commentBegins) {
+                if (result > 0 && begin.length >= result) {
+                    continue;
+                }
+                int j = 0;
+                while (j < begin.length && from + j < to && buf[from + j] == begin[j]) {
+                    j++;
+                }
+                if (j == begin.length) {
+                    result = begin.length;
+                } else if (from + j == to && !eof) {
+                    needMore = true;
+                }
+            }
+            return result == 0 && needMore ? -1 : result;
+        }
+
+        private void setBoundary(final int index) {
+            // the first chunk must contain the entire column header line
+            if (!m_hasColumnHeader || m_dataSeen) {
+                m_boundary = index;
+            }
+        }
+
+        /** @return the index of the last record boundary found, -1 if there is none */
+        int getBoundary() {
+            return m_boundary;
+        }
+
+        /** Forgets the last record boundary (after the bytes before it have been removed from the buffer). */
+        void clearBoundary() {
+            m_boundary = -1;
+        }
+    }
+}
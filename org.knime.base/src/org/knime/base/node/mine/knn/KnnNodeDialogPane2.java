@@ -82,6 +82,8 @@ public class KnnNodeDialogPane2 extends NodeDialogPane {
 
     private final JCheckBox m_classProbabilities = new JCheckBox();
 
+    private final JCheckBox m_useBallTree = new JCheckBox();
+
     private KnnSettings2 m_settings = new KnnSettings2();
 
     /**
@@ -118,6 +120,12 @@ public KnnNodeDialogPane2() {
         c.gridx = 1;
         p.add(m_classProbabilities, c);
 
+        c.gridy++;
+        c.gridx = 0;
+        p.add(new JLabel("Use ball tree (for high-dimensional data)   "), c);
+        c.gridx = 1;
+        p.add(m_useBallTree, c);
+
         addTab("Standard settings", p);
     }
 
@@ -137,6 +145,7 @@ protected void loadSettingsFrom(final NodeSettingsRO settings,
         m_k.setValue(m_settings.k());
         m_weightByDistance.setSelected(m_settings.weightByDistance());
         m_classProbabilities.setSelected(m_settings.outputClassProbabilities());
+        m_useBallTree.setSelected(m_settings.useBallTree());
     }
 
     /**
@@ -149,6 +158,7 @@ protected void saveSettingsTo(final NodeSettingsWO settings)
         m_settings.k(((Number)m_k.getValue()).intValue());
         m_settings.weightByDistance(m_weightByDistance.isSelected());
         m_settings.outputClassProbabilities(m_classProbabilities.isSelected());
+        m_settings.useBallTree(m_useBallTree.isSelected());
         m_settings.saveSettings(settings);
     }
 }
@@ -54,9 +54,10 @@
 import java.util.List;
 import java.util.Map;
 
-import org.knime.base.util.kdtree.KDTree;
-import org.knime.base.util.kdtree.KDTreeBuilder;
 import org.knime.base.util.kdtree.NearestNeighbour;
+import org.knime.base.util.kdtree.SpatialIndex;
+import org.knime.base.util.kdtree.SpatialIndexBuilder;
+import org.knime.base.util.kdtree.SpatialIndexBuilder.IndexType;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
@@ -283,7 +284,7 @@ private ColumnRearranger createRearranger(final BufferedDataTable trainData, fin
         Map<Integer, Integer> firstToSecond = new HashMap<Integer, Integer>();
         checkInputTables(new DataTableSpec[]{trainData.getDataTableSpec(), inSpec2}, featureColumns, firstToSecond);
 
-        KDTreeBuilder<DataCell> treeBuilder = new KDTreeBuilder<DataCell>(featureColumns.size());
+        SpatialIndexBuilder<DataCell> treeBuilder = new SpatialIndexBuilder<DataCell>(featureColumns.size());
         int count = 0;
         for (DataRow currentRow : trainData) {
             exec.checkCanceled();
@@ -310,8 +311,9 @@ private ColumnRearranger createRearranger(final BufferedDataTable trainData, fin
         // and now use it to classify the test data...
         DataColumnSpec classColumnSpec = trainData.getDataTableSpec().getColumnSpec(classColIndex);
 
-        exec.setMessage("Building kd-tree");
-        KDTree<DataCell> tree = treeBuilder.buildTree(exec.createSubProgress(0.3));
+        final IndexType indexType = m_settings.useBallTree() ? IndexType.BALL_TREE : IndexType.KD_TREE;
+        exec.setMessage(m_settings.useBallTree() ? "Building ball tree" : "Building kd-tree");
+        SpatialIndex<DataCell> tree = treeBuilder.build(indexType, exec.createSubProgress(0.3));
 
         if (tree.size() < m_settings.k()) {
             setWarningMessage("There are only " + tree.size() + " patterns in the input table, but " + m_settings.k()
@@ -386,7 +388,7 @@ private ColumnRearranger createRearranger(final DataTableSpec in,
             final DataColumnSpec classColumnSpec,
             final List<Integer> featureColumns,
             final Map<Integer, Integer> firstToSecond,
-            final KDTree<DataCell> tree, final double maxRows) {
+            final SpatialIndex<DataCell> tree, final double maxRows) {
         ColumnRearranger c = new ColumnRearranger(in);
         String newName = "Class [kNN]";
         while (in.containsName(newName)) {
@@ -425,7 +427,8 @@ public int compare(final DataCell o1, final DataCell o2) {
 
         final DataColumnSpec[] colSpecArray =
                 colSpecs.toArray(new DataColumnSpec[colSpecs.size()]);
-        c.append(new AbstractCellFactory(colSpecArray) {
+        // the index may be queried concurrently, hence the rows are classified in parallel
+        c.append(new AbstractCellFactory(true, colSpecArray) {
 
             /** {@inheritDoc} */
             @Override
@@ -453,7 +456,7 @@ public DataCell[] getCells(final DataRow row) {
     // returns a list where the first value if the winner class, and the
     // following values are the class probabilities (if enabled)
     private List<DataCell> classify(final DataRow row,
-            final KDTree<DataCell> tree, final List<Integer> featureColumns,
+            final SpatialIndex<DataCell> tree, final List<Integer> featureColumns,
             final Map<Integer, Integer> firstToSecond,
             final DataCell[] allClassValues) {
         double[] features =
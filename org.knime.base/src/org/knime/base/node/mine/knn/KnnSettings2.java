@@ -63,6 +63,29 @@ public class KnnSettings2 {
 
     private boolean m_classProbabilities;
 
+    private boolean m_useBallTree;
+
+    /**
+     * Sets if a ball tree instead of a k-d tree should be used for searching the nearest neighbours. Ball trees are
+     * usually faster for data with many dimensions.
+     *
+     * @param b <code>true</code> if a ball tree should be used, <code>false</code> if a k-d tree should be used
+     * @since 3.7
+     */
+    public void useBallTree(final boolean b) {
+        m_useBallTree = b;
+    }
+
+    /**
+     * Returns if a ball tree instead of a k-d tree should be used for searching the nearest neighbours.
+     *
+     * @return <code>true</code> if a ball tree should be used, <code>false</code> if a k-d tree should be used
+     * @since 3.7
+     */
+    public boolean useBallTree() {
+        return m_useBallTree;
+    }
+
     /**
      * Set if an additional column containing class probabilities should be
      * appended to the output table.
@@ -156,6 +179,7 @@ public void saveSettings(final NodeSettingsWO settings) {
         settings.addInt("k", m_k);
         settings.addBoolean("weightByDistance", m_weightByDistance);
         settings.addBoolean("outputClassProbabilities", m_classProbabilities);
+        settings.addBoolean("useBallTree", m_useBallTree);
     }
 
     /**
@@ -173,5 +197,8 @@ public void loadSettings(final NodeSettingsRO settings)
         /* since 2.6 */
         m_classProbabilities = settings.getBoolean("outputClassProbabilities",
                 false);
+
+        /* since 3.7 */
+        m_useBallTree = settings.getBoolean("useBallTree", false);
     }
 }
@@ -45,14 +45,20 @@
  */
 package org.knime.base.node.mine.smote;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Random;
 
+import org.knime.base.util.kdtree.NearestNeighbour;
+import org.knime.base.util.kdtree.SpatialIndex;
+import org.knime.base.util.kdtree.SpatialIndexBuilder;
+import org.knime.base.util.kdtree.SpatialIndexBuilder.IndexType;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
@@ -61,7 +67,6 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
-import org.knime.core.data.RowIterator;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.append.AppendedRowsTable;
 import org.knime.core.data.def.DefaultRow;
@@ -224,29 +229,105 @@ public void smote(final DataCell name, final int count, final int kNN,
         System.arraycopy(shuffleMe, 0, indexesToUse, fixedPart.length, lucky);
         Arrays.sort(indexesToUse);
 
-        // the counter in the input table for this particular class value
-        int classCounter = -1;
+        final List<DataRow> classRows = new ArrayList<DataRow>(origCount);
+        for (DataRow row : m_inTable) {
+            checkCanceled(exec);
+            if (row.getCell(m_targetCol).equals(name)) {
+                classRows.add(row);
+            }
+        }
+        final DataRow[][] allNeighbors =
+            determineNeighbors(classRows, indexesToUse, kNN, exec);
+
         int pointer = 0;
-        RowIterator it = m_inTable.iterator();
         while (pointer < indexesToUse.length) {
             checkCanceled(exec);
-            assert it.hasNext();
-            DataRow next = it.next();
-            if (!next.getCell(m_targetCol).equals(name)) {
-                continue;
+            final int classCounter = indexesToUse[pointer];
+            DataRow next = classRows.get(classCounter);
+            DataRow[] neighbors = allNeighbors != null
+                ? allNeighbors[classCounter] : determineNeighbors(next, kNN, exec);
+            while (pointer < indexesToUse.length
+                    && indexesToUse[pointer] == classCounter) {
+                DataRow newRow = populate(next, neighbors);
+                m_container.addRowToTable(newRow);
+                pointer++;
+                exec.setProgress(pointer / (double)count);
+            }
+        }
+    }
+
+    /*
+     * Determines the k NN of all rows of a class that are used as reference
+     * by querying a spatial index with all rows of the class. Returns null if
+     * any of the rows contains missing values as these are ignored by the
+     * distance function, which the index can't do. @param classRows All rows
+     * of the class @param indexesToUse The indices of the reference rows
+     * @param kNN Number NN @return The nearest neighbors of each reference row
+     */
+    private DataRow[][] determineNeighbors(final List<DataRow> classRows,
+            final int[] indexesToUse, final int kNN,
+            final ExecutionMonitor exec) throws CanceledExecutionException {
+        final DataTableSpec spec = m_inTable.getDataTableSpec();
+        final List<Integer> doubleCols = new ArrayList<Integer>();
+        for (int i = 0; i < spec.getNumColumns(); i++) {
+            if (spec.getColumnSpec(i).getType().isCompatible(
+                    DoubleValue.class)) {
+                doubleCols.add(i);
+            }
+        }
+        final SpatialIndexBuilder<Integer> builder =
+            new SpatialIndexBuilder<Integer>(doubleCols.size());
+        final double[][] patterns = new double[classRows.size()][];
+        for (int r = 0; r < patterns.length; r++) {
+            final double[] pattern = new double[doubleCols.size()];
+            for (int i = 0; i < pattern.length; i++) {
+                DataCell cell = classRows.get(r).getCell(doubleCols.get(i));
+                if (cell.isMissing()) {
+                    return null;
+                }
+                pattern[i] = ((DoubleValue)cell).getDoubleValue();
+                if (Double.isNaN(pattern[i])) {
+                    return null;
+                }
             }
-            classCounter++;
-            if (indexesToUse[pointer] == classCounter) {
-                DataRow[] neighbors = determineNeighbors(next, kNN, exec);
-                while (pointer < indexesToUse.length
-                        && indexesToUse[pointer] == classCounter) {
-                    DataRow newRow = populate(next, neighbors);
-                    m_container.addRowToTable(newRow);
-                    pointer++;
-                    exec.setProgress(pointer / (double)count);
+            patterns[r] = pattern;
+            builder.addPattern(pattern, r);
+        }
+
+        // only the reference rows need to be queried
+        final double[][] queries = new double[patterns.length][];
+        for (int r : indexesToUse) {
+            queries[r] = patterns[r];
+        }
+        final ExecutionMonitor subExec =
+            exec == null ? null : exec.createSubProgress(0.0);
+        final DataRow[][] neighbors = new DataRow[patterns.length][];
+        try {
+            final SpatialIndex<Integer> index =
+                builder.build(IndexType.KD_TREE, subExec);
+            // the row itself is among the nearest neighbors and removed below
+            final List<List<NearestNeighbour<Integer>>> nearest =
+                index.getKNearestNeighbours(queries,
+                        Math.min(kNN + 1, index.size()), subExec);
+            for (int r = 0; r < patterns.length; r++) {
+                if (nearest.get(r) == null) {
+                    continue;
+                }
+                final List<DataRow> rows = new ArrayList<DataRow>();
+                for (NearestNeighbour<Integer> n : nearest.get(r)) {
+                    if (n.getData().intValue() != r) {
+                        rows.add(classRows.get(n.getData()));
+                    }
                 }
+                neighbors[r] = rows.toArray(new DataRow[rows.size()]);
             }
+        } catch (CanceledExecutionException cee) {
+            if (m_container.isOpen()) {
+                m_container.close();
+            }
+            throw cee;
         }
+        return neighbors;
     }
 
     /*
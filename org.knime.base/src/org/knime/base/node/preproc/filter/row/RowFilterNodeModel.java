@@ -49,6 +49,7 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.BitSet;
 
 import org.knime.base.node.preproc.filter.row.rowfilter.EndOfTableException;
 import org.knime.base.node.preproc.filter.row.rowfilter.IRowFilter;
@@ -57,6 +58,7 @@
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
@@ -212,12 +214,43 @@ private void execute(final RowInput inData, final RowOutput output,
     @Override
     protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
             final ExecutionContext exec) throws Exception {
-        DataTable in = inData[0];
+        BufferedDataTable in = inData[0];
         // in case the node was configured and the workflow is closed
         // (and saved), the row filter isn't configured upon reloading.
         // here, we give it a chance to configure itself (e.g. find the column
         // index)
         m_rowFilter.configure(in.getDataTableSpec());
+        if (in.size() > Integer.MAX_VALUE) {
+            // selections are limited to int indices, copy matching rows instead
+            return new BufferedDataTable[]{copyMatchingRows(in, exec)};
+        }
+        // the output only references the input and the selected rows, no data is copied
+        exec.setMessage("Searching matching rows...");
+        final int rowCount = (int)in.size();
+        BitSet selection = new BitSet(rowCount);
+        try (CloseableRowIterator it = in.iterator()) {
+            for (int index = 0; it.hasNext(); index++) {
+                DataRow row = it.next();
+                exec.checkCanceled();
+                exec.setProgress(index / (double)rowCount);
+                try {
+                    if (m_rowFilter.matches(row, index)) {
+                        selection.set(index);
+                    }
+                } catch (EndOfTableException eot) {
+                    break;
+                } catch (IncludeFromNowOn ifn) {
+                    selection.set(index, rowCount);
+                    break;
+                }
+            }
+        }
+        return new BufferedDataTable[]{exec.createRowSelectionTable(in, selection)};
+    }
+
+    /** Copies the matching rows into a new table, used for tables whose rows can't be addressed by int indices. */
+    private BufferedDataTable copyMatchingRows(final DataTable in, final ExecutionContext exec)
+        throws CanceledExecutionException {
         BufferedDataContainer container =
             exec.createDataContainer(in.getDataTableSpec());
         exec.setMessage("Searching first matching row...");
@@ -236,7 +269,7 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         } finally {
             container.close();
         }
-        return new BufferedDataTable[]{container.getTable()};
+        return container.getTable();
     }
 
     /** {@inheritDoc} */
@@ -126,6 +126,9 @@ public class GroupByNodeDialog extends NodeDialogPane {
 
     private final SettingsModelBoolean m_inMemory = new SettingsModelBoolean(GroupByNodeModel.CFG_IN_MEMORY, false);
 
+    private final SettingsModelBoolean m_hashAggregation =
+        new SettingsModelBoolean(GroupByNodeModel.CFG_HASH_AGGREGATION, false);
+
     private final SettingsModelString m_columnNamePolicy =
         new SettingsModelString(GroupByNodeModel.CFG_COLUMN_NAME_POLICY, ColumnNamePolicy.getDefault().getLabel());
 
@@ -274,6 +277,7 @@ protected void inMemoryChanged() {
         final boolean inMem = m_inMemory.getBooleanValue();
         m_retainOrder.setBooleanValue(inMem);
         m_retainOrder.setEnabled(!inMem);
+        m_hashAggregation.setEnabled(!inMem);
     }
 
     /**
@@ -301,6 +305,8 @@ protected JComponent createAdvancedOptionsBox() {
         rootPanel.add(createInMemoryDialog().getComponentPanel(), c);
         c.gridx++;
         rootPanel.add(createRetainOrderDialog().getComponentPanel(), c);
+        c.gridx++;
+        rootPanel.add(createHashAggregationDialog().getComponentPanel(), c);
 
         c.gridy++;
         c.gridx = 0;
@@ -375,6 +381,32 @@ protected final DialogComponentBoolean createInMemoryDialog(final String label,
         return diaComp;
     }
 
+    /**
+     * Creates the hash aggregation dialog with default label and tooltip.
+     *
+     * @return the hash aggregation dialog
+     * @since 3.7
+     */
+    protected final DialogComponentBoolean createHashAggregationDialog() {
+        return createHashAggregationDialog("Aggregate by hashing",
+            "Aggregates the groups in parallel without sorting the input table.");
+    }
+
+    /**
+     * Creates the hash aggregation dialog with the given label and tooltip.
+     *
+     * @param label the label
+     * @param toolTip the tooltip which can be null
+     *
+     * @return the hash aggregation dialog
+     * @since 3.7
+     */
+    protected final DialogComponentBoolean createHashAggregationDialog(final String label, final String toolTip) {
+        final DialogComponentBoolean diaComp = new DialogComponentBoolean(m_hashAggregation, label);
+        setToolTipText(diaComp, toolTip);
+        return diaComp;
+    }
+
     /**
      * Creates the value delimiter dialog with default label and tooltip.
      *
@@ -547,6 +579,12 @@ protected void loadSettingsFrom(final NodeSettingsRO settings, final PortObjectS
         } catch (final InvalidSettingsException e) {
             m_inMemory.setBooleanValue(false);
         }
+        try {
+            //this option was introduced in KNIME 3.7
+            m_hashAggregation.loadSettingsFrom(settings);
+        } catch (final InvalidSettingsException e) {
+            m_hashAggregation.setBooleanValue(false);
+        }
         // this option was introduced in Knime 2.4+
         try {
             m_valueDelimiter.loadSettingsFrom(settings);
@@ -580,6 +618,7 @@ protected void saveSettingsTo(final NodeSettingsWO settings) throws InvalidSetti
         m_dataTypeAggrPanel.saveSettingsTo(settings);
         m_retainOrder.saveSettingsTo(settings);
         m_inMemory.saveSettingsTo(settings);
+        m_hashAggregation.saveSettingsTo(settings);
 
         m_version.saveSettingsTo(settings);
     }
@@ -0,0 +1,413 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.groupby;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * A data table that groups a given input table by hashing the group values instead of sorting the input table.
+ *
+ * <p>
+ * The rows are assigned to a fixed number of hash partitions, each partition is aggregated by its own thread into a
+ * partition local map. Since all rows of a group end up in the same partition no partial results need to be merged.
+ * If the {@link MemoryAlertSystem} reports a low memory condition, rows of groups that are not yet in memory are
+ * written to a temporary table per partition while the groups in memory are still updated. The temporary tables are
+ * aggregated once the input table has been processed, using a different hash function for each level of recursion.
+ *
+ * <p>
+ * The groups are returned partition by partition in the order of their first occurrence within the partition. Set
+ * the retain order flag to obtain the groups in the order of their first occurrence in the input table.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public class HashGroupByTable extends GroupByTable {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(HashGroupByTable.class);
+
+    /** Number of rows per partition that are handed to the partition thread at once. */
+    private static final int BATCH_SIZE = 1024;
+
+    /**
+     * Minimum number of groups that need to be held in memory before rows are written to the temporary tables. Ensures
+     * that each pass over a temporary table makes progress even if the memory is already low when the pass starts.
+     */
+    private static final int MIN_GROUPS_BEFORE_SPILL = 1000;
+
+    /**Constructor for class HashGroupByTable.
+     * @param exec the <code>ExecutionContext</code>
+     * @param inDataTable the table to aggregate
+     * @param groupByCols the name of all columns to group by
+     * @param colAggregators the aggregation columns with the aggregation method
+     * to use in the order the columns should be appear in the result table
+     * numerical columns
+     * @param globalSettings the global settings
+     * @param enableHilite <code>true</code> if a row key map should be
+     * maintained to enable hiliting
+     * @param colNamePolicy the {@link ColumnNamePolicy} for the
+     * aggregation columns
+     * @param retainOrder returns the row of the table in the same order as the
+     * input table if set to <code>true</code>
+     * @throws CanceledExecutionException if the user has canceled the execution
+     */
+    public HashGroupByTable(final ExecutionContext exec, final BufferedDataTable inDataTable,
+        final List<String> groupByCols, final ColumnAggregator[] colAggregators, final GlobalSettings globalSettings,
+        final boolean enableHilite, final ColumnNamePolicy colNamePolicy, final boolean retainOrder)
+        throws CanceledExecutionException {
+        super(exec, inDataTable, groupByCols, colAggregators, globalSettings, enableHilite, colNamePolicy,
+            retainOrder);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected BufferedDataTable createGroupByTable(final ExecutionContext exec, final BufferedDataTable dataTable,
+        final DataTableSpec resultSpec, final int[] groupColIdx) throws CanceledExecutionException {
+        final BufferedDataContainer dc = exec.createDataContainer(resultSpec);
+        final HashAggregation aggregation = new HashAggregation(dataTable.getDataTableSpec(), groupColIdx, dc);
+        aggregation.aggregate(exec, dataTable, 0);
+        dc.close();
+        return dc.getTable();
+    }
+
+    /**
+     * Creates the indicator that decides whether rows of new groups are written to temporary tables, called once per
+     * pass over a table (for tests). Note that it is called from the super constructor, i.e. before the fields of
+     * subclasses are initialized.
+     *
+     * @return a new indicator of the memory alert system
+     */
+    MemoryActionIndicator newMemoryIndicator() {
+        return MemoryAlertSystem.getInstance().newIndicator();
+    }
+
+    /** Holds the state of one aggregation, i.e. the result container and the number of groups written so far. */
+    private final class HashAggregation {
+
+        private final int[] m_groupColIdx;
+
+        /** Index of the input column of each aggregator. */
+        private final int[] m_aggrColIdx;
+
+        private final BufferedDataContainer m_resultContainer;
+
+        /** Runs the partition threads, shares the threads of the global pool. */
+        private final ThreadPool m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool();
+
+        private final int m_nrPartitions = m_pool.getMaxThreads();
+
+        private long m_groupCounter;
+
+        HashAggregation(final DataTableSpec spec, final int[] groupColIdx,
+            final BufferedDataContainer resultContainer) {
+            m_groupColIdx = groupColIdx;
+            m_resultContainer = resultContainer;
+            final ColumnAggregator[] aggregators = getColAggregators();
+            m_aggrColIdx = new int[aggregators.length];
+            for (int i = 0; i < aggregators.length; i++) {
+                m_aggrColIdx[i] = spec.findColumnIndex(aggregators[i].getOriginalColName());
+            }
+        }
+
+        /**
+         * Aggregates the given table and recursively all rows that have been written to temporary tables.
+         *
+         * @param exec the execution context
+         * @param table the table to aggregate
+         * @param level the recursion level, used to vary the hash function
+         */
+        void aggregate(final ExecutionContext exec, final BufferedDataTable table, final int level)
+            throws CanceledExecutionException {
+            final Partition[] partitions = new Partition[m_nrPartitions];
+            for (int i = 0; i < partitions.length; i++) {
+                partitions[i] = new Partition();
+            }
+            final ExecutionContext groupExec = exec.createSubExecutionContext(level == 0 ? 0.7 : 0.5);
+            final LongAdder groupCount = new LongAdder();
+            final MemoryActionIndicator memIndicator = newMemoryIndicator();
+            final DataTableSpec spec = table.getDataTableSpec();
+            final long rowCount = table.size();
+            long rowCounter = 0;
+            boolean spill = false;
+            try {
+                for (final DataRow row : table) {
+                    groupExec.checkCanceled();
+                    groupExec.setProgress(rowCounter++ / (double)rowCount,
+                        "Analyzing row " + rowCounter + " of " + rowCount);
+                    final DataCell[] currentGroup = new DataCell[m_groupColIdx.length];
+                    for (int i = 0, length = m_groupColIdx.length; i < length; i++) {
+                        currentGroup[i] = row.getCell(m_groupColIdx[i]);
+                    }
+                    final GroupKey groupKey = new GroupKey(currentGroup);
+                    final Partition partition = partitions[getPartition(groupKey, level)];
+                    partition.m_keys.add(groupKey);
+                    partition.m_rows.add(row);
+                    if (partition.m_rows.size() >= BATCH_SIZE) {
+                        if (!spill && memIndicator.lowMemoryActionRequired()) {
+                            if (groupCount.sum() >= MIN_GROUPS_BEFORE_SPILL) {
+                                spill = true;
+                                LOGGER.debug("Low memory, writing rows of new groups to temporary tables (level "
+                                    + level + ", " + groupCount.sum() + " groups in memory)");
+                                for (final Partition p : partitions) {
+                                    p.m_spillContainer = exec.createDataContainer(spec);
+                                }
+                            }
+                        }
+                        partition.submitBatch(groupCount);
+                    }
+                }
+                for (final Partition partition : partitions) {
+                    partition.submitBatch(groupCount);
+                }
+                for (final Partition partition : partitions) {
+                    partition.awaitBatch();
+                }
+            } catch (final CanceledExecutionException | RuntimeException e) {
+                for (final Partition partition : partitions) {
+                    partition.cancelBatch();
+                }
+                throw e;
+            }
+            writeGroups(exec.createSubExecutionContext(level == 0 ? 0.3 : 0.5), partitions, groupCount.intValue());
+            if (spill) {
+                for (int i = 0; i < partitions.length; i++) {
+                    final BufferedDataContainer spillContainer = partitions[i].m_spillContainer;
+                    spillContainer.close();
+                    final BufferedDataTable spillTable = spillContainer.getTable();
+                    if (spillTable.size() > 0) {
+                        exec.setMessage("Aggregating temporary table " + (i + 1) + " of " + m_nrPartitions
+                            + " (level " + (level + 1) + ")");
+                        aggregate(exec.createSubExecutionContext(0), spillTable, level + 1);
+                    }
+                    exec.clearTable(spillTable);
+                }
+            }
+        }
+
+        /** Writes the groups of all partitions to the result container and releases them. */
+        private void writeGroups(final ExecutionContext exec, final Partition[] partitions, final int size)
+            throws CanceledExecutionException {
+            final ColumnAggregator[] origAggregators = getColAggregators();
+            int writtenGroups = 0;
+            for (final Partition partition : partitions) {
+                for (final Entry<GroupKey, GroupState> entry : partition.m_groups.entrySet()) {
+                    exec.checkCanceled();
+                    exec.setProgress(writtenGroups++ / (double)size,
+                        "Writing group " + writtenGroups + " of " + size);
+                    final GroupKey groupVals = entry.getKey();
+                    final GroupState state = entry.getValue();
+                    final RowKey rowKey = RowKey.createRowKey(m_groupCounter++);
+                    final DataCell[] rowVals = new DataCell[groupVals.size() + state.m_operators.length];
+                    //add the group values first
+                    int valIdx = 0;
+                    for (final DataCell groupCell : groupVals.getGroupVals()) {
+                        rowVals[valIdx++] = groupCell;
+                    }
+                    //add the aggregation values
+                    for (int i = 0; i < state.m_operators.length; i++) {
+                        final AggregationOperator operator = state.m_operators[i];
+                        rowVals[valIdx++] = operator.getResult();
+                        if (operator.isSkipped()) {
+                            addSkippedGroup(origAggregators[i].getOriginalColName(), operator.getSkipMessage(),
+                                groupVals.getGroupVals());
+                        }
+                    }
+                    m_resultContainer.addRowToTable(new DefaultRow(rowKey, rowVals));
+                    if (isEnableHilite()) {
+                        addHiliteMapping(rowKey, state.m_rowKeys);
+                    }
+                }
+                partition.m_groups.clear();
+            }
+        }
+
+        /**
+         * @param groupKey the group
+         * @param level the recursion level
+         * @return the partition of the group, the groups of a temporary table are spread over all partitions of the
+         *         next level
+         */
+        private int getPartition(final GroupKey groupKey, final int level) {
+            // murmur3 finalizer, seeded by the level
+            int h = groupKey.hashCode() + level * 0x9E3779B9;
+            h ^= h >>> 16;
+            h *= 0x85EBCA6B;
+            h ^= h >>> 13;
+            h *= 0xC2B2AE35;
+            h ^= h >>> 16;
+            return Math.floorMod(h, m_nrPartitions);
+        }
+
+        /** The groups of one hash partition. Only accessed by one thread at a time. */
+        private final class Partition {
+
+            private final Map<GroupKey, GroupState> m_groups = new LinkedHashMap<>();
+
+            private List<GroupKey> m_keys = new ArrayList<>(BATCH_SIZE);
+
+            private List<DataRow> m_rows = new ArrayList<>(BATCH_SIZE);
+
+            /** Container for rows of groups that are not in memory, <code>null</code> if not spilling. */
+            private BufferedDataContainer m_spillContainer;
+
+            private Future<Void> m_pendingBatch;
+
+            /** Hands the collected rows to the pool, waits for the previous batch of this partition first. */
+            void submitBatch(final LongAdder groupCount) throws CanceledExecutionException {
+                awaitBatch();
+                if (m_rows.isEmpty()) {
+                    return;
+                }
+                final List<GroupKey> keys = m_keys;
+                final List<DataRow> rows = m_rows;
+                final BufferedDataContainer spillContainer = m_spillContainer;
+                m_keys = new ArrayList<>(BATCH_SIZE);
+                m_rows = new ArrayList<>(BATCH_SIZE);
+                m_pendingBatch = m_pool.enqueue(() -> {
+                    aggregateBatch(keys, rows, spillContainer, groupCount);
+                    return null;
+                });
+            }
+
+            private void aggregateBatch(final List<GroupKey> keys, final List<DataRow> rows,
+                final BufferedDataContainer spillContainer, final LongAdder groupCount) {
+                for (int r = 0, size = rows.size(); r < size; r++) {
+                    final GroupKey groupKey = keys.get(r);
+                    final DataRow row = rows.get(r);
+                    GroupState state = m_groups.get(groupKey);
+                    if (state == null) {
+                        if (spillContainer != null) {
+                            spillContainer.addRowToTable(row);
+                            continue;
+                        }
+                        state = new GroupState();
+                        m_groups.put(groupKey, state);
+                        groupCount.increment();
+                    }
+                    for (int i = 0; i < state.m_operators.length; i++) {
+                        state.m_operators[i].compute(row, m_aggrColIdx[i]);
+                    }
+                    if (state.m_rowKeys != null) {
+                        state.m_rowKeys.add(row.getKey());
+                    }
+                }
+            }
+
+            void awaitBatch() throws CanceledExecutionException {
+                if (m_pendingBatch == null) {
+                    return;
+                }
+                try {
+                    m_pendingBatch.get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CanceledExecutionException("Interrupted while waiting for aggregation thread");
+                } catch (final ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException)cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error)cause;
+                    }
+                    throw new RuntimeException(cause.getMessage(), cause);
+                } finally {
+                    m_pendingBatch = null;
+                }
+            }
+
+            void cancelBatch() {
+                if (m_pendingBatch != null) {
+                    m_pendingBatch.cancel(true);
+                    m_pendingBatch = null;
+                }
+            }
+        }
+    }
+
+    /** The aggregation operators and the row keys of one group. */
+    private final class GroupState {
+
+        private final AggregationOperator[] m_operators;
+
+        private final Set<RowKey> m_rowKeys;
+
+        GroupState() {
+            final ColumnAggregator[] origAggregators = getColAggregators();
+            m_operators = new AggregationOperator[origAggregators.length];
+            for (int i = 0; i < origAggregators.length; i++) {
+                m_operators[i] = origAggregators[i].clone().getOperator(getGlobalSettings());
+            }
+            m_rowKeys = isEnableHilite() ? new HashSet<>() : null;
+        }
+    }
+}
@@ -82,6 +82,17 @@ final class JoinContainer {
     }
 
 
+    /**
+     * Containers are created lazily by the join threads, the execution
+     * context is not thread-safe.
+     */
+    private BufferedDataContainer createDataContainer(
+            final ExecutionContext exec) {
+        synchronized (exec) {
+            return exec.createDataContainer(m_spec);
+        }
+    }
+
     /**
      * @return the rowCount
      */
@@ -98,7 +109,7 @@ long getRowCount() {
     void addMatch(final DataRow row,
             final ExecutionContext exec) {
         if (null == m_matches) {
-            m_matches = exec.createDataContainer(m_spec);
+            m_matches = createDataContainer(exec);
         }
         m_matches.addRowToTable(row);
         m_rowCount++;
@@ -115,7 +126,7 @@ void addMatch(final DataRow row,
     void addRightOuter(final DataRow row,
             final ExecutionContext exec) {
         if (null == m_rightOuter) {
-            m_rightOuter = exec.createDataContainer(m_spec);
+            m_rightOuter = createDataContainer(exec);
         }
         m_rightOuter.addRowToTable(row);
 
@@ -133,7 +144,7 @@ void addRightOuter(final DataRow row,
     void addLeftOuter(final DataRow row,
             final ExecutionContext exec) {
         if (null == m_leftOuter) {
-            m_leftOuter = exec.createDataContainer(m_spec);
+            m_leftOuter = createDataContainer(exec);
         }
         m_leftOuter.addRowToTable(row);
 
@@ -175,4 +186,24 @@ public void close() {
             m_leftOuter.close();
         }
     }
+
+    /**
+     * Discards all rows added so far, the container can be filled again
+     * afterwards.
+     *
+     * @param exec The execution context the rows were added with.
+     */
+    void clear(final ExecutionContext exec) {
+        close();
+        for (BufferedDataTable table : new BufferedDataTable[] {getMatches(),
+                getRightOuter(), getLeftOuter()}) {
+            if (null != table) {
+                exec.clearTable(table);
+            }
+        }
+        m_matches = null;
+        m_rightOuter = null;
+        m_leftOuter = null;
+        m_rowCount = 0;
+    }
 }
@@ -69,6 +69,13 @@ public JoinTuple(final DataCell[] cells) {
         m_cells = cells;
     }
 
+    /**
+     * @return The cells which are used to test for a match.
+     */
+    DataCell[] getCells() {
+        return m_cells;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -49,40 +49,60 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.knime.base.data.sort.SortedTable;
+import org.knime.base.node.preproc.joiner.InputRow.Settings.InDataPort;
+import org.knime.base.node.preproc.joiner.InputRow.WildCardCell;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.CompositionMode;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.DuplicateHandling;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.JoinMode;
+import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
+import org.knime.core.data.DataValueComparator;
 import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
 import org.knime.core.data.RowKey;
+import org.knime.core.data.append.AppendedColumnRow;
 import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.container.SingleCellFactory;
+import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.data.sort.BufferedDataTableSorter;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
 import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.util.ConvenienceMethods;
+import org.knime.core.util.ThreadPool;
 import org.knime.core.util.UniqueNameGenerator;
 
 /**
@@ -145,6 +165,29 @@ public final class Joiner {
     /** Only used for testcases, simulates an out-of-memory event after that many rows added in memory. */
     private int m_rowsAddedBeforeForcedOOM;
 
+    /** Number of join tuples or rows handed to a worker at once. */
+    private static final int BATCH_SIZE = 1024;
+
+    /** The workers building the partitions and joining the right rows,
+     * only set while the join is computed. */
+    private Worker[] m_workers;
+
+    /** Row index of the next intermediate output row. */
+    private AtomicLong m_outputRowIndex;
+
+    /** The spec of the spilled join tuples of the left table. */
+    private DataTableSpec m_leftSpillSpec;
+    /** The spec of the spilled rows of the right table. */
+    private DataTableSpec m_rightSpillSpec;
+
+    /** Runs the batches of the workers, shares the threads of the global
+     * pool; only set while the join is computed. */
+    private ThreadPool m_pool;
+
+    /** The number of workers, 0 for the maximum number of threads of the
+     * global pool (changed in testing routines). */
+    private int m_parallelism;
+
     /**
      * Creates a new instance.
      *
@@ -506,7 +549,8 @@ public BufferedDataTable computeJoinTable(
             && m_settings.getLeftJoinColumns().length > 1;
 
         if (m_retainLeft && m_matchAny) {
-            m_globalLeftOuterJoins = new HashSet<Integer>();
+            // rows are removed concurrently while probing
+            m_globalLeftOuterJoins = ConcurrentHashMap.newKeySet();
             for (int i = 0; i < leftTable.getRowCount(); i++) {
                 m_globalLeftOuterJoins.add(i);
             }
@@ -519,6 +563,8 @@ public BufferedDataTable computeJoinTable(
         m_outputDataRowSettings = new OutputRow.Settings(
                 rightTable.getDataTableSpec(),
                 rightSurvivors);
+        m_leftSpillSpec = createLeftSpillSpec(leftTable);
+        m_rightSpillSpec = createRightSpillSpec(rightTable);
 
         /* numBits -> numPartitions
          * 0 -> 1
@@ -542,52 +588,114 @@ public BufferedDataTable computeJoinTable(
             pendingParts.add(i);
         }
 
-
-        JoinContainer joinCont = new JoinContainer(
-                m_outputDataRowSettings);
+        // every worker writes its joined rows to its own container, the row
+        // IDs of these intermediate rows are unique over all containers
+        m_outputRowIndex = new AtomicLong();
+        m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool();
+        m_workers = new Worker[m_parallelism > 0 ? m_parallelism : m_pool.getMaxThreads()];
+        for (int i = 0; i < m_workers.length; i++) {
+            m_workers[i] = new Worker(new JoinContainer(m_outputDataRowSettings));
+        }
 
         double[] progressIntervals = new double[] {0.6, 0.2, 0.2};
         exec.setProgress(0.0);
-        while (pendingParts.size() > 0) {
-            Collection<Integer> processedParts = performJoin(
-                    innerTable, outerTable,
-                    joinCont, pendingParts, exec, progressIntervals[0]);
-            pendingParts.removeAll(processedParts);
+        boolean joined = false;
+        if (m_settings.getSortMergeJoin()) {
+            if (m_matchAny) {
+                m_runtimeWarnings.add("Sort-merge join is not supported when "
+                        + "matching any of the joining columns, a hash join "
+                        + "is used instead.");
+            } else {
+                sortMergeJoin(innerTable, outerTable, exec,
+                        progressIntervals[0]);
+                joined = true;
+            }
+        }
+        if (!joined && !m_matchAny) {
+            // fast path for joins on one or two int, long or string columns
+            PrimitiveKeyIndex keyIndex = PrimitiveKeyIndex.create(
+                    leftTable.getDataTableSpec(),
+                    rightTable.getDataTableSpec(),
+                    getLeftJoinIndices(leftTable),
+                    getRightJoinIndices(rightTable), leftTable.size());
+            if (null != keyIndex) {
+                joined = joinOnPrimitiveKeys(keyIndex, innerTable, outerTable,
+                        exec, progressIntervals[0]);
+            }
+        }
+        if (!joined) {
+            // The first pass reads the input tables. Rows of partitions that are
+            // not processed in a pass are written to spill tables, which are read
+            // by the next pass instead of the input tables.
+            Spill spill = null;
+            while (pendingParts.size() > 0) {
+                Spill nextSpill = new Spill();
+                Collection<Integer> processedParts;
+                if (spill == null) {
+                    processedParts = performJoin(innerTable, false, outerTable,
+                            false, nextSpill, pendingParts, exec,
+                            progressIntervals[0]);
+                } else {
+                    processedParts = performJoin(spill.m_leftTable, true,
+                            spill.m_rightTable, true, nextSpill, pendingParts,
+                            exec, progressIntervals[0]);
+                    spill.clear(exec);
+                }
+                nextSpill.close();
+                spill = nextSpill;
+                pendingParts.removeAll(processedParts);
+            }
+            spill.clear(exec);
         }
 
 
+        JoinContainer leftOuterCont = m_workers[0].m_output;
         if (m_retainLeft && m_matchAny) {
             // Add left outer joins
-            int c = 0;
             for (Integer index : m_globalLeftOuterJoins) {
-                DataRow outRow = OutputRow.createDataRow(c, index, -1,
+                DataRow outRow = OutputRow.createDataRow(
+                        m_outputRowIndex.getAndIncrement(), index, -1,
                         m_outputDataRowSettings);
-                joinCont.addLeftOuter(outRow, exec);
-                c++;
+                leftOuterCont.addLeftOuter(outRow, exec);
             }
         }
-        joinCont.close();
+        List<BufferedDataTable> matchTables = new ArrayList<BufferedDataTable>();
+        List<BufferedDataTable> leftOuterTables = new ArrayList<BufferedDataTable>();
+        List<BufferedDataTable> rightOuterTables = new ArrayList<BufferedDataTable>();
+        long totalNumJoins = 0;
+        for (Worker worker : m_workers) {
+            JoinContainer joinCont = worker.m_output;
+            joinCont.close();
+            totalNumJoins += joinCont.getRowCount();
+            addIfNotNull(matchTables, joinCont.getMatches());
+            addIfNotNull(leftOuterTables, joinCont.getLeftOuter());
+            addIfNotNull(rightOuterTables, joinCont.getRightOuter());
+        }
+        m_workers = null;
+        m_pool = null;
+        BufferedDataTable matchTable = concatenate(matchTables, exec);
+        BufferedDataTable leftOuterTable = concatenate(leftOuterTables, exec);
+        BufferedDataTable rightOuterTable = concatenate(rightOuterTables, exec);
 
         // numbers are needed to report progress more precisely
-        long totalNumJoins = joinCont.getRowCount();
-        long numMatches = null != joinCont.getMatches() ? joinCont.getMatches().size() : 0;
-        long numLeftOuter = null != joinCont.getLeftOuter() ? joinCont.getLeftOuter().size() : 0;
-        long numRightOuter = null != joinCont.getRightOuter() ? joinCont.getRightOuter().size() : 0;
+        long numMatches = null != matchTable ? matchTable.size() : 0;
+        long numLeftOuter = null != leftOuterTable ? leftOuterTable.size() : 0;
+        long numRightOuter = null != rightOuterTable ? rightOuterTable.size() : 0;
 
         exec.setMessage("Sort Joined Partitions");
         Comparator<DataRow> joinComp = OutputRow.createRowComparator();
-        SortedTable matches = null != joinCont.getMatches()
-        ? new SortedTable(joinCont.getMatches(), joinComp, false,
+        SortedTable matches = null != matchTable
+        ? new SortedTable(matchTable, joinComp, false,
                 exec.createSubExecutionContext(
                         progressIntervals[1] * numMatches / totalNumJoins))
         : null;
-        SortedTable leftOuter = null != joinCont.getLeftOuter()
-        ? new SortedTable(joinCont.getLeftOuter(), joinComp, false,
+        SortedTable leftOuter = null != leftOuterTable
+        ? new SortedTable(leftOuterTable, joinComp, false,
                 exec.createSubExecutionContext(
                         progressIntervals[1] * numLeftOuter / totalNumJoins))
         : null;
-        SortedTable rightOuter = null != joinCont.getRightOuter()
-        ? new SortedTable(joinCont.getRightOuter(), joinComp, false,
+        SortedTable rightOuter = null != rightOuterTable
+        ? new SortedTable(rightOuterTable, joinComp, false,
                 exec.createSubExecutionContext(
                         progressIntervals[1] * numRightOuter / totalNumJoins))
         : null;
@@ -618,15 +726,432 @@ public BufferedDataTable computeJoinTable(
         return oc.getTable();
     }
 
+    private static void addIfNotNull(final List<BufferedDataTable> tables,
+            final BufferedDataTable table) {
+        if (null != table) {
+            tables.add(table);
+        }
+    }
+
+    /**
+     * Concatenates the tables of the different workers. The row IDs are
+     * unique by construction, hence no duplicate check is needed.
+     *
+     * @return the concatenated table or null if the list is empty
+     */
+    private static BufferedDataTable concatenate(
+            final List<BufferedDataTable> tables, final ExecutionContext exec)
+    throws CanceledExecutionException {
+        if (tables.isEmpty()) {
+            return null;
+        } else if (tables.size() == 1) {
+            return tables.get(0);
+        }
+        return exec.createConcatenateTable(exec, Optional.empty(), false,
+                tables.toArray(new BufferedDataTable[tables.size()]));
+    }
+
+    /**
+     * Joins the tables using a {@link PrimitiveKeyIndex} of the whole left
+     * table. The index is discarded when memory gets low while it is built,
+     * the tables are then joined partition by partition.
+     *
+     * @param keyIndex The empty index of the left table.
+     * @param leftTable The inner input table.
+     * @param rightTable The outer input table.
+     * @param exec The execution context.
+     * @param progressDiff The difference in the progress monitor.
+     * @return <code>false</code> if the index did not fit in memory and
+     * nothing has been joined.
+     * @throws CanceledExecutionException when execution is canceled
+     */
+    private boolean joinOnPrimitiveKeys(final PrimitiveKeyIndex keyIndex,
+            final BufferedDataTable leftTable,
+            final BufferedDataTable rightTable,
+            final ExecutionContext exec,
+            final double progressDiff) throws CanceledExecutionException {
+        double progress = exec.getProgressMonitor().getProgress();
+        double inc = (progressDiff - progress)
+            / Math.max(1, leftTable.size() + rightTable.size());
+        exec.setMessage("Read left table");
+
+        MemoryActionIndicator memIndicator = MemoryAlertSystem.getInstance().newIndicator();
+        long[] key = new long[1];
+        int numLeftRows = 0;
+        CloseableRowIterator leftIter = leftTable.iterator();
+        try {
+            while (leftIter.hasNext()) {
+                exec.checkCanceled();
+                if (memIndicator.lowMemoryActionRequired()
+                        || numLeftRows + 1 == m_rowsAddedBeforeForcedOOM) {
+                    LOGGER.debug("Memory is low, join the partitions of the "
+                            + "inner table subsequently.");
+                    exec.setProgress(0.0);
+                    return false;
+                }
+                keyIndex.add(leftIter.next(), numLeftRows++, key);
+                progress += inc;
+                exec.getProgressMonitor().setProgress(progress);
+            }
+        } finally {
+            leftIter.close();
+        }
+
+        exec.setMessage("Join");
+        int rightIndex = 0;
+        int w = 0;
+        CloseableRowIterator rightIter = rightTable.iterator();
+        try {
+            while (rightIter.hasNext()) {
+                progress += inc;
+                exec.getProgressMonitor().setProgress(progress);
+                exec.checkCanceled();
+
+                Worker worker = m_workers[w];
+                worker.addRow(rightIter.next(), rightIndex++, null);
+                if (worker.m_size == BATCH_SIZE) {
+                    worker.submitKeyProbeBatch(keyIndex, exec);
+                    w = (w + 1) % m_workers.length;
+                }
+            }
+            for (Worker worker : m_workers) {
+                worker.submitKeyProbeBatch(keyIndex, exec);
+            }
+            for (Worker worker : m_workers) {
+                worker.awaitBatch();
+            }
+        } catch (CanceledExecutionException | RuntimeException e) {
+            cancelWorkers();
+            throw e;
+        } finally {
+            rightIter.close();
+        }
+
+        if (m_retainLeft) {
+            BitSet matched = new BitSet(numLeftRows);
+            for (Worker worker : m_workers) {
+                if (null != worker.m_matchedLeftRows) {
+                    matched.or(worker.m_matchedLeftRows);
+                }
+            }
+            JoinContainer outputCont = m_workers[0].m_output;
+            for (int row = matched.nextClearBit(0); row < numLeftRows;
+                    row = matched.nextClearBit(row + 1)) {
+                // add left outer join
+                DataRow outRow = OutputRow.createDataRow(
+                        m_outputRowIndex.getAndIncrement(),
+                        row, -1,
+                        m_outputDataRowSettings);
+                outputCont.addLeftOuter(outRow, exec);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Joins the tables by merging them sorted on the joining columns. The
+     * tables are read once if they are already sorted, otherwise the merge
+     * stops at the first row out of order and the table is sorted on disk
+     * before the merge is restarted. Only the rows of the left table with
+     * equal joining values are kept in memory.
+     *
+     * @param leftTable The inner input table.
+     * @param rightTable The outer input table.
+     * @param exec The execution context.
+     * @param progressDiff The difference in the progress monitor.
+     * @throws CanceledExecutionException when execution is canceled
+     */
+    private void sortMergeJoin(final BufferedDataTable leftTable,
+            final BufferedDataTable rightTable,
+            final ExecutionContext exec,
+            final double progressDiff) throws CanceledExecutionException {
+        List<Integer> leftJoinIndices = getLeftJoinIndices(leftTable);
+        List<Integer> rightJoinIndices = getRightJoinIndices(rightTable);
+        int numJoinAttributes = leftJoinIndices.size();
+        int[] leftIndices = new int[numJoinAttributes];
+        int[] rightIndices = new int[numJoinAttributes];
+        // both tables are sorted with the same comparators, so that the
+        // joining values of the left and the right table can be compared
+        DataValueComparator[] comparators =
+            new DataValueComparator[numJoinAttributes];
+        for (int i = 0; i < numJoinAttributes; i++) {
+            leftIndices[i] = leftJoinIndices.get(i);
+            rightIndices[i] = rightJoinIndices.get(i);
+            comparators[i] = DataType.getCommonSuperType(
+                    getJoinColumnType(leftTable, leftIndices[i]),
+                    getJoinColumnType(rightTable, rightIndices[i]))
+                    .getComparator();
+        }
+
+        double progress = exec.getProgressMonitor().getProgress();
+        JoinContainer outputCont = m_workers[0].m_output;
+        BufferedDataTable left = leftTable;
+        BufferedDataTable right = rightTable;
+        boolean leftSorted = false;
+        boolean rightSorted = false;
+        try {
+            while (true) {
+                exec.setMessage("Merge sorted tables");
+                exec.setProgress(progress);
+                InDataPort unsorted = mergeSorted(
+                        new SortedInput(left, leftSorted, leftIndices,
+                                comparators),
+                        new SortedInput(right, rightSorted, rightIndices,
+                                comparators),
+                        outputCont, exec, (progressDiff - progress)
+                            / Math.max(1, left.size() + right.size()));
+                if (null == unsorted) {
+                    return;
+                }
+                outputCont.clear(exec);
+                if (InDataPort.Left.equals(unsorted) ? leftSorted : rightSorted) {
+                    throw new IllegalStateException("Comparator of the joining "
+                            + "columns is inconsistent, table is not sorted.");
+                }
+                if (InDataPort.Left.equals(unsorted)) {
+                    LOGGER.debug("Top input is not sorted on the joining "
+                            + "columns, sort it.");
+                    exec.setMessage("Sort top input");
+                    left = sortOnJoinColumns(leftTable, leftIndices,
+                            comparators, exec);
+                    leftSorted = true;
+                } else {
+                    LOGGER.debug("Bottom input is not sorted on the joining "
+                            + "columns, sort it.");
+                    exec.setMessage("Sort bottom input");
+                    right = sortOnJoinColumns(rightTable, rightIndices,
+                            comparators, exec);
+                    rightSorted = true;
+                }
+            }
+        } finally {
+            // the sorted rows are copied to the joined rows
+            if (leftSorted) {
+                exec.clearTable(left);
+            }
+            if (rightSorted) {
+                exec.clearTable(right);
+            }
+        }
+    }
+
+    private static DataType getJoinColumnType(final BufferedDataTable table,
+            final int index) {
+        // row IDs are joined as StringCells
+        return index >= 0
+            ? table.getDataTableSpec().getColumnSpec(index).getType()
+            : StringCell.TYPE;
+    }
+
+    /**
+     * Merges the sorted tables. Rows of the left and the right table whose
+     * joining values are equal according to the comparators are joined when
+     * their {@link JoinTuple}s match, as in the hash join.
+     *
+     * @param incProgress The progress increment per row.
+     * @return <code>null</code> if the tables were merged, otherwise the input
+     * that is not sorted.
+     * @throws CanceledExecutionException when execution is canceled
+     */
+    private InDataPort mergeSorted(final SortedInput left,
+            final SortedInput right, final JoinContainer outputCont,
+            final ExecutionContext exec, final double incProgress)
+    throws CanceledExecutionException {
+        double progress = exec.getProgressMonitor().getProgress();
+        DataValueComparator[] comparators = left.m_comparators;
+        // the rows of the left table with equal joining values
+        List<Integer> groupIndices = new ArrayList<Integer>();
+        List<JoinTuple> groupTuples = new ArrayList<JoinTuple>();
+        BitSet groupMatched = new BitSet();
+        try {
+            boolean hasLeft = left.next();
+            boolean hasRight = right.next();
+            while (hasLeft && hasRight) {
+                if (left.m_unsorted) {
+                    return InDataPort.Left;
+                } else if (right.m_unsorted) {
+                    return InDataPort.Right;
+                }
+                exec.checkCanceled();
+                int c = compareJoinCells(comparators, left.m_cells,
+                        right.m_cells);
+                if (c < 0) {
+                    progress += incProgress;
+                    addLeftOuter(left.m_index, outputCont, exec);
+                    hasLeft = left.next();
+                } else if (c > 0) {
+                    progress += incProgress;
+                    addRightOuter(right.m_row, right.m_index, outputCont,
+                            exec);
+                    hasRight = right.next();
+                } else {
+                    DataCell[] groupCells = left.m_cells;
+                    groupIndices.clear();
+                    groupTuples.clear();
+                    groupMatched.clear();
+                    do {
+                        progress += incProgress;
+                        groupIndices.add(left.m_index);
+                        groupTuples.add(new JoinTuple(left.m_cells));
+                        hasLeft = left.next();
+                    } while (hasLeft && !left.m_unsorted
+                            && compareJoinCells(comparators, groupCells,
+                                    left.m_cells) == 0);
+                    if (left.m_unsorted) {
+                        return InDataPort.Left;
+                    }
+                    do {
+                        progress += incProgress;
+                        exec.checkCanceled();
+                        JoinTuple rightTuple = new JoinTuple(right.m_cells);
+                        boolean matchFoundForRightRow = false;
+                        for (int g = 0; g < groupTuples.size(); g++) {
+                            if (groupTuples.get(g).equals(rightTuple)) {
+                                matchFoundForRightRow = true;
+                                groupMatched.set(g);
+                                // add inner join
+                                DataRow outRow = OutputRow.createDataRow(
+                                        m_outputRowIndex.getAndIncrement(),
+                                        groupIndices.get(g), right.m_index,
+                                        right.m_row,
+                                        m_outputDataRowSettings);
+                                outputCont.addMatch(outRow, exec);
+                            }
+                        }
+                        if (!matchFoundForRightRow) {
+                            addRightOuter(right.m_row, right.m_index,
+                                    outputCont, exec);
+                        }
+                        hasRight = right.next();
+                    } while (hasRight && !right.m_unsorted
+                            && compareJoinCells(comparators, groupCells,
+                                    right.m_cells) == 0);
+                    if (right.m_unsorted) {
+                        return InDataPort.Right;
+                    }
+                    for (int g = groupMatched.nextClearBit(0);
+                            g < groupIndices.size();
+                            g = groupMatched.nextClearBit(g + 1)) {
+                        addLeftOuter(groupIndices.get(g), outputCont, exec);
+                    }
+                }
+                exec.getProgressMonitor().setProgress(progress);
+            }
+            while (hasLeft) {
+                if (left.m_unsorted) {
+                    return InDataPort.Left;
+                }
+                exec.checkCanceled();
+                addLeftOuter(left.m_index, outputCont, exec);
+                hasLeft = left.next();
+            }
+            while (hasRight) {
+                if (right.m_unsorted) {
+                    return InDataPort.Right;
+                }
+                exec.checkCanceled();
+                addRightOuter(right.m_row, right.m_index, outputCont, exec);
+                hasRight = right.next();
+            }
+            return null;
+        } finally {
+            left.close();
+            right.close();
+        }
+    }
+
+    private void addLeftOuter(final int leftIndex,
+            final JoinContainer outputCont, final ExecutionContext exec) {
+        if (m_retainLeft) {
+            DataRow outRow = OutputRow.createDataRow(
+                    m_outputRowIndex.getAndIncrement(),
+                    leftIndex, -1,
+                    m_outputDataRowSettings);
+            outputCont.addLeftOuter(outRow, exec);
+        }
+    }
+
+    private void addRightOuter(final DataRow rightRow, final int rightIndex,
+            final JoinContainer outputCont, final ExecutionContext exec) {
+        if (m_retainRight) {
+            DataRow outRow = OutputRow.createDataRow(
+                    m_outputRowIndex.getAndIncrement(),
+                    -1, rightIndex,
+                    rightRow,
+                    m_outputDataRowSettings);
+            outputCont.addRightOuter(outRow, exec);
+        }
+    }
+
+    /**
+     * Sorts the table on the joining columns. The index of the rows in the
+     * given table is appended as last column.
+     */
+    private BufferedDataTable sortOnJoinColumns(final BufferedDataTable table,
+            final int[] joinIndices, final DataValueComparator[] comparators,
+            final ExecutionContext exec) throws CanceledExecutionException {
+        DataTableSpec spec = table.getDataTableSpec();
+        String indexCol = new UniqueNameGenerator(spec).newName("Index");
+        ColumnRearranger rearranger = new ColumnRearranger(spec);
+        rearranger.append(new SingleCellFactory(
+                new DataColumnSpecCreator(indexCol, IntCell.TYPE).createSpec()) {
+            private int m_counter;
+
+            @Override
+            public DataCell getCell(final DataRow row) {
+                return new IntCell(m_counter++);
+            }
+        });
+        BufferedDataTable indexed = exec.createColumnRearrangeTable(table,
+                rearranger, exec.createSilentSubProgress(0));
+        BufferedDataTableSorter sorter = new BufferedDataTableSorter(indexed,
+                (r1, r2) -> compareJoinCells(comparators,
+                        getJoinCells(r1, joinIndices),
+                        getJoinCells(r2, joinIndices)));
+        sorter.setMaxOpenContainers(m_settings.getMaxOpenFiles());
+        BufferedDataTable sorted = sorter.sort(exec.createSilentSubExecutionContext(0));
+        if (sorted != indexed) {
+            exec.clearTable(indexed);
+        }
+        return sorted;
+    }
+
+    /** The joining values of the row, row IDs are returned as StringCells. */
+    private static DataCell[] getJoinCells(final DataRow row,
+            final int[] joinIndices) {
+        DataCell[] cells = new DataCell[joinIndices.length];
+        for (int i = 0; i < joinIndices.length; i++) {
+            cells[i] = joinIndices[i] >= 0 ? row.getCell(joinIndices[i])
+                : new StringCell(row.getKey().getString());
+        }
+        return cells;
+    }
+
+    private static int compareJoinCells(
+            final DataValueComparator[] comparators, final DataCell[] cells1,
+            final DataCell[] cells2) {
+        for (int i = 0; i < comparators.length; i++) {
+            int c = comparators[i].compare(cells1[i], cells2[i]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
     /** This method start with reading the partitions of the left table defined
      * in currParts. If memory is low, partitions will be skipped or the
      * number of partitions will be raised which leads to smaller partitions.
      * Successfully read partitions will be joined. The return collection
-     * defines the successfully processed partitions.
+     * defines the successfully processed partitions. The join tuples and
+     * rows of pending partitions that are not processed are written to the
+     * given spill.
      *
-     * @param leftTable The inner input table.
-     * @param rightTable The right input table.
-     * @param outputContainer The container used for storing matches.
+     * @param leftTable The inner input table or spill table, null if empty.
+     * @param leftIsSpill Whether the left table is a spill table.
+     * @param rightTable The right input table or spill table, null if empty.
+     * @param rightIsSpill Whether the right table is a spill table.
+     * @param spill Receives the rows of the partitions that are not processed.
      * @param pendingParts The parts that are not processed yet.
      * @param exec The execution context.
      * @param progressDiff The difference in the progress monitor.
@@ -635,145 +1160,154 @@ public BufferedDataTable computeJoinTable(
      */
     private Collection<Integer> performJoin(
             final BufferedDataTable leftTable,
+            final boolean leftIsSpill,
             final BufferedDataTable rightTable,
-            final JoinContainer outputContainer,
+            final boolean rightIsSpill,
+            final Spill spill,
             final Collection<Integer> pendingParts,
             final ExecutionContext exec,
             final double progressDiff) throws CanceledExecutionException  {
+        long leftSize = null != leftTable ? leftTable.size() : 0;
+        long rightSize = null != rightTable ? rightTable.size() : 0;
         // Update increment for reporting progress
         double progress = exec.getProgressMonitor().getProgress();
-        double numRows = leftTable.size() + rightTable.size();
+        double numRows = Math.max(1, leftSize + rightSize);
         double inc = (progressDiff - progress) / numRows;
 
-        Collection<Integer> currParts = new ArrayList<Integer>();
+        // a set keeps the order of the pending parts and is faster to query
+        Collection<Integer> currParts = new LinkedHashSet<Integer>();
         currParts.addAll(pendingParts);
         setMessage("Read", exec, pendingParts, currParts);
 
-        // Partition left table
+        // Partition left table, the partitions are filled concurrently by the
+        // workers
         Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed =
-            new HashMap<Integer, Map<JoinTuple, Set<Integer>>>();
+            new ConcurrentHashMap<Integer, Map<JoinTuple, Set<Integer>>>();
         // This is only used when m_leftRetain is true and m_matchAny is false.
         // It holds the row indices of the left table that do not match to
         // any row of the right table
         Map <Integer, Set<Integer>> leftOuterJoins =
-            new HashMap<Integer, Set<Integer>>();
+            new ConcurrentHashMap<Integer, Set<Integer>>();
 
         MemoryActionIndicator memIndicator = MemoryAlertSystem.getInstance().newIndicator();
 
-        int counter = 0;
         long rowsAdded = 0;
-        CloseableRowIterator leftIter = leftTable.iterator();
-        while (leftIter.hasNext()) {
-            exec.checkCanceled();
-            boolean saveToAddMoreRows =
-                !memIndicator.lowMemoryActionRequired()
-                    && ((m_rowsAddedBeforeForcedOOM == 0)
-                            || (rowsAdded % m_rowsAddedBeforeForcedOOM != (m_rowsAddedBeforeForcedOOM - 1)));
-
-            if (saveToAddMoreRows) {
-                DataRow row = leftIter.next();
-                InputRow inputDataRow = new InputRow(row, counter,
-                        InputRow.Settings.InDataPort.Left,
-                        m_inputDataRowSettings);
-
-                for (JoinTuple tuple : inputDataRow.getJoinTuples()) {
-                    int partition = tuple.hashCode() & m_bitMask;
-                    if (currParts.contains(partition)) {
-                        addRow(leftTableHashed, leftOuterJoins,
-                                partition, tuple, inputDataRow);
-                        rowsAdded++;
-                    }
-                }
-                counter++;
-                // report progress
-                progress += inc;
-                exec.getProgressMonitor().setProgress(progress);
-            } else {
-                rowsAdded++;
-
-                // Build list of partitions that are not empty
-                List<Integer> nonEmptyPartitions = new ArrayList<Integer>();
-                for (Integer i : currParts) {
-                    if (null != leftTableHashed.get(i)) {
-                        nonEmptyPartitions.add(i);
-                    }
-                }
-                int numNonEmpty = nonEmptyPartitions.size();
-                if (numNonEmpty > 1) {
-                    // remove input partitions to free memory
-                    List<Integer> removeParts = new ArrayList<Integer>();
-                    for (int i = 0; i < numNonEmpty / 2; i++) {
-                        removeParts.add(nonEmptyPartitions.get(i));
+        LeftInput leftIter = new LeftInput(leftTable, leftIsSpill);
+        try {
+            while (leftIter.hasNext()) {
+                exec.checkCanceled();
+                boolean saveToAddMoreRows =
+                    !memIndicator.lowMemoryActionRequired()
+                        && ((m_rowsAddedBeforeForcedOOM == 0)
+                                || (rowsAdded % m_rowsAddedBeforeForcedOOM != (m_rowsAddedBeforeForcedOOM - 1)));
+
+                if (saveToAddMoreRows) {
+                    leftIter.next();
+                    for (JoinTuple tuple : leftIter.m_tuples) {
+                        int partition = tuple.hashCode() & m_bitMask;
+                        if (currParts.contains(partition)) {
+                            Worker worker = m_workers[partition % m_workers.length];
+                            worker.addTuple(partition, tuple, leftIter.m_index);
+                            if (worker.m_size == BATCH_SIZE) {
+                                worker.submitBuildBatch(leftTableHashed, leftOuterJoins);
+                            }
+                            rowsAdded++;
+                        } else if (pendingParts.contains(partition)) {
+                            spill.addLeft(tuple, leftIter.m_index, exec);
+                        }
                     }
-                    // remove collected data of the no longer processed
-                    for (int i : removeParts) {
-                        leftTableHashed.remove(i);
-                        if (m_retainLeft && !m_matchAny) {
-                            leftOuterJoins.remove(i);
+                    // report progress
+                    progress += inc;
+                    exec.getProgressMonitor().setProgress(progress);
+                } else {
+                    rowsAdded++;
+                    // the partitions need to be complete before they are
+                    // inspected or changed
+                    awaitBuild(leftTableHashed, leftOuterJoins);
+
+                    // Build list of partitions that are not empty
+                    List<Integer> nonEmptyPartitions = new ArrayList<Integer>();
+                    for (Integer i : currParts) {
+                        if (null != leftTableHashed.get(i)) {
+                            nonEmptyPartitions.add(i);
                         }
                     }
-                    currParts.removeAll(removeParts);
-                    LOGGER.debug("Skip partitions while "
-                            + "reading inner table. Currently Processed: "
-                            + currParts + ". Skip: " + removeParts);
-                    // update increment for reporting progress
-                    numRows += leftTable.size() + rightTable.size();
-                    inc = (progressDiff - progress) / numRows;
-
-                    setMessage("Read", exec, pendingParts, currParts);
-                } else if (nonEmptyPartitions.size() == 1) {
-                    if (m_numBits < m_numBitsMaximal) {
-                        LOGGER.debug("Increase number of partitions while "
-                                + "reading inner table. Currently "
-                                + "Processed: " + nonEmptyPartitions);
-
-                        // increase number of partitions
-                        m_numBits = m_numBits + 1;
-                        m_bitMask = m_bitMask | (0x0001 << (m_numBits - 1));
-                        Set<Integer> pending = new TreeSet<Integer>();
-                        pending.addAll(pendingParts);
-                        pendingParts.clear();
-                        for (int i : pending) {
-                            pendingParts.add(i);
-                            int ii = i | (0x0001 << (m_numBits - 1));
-                            pendingParts.add(ii);
+                    int numNonEmpty = nonEmptyPartitions.size();
+                    if (numNonEmpty > 1) {
+                        // remove input partitions to free memory
+                        List<Integer> removeParts = new ArrayList<Integer>();
+                        for (int i = 0; i < numNonEmpty / 2; i++) {
+                            removeParts.add(nonEmptyPartitions.get(i));
                         }
-
-                        int currPart = nonEmptyPartitions.iterator().next();
-                        currParts.clear();
-                        currParts.add(currPart);
-                        // update chunk size
-                        retainPartitions(leftTableHashed, leftOuterJoins,
-                                currPart);
-                        // update increment for reporting progress
-                        numRows += leftTable.size() + rightTable.size();
-                        inc = (progressDiff - progress) / numRows;
-
+                        // move collected data of the no longer processed
+                        // partitions to the spill
+                        for (int i : removeParts) {
+                            spillPartition(leftTableHashed.remove(i), spill, exec);
+                            if (m_retainLeft && !m_matchAny) {
+                                leftOuterJoins.remove(i);
+                            }
+                        }
+                        currParts.removeAll(removeParts);
+                        LOGGER.debug("Skip partitions while "
+                                + "reading inner table. Currently Processed: "
+                                + currParts + ". Skip: " + removeParts);
                         setMessage("Read", exec, pendingParts, currParts);
-                    } else {
-                        // We have now 2^32 partitions.
-                        // We can only keep going and hope that other nodes
-                        // may free some memory.
+                    } else if (nonEmptyPartitions.size() == 1) {
+                        if (m_numBits < m_numBitsMaximal) {
+                            LOGGER.debug("Increase number of partitions while "
+                                    + "reading inner table. Currently "
+                                    + "Processed: " + nonEmptyPartitions);
+
+                            // increase number of partitions
+                            m_numBits = m_numBits + 1;
+                            m_bitMask = m_bitMask | (0x0001 << (m_numBits - 1));
+                            Set<Integer> pending = new TreeSet<Integer>();
+                            pending.addAll(pendingParts);
+                            pendingParts.clear();
+                            for (int i : pending) {
+                                pendingParts.add(i);
+                                int ii = i | (0x0001 << (m_numBits - 1));
+                                pendingParts.add(ii);
+                            }
+
+                            int currPart = nonEmptyPartitions.iterator().next();
+                            currParts.clear();
+                            currParts.add(currPart);
+                            // update chunk size
+                            retainPartitions(leftTableHashed, leftOuterJoins,
+                                    currPart, spill, exec);
+
+                            setMessage("Read", exec, pendingParts, currParts);
+                        } else {
+                            // We have now 2^32 partitions.
+                            // We can only keep going and hope that other nodes
+                            // may free some memory.
+                            LOGGER.warn("Memory is low. "
+                                + "I have no chance to free memory. This may "
+                                + "cause an endless loop.");
+                        }
+                    } else if (nonEmptyPartitions.size() < 1) {
+                        // We have only empty partitions.
+                        // Other node consume to much memory,
+                        // we cannot free more memory
                         LOGGER.warn("Memory is low. "
-                            + "I have no chance to free memory. This may "
-                            + "cause an endless loop.");
+                                + "I have no chance to free memory. This may "
+                                + "cause an endless loop.");
                     }
-                } else if (nonEmptyPartitions.size() < 1) {
-                    // We have only empty partitions.
-                    // Other node consume to much memory,
-                    // we cannot free more memory
-                    LOGGER.warn("Memory is low. "
-                            + "I have no chance to free memory. This may "
-                            + "cause an endless loop.");
                 }
             }
+            awaitBuild(leftTableHashed, leftOuterJoins);
+        } catch (CanceledExecutionException | RuntimeException e) {
+            cancelWorkers();
+            throw e;
+        } finally {
+            leftIter.close();
         }
 
         setMessage("Join", exec, pendingParts, currParts);
         // Join with outer table
         joinInMemory(leftTableHashed, leftOuterJoins,
-                currParts, rightTable,
-                outputContainer,
+                currParts, pendingParts, rightTable, rightIsSpill, spill,
                 exec, inc);
 
 
@@ -793,6 +1327,26 @@ private Collection<Integer> performJoin(
         return currParts;
     }
 
+    /** Hands the remaining join tuples to the workers and waits until all
+     * partitions are built. */
+    private void awaitBuild(
+            final Map<Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
+            final Map<Integer, Set<Integer>> leftOuterJoins)
+    throws CanceledExecutionException {
+        for (Worker worker : m_workers) {
+            worker.submitBuildBatch(leftTableHashed, leftOuterJoins);
+        }
+        for (Worker worker : m_workers) {
+            worker.awaitBatch();
+        }
+    }
+
+    private void cancelWorkers() {
+        for (Worker worker : m_workers) {
+            worker.cancelBatch();
+        }
+    }
+
     /**
      * @param exec
      * @param pendingParts
@@ -813,53 +1367,72 @@ private void setMessage(final String activity,
     /**
      * Called when the number of partitions is doubled. The innerHash is
      * traversed and only those entries that are in the given part are
-     * retained. The innerIndexMap is build up so that it contains only
-     * the entries that are in the given part.
+     * retained, the others are written to the spill. The innerIndexMap is
+     * build up so that it contains only the entries that are in the given
+     * part.
      */
     private void retainPartitions(
             final Map<Integer, Map<JoinTuple, Set<Integer>>> innerHash,
             final Map<Integer, Set<Integer>> innerIndexMap,
-            final int part) {
+            final int part, final Spill spill, final ExecutionContext exec) {
         innerIndexMap.clear();
 
         Map<JoinTuple, Set<Integer>> thisInnerHash = innerHash.get(part);
-        for (Iterator<JoinTuple> iter = thisInnerHash.keySet().iterator();
-        iter.hasNext();) {
-            JoinTuple tuple = iter.next();
+        for (Iterator<Map.Entry<JoinTuple, Set<Integer>>> iter =
+            thisInnerHash.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry<JoinTuple, Set<Integer>> entry = iter.next();
+            JoinTuple tuple = entry.getKey();
             int index = tuple.hashCode() & m_bitMask;
             if (index != part) {
+                for (Integer rowIndex : entry.getValue()) {
+                    spill.addLeft(tuple, rowIndex, exec);
+                }
                 iter.remove();
             } else if (m_retainLeft && !m_matchAny) {
                 Set<Integer> thisInnerIndexMap = innerIndexMap.get(index);
                 if (null == thisInnerIndexMap) {
-                    thisInnerIndexMap = new HashSet<Integer>();
+                    thisInnerIndexMap = ConcurrentHashMap.newKeySet();
                     innerIndexMap.put(index, thisInnerIndexMap);
                 }
-                for (Integer rowIndex : thisInnerHash.get(tuple)) {
+                for (Integer rowIndex : entry.getValue()) {
                     thisInnerIndexMap.add(rowIndex);
                 }
             }
         }
     }
 
+    /** Writes the join tuples of a partition that is no longer processed
+     * to the spill. */
+    private void spillPartition(
+            final Map<JoinTuple, Set<Integer>> partTuples,
+            final Spill spill, final ExecutionContext exec) {
+        for (Map.Entry<JoinTuple, Set<Integer>> entry : partTuples.entrySet()) {
+            for (Integer rowIndex : entry.getValue()) {
+                spill.addLeft(entry.getKey(), rowIndex, exec);
+            }
+        }
+    }
+
     /**
-     * Add a row to innerHash and innerIndexMap.
+     * Add a row to innerHash and innerIndexMap. Called by the worker that
+     * owns the partition.
      * @param partition The index of the partition.
      * @param joinTuple The join tuples of the row.
-     * @param row The row to be added.
+     * @param rowIndex The index of the row to be added.
      */
     private void addRow(
             final Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
             final Map <Integer, Set<Integer>> leftOuterJoins,
             final int partition, final JoinTuple joinTuple,
-            final InputRow row) {
+            final int rowIndex) {
         if (m_retainLeft  && !m_matchAny) {
             Set<Integer> indices = leftOuterJoins.get(partition);
             if (null == indices) {
-                indices = new HashSet<Integer>();
+                // matched rows are removed concurrently while probing
+                indices = ConcurrentHashMap.newKeySet();
                 leftOuterJoins.put(partition, indices);
             }
-            indices.add(row.getIndex());
+            indices.add(rowIndex);
         }
 
         Map<JoinTuple, Set<Integer>> partTuples =
@@ -872,10 +1445,10 @@ private void addRow(
 
         Set<Integer> c = partTuples.get(joinTuple);
         if (null != c) {
-            c.add(row.getIndex());
+            c.add(rowIndex);
         } else {
             Set<Integer> list = new HashSet<Integer>();
-            list.add(row.getIndex());
+            list.add(rowIndex);
             partTuples.put(joinTuple, list);
         }
 
@@ -884,14 +1457,18 @@ private void addRow(
 
 
     /**
-     * Join given rows in memory and append joined row to the outputCont.
+     * Join given rows in memory and append joined row to the output
+     * containers of the workers. The right rows are read by the calling
+     * thread and joined in batches by the workers.
      *
      * @param leftTableHashed Stores the rows of the left input table in parts.
      * @param leftOuterJoins The same number as found in leftTableHashed used
      * for left outer joins.
      * @param currParts The parts of the outer table that will be joined.
-     * @param rightTable The outer table.
-     * @param outputCont The joined rows will be added to this container.
+     * @param pendingParts The parts that are not processed yet.
+     * @param rightTable The outer table or spill table, null if empty.
+     * @param rightIsSpill Whether the right table is a spill table.
+     * @param spill Receives the rows of pending parts that are not joined.
      * @param exec The {@link ExecutionContext}
      * @param incProgress The progress increment.
      * @throws CanceledExecutionException When execution is canceled
@@ -900,25 +1477,100 @@ private void joinInMemory(
             final Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
             final Map <Integer, Set<Integer>> leftOuterJoins,
             final Collection<Integer> currParts,
+            final Collection<Integer> pendingParts,
             final BufferedDataTable rightTable,
-            final JoinContainer outputCont,
+            final boolean rightIsSpill,
+            final Spill spill,
             final ExecutionContext exec,
             final double incProgress) throws CanceledExecutionException {
         double progress = exec.getProgressMonitor().getProgress();
-        int counter = 0;
-        for (DataRow dataRow : rightTable) {
-            progress += incProgress;
-            exec.getProgressMonitor().setProgress(progress);
-            exec.checkCanceled();
+        RightInput rightIter = new RightInput(rightTable, rightIsSpill);
+        int w = 0;
+        try {
+            while (rightIter.hasNext()) {
+                progress += incProgress;
+                exec.getProgressMonitor().setProgress(progress);
+                exec.checkCanceled();
+
+                rightIter.next();
+                boolean deferRow = false;
+                for (JoinTuple joinTuple : rightIter.m_tuples) {
+                    int partition = joinTuple.hashCode() & m_bitMask;
+                    if (!currParts.contains(partition)
+                            && pendingParts.contains(partition)) {
+                        deferRow = true;
+                        break;
+                    }
+                }
+                if (deferRow) {
+                    // the row is joined again in a later pass
+                    spill.addRight(rightIter.m_row, rightIter.m_index,
+                            rightIsSpill, exec);
+                    if (!m_matchAny) {
+                        // the single join tuple is in a deferred partition
+                        continue;
+                    }
+                }
 
-            InputRow rightRow = new InputRow(dataRow, counter,
-                    InputRow.Settings.InDataPort.Right,
-                    m_inputDataRowSettings);
+                Worker worker = m_workers[w];
+                worker.addRow(rightIter.m_row, rightIter.m_index,
+                        rightIter.m_tuples);
+                if (worker.m_size == BATCH_SIZE) {
+                    worker.submitProbeBatch(leftTableHashed, leftOuterJoins,
+                            currParts, exec);
+                    w = (w + 1) % m_workers.length;
+                }
+            }
+            for (Worker worker : m_workers) {
+                worker.submitProbeBatch(leftTableHashed, leftOuterJoins,
+                        currParts, exec);
+            }
+            for (Worker worker : m_workers) {
+                worker.awaitBatch();
+            }
+        } catch (CanceledExecutionException | RuntimeException e) {
+            cancelWorkers();
+            throw e;
+        } finally {
+            rightIter.close();
+        }
+
+        if (m_retainLeft && !m_matchAny) {
+            JoinContainer outputCont = m_workers[0].m_output;
+            for (int partition : leftOuterJoins.keySet()) {
+                for (Integer row : leftOuterJoins.get(partition)) {
+                    // add left outer join
+                    DataRow outRow = OutputRow.createDataRow(
+                            m_outputRowIndex.getAndIncrement(),
+                            row, -1,
+                            m_outputDataRowSettings);
+                    outputCont.addLeftOuter(outRow, exec);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Joins a batch of right rows, called by a worker thread.
+     *
+     * @param outputCont The container of the worker.
+     */
+    private void probe(final DataRow[] rows, final int[] indices,
+            final JoinTuple[][] tuples, final int size,
+            final Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
+            final Map <Integer, Set<Integer>> leftOuterJoins,
+            final Collection<Integer> currParts,
+            final JoinContainer outputCont,
+            final ExecutionContext exec) {
+        for (int r = 0; r < size; r++) {
+            DataRow dataRow = rows[r];
+            int rightIndex = indices[r];
 
             boolean matchFoundForRightRow = false;
             boolean deferMatch = false;
 
-            for (JoinTuple joinTuple : rightRow.getJoinTuples()) {
+            for (JoinTuple joinTuple : tuples[r]) {
                 int partition = joinTuple.hashCode() & m_bitMask;
                 if (!currParts.contains(partition)) {
                     deferMatch = true;
@@ -946,8 +1598,8 @@ private void joinInMemory(
                     for (Integer leftRowIndex : leftRows) {
                         // add inner join
                         DataRow outRow = OutputRow.createDataRow(
-                                outputCont.getRowCount(),
-                                leftRowIndex, rightRow.getIndex(),
+                                m_outputRowIndex.getAndIncrement(),
+                                leftRowIndex, rightIndex,
                                 dataRow,
                                 m_outputDataRowSettings);
                         outputCont.addMatch(outRow, exec);
@@ -963,30 +1615,443 @@ private void joinInMemory(
 
 
             if (m_retainRight && !matchFoundForRightRow && !deferMatch) {
-                long outRowIndex = outputCont.getRowCount();
                 // add right outer join
-                DataRow outRow = OutputRow.createDataRow(outRowIndex,
-                        -1, rightRow.getIndex(),
+                DataRow outRow = OutputRow.createDataRow(
+                        m_outputRowIndex.getAndIncrement(),
+                        -1, rightIndex,
                         dataRow,
                         m_outputDataRowSettings);
                 outputCont.addRightOuter(outRow, exec);
             }
-            counter++;
         }
+    }
 
-        if (m_retainLeft && !m_matchAny) {
-            for (int partition : leftOuterJoins.keySet()) {
-                for (Integer row : leftOuterJoins.get(partition)) {
-                    // add left outer join
-                    DataRow outRow = OutputRow.createDataRow(
-                            outputCont.getRowCount(),
-                            row, -1,
-                            m_outputDataRowSettings);
-                    outputCont.addLeftOuter(outRow, exec);
+    /**
+     * Joins a batch of right rows using the index of the left table, called
+     * by a worker thread.
+     *
+     * @param matched Receives the indices of the matched left rows, null
+     * if left outer joins are not retained.
+     * @param outputCont The container of the worker.
+     */
+    private void probeKeys(final DataRow[] rows, final int[] indices,
+            final int size, final PrimitiveKeyIndex keyIndex,
+            final BitSet matched, final JoinContainer outputCont,
+            final ExecutionContext exec) {
+        long[] key = new long[1];
+        for (int r = 0; r < size; r++) {
+            int leftRowIndex = keyIndex.getFirst(rows[r], key);
+            if (leftRowIndex < 0 && m_retainRight) {
+                // add right outer join
+                DataRow outRow = OutputRow.createDataRow(
+                        m_outputRowIndex.getAndIncrement(),
+                        -1, indices[r],
+                        rows[r],
+                        m_outputDataRowSettings);
+                outputCont.addRightOuter(outRow, exec);
+            }
+            for (; leftRowIndex >= 0;
+                    leftRowIndex = keyIndex.getNext(leftRowIndex)) {
+                // add inner join
+                DataRow outRow = OutputRow.createDataRow(
+                        m_outputRowIndex.getAndIncrement(),
+                        leftRowIndex, indices[r],
+                        rows[r],
+                        m_outputDataRowSettings);
+                outputCont.addMatch(outRow, exec);
+                if (null != matched) {
+                    matched.set(leftRowIndex);
+                }
+            }
+        }
+    }
+
+    /** The spec of the left spill, holding the cells of a join tuple, the
+     * position of the cell of a match any tuple and the row index. */
+    private DataTableSpec createLeftSpillSpec(final BufferedDataTable leftTable) {
+        List<Integer> joinIndices = getLeftJoinIndices(leftTable);
+        int numJoinAttributes = joinIndices.size();
+        DataColumnSpec[] colSpecs = new DataColumnSpec[numJoinAttributes + 2];
+        for (int i = 0; i < numJoinAttributes; i++) {
+            int index = joinIndices.get(i);
+            DataType type = index >= 0
+                ? leftTable.getDataTableSpec().getColumnSpec(index).getType()
+                : StringCell.TYPE;
+            colSpecs[i] = new DataColumnSpecCreator("Tuple " + i, type).createSpec();
+        }
+        colSpecs[numJoinAttributes] =
+            new DataColumnSpecCreator("Position", IntCell.TYPE).createSpec();
+        colSpecs[numJoinAttributes + 1] =
+            new DataColumnSpecCreator("Index", IntCell.TYPE).createSpec();
+        return new DataTableSpec(colSpecs);
+    }
+
+    /** The spec of the right spill, the right table with the row index
+     * appended. */
+    private static DataTableSpec createRightSpillSpec(
+            final BufferedDataTable rightTable) {
+        DataTableSpec spec = rightTable.getDataTableSpec();
+        String indexCol = new UniqueNameGenerator(spec).newName("Index");
+        return new DataTableSpec(spec, new DataTableSpec(
+                new DataColumnSpecCreator(indexCol, IntCell.TYPE).createSpec()));
+    }
+
+    /**
+     * Join tuples of the left table and rows of the right table of pending
+     * partitions that are not processed in the current pass. The spill
+     * tables are created on demand.
+     */
+    private final class Spill {
+        private BufferedDataContainer m_left;
+        private BufferedDataContainer m_right;
+        private long m_leftCounter;
+        private BufferedDataTable m_leftTable;
+        private BufferedDataTable m_rightTable;
+
+        void addLeft(final JoinTuple tuple, final int index,
+                final ExecutionContext exec) {
+            if (null == m_left) {
+                m_left = exec.createDataContainer(m_leftSpillSpec, false);
+            }
+            DataCell[] tupleCells = tuple.getCells();
+            DataCell[] cells = new DataCell[tupleCells.length + 2];
+            int position = -1;
+            for (int i = 0; i < tupleCells.length; i++) {
+                if (tupleCells[i] instanceof WildCardCell) {
+                    cells[i] = DataType.getMissingCell();
+                } else {
+                    cells[i] = tupleCells[i];
+                    if (m_matchAny) {
+                        position = i;
+                    }
+                }
+            }
+            cells[tupleCells.length] = new IntCell(position);
+            cells[tupleCells.length + 1] = new IntCell(index);
+            m_left.addRowToTable(new DefaultRow(
+                    RowKey.createRowKey(m_leftCounter++), cells));
+        }
+
+        void addRight(final DataRow row, final int index,
+                final boolean isSpillRow, final ExecutionContext exec) {
+            if (null == m_right) {
+                m_right = exec.createDataContainer(m_rightSpillSpec, false);
+            }
+            m_right.addRowToTable(isSpillRow ? row
+                    : new AppendedColumnRow(row, new IntCell(index)));
+        }
+
+        void close() {
+            if (null != m_left) {
+                m_left.close();
+                m_leftTable = m_left.getTable();
+                m_left = null;
+            }
+            if (null != m_right) {
+                m_right.close();
+                m_rightTable = m_right.getTable();
+                m_right = null;
+            }
+        }
+
+        void clear(final ExecutionContext exec) {
+            if (null != m_leftTable) {
+                exec.clearTable(m_leftTable);
+                m_leftTable = null;
+            }
+            if (null != m_rightTable) {
+                exec.clearTable(m_rightTable);
+                m_rightTable = null;
+            }
+        }
+    }
+
+    /** Iterates an input table of the sort-merge join and checks that the
+     * rows are sorted on the joining columns. */
+    private static final class SortedInput {
+        private final CloseableRowIterator m_iter;
+        /** Whether the table is sorted by the joiner, the row index is then
+         * stored in the last column. */
+        private final boolean m_sortedCopy;
+        private final int[] m_joinIndices;
+        private final DataValueComparator[] m_comparators;
+        private int m_counter;
+        /** The current row. */
+        private DataRow m_row;
+        /** The index of the current row in the input table. */
+        private int m_index;
+        /** The joining values of the current row. */
+        private DataCell[] m_cells;
+        /** Set when the current row is smaller than the previous row. */
+        private boolean m_unsorted;
+
+        SortedInput(final BufferedDataTable table, final boolean sortedCopy,
+                final int[] joinIndices,
+                final DataValueComparator[] comparators) {
+            m_iter = table.iterator();
+            m_sortedCopy = sortedCopy;
+            m_joinIndices = joinIndices;
+            m_comparators = comparators;
+        }
+
+        /** @return <code>false</code> if there are no more rows. */
+        boolean next() {
+            if (!m_iter.hasNext()) {
+                return false;
+            }
+            DataCell[] previous = m_cells;
+            m_row = m_iter.next();
+            m_index = m_sortedCopy
+                ? ((IntValue)m_row.getCell(m_row.getNumCells() - 1)).getIntValue()
+                : m_counter++;
+            m_cells = getJoinCells(m_row, m_joinIndices);
+            m_unsorted = null != previous
+                && compareJoinCells(m_comparators, previous, m_cells) > 0;
+            return true;
+        }
+
+        void close() {
+            m_iter.close();
+        }
+    }
+
+    /** Iterates the join tuples of the left input table or a left spill. */
+    private final class LeftInput {
+        private final CloseableRowIterator m_iter;
+        private final boolean m_isSpill;
+        private int m_counter;
+        /** The index of the current row. */
+        private int m_index;
+        /** The join tuples of the current row. */
+        private JoinTuple[] m_tuples;
+
+        LeftInput(final BufferedDataTable table, final boolean isSpill) {
+            m_iter = null != table ? table.iterator() : null;
+            m_isSpill = isSpill;
+        }
+
+        boolean hasNext() {
+            return null != m_iter && m_iter.hasNext();
+        }
+
+        void next() {
+            DataRow row = m_iter.next();
+            if (m_isSpill) {
+                int numJoinAttributes = row.getNumCells() - 2;
+                int position = ((IntValue)row.getCell(numJoinAttributes)).getIntValue();
+                DataCell[] cells = new DataCell[numJoinAttributes];
+                for (int i = 0; i < numJoinAttributes; i++) {
+                    cells[i] = position < 0 || position == i
+                        ? row.getCell(i) : WildCardCell.getDefault();
+                }
+                m_index = ((IntValue)row.getCell(numJoinAttributes + 1)).getIntValue();
+                m_tuples = new JoinTuple[] {new JoinTuple(cells)};
+            } else {
+                m_index = m_counter++;
+                m_tuples = new InputRow(row, m_index,
+                        InputRow.Settings.InDataPort.Left,
+                        m_inputDataRowSettings).getJoinTuples();
+            }
+        }
+
+        void close() {
+            if (null != m_iter) {
+                m_iter.close();
+            }
+        }
+    }
+
+    /** Iterates the rows of the right input table or a right spill. */
+    private final class RightInput {
+        private final CloseableRowIterator m_iter;
+        private final boolean m_isSpill;
+        private int m_counter;
+        /** The current row. */
+        private DataRow m_row;
+        /** The index of the current row in the right input table. */
+        private int m_index;
+        /** The join tuples of the current row. */
+        private JoinTuple[] m_tuples;
+
+        RightInput(final BufferedDataTable table, final boolean isSpill) {
+            m_iter = null != table ? table.iterator() : null;
+            m_isSpill = isSpill;
+        }
+
+        boolean hasNext() {
+            return null != m_iter && m_iter.hasNext();
+        }
+
+        void next() {
+            m_row = m_iter.next();
+            m_index = m_isSpill
+                ? ((IntValue)m_row.getCell(m_row.getNumCells() - 1)).getIntValue()
+                : m_counter++;
+            m_tuples = new InputRow(m_row, m_index,
+                    InputRow.Settings.InDataPort.Right,
+                    m_inputDataRowSettings).getJoinTuples();
+        }
+
+        void close() {
+            if (null != m_iter) {
+                m_iter.close();
+            }
+        }
+    }
+
+    /**
+     * A worker builds the partitions with
+     * <code>partition % numWorkers == worker</code> and joins batches of
+     * right rows, writing the result to its own container. The work is
+     * handed to the pool in batches, a batch is submitted after the previous
+     * batch of the worker is finished. Only accessed by one thread at a time.
+     */
+    private final class Worker {
+        private final JoinContainer m_output;
+
+        private Future<?> m_pendingBatch;
+
+        private int m_size;
+
+        private int[] m_indices = new int[BATCH_SIZE];
+
+        // build batch
+        private int[] m_partitions;
+
+        private JoinTuple[] m_tuples;
+
+        // probe batch
+        private DataRow[] m_rows;
+
+        private JoinTuple[][] m_rowTuples;
+
+        /** The left rows matched by this worker when joining on primitive
+         * keys. */
+        private BitSet m_matchedLeftRows;
+
+        Worker(final JoinContainer output) {
+            m_output = output;
+        }
+
+        void addTuple(final int partition, final JoinTuple tuple, final int index) {
+            if (null == m_partitions) {
+                m_partitions = new int[BATCH_SIZE];
+                m_tuples = new JoinTuple[BATCH_SIZE];
+            }
+            m_partitions[m_size] = partition;
+            m_tuples[m_size] = tuple;
+            m_indices[m_size++] = index;
+        }
+
+        void addRow(final DataRow row, final int index, final JoinTuple[] tuples) {
+            if (null == m_rows) {
+                m_rows = new DataRow[BATCH_SIZE];
+                m_rowTuples = new JoinTuple[BATCH_SIZE][];
+            }
+            m_rows[m_size] = row;
+            m_rowTuples[m_size] = tuples;
+            m_indices[m_size++] = index;
+        }
+
+        void submitBuildBatch(
+                final Map<Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
+                final Map<Integer, Set<Integer>> leftOuterJoins)
+        throws CanceledExecutionException {
+            awaitBatch();
+            if (m_size == 0) {
+                return;
+            }
+            final int size = m_size;
+            final int[] partitions = m_partitions;
+            final JoinTuple[] tuples = m_tuples;
+            final int[] indices = m_indices;
+            m_partitions = null;
+            m_tuples = null;
+            m_indices = new int[BATCH_SIZE];
+            m_size = 0;
+            submit(() -> {
+                for (int i = 0; i < size; i++) {
+                    Joiner.this.addRow(leftTableHashed, leftOuterJoins,
+                            partitions[i], tuples[i], indices[i]);
                 }
+            });
+        }
+
+        void submitProbeBatch(
+                final Map<Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
+                final Map<Integer, Set<Integer>> leftOuterJoins,
+                final Collection<Integer> currParts,
+                final ExecutionContext exec)
+        throws CanceledExecutionException {
+            awaitBatch();
+            if (m_size == 0) {
+                return;
+            }
+            final int size = m_size;
+            final DataRow[] rows = m_rows;
+            final JoinTuple[][] tuples = m_rowTuples;
+            final int[] indices = m_indices;
+            m_rows = null;
+            m_rowTuples = null;
+            m_indices = new int[BATCH_SIZE];
+            m_size = 0;
+            submit(() -> probe(rows, indices, tuples, size, leftTableHashed,
+                    leftOuterJoins, currParts, m_output, exec));
+        }
+
+        void submitKeyProbeBatch(final PrimitiveKeyIndex keyIndex,
+                final ExecutionContext exec)
+        throws CanceledExecutionException {
+            awaitBatch();
+            if (m_size == 0) {
+                return;
+            }
+            final int size = m_size;
+            final DataRow[] rows = m_rows;
+            final int[] indices = m_indices;
+            m_rows = null;
+            m_rowTuples = null;
+            m_indices = new int[BATCH_SIZE];
+            m_size = 0;
+            if (m_retainLeft && null == m_matchedLeftRows) {
+                m_matchedLeftRows = new BitSet();
+            }
+            submit(() -> probeKeys(rows, indices, size, keyIndex,
+                    m_matchedLeftRows, m_output, exec));
+        }
+
+        private void submit(final Runnable batch) {
+            m_pendingBatch = m_pool.enqueue(batch);
+        }
+
+        void awaitBatch() throws CanceledExecutionException {
+            if (m_pendingBatch == null) {
+                return;
+            }
+            try {
+                m_pendingBatch.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CanceledExecutionException("Interrupted while waiting for join thread");
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException)cause;
+                } else if (cause instanceof Error) {
+                    throw (Error)cause;
+                }
+                throw new RuntimeException(cause.getMessage(), cause);
+            } finally {
+                m_pendingBatch = null;
             }
         }
 
+        void cancelBatch() {
+            if (m_pendingBatch != null) {
+                m_pendingBatch.cancel(true);
+                m_pendingBatch = null;
+            }
+        }
     }
 
     private List<Integer> getLeftJoinIndices(
@@ -1239,5 +2304,14 @@ void setNumBitsMaximal(final int bits) {
         m_numBitsMaximal = bits;
     }
 
+    /**
+     * Used for testing, only.
+     * @param parallelism number of workers joining the partitions, 0 for
+     * the maximum number of threads of the global pool
+     */
+    void setParallelism(final int parallelism) {
+        m_parallelism = parallelism;
+    }
+
 }
 
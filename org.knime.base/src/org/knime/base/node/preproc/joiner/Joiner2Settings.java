@@ -74,6 +74,7 @@ public class Joiner2Settings {
     private static final String MAX_OPEN_FILES = "maxOpenFiles";
     private static final String ROW_KEY_SEPARATOR = "rowKeySeparator";
     private static final String ENABLE_HILITE = "enableHiLite";
+    private static final String SORT_MERGE_JOIN = "sortMergeJoin";
     private static final String VERSION = "version";
 
     /**
@@ -184,6 +185,7 @@ public enum CompositionMode {
     private int m_maxOpenFiles = 200;
     private String m_rowKeySeparator = "_";
     private boolean m_enableHiLite = false;
+    private boolean m_sortMergeJoin = false;
 
     private String m_version = VERSION_3;
 
@@ -495,6 +497,28 @@ public void setEnableHiLite(final boolean enableHiLite) {
         m_enableHiLite = enableHiLite;
     }
 
+    /**
+     * Returns true when the tables should be joined by merging the tables
+     * sorted on the joining columns instead of hashing them.
+     *
+     * @return the sortMergeJoin
+     * @since 3.7
+     */
+    public boolean getSortMergeJoin() {
+        return m_sortMergeJoin;
+    }
+
+    /**
+     * Set if the tables should be joined by merging the tables sorted on the
+     * joining columns instead of hashing them.
+     *
+     * @param sortMergeJoin the sortMergeJoin to set
+     * @since 3.7
+     */
+    public void setSortMergeJoin(final boolean sortMergeJoin) {
+        m_sortMergeJoin = sortMergeJoin;
+    }
+
     /**
      * Loads the settings from the node settings object.
      *
@@ -531,6 +555,8 @@ public void loadSettings(final NodeSettingsRO settings)
         m_maxOpenFiles = settings.getInt(MAX_OPEN_FILES);
         m_rowKeySeparator = settings.getString(ROW_KEY_SEPARATOR);
         m_enableHiLite = settings.getBoolean(ENABLE_HILITE);
+        // added in 3.7
+        m_sortMergeJoin = settings.getBoolean(SORT_MERGE_JOIN, false);
 
 
     }
@@ -583,6 +609,7 @@ public void loadSettingsForDialog(final NodeSettingsRO settings) {
         m_maxOpenFiles = settings.getInt(MAX_OPEN_FILES, 200);
         m_rowKeySeparator = settings.getString(ROW_KEY_SEPARATOR, "_");
         m_enableHiLite = settings.getBoolean(ENABLE_HILITE, false);
+        m_sortMergeJoin = settings.getBoolean(SORT_MERGE_JOIN, false);
 
 
     }
@@ -611,6 +638,7 @@ public void saveSettings(final NodeSettingsWO settings) {
         settings.addInt(MAX_OPEN_FILES, m_maxOpenFiles);
         settings.addString(ROW_KEY_SEPARATOR, m_rowKeySeparator);
         settings.addBoolean(ENABLE_HILITE, m_enableHiLite);
+        settings.addBoolean(SORT_MERGE_JOIN, m_sortMergeJoin);
         // save default values for settings that were removed in 2.5, so that
         // a workflow created with 2.5 can be opened in 2.4.
         settings.addInt("numBitsInitial", 6);
@@ -0,0 +1,329 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.joiner;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * The hash table of the left table used when the rows are joined on one or
+ * two int, long or string columns (or the row ID). The join columns are
+ * encoded in a single long key, strings are replaced by their index in a
+ * dictionary. The table stores only the keys and the row indices, hence no
+ * {@link JoinTuple} is created for a row and no {@link DataCell} is hashed.
+ *
+ * <p>The table is filled by a single thread, afterwards it can be probed
+ * by several threads concurrently.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PrimitiveKeyIndex {
+
+    private static final int INT = 0;
+
+    private static final int LONG = 1;
+
+    private static final int STRING = 2;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** The kind of the join columns, one of INT, LONG and STRING. */
+    private final int[] m_kinds;
+
+    private final int[] m_leftIndices;
+
+    private final int[] m_rightIndices;
+
+    /** The index of the distinct strings of the left table. */
+    private final Map<String, Integer> m_dictionary =
+        new HashMap<String, Integer>();
+
+    /** Open addressing table of the distinct keys. */
+    private long[] m_keys;
+
+    /** The last row added with the key in the same slot of m_keys,
+     * -1 marks an empty slot. */
+    private int[] m_heads;
+
+    private int m_numKeys;
+
+    /** The previous row with the same key for each row index, -1 ends the
+     * chain. */
+    private final int[] m_next;
+
+    private PrimitiveKeyIndex(final int[] kinds, final int[] leftIndices,
+            final int[] rightIndices, final int numLeftRows) {
+        m_kinds = kinds;
+        m_leftIndices = leftIndices;
+        m_rightIndices = rightIndices;
+        m_next = new int[numLeftRows];
+        m_keys = new long[INITIAL_CAPACITY];
+        m_heads = new int[INITIAL_CAPACITY];
+        Arrays.fill(m_heads, -1);
+    }
+
+    /**
+     * Creates an empty index if the join columns can be encoded in a long
+     * key. This is the case for a single int, long or string column and for
+     * two columns that are either int or string columns. The types of the
+     * left and the right join column need to be the same, the row ID is
+     * treated like a string column.
+     *
+     * @param leftSpec The spec of the left table.
+     * @param rightSpec The spec of the right table.
+     * @param leftIndices The join columns of the left table, -1 for the row
+     * ID.
+     * @param rightIndices The join columns of the right table, -1 for the row
+     * ID.
+     * @param numLeftRows The number of rows of the left table.
+     * @return The index or <code>null</code> if the join columns are not
+     * supported.
+     */
+    static PrimitiveKeyIndex create(final DataTableSpec leftSpec,
+            final DataTableSpec rightSpec, final List<Integer> leftIndices,
+            final List<Integer> rightIndices, final long numLeftRows) {
+        int numJoinAttributes = leftIndices.size();
+        if (numJoinAttributes < 1 || numJoinAttributes > 2
+                || numLeftRows > Integer.MAX_VALUE) {
+            return null;
+        }
+        int[] kinds = new int[numJoinAttributes];
+        for (int i = 0; i < numJoinAttributes; i++) {
+            int leftKind = getKind(leftSpec, leftIndices.get(i));
+            int rightKind = getKind(rightSpec, rightIndices.get(i));
+            if (leftKind < 0 || leftKind != rightKind) {
+                return null;
+            }
+            if (numJoinAttributes > 1 && leftKind == LONG) {
+                // two long columns don't fit into a single long key
+                return null;
+            }
+            kinds[i] = leftKind;
+        }
+        return new PrimitiveKeyIndex(kinds, toArray(leftIndices),
+                toArray(rightIndices), (int)numLeftRows);
+    }
+
+    private static int getKind(final DataTableSpec spec, final int index) {
+        if (index < 0) {
+            return STRING;
+        }
+        DataType type = spec.getColumnSpec(index).getType();
+        if (type.equals(IntCell.TYPE)) {
+            return INT;
+        } else if (type.equals(LongCell.TYPE)) {
+            return LONG;
+        } else if (type.equals(StringCell.TYPE)) {
+            return STRING;
+        }
+        return -1;
+    }
+
+    private static int[] toArray(final List<Integer> indices) {
+        int[] array = new int[indices.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = indices.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Adds a row of the left table. Rows with a missing value in a join
+     * column are not added, they do not match any row.
+     *
+     * @param row The row of the left table.
+     * @param rowIndex The index of the row.
+     * @param key Buffer of length one.
+     */
+    void add(final DataRow row, final int rowIndex, final long[] key) {
+        if (!encode(row, m_leftIndices, true, key)) {
+            return;
+        }
+        int slot = find(key[0]);
+        if (m_heads[slot] < 0) {
+            m_keys[slot] = key[0];
+            m_numKeys++;
+        }
+        m_next[rowIndex] = m_heads[slot];
+        m_heads[slot] = rowIndex;
+        // keep the load factor below 1/2
+        if (2 * m_numKeys > m_keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Returns the index of a row of the left table that matches the given
+     * row of the right table. The other matching rows are obtained by
+     * {@link #getNext(int)}.
+     *
+     * @param row The row of the right table.
+     * @param key Buffer of length one, must not be shared between threads.
+     * @return The index of a matching row or -1 if no row matches.
+     */
+    int getFirst(final DataRow row, final long[] key) {
+        if (!encode(row, m_rightIndices, false, key)) {
+            return -1;
+        }
+        return m_heads[find(key[0])];
+    }
+
+    /**
+     * @param rowIndex The index of a matching row of the left table.
+     * @return The index of the next matching row or -1 if there is none.
+     */
+    int getNext(final int rowIndex) {
+        return m_next[rowIndex];
+    }
+
+    /**
+     * Encodes the join columns of the row.
+     *
+     * @return <code>false</code> if the row cannot match any row, i.e. it has
+     * a missing value or a string that is not in the dictionary.
+     */
+    private boolean encode(final DataRow row, final int[] indices,
+            final boolean add, final long[] key) {
+        long result = 0;
+        for (int i = 0; i < indices.length; i++) {
+            long value;
+            if (indices[i] < 0) {
+                value = encodeString(row.getKey().getString(), add);
+                if (value < 0) {
+                    return false;
+                }
+            } else {
+                DataCell cell = row.getCell(indices[i]);
+                if (cell.isMissing()) {
+                    return false;
+                }
+                switch (m_kinds[i]) {
+                    case INT:
+                        value = ((IntValue)cell).getIntValue();
+                        break;
+                    case LONG:
+                        value = ((LongValue)cell).getLongValue();
+                        break;
+                    default:
+                        value = encodeString(
+                                ((StringValue)cell).getStringValue(), add);
+                        if (value < 0) {
+                            return false;
+                        }
+                }
+            }
+            // two columns are both int or string, each fits into 32 bits
+            result = indices.length == 1 ? value
+                : (result << 32) | (value & 0xFFFFFFFFL);
+        }
+        key[0] = result;
+        return true;
+    }
+
+    /**
+     * @return The index of the string in the dictionary or -1 if the string
+     * is unknown and not added.
+     */
+    private long encodeString(final String s, final boolean add) {
+        Integer index = m_dictionary.get(s);
+        if (null == index) {
+            if (!add) {
+                return -1;
+            }
+            index = m_dictionary.size();
+            m_dictionary.put(s, index);
+        }
+        return index;
+    }
+
+    /** @return The slot of the key or the empty slot it is put in. */
+    private int find(final long key) {
+        int mask = m_keys.length - 1;
+        int slot = (int)mix(key) & mask;
+        while (m_heads[slot] >= 0 && m_keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] keys = m_keys;
+        int[] heads = m_heads;
+        m_keys = new long[2 * keys.length];
+        m_heads = new int[2 * heads.length];
+        Arrays.fill(m_heads, -1);
+        for (int i = 0; i < keys.length; i++) {
+            if (heads[i] >= 0) {
+                int slot = find(keys[i]);
+                m_keys[slot] = keys[i];
+                m_heads[slot] = heads[i];
+            }
+        }
+    }
+
+    /** Finalization step of MurmurHash3, spreads the bits of the key. */
+    private static long mix(final long key) {
+        long k = key;
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
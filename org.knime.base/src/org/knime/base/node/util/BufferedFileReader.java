@@ -647,6 +647,22 @@ public static BufferedFileReader createNewReader(final URL dataLocation,
      *         stream reads from a file).
      */
     public static BufferedFileReader createNewReader(final InputStream in) {
+        return createNewReader(in, Charset.defaultCharset());
+    }
+
+    /**
+     * Same as the method above ({@link #createNewReader(InputStream)}), but
+     * decodes the stream with the specified character set.
+     *
+     * @param in the stream to read from
+     * @param charset the character set to decode the stream with
+     * @return a new buffered reader with some extra functionality (compared to
+     *         the {@link BufferedReader}), but no file size (even if the
+     *         stream reads from a file).
+     * @since 3.7
+     */
+    public static BufferedFileReader createNewReader(final InputStream in,
+            final Charset charset) {
         if (in == null) {
             throw new NullPointerException("Can't open a reader on a null "
                     + "input stream");
@@ -654,7 +670,8 @@ public static BufferedFileReader createNewReader(final InputStream in) {
 
         // the stream used to get the byte count from
         ByteCountingStream sourceStream = new ByteCountingStream(in);
-        InputStreamReader readerStream = new InputStreamReader(sourceStream);
+        InputStreamReader readerStream =
+                new InputStreamReader(sourceStream, charset);
 
         return new BufferedFileReader(readerStream, sourceStream, 0);
 
@@ -0,0 +1,359 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.util.kdtree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+
+/**
+ * Base class for the array based spatial trees. The patterns are stored in tree order in one flat array, i.e. the
+ * patterns of each node are a contiguous range. The nodes are stored in pre-order, the left child of a non-terminal
+ * node directly follows its parent, the index of the right child is stored explicitly.
+ *
+ * @param <T> the type of the data that is stored in the index
+ * @author KNIME AG, Zurich, Switzerland
+ */
+abstract class AbstractArraySpatialIndex<T> implements SpatialIndex<T> {
+
+    /** Number of queries that are processed by one task in a batch query. */
+    private static final int BATCH_SIZE = 256;
+
+    private final int m_k;
+
+    private final double[] m_points;
+
+    private final Object[] m_data;
+
+    private final int[] m_order;
+
+    private final int[] m_start;
+
+    private final int[] m_end;
+
+    private final int[] m_right;
+
+    /**
+     * @param k the dimensionality of the patterns
+     * @param points the coordinates of the patterns in tree order, the coordinates of the i-th pattern are stored at
+     *            <code>[i * k, (i + 1) * k)</code>
+     * @param data the data of the patterns in tree order
+     * @param order the position in which each pattern has been added to the builder, used for sorting neighbours with
+     *            equal distance
+     * @param start the index of the first pattern of each node
+     * @param end the index after the last pattern of each node
+     * @param right the index of the right child of each node or -1 if the node is a terminal node
+     */
+    AbstractArraySpatialIndex(final int k, final double[] points, final Object[] data, final int[] order,
+        final int[] start, final int[] end, final int[] right) {
+        m_k = k;
+        m_points = points;
+        m_data = data;
+        m_order = order;
+        m_start = start;
+        m_end = end;
+        m_right = right;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return m_data.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getDimensionality() {
+        return m_k;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<NearestNeighbour<T>> getKNearestNeighbours(final double[] query, final int k) {
+        if (query.length != m_k) {
+            throw new IllegalArgumentException("The query vector has not length " + m_k);
+        }
+        if (k > size()) {
+            throw new IllegalArgumentException(
+                "The index contains only " + size() + " elements, but " + k + " were requested");
+        }
+        if (k <= 0) {
+            return new ArrayList<NearestNeighbour<T>>(0);
+        }
+        final NeighbourHeap heap = new NeighbourHeap(k);
+        search(query, heap);
+        return heap.toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<List<NearestNeighbour<T>>> getKNearestNeighbours(final double[][] queries, final int k,
+        final ExecutionMonitor exec) throws CanceledExecutionException {
+        final List<Future<List<List<NearestNeighbour<T>>>>> futures = new ArrayList<>();
+        for (int from = 0; from < queries.length; from += BATCH_SIZE) {
+            final int batchStart = from;
+            final int batchEnd = Math.min(from + BATCH_SIZE, queries.length);
+            futures.add(KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(() -> {
+                final List<List<NearestNeighbour<T>>> batch = new ArrayList<>(batchEnd - batchStart);
+                for (int i = batchStart; i < batchEnd; i++) {
+                    batch.add(queries[i] == null ? null : getKNearestNeighbours(queries[i], k));
+                }
+                return batch;
+            }));
+        }
+        final List<List<NearestNeighbour<T>>> results = new ArrayList<>(queries.length);
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                if (exec != null) {
+                    exec.checkCanceled();
+                    exec.setProgress(i / (double)futures.size(), "Searched neighbours of " + results.size()
+                        + " patterns");
+                }
+                results.addAll(futures.get(i).get());
+            }
+        } catch (CanceledExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CanceledExecutionException("Interrupted while searching nearest neighbours");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new RuntimeException(cause);
+        }
+        return results;
+    }
+
+    /**
+     * Adds all patterns to <code>heap</code> that may be among the nearest neighbours of <code>query</code>.
+     *
+     * @param query the query pattern
+     * @param heap the nearest neighbours found so far
+     */
+    abstract void search(final double[] query, final NeighbourHeap heap);
+
+    /**
+     * @param node a node index
+     * @return <code>true</code> if the node has no children
+     */
+    final boolean isTerminal(final int node) {
+        return m_right[node] < 0;
+    }
+
+    /**
+     * @param node the index of a non-terminal node
+     * @return the index of the right child
+     */
+    final int getRight(final int node) {
+        return m_right[node];
+    }
+
+    /**
+     * Offers all patterns of a terminal node to the heap.
+     *
+     * @param node the index of a terminal node
+     * @param query the query pattern
+     * @param heap the nearest neighbours found so far
+     */
+    final void searchTerminal(final int node, final double[] query, final NeighbourHeap heap) {
+        for (int p = m_start[node]; p < m_end[node]; p++) {
+            heap.offer(squaredDistance(query, m_points, p * m_k), p);
+        }
+    }
+
+    /**
+     * Computes the squared distance between <code>query</code> and the <code>query.length</code> values in
+     * <code>values</code> starting at <code>offset</code>.
+     *
+     * @param query the query pattern
+     * @param values an array of coordinates
+     * @param offset the offset of the first coordinate in <code>values</code>
+     * @return the squared Euclidean distance
+     */
+    static double squaredDistance(final double[] query, final double[] values, final int offset) {
+        double sum = 0;
+        for (int i = 0; i < query.length; i++) {
+            final double d = query[i] - values[offset + i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    /**
+     * A bounded max-heap of pattern indices by their squared distance to the query pattern. It contains the
+     * <code>k</code> nearest patterns seen so far plus all patterns with the same distance as the k-th.
+     */
+    final class NeighbourHeap {
+        private final int m_nrNeighbours;
+
+        private double[] m_distances;
+
+        private int[] m_patterns;
+
+        private int m_size;
+
+        NeighbourHeap(final int k) {
+            m_nrNeighbours = k;
+            m_distances = new double[k + 1];
+            m_patterns = new int[k + 1];
+        }
+
+        /**
+         * @return the squared distance a pattern must not exceed to be among the nearest neighbours
+         */
+        double getBound() {
+            return m_size < m_nrNeighbours ? Double.POSITIVE_INFINITY : m_distances[0];
+        }
+
+        void offer(final double distance, final int pattern) {
+            if (m_size < m_nrNeighbours || distance == m_distances[0]) {
+                push(distance, pattern);
+            } else if (distance < m_distances[0]) {
+                final double oldMax = m_distances[0];
+                push(distance, pattern);
+                // the patterns with the old maximum distance are only kept if they are needed to fill up k
+                int nrRemoved = 0;
+                while (m_distances[0] == oldMax) {
+                    nrRemoved++;
+                    pop();
+                }
+                if (m_size < m_nrNeighbours) {
+                    // undo, the removed entries are still in the arrays right behind the heap
+                    for (int i = 0; i < nrRemoved; i++) {
+                        push(oldMax, m_patterns[m_size]);
+                    }
+                }
+            }
+        }
+
+        private void push(final double distance, final int pattern) {
+            if (m_size == m_distances.length) {
+                m_distances = Arrays.copyOf(m_distances, 2 * m_size);
+                m_patterns = Arrays.copyOf(m_patterns, 2 * m_size);
+            }
+            int i = m_size++;
+            while (i > 0) {
+                final int parent = (i - 1) >>> 1;
+                if (m_distances[parent] >= distance) {
+                    break;
+                }
+                m_distances[i] = m_distances[parent];
+                m_patterns[i] = m_patterns[parent];
+                i = parent;
+            }
+            m_distances[i] = distance;
+            m_patterns[i] = pattern;
+        }
+
+        /** Removes the maximum and stores it right behind the heap, i.e. at index <code>m_size</code>. */
+        private void pop() {
+            final double maxDistance = m_distances[0];
+            final int maxPattern = m_patterns[0];
+            m_size--;
+            final double distance = m_distances[m_size];
+            final int pattern = m_patterns[m_size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= m_size) {
+                    break;
+                }
+                if (child + 1 < m_size && m_distances[child + 1] > m_distances[child]) {
+                    child++;
+                }
+                if (distance >= m_distances[child]) {
+                    break;
+                }
+                m_distances[i] = m_distances[child];
+                m_patterns[i] = m_patterns[child];
+                i = child;
+            }
+            m_distances[i] = distance;
+            m_patterns[i] = pattern;
+            m_distances[m_size] = maxDistance;
+            m_patterns[m_size] = maxPattern;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<NearestNeighbour<T>> toList() {
+            final List<Integer> patterns = new ArrayList<>(m_size);
+            final double[] distances = new double[m_size];
+            for (int i = 0; i < m_size; i++) {
+                patterns.add(i);
+                distances[i] = m_distances[i];
+            }
+            Collections.sort(patterns, (a, b) -> {
+                final int c = Double.compare(distances[a], distances[b]);
+                return c != 0 ? c : Integer.compare(m_order[m_patterns[a]], m_order[m_patterns[b]]);
+            });
+            final List<NearestNeighbour<T>> result = new ArrayList<>(m_size);
+            for (int i : patterns) {
+                result.add(new NearestNeighbour<T>((T)m_data[m_patterns[i]], Math.sqrt(distances[i])));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.util.kdtree;
+
+/**
+ * An array based k-d tree. Each non-terminal node splits its patterns at the median of the dimension with the largest
+ * spread, the left subtree contains the patterns with values less than or equal to the split value.
+ *
+ * The search keeps track of the per-dimension offsets between the query pattern and the cell of the current node so
+ * that the distance to the far child's cell can be updated incrementally.
+ *
+ * @param <T> the type of the data that is stored in the index
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ArrayKDTree<T> extends AbstractArraySpatialIndex<T> {
+
+    private final int[] m_splitDim;
+
+    private final double[] m_splitValue;
+
+    /**
+     * @param k the dimensionality of the patterns
+     * @param points the coordinates of the patterns in tree order
+     * @param data the data of the patterns in tree order
+     * @param order the position in which each pattern has been added to the builder
+     * @param start the index of the first pattern of each node
+     * @param end the index after the last pattern of each node
+     * @param right the index of the right child of each node or -1 if the node is a terminal node
+     * @param splitDim the split dimension of each non-terminal node
+     * @param splitValue the split value of each non-terminal node
+     */
+    ArrayKDTree(final int k, final double[] points, final Object[] data, final int[] order, final int[] start,
+        final int[] end, final int[] right, final int[] splitDim, final double[] splitValue) {
+        super(k, points, data, order, start, end, right);
+        m_splitDim = splitDim;
+        m_splitValue = splitValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void search(final double[] query, final NeighbourHeap heap) {
+        if (size() > 0) {
+            search(0, query, new double[query.length], 0, heap);
+        }
+    }
+
+    private void search(final int node, final double[] query, final double[] offsets, final double rd,
+        final NeighbourHeap heap) {
+        if (isTerminal(node)) {
+            searchTerminal(node, query, heap);
+            return;
+        }
+        final int dim = m_splitDim[node];
+        final double diff = query[dim] - m_splitValue[node];
+        final int near;
+        final int far;
+        if (diff <= 0) {
+            near = node + 1;
+            far = getRight(node);
+        } else {
+            near = getRight(node);
+            far = node + 1;
+        }
+        search(near, query, offsets, rd, heap);
+
+        final double oldOffset = offsets[dim];
+        final double farRd = rd - oldOffset * oldOffset + diff * diff;
+        // the small tolerance makes sure that rounding errors never prune patterns with the same distance as the bound
+        if (farRd - 1e-12 * (rd + diff * diff) <= heap.getBound()) {
+            offsets[dim] = diff;
+            search(far, query, offsets, farRd, heap);
+            offsets[dim] = oldOffset;
+        }
+    }
+}
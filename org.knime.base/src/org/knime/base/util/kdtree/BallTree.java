@@ -0,0 +1,120 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.util.kdtree;
+
+/**
+ * An array based ball tree. Each node stores the centroid of its patterns and the radius of the enclosing ball around
+ * it. Subtrees are pruned by the distance between the query pattern and the ball, which in contrast to the cells of a
+ * k-d tree does not degrade as quickly with an increasing number of dimensions.
+ *
+ * @param <T> the type of the data that is stored in the index
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BallTree<T> extends AbstractArraySpatialIndex<T> {
+
+    private final double[] m_centroids;
+
+    private final double[] m_radii;
+
+    /**
+     * @param k the dimensionality of the patterns
+     * @param points the coordinates of the patterns in tree order
+     * @param data the data of the patterns in tree order
+     * @param order the position in which each pattern has been added to the builder
+     * @param start the index of the first pattern of each node
+     * @param end the index after the last pattern of each node
+     * @param right the index of the right child of each node or -1 if the node is a terminal node
+     * @param centroids the centroids of all nodes, the centroid of node i is stored at
+     *            <code>[i * k, (i + 1) * k)</code>
+     * @param radii the radius of each node's ball
+     */
+    BallTree(final int k, final double[] points, final Object[] data, final int[] order, final int[] start,
+        final int[] end, final int[] right, final double[] centroids, final double[] radii) {
+        super(k, points, data, order, start, end, right);
+        m_centroids = centroids;
+        m_radii = radii;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void search(final double[] query, final NeighbourHeap heap) {
+        if (size() > 0) {
+            search(0, query, lowerBound(0, query), heap);
+        }
+    }
+
+    private void search(final int node, final double[] query, final double lowerBound, final NeighbourHeap heap) {
+        if (lowerBound > heap.getBound()) {
+            return;
+        }
+        if (isTerminal(node)) {
+            searchTerminal(node, query, heap);
+            return;
+        }
+        final int left = node + 1;
+        final int right = getRight(node);
+        final double leftBound = lowerBound(left, query);
+        final double rightBound = lowerBound(right, query);
+        if (leftBound <= rightBound) {
+            search(left, query, leftBound, heap);
+            search(right, query, rightBound, heap);
+        } else {
+            search(right, query, rightBound, heap);
+            search(left, query, leftBound, heap);
+        }
+    }
+
+    /**
+     * @return the squared minimal distance between <code>query</code> and any pattern inside the node's ball
+     */
+    private double lowerBound(final int node, final double[] query) {
+        final double dist = Math.sqrt(squaredDistance(query, m_centroids, node * query.length));
+        // the small tolerance makes sure that rounding errors never prune patterns with the same distance as the bound
+        final double d = dist - m_radii[node] - 1e-12 * (dist + m_radii[node]);
+        return d <= 0 ? 0 : d * d;
+    }
+}
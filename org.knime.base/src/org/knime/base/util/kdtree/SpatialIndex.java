@@ -0,0 +1,104 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.util.kdtree;
+
+import java.util.List;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * A spatial index for k-nearest-neighbour queries in the Euclidean space. In contrast to the {@link KDTree} the
+ * patterns and tree nodes are stored in flat arrays and the index can be queried concurrently by several threads.
+ *
+ * For creating an index use the {@link SpatialIndexBuilder}.
+ *
+ * @param <T> the type of the data that is stored in the index
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public interface SpatialIndex<T> {
+
+    /**
+     * Returns the number of stored patterns.
+     *
+     * @return the index' size
+     */
+    int size();
+
+    /**
+     * Returns the dimensionality of the stored patterns.
+     *
+     * @return the number of dimensions
+     */
+    int getDimensionality();
+
+    /**
+     * Searches for the <code>k</code> nearest neighbours of the <code>query</code> pattern. The returned list is
+     * sorted by the distance to the query pattern in increasing order, patterns with equal distance are sorted in the
+     * order they have been added to the builder. The returned list may contain more than <code>k</code> patterns if
+     * the patterns from <code>k</code> to the end have equal distance to the query pattern.
+     *
+     * This method may be called by several threads at the same time.
+     *
+     * @param query the query pattern, must have the same dimensionality as the patterns inside the index
+     * @param k the number of nearest neighbours to retrieve, at most {@link #size()}
+     * @return a sorted list of the nearest neighbours
+     */
+    List<NearestNeighbour<T>> getKNearestNeighbours(double[] query, int k);
+
+    /**
+     * Searches for the <code>k</code> nearest neighbours of each of the <code>queries</code> in parallel. See
+     * {@link #getKNearestNeighbours(double[], int)} for the content of the lists.
+     *
+     * @param queries the query patterns, a <code>null</code> entry results in a <code>null</code> list
+     * @param k the number of nearest neighbours to retrieve, at most {@link #size()}
+     * @param exec an optional execution monitor for progress and cancelation, can be <code>null</code>
+     * @return the nearest neighbours of each query in the order of <code>queries</code>
+     * @throws CanceledExecutionException if the execution has been canceled
+     */
+    List<List<NearestNeighbour<T>>> getKNearestNeighbours(double[][] queries, int k, ExecutionMonitor exec)
+        throws CanceledExecutionException;
+}
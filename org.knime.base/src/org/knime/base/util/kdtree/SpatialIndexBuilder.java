@@ -0,0 +1,353 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.util.kdtree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Factory for array based {@link SpatialIndex spatial indices}. Patterns are added to the builder and the index is
+ * built once with all patterns.
+ *
+ * @param <T> the type of the data stored inside the index
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public class SpatialIndexBuilder<T> {
+
+    /** The available index types. */
+    public enum IndexType {
+        /** A k-d tree, best suited for data with few dimensions. */
+        KD_TREE,
+        /** A ball tree, which prunes better than a k-d tree on data with many dimensions. */
+        BALL_TREE
+    }
+
+    /** The default maximum number of patterns inside a terminal node. */
+    public static final int DEFAULT_LEAF_SIZE = 16;
+
+    private final int m_k;
+
+    private final List<double[]> m_patterns = new ArrayList<double[]>();
+
+    private final List<T> m_data = new ArrayList<T>();
+
+    /**
+     * Creates a new spatial index builder.
+     *
+     * @param k the dimensionality of the stored patterns
+     */
+    public SpatialIndexBuilder(final int k) {
+        m_k = k;
+    }
+
+    /**
+     * Adds a pattern that is later inserted into the index.
+     *
+     * @param pattern the pattern; the length of the array must be the same as the number specified when the builder
+     *            was created
+     * @param data (optional) data associated with the pattern
+     */
+    public void addPattern(final double[] pattern, final T data) {
+        if (pattern.length != m_k) {
+            throw new IllegalArgumentException("pattern is not of specified dimensionality " + m_k);
+        }
+        m_patterns.add(pattern);
+        m_data.add(data);
+    }
+
+    /**
+     * Returns the number of patterns that have been added so far.
+     *
+     * @return the number of patterns
+     */
+    public int size() {
+        return m_patterns.size();
+    }
+
+    /**
+     * Builds a spatial index with the {@link #DEFAULT_LEAF_SIZE} using all the patterns that have been added to the
+     * builder so far.
+     *
+     * @param type the type of the index
+     * @param progMon an optional progress monitor, can be <code>null</code>
+     * @return a spatial index
+     * @throws CanceledExecutionException if the execution has been canceled
+     */
+    public SpatialIndex<T> build(final IndexType type, final ExecutionMonitor progMon)
+        throws CanceledExecutionException {
+        return build(type, DEFAULT_LEAF_SIZE, progMon);
+    }
+
+    /**
+     * Builds a spatial index using all the patterns that have been added to the builder so far.
+     *
+     * @param type the type of the index
+     * @param leafSize the maximum number of patterns inside the terminal nodes
+     * @param progMon an optional progress monitor, can be <code>null</code>
+     * @return a spatial index
+     * @throws CanceledExecutionException if the execution has been canceled
+     */
+    public SpatialIndex<T> build(final IndexType type, final int leafSize, final ExecutionMonitor progMon)
+        throws CanceledExecutionException {
+        if (leafSize < 1) {
+            throw new IllegalArgumentException("The leaf size must be at least 1: " + leafSize);
+        }
+        final Nodes nodes = new Nodes(type, leafSize, progMon);
+        if (!m_patterns.isEmpty()) {
+            nodes.build(0, m_patterns.size());
+        }
+
+        final int[] order = nodes.m_perm;
+        final double[] points = new double[order.length * m_k];
+        final Object[] data = new Object[order.length];
+        for (int i = 0; i < order.length; i++) {
+            System.arraycopy(m_patterns.get(order[i]), 0, points, i * m_k, m_k);
+            data[i] = m_data.get(order[i]);
+        }
+        final int n = nodes.m_count;
+        final int[] start = Arrays.copyOf(nodes.m_start, n);
+        final int[] end = Arrays.copyOf(nodes.m_end, n);
+        final int[] right = Arrays.copyOf(nodes.m_right, n);
+        if (type == IndexType.BALL_TREE) {
+            return new BallTree<T>(m_k, points, data, order, start, end, right,
+                Arrays.copyOf(nodes.m_centroids, n * m_k), Arrays.copyOf(nodes.m_radii, n));
+        } else {
+            return new ArrayKDTree<T>(m_k, points, data, order, start, end, right, Arrays.copyOf(nodes.m_splitDim, n),
+                Arrays.copyOf(nodes.m_splitValue, n));
+        }
+    }
+
+    /** The growable node arrays of the index that is currently being built. */
+    private final class Nodes {
+        private final IndexType m_type;
+
+        private final int m_leafSize;
+
+        private final ExecutionMonitor m_progMon;
+
+        /** The pattern indices in tree order, rearranged while the tree is built. */
+        private final int[] m_perm;
+
+        private int m_count;
+
+        private int m_processedPatterns;
+
+        private int[] m_start;
+
+        private int[] m_end;
+
+        private int[] m_right;
+
+        private int[] m_splitDim;
+
+        private double[] m_splitValue;
+
+        private double[] m_centroids;
+
+        private double[] m_radii;
+
+        Nodes(final IndexType type, final int leafSize, final ExecutionMonitor progMon) {
+            m_type = type;
+            m_leafSize = leafSize;
+            m_progMon = progMon;
+            m_perm = new int[m_patterns.size()];
+            for (int i = 0; i < m_perm.length; i++) {
+                m_perm[i] = i;
+            }
+            final int capacity = Math.max(1, 4 * m_perm.length / leafSize);
+            m_start = new int[capacity];
+            m_end = new int[capacity];
+            m_right = new int[capacity];
+            if (type == IndexType.BALL_TREE) {
+                m_centroids = new double[capacity * m_k];
+                m_radii = new double[capacity];
+            } else {
+                m_splitDim = new int[capacity];
+                m_splitValue = new double[capacity];
+            }
+        }
+
+        /**
+         * Recursively builds the subtree for the patterns <code>m_perm[from, to)</code>.
+         *
+         * @return the index of the subtree's root node
+         */
+        int build(final int from, final int to) throws CanceledExecutionException {
+            final int node = addNode(from, to);
+            if (m_type == IndexType.BALL_TREE) {
+                computeBall(node, from, to);
+            }
+
+            double maxSpread = 0;
+            int maxSpreadDim = -1;
+            if (to - from > m_leafSize) {
+                for (int d = 0; d < m_k; d++) {
+                    final double spread = computeSpread(from, to, d);
+                    if (spread > maxSpread) {
+                        maxSpread = spread;
+                        maxSpreadDim = d;
+                    }
+                }
+            }
+            if (maxSpreadDim < 0) {
+                // either small enough or all patterns are identical
+                m_processedPatterns += to - from;
+                if (m_progMon != null) {
+                    m_progMon.checkCanceled();
+                    m_progMon.setProgress(m_processedPatterns / (double)m_perm.length,
+                        "Added " + m_processedPatterns + " patterns to the index");
+                }
+                return node;
+            }
+
+            final int mid = (from + to) >>> 1;
+            select(from, to, mid, maxSpreadDim);
+            if (m_type == IndexType.KD_TREE) {
+                m_splitDim[node] = maxSpreadDim;
+                m_splitValue[node] = m_patterns.get(m_perm[mid])[maxSpreadDim];
+            }
+            build(from, mid);
+            m_right[node] = build(mid, to);
+            return node;
+        }
+
+        private int addNode(final int from, final int to) {
+            if (m_count == m_start.length) {
+                final int capacity = 2 * m_count;
+                m_start = Arrays.copyOf(m_start, capacity);
+                m_end = Arrays.copyOf(m_end, capacity);
+                m_right = Arrays.copyOf(m_right, capacity);
+                if (m_type == IndexType.BALL_TREE) {
+                    m_centroids = Arrays.copyOf(m_centroids, capacity * m_k);
+                    m_radii = Arrays.copyOf(m_radii, capacity);
+                } else {
+                    m_splitDim = Arrays.copyOf(m_splitDim, capacity);
+                    m_splitValue = Arrays.copyOf(m_splitValue, capacity);
+                }
+            }
+            final int node = m_count++;
+            m_start[node] = from;
+            m_end[node] = to;
+            m_right[node] = -1;
+            return node;
+        }
+
+        private double computeSpread(final int from, final int to, final int dim) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                final double v = m_patterns.get(m_perm[i])[dim];
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+            return max - min;
+        }
+
+        private void computeBall(final int node, final int from, final int to) {
+            final int offset = node * m_k;
+            for (int i = from; i < to; i++) {
+                final double[] p = m_patterns.get(m_perm[i]);
+                for (int d = 0; d < m_k; d++) {
+                    m_centroids[offset + d] += p[d];
+                }
+            }
+            for (int d = 0; d < m_k; d++) {
+                m_centroids[offset + d] /= to - from;
+            }
+            double maxDist = 0;
+            for (int i = from; i < to; i++) {
+                maxDist = Math.max(maxDist,
+                    AbstractArraySpatialIndex.squaredDistance(m_patterns.get(m_perm[i]), m_centroids, offset));
+            }
+            m_radii[node] = Math.sqrt(maxDist);
+        }
+
+        /**
+         * Rearranges <code>m_perm[from, to)</code> so that the pattern at <code>nth</code> has the value it would have
+         * if sorted by dimension <code>dim</code>, with all patterns before having smaller or equal and all patterns
+         * after having larger or equal values.
+         */
+        private void select(final int from, final int to, final int nth, final int dim) {
+            int lo = from;
+            int hi = to - 1;
+            while (lo < hi) {
+                final double pivot = value(lo + ((hi - lo) >>> 1), dim);
+                int i = lo;
+                int j = hi;
+                while (i <= j) {
+                    while (value(i, dim) < pivot) {
+                        i++;
+                    }
+                    while (value(j, dim) > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        final int tmp = m_perm[i];
+                        m_perm[i] = m_perm[j];
+                        m_perm[j] = tmp;
+                        i++;
+                        j--;
+                    }
+                }
+                if (nth <= j) {
+                    hi = j;
+                } else if (nth >= i) {
+                    lo = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private double value(final int i, final int dim) {
+            return m_patterns.get(m_perm[i])[dim];
+        }
+    }
+}
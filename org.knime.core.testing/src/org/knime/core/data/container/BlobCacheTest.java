@@ -0,0 +1,195 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.container.BlobDataCell.BlobAddress;
+
+/**
+ * Tests for the {@link BlobCache}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BlobCacheTest {
+
+    /** Minimal blob cell. */
+    @SuppressWarnings("serial")
+    private static final class TestBlobCell extends BlobDataCell {
+
+        private final int m_value;
+
+        TestBlobCell(final int value) {
+            m_value = value;
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(m_value);
+        }
+
+        @Override
+        protected boolean equalsDataCell(final DataCell dc) {
+            return ((TestBlobCell)dc).m_value == m_value;
+        }
+
+        @Override
+        public int hashCode() {
+            return m_value;
+        }
+    }
+
+    private static BlobAddress address(final int index) {
+        BlobAddress address = new BlobAddress(1, index % 3, false);
+        address.setIndexOfBlobInColumn(index);
+        return address;
+    }
+
+    /** Cached blobs are returned, hits and misses are counted. */
+    @Test
+    public void testGetPut() {
+        BlobCache cache = new BlobCache();
+        TestBlobCell cell = new TestBlobCell(1);
+        assertThat(cache.get(address(1)), is(nullValue()));
+        cache.put(address(1), cell, 1000);
+        assertThat(cache.get(address(1)), is(sameInstance(cell)));
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(cache.getMissCount(), is(1L));
+        assertThat(cache.getWeight(), is(1000L));
+        cache.clear();
+        assertThat(cache.get(address(1)), is(nullValue()));
+        assertThat(cache.getWeight(), is(0L));
+    }
+
+    /** The weight (blob size) limits the cache. */
+    @Test
+    public void testWeightLimit() {
+        final long maxWeight = 16 * 10000L;
+        BlobCache cache = new BlobCache(maxWeight);
+        List<TestBlobCell> cells = new ArrayList<>(); // keep strong references, soft refs must not be cleared
+        for (int i = 0; i < 1000; i++) {
+            TestBlobCell cell = new TestBlobCell(i);
+            cells.add(cell);
+            cache.put(address(i), cell, 1000);
+        }
+        assertThat(cache.getWeight(), is(lessThanOrEqualTo(maxWeight)));
+        assertThat(cache.getEvictionCount() > 0, is(true));
+        // the most recently added blob is always retained
+        assertThat(cache.get(address(999)), is(sameInstance(cells.get(999))));
+    }
+
+    /** A blob larger than a segment's share is cached as the only entry of its segment, until the next blob. */
+    @Test
+    public void testLargeBlob() {
+        final long maxWeight = 16 * 10000L;
+        final long segmentWeight = maxWeight / 16;
+        BlobCache cache = new BlobCache(maxWeight);
+        List<TestBlobCell> cells = new ArrayList<>(); // keep strong references, soft refs must not be cleared
+        for (int i = 0; i < 1000; i++) {
+            TestBlobCell cell = new TestBlobCell(i);
+            cells.add(cell);
+            cache.put(address(i), cell, 1000);
+        }
+        final long evictions = cache.getEvictionCount();
+        TestBlobCell large = new TestBlobCell(1000);
+        cache.put(address(1000), large, 3 * segmentWeight);
+        assertThat(cache.get(address(1000)), is(sameInstance(large)));
+        assertThat("Entries of the segment evicted", cache.getEvictionCount() > evictions, is(true));
+        assertThat(cache.getWeight(), is(lessThanOrEqualTo(15 * segmentWeight + 3 * segmentWeight)));
+        // the large blob is the least recently used entry of its segment as soon as another blob is added to it
+        for (int i = 1001; i < 2000; i++) {
+            cache.put(address(i), new TestBlobCell(i), 1000);
+        }
+        assertThat(cache.get(address(1000)), is(nullValue()));
+        assertThat(cache.getWeight(), is(lessThanOrEqualTo(maxWeight)));
+    }
+
+    /** Concurrent readers and writers. */
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final BlobCache cache = new BlobCache(1L << 20);
+        final TestBlobCell[] cells = new TestBlobCell[500];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new TestBlobCell(i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        int index = (i * 31 + seed * 17) % cells.length;
+                        BlobDataCell cell = cache.get(address(index));
+                        if (cell == null) {
+                            cache.put(address(index), cells[index], 4000);
+                        } else {
+                            assertThat(cell, is(sameInstance((BlobDataCell)cells[index])));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(cache.getHitCount() + cache.getMissCount(), is(8 * 20000L));
+        assertThat(cache.getWeight(), is(lessThanOrEqualTo(1L << 20)));
+    }
+}
@@ -74,6 +74,7 @@
 import org.knime.core.data.MissingValue;
 import org.knime.core.data.RowIterator;
 import org.knime.core.data.RowKey;
+import org.knime.core.data.UnmaterializedCell;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
@@ -553,6 +554,37 @@ public void run() {
         }
     } // testBigFile()
 
+    /** Iterators with column filter and start row on a table written to disc: filtered cells are skipped and
+     * returned as {@link UnmaterializedCell}, rows before the start row are skipped. */
+    public void testFilterColumnsAndFromRowIndex() {
+        DataContainer container = new DataContainer(SPEC_STR_INT_DBL, true, 0);
+        final int count = 1000;
+        for (RowIterator it = generateRows(count); it.hasNext();) {
+            container.addRowToTable(it.next());
+        }
+        container.close();
+        ContainerTable table = container.getBufferedTable();
+        assertTrue(table.getBuffer().usesOutFile());
+        for (int fromRow : new int[]{0, 1, 63, 64, 65, 500, count - 1, count, count + 10}) {
+            RowIterator expectedIt = generateRows(count);
+            for (int i = 0; i < fromRow && expectedIt.hasNext(); i++) {
+                expectedIt.next();
+            }
+            try (CloseableRowIterator it = table.iteratorBuilder().filterColumns(1).fromRowIndex(fromRow).build()) {
+                while (expectedIt.hasNext()) {
+                    DataRow expected = expectedIt.next();
+                    assertTrue("Too few rows starting at " + fromRow, it.hasNext());
+                    DataRow actual = it.next();
+                    assertEquals(expected.getKey(), actual.getKey());
+                    assertTrue(actual.getCell(0) instanceof UnmaterializedCell);
+                    assertEquals(expected.getCell(1), actual.getCell(1));
+                    assertTrue(actual.getCell(2) instanceof UnmaterializedCell);
+                }
+                assertFalse("Too many rows starting at " + fromRow, it.hasNext());
+            }
+        }
+    }
+
     /** Restoring into main memory.
      * @see ContainerTable#restoreIntoMemory()*/
     public void testRestoreIntoMemory() {
@@ -0,0 +1,169 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests tables created via {@link ExecutionContext#createRowSelectionTable(BufferedDataTable, BitSet)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RowSelectionTableTest {
+
+    private static final int ROW_COUNT = 10000;
+
+    private ExecutionContext m_exec;
+
+    private BufferedDataTable m_table;
+
+    /** Creates the execution context and a table with an int and a string column. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+        DataTableSpec spec = new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("string", StringCell.TYPE).createSpec());
+        BufferedDataContainer container = m_exec.createDataContainer(spec);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            container.addRowToTable(new DefaultRow("Row" + i, new IntCell(i), new StringCell("s" + i)));
+        }
+        container.close();
+        m_table = container.getTable();
+    }
+
+    /** Every third row, checks keys, cells and size. */
+    @Test
+    public void testSelection() {
+        BitSet selection = new BitSet();
+        for (int i = 0; i < ROW_COUNT; i += 3) {
+            selection.set(i);
+        }
+        BufferedDataTable selected = m_exec.createRowSelectionTable(m_table, selection);
+        assertThat("Table size", selected.size(), is((long)selection.cardinality()));
+        assertThat("Selected rows", readInts(selected.iterator()), is(toList(selection)));
+    }
+
+    /** Selection of a selection, rows must be relative to the selected table. */
+    @Test
+    public void testNestedSelection() {
+        BitSet first = new BitSet();
+        first.set(100, 5000); // rows 100..4999
+        BitSet second = new BitSet();
+        second.set(0);
+        second.set(10, 20);
+        second.set(4899);
+        BufferedDataTable selected =
+            m_exec.createRowSelectionTable(m_exec.createRowSelectionTable(m_table, first), second);
+        List<Integer> expected = new ArrayList<>();
+        expected.add(100);
+        for (int i = 110; i < 120; i++) {
+            expected.add(i);
+        }
+        expected.add(4999);
+        assertThat("Selected rows", readInts(selected.iterator()), is(expected));
+        assertThat("Table size", selected.size(), is((long)expected.size()));
+    }
+
+    /** Start row and column filter are applied to the selected rows. */
+    @Test
+    public void testIteratorBuilder() {
+        BitSet selection = new BitSet();
+        selection.set(5);
+        selection.set(700, 710);
+        selection.set(9999);
+        BufferedDataTable selected = m_exec.createRowSelectionTable(m_table, selection);
+        try (CloseableRowIterator it = selected.iteratorBuilder().filterColumns(0).fromRowIndex(3).build()) {
+            assertThat(readInts(it), is(toList(selection).subList(3, selection.cardinality())));
+        }
+    }
+
+    private static List<Integer> readInts(final CloseableRowIterator it) {
+        List<Integer> result = new ArrayList<>();
+        while (it.hasNext()) {
+            DataRow row = it.next();
+            int value = ((IntValue)row.getCell(0)).getIntValue();
+            assertThat("Row key", row.getKey().getString(), is("Row" + value));
+            result.add(value);
+        }
+        it.close();
+        return result;
+    }
+
+    private static List<Integer> toList(final BitSet selection) {
+        List<Integer> result = new ArrayList<>();
+        selection.stream().forEach(result::add);
+        return result;
+    }
+}
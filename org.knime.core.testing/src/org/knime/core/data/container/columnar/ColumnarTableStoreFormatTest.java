@@ -0,0 +1,223 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.columnar;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.MissingCell;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.UnmaterializedCell;
+import org.knime.core.data.container.Buffer;
+import org.knime.core.data.container.storage.AbstractTableStoreReader;
+import org.knime.core.data.container.storage.AbstractTableStoreReader.TableStoreCloseableRowIterator;
+import org.knime.core.data.container.storage.AbstractTableStoreWriter;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.xml.XMLCell;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests writing and reading tables in the {@link ColumnarTableStoreFormat}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ColumnarTableStoreFormatTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(
+        new String[]{"int", "long", "double", "boolean", "string"},
+        new DataType[]{IntCell.TYPE, LongCell.TYPE, DoubleCell.TYPE, BooleanCell.TYPE, StringCell.TYPE});
+
+    private File m_file;
+
+    /** Creates the temp file. */
+    @Before
+    public void setUp() throws IOException {
+        m_file = FileUtil.createTempFile("columnar-test", ".col");
+    }
+
+    /** Deletes the temp file. */
+    @After
+    public void tearDown() {
+        m_file.delete();
+    }
+
+    private static DataRow createRow(final int i) {
+        DataCell[] cells = new DataCell[]{new IntCell(i), new LongCell(i * 1000L), new DoubleCell(i / 3.0),
+            BooleanCell.get(i % 2 == 0), new StringCell("Row " + i)};
+        if (i % 7 == 0) {
+            cells[i % cells.length] = DataType.getMissingCell();
+        }
+        if (i % 11 == 0) {
+            cells[2] = new IntCell(i); // IntCell is compatible with the double column
+        }
+        if (i % 13 == 0) {
+            cells[4] = new MissingCell("Error " + i);
+        }
+        return new DefaultRow(RowKey.createRowKey((long)i), cells);
+    }
+
+    private AbstractTableStoreReader writeTable(final int rowCount) throws Exception {
+        ColumnarTableStoreFormat format = new ColumnarTableStoreFormat();
+        NodeSettings settings = new NodeSettings("columnar");
+        AbstractTableStoreWriter writer = format.createWriter(m_file, SPEC, true);
+        for (int i = 0; i < rowCount; i++) {
+            writer.writeRow(createRow(i));
+        }
+        writer.close();
+        writer.writeMetaInfoAfterWrite(settings);
+        return format.createReader(m_file, SPEC, settings, null, Buffer.IVERSION, true);
+    }
+
+    /** Round trip over multiple chunks, including missing values and cells of non-native type. */
+    @Test
+    public void testWriteRead() throws Exception {
+        final int rowCount = 3 * ColumnarTableStoreFormat.getRowsPerChunk(SPEC.getNumColumns()) + 17;
+        AbstractTableStoreReader reader = writeTable(rowCount);
+        int i = 0;
+        try (TableStoreCloseableRowIterator it = reader.iteratorBuilder().build()) {
+            while (it.hasNext()) {
+                DataRow expected = createRow(i);
+                DataRow actual = it.next();
+                assertThat("Row key " + i, actual.getKey(), is(expected.getKey()));
+                for (int c = 0; c < SPEC.getNumColumns(); c++) {
+                    assertThat("Cell " + c + " in row " + i, actual.getCell(c), is(expected.getCell(c)));
+                    assertThat("Cell class " + c + " in row " + i, actual.getCell(c).getClass(),
+                        is((Object)expected.getCell(c).getClass()));
+                }
+                i++;
+            }
+        }
+        assertThat("Row count", i, is(rowCount));
+    }
+
+    /** Filtered columns are returned as unmaterialized cells, the others are read correctly. */
+    @Test
+    public void testFilterColumns() throws Exception {
+        final int rowCount = ColumnarTableStoreFormat.getRowsPerChunk(SPEC.getNumColumns()) + 5;
+        AbstractTableStoreReader reader = writeTable(rowCount);
+        int i = 0;
+        try (TableStoreCloseableRowIterator it = reader.iteratorBuilder().filterColumns(1, 4).build()) {
+            while (it.hasNext()) {
+                DataRow expected = createRow(i);
+                DataRow actual = it.next();
+                assertThat(actual.getCell(0), instanceOf(UnmaterializedCell.class));
+                assertThat(actual.getCell(1), is(expected.getCell(1)));
+                assertThat(actual.getCell(2), instanceOf(UnmaterializedCell.class));
+                assertThat(actual.getCell(3), instanceOf(UnmaterializedCell.class));
+                assertThat(actual.getCell(4), is(expected.getCell(4)));
+                i++;
+            }
+        }
+        assertThat("Row count", i, is(rowCount));
+    }
+
+    /** A compressed chunk with fewer stored bytes than needed fails instead of reading forever. */
+    @Test(timeout = 10000)
+    public void testTruncatedChunk() throws Exception {
+        assumeTrue(ColumnarTableStoreFormat.IS_USE_COMPRESSION);
+        AbstractTableStoreReader reader = writeTable(100);
+        // the file starts with the number of rows in the chunk and the stored length of the row key chunk
+        try (RandomAccessFile raf = new RandomAccessFile(m_file, "rw")) {
+            raf.seek(4);
+            int storedLength = raf.readInt();
+            raf.seek(4);
+            raf.writeInt(storedLength / 2);
+        }
+        assertReadFails(reader);
+    }
+
+    /** A compressed chunk that inflates to fewer bytes than its raw length fails. */
+    @Test(timeout = 10000)
+    public void testShortChunk() throws Exception {
+        assumeTrue(ColumnarTableStoreFormat.IS_USE_COMPRESSION);
+        AbstractTableStoreReader reader = writeTable(100);
+        // raw length of the row key chunk follows its stored length
+        try (RandomAccessFile raf = new RandomAccessFile(m_file, "rw")) {
+            raf.seek(8);
+            int rawLength = raf.readInt();
+            raf.seek(8);
+            raf.writeInt(rawLength + 100);
+        }
+        assertReadFails(reader);
+    }
+
+    private static void assertReadFails(final AbstractTableStoreReader reader) {
+        try (TableStoreCloseableRowIterator it = reader.iteratorBuilder().build()) {
+            it.next();
+            fail("Corrupt chunk not detected");
+        } catch (RuntimeException e) {
+            assertThat(e.getCause(), instanceOf(IOException.class));
+        }
+    }
+
+    /** Only tables with supported column types are accepted. */
+    @Test
+    public void testAccepts() {
+        ColumnarTableStoreFormat format = new ColumnarTableStoreFormat();
+        assertThat(format.accepts(SPEC), is(true));
+        DataTableSpec xmlSpec = new DataTableSpec(new String[]{"int", "xml"}, new DataType[]{IntCell.TYPE, XMLCell.TYPE});
+        assertThat(format.accepts(xmlSpec), is(false));
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.compress;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+import org.knime.core.data.container.compress.RandomAccessFileInput.BlockTable;
+import org.knime.core.data.util.NonClosableOutputStream;
+
+/**
+ * Round-trip tests for the {@link DefaultCompressionCodec built-in codecs}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TableCompressionCodecTest {
+
+    /** The minimum compression ratio of table-like data. */
+    private static final double MIN_RATIO = 2;
+
+    /** Empty and tiny inputs (shorter than the minimum match). */
+    @Test
+    public void testEmptyAndTiny() throws IOException {
+        for (DefaultCompressionCodec codec : DefaultCompressionCodec.values()) {
+            roundTrip(codec, new byte[0]);
+            roundTrip(codec, new byte[]{42});
+            roundTrip(codec, new byte[]{1, 2, 3, 4, 1, 2, 3, 4, 1, 2, 3, 4, 1});
+        }
+    }
+
+    /** Incompressible input, blocks are stored raw. */
+    @Test
+    public void testRandom() throws IOException {
+        byte[] data = new byte[300000];
+        new Random(1).nextBytes(data);
+        for (DefaultCompressionCodec codec : DefaultCompressionCodec.values()) {
+            roundTrip(codec, data);
+        }
+    }
+
+    /** Long runs (overlapping matches, long literal/match length encodings). */
+    @Test
+    public void testRuns() throws IOException {
+        byte[] data = new byte[200000];
+        Random r = new Random(2);
+        for (int i = 0; i < data.length;) {
+            int runLength = r.nextInt(2000);
+            byte b = (byte)r.nextInt(4);
+            for (int j = 0; j < runLength && i < data.length; j++) {
+                data[i++] = b;
+            }
+        }
+        for (DefaultCompressionCodec codec : DefaultCompressionCodec.values()) {
+            byte[] compressed = roundTrip(codec, data);
+            if (codec != DefaultCompressionCodec.None) {
+                assertThat("Compressed size with " + codec, compressed.length < data.length / 10, is(true));
+            }
+        }
+    }
+
+    /** Data resembling a serialized table, read byte-wise as done by the table readers. */
+    @Test
+    public void testTableLikeData() throws IOException {
+        byte[] data = createTableLikeData(20000, 3);
+        for (DefaultCompressionCodec codec : DefaultCompressionCodec.values()) {
+            byte[] compressed = compress(codec, data);
+            try (InputStream in = codec.createDecompressionStream(new ByteArrayInputStream(compressed))) {
+                for (int i = 0; i < data.length; i++) {
+                    assertThat("Byte " + i + " with " + codec, in.read(), is(data[i] & 0xFF));
+                }
+                assertThat("End of stream with " + codec, in.read(), is(-1));
+            }
+        }
+    }
+
+    /**
+     * All codecs but {@link DefaultCompressionCodec#None} must compress table-like data considerably, gzip at least as
+     * well as the faster block codecs.
+     */
+    @Test
+    public void testCompressionRatios() throws IOException {
+        byte[] data = createTableLikeData(100000, 8);
+        Map<DefaultCompressionCodec, Double> ratios = new EnumMap<>(DefaultCompressionCodec.class);
+        for (DefaultCompressionCodec codec : DefaultCompressionCodec.values()) {
+            ratios.put(codec, data.length / (double)roundTrip(codec, data).length);
+        }
+        assertThat("Ratio without compression", ratios.get(DefaultCompressionCodec.None), is(1.0));
+        for (DefaultCompressionCodec codec : EnumSet.complementOf(EnumSet.of(DefaultCompressionCodec.None))) {
+            assertThat("Ratio of " + codec + ": " + ratios.get(codec), ratios.get(codec) >= MIN_RATIO, is(true));
+        }
+        for (DefaultCompressionCodec codec : EnumSet.of(DefaultCompressionCodec.LZ4, DefaultCompressionCodec.Snappy)) {
+            assertThat("Ratio of gzip vs. " + codec + ": " + ratios,
+                ratios.get(DefaultCompressionCodec.Gzip) >= ratios.get(codec), is(true));
+        }
+    }
+
+    /** Chunks compressed in parallel must result in the same output as the sequential block stream. */
+    @Test
+    public void testParallelBlockCompression() throws IOException {
+        byte[] data = createTableLikeData(100000, 5);
+        assertThat("Multiple chunks", data.length > 3 * ParallelCompressionOutputStream.CHUNK_SIZE, is(true));
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        try (OutputStream out = new BlockCompressionOutputStream(sequential, new LZ4BlockCompressor())) {
+            out.write(data);
+        }
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        try (OutputStream out = new ParallelCompressionOutputStream(parallel, (chunk, length, bytes) -> {
+            try (OutputStream blockOut = new BlockCompressionOutputStream(bytes, new LZ4BlockCompressor())) {
+                blockOut.write(chunk, 0, length);
+            }
+        })) {
+            for (byte b : data) {
+                out.write(b);
+            }
+        }
+        assertArrayEquals("Parallel and sequential output", sequential.toByteArray(), parallel.toByteArray());
+    }
+
+    /**
+     * Parallel gzip writes a single member, which must be readable from streams that don't report available bytes
+     * (where {@link GZIPInputStream} stops after the first member of multi-member files), for small and large data.
+     */
+    @Test
+    public void testParallelGzip() throws IOException, DataFormatException {
+        for (int rows : new int[]{0, 1000, 100000}) {
+            byte[] data = createTableLikeData(rows, 6);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (OutputStream out = ParallelCompressionOutputStream.gzip(bytes)) {
+                for (int i = 0; i < data.length; i++) {
+                    if (i % 100000 == 0) {
+                        out.flush();
+                    }
+                    out.write(data[i]);
+                }
+            }
+            byte[] compressed = bytes.toByteArray();
+            ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+            try (InputStream in = new GZIPInputStream(new NoAvailableInputStream(compressed))) {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    decompressed.write(buffer, 0, read);
+                }
+            }
+            assertArrayEquals("Round trip of " + rows + " rows", data, decompressed.toByteArray());
+
+            Inflater inflater = new Inflater(true);
+            inflater.setInput(compressed, 10, compressed.length - 10);
+            inflater.inflate(new byte[data.length + 1]);
+            assertThat("Single deflate stream followed by the trailer", inflater.getRemaining(), is(8));
+            inflater.end();
+
+            ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(sequential)) {
+                out.write(data);
+            }
+            assertThat("Compression ratio of " + rows + " rows",
+                compressed.length <= sequential.size() + sequential.size() / 100 + 64, is(true));
+        }
+    }
+
+    /** All streams the codec reads must decode the parallel output. */
+    @Test
+    public void testParallelGzipDecompressionStreams() throws IOException {
+        byte[] data = createTableLikeData(100000, 7);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = ParallelCompressionOutputStream.gzip(bytes)) {
+            out.write(data);
+        }
+        byte[] compressed = bytes.toByteArray();
+        assertArrayEquals("Byte array stream", data,
+            decompress(DefaultCompressionCodec.Gzip, compressed, data.length));
+        File file = File.createTempFile("parallel-gzip", ".bin");
+        try {
+            try (OutputStream out = new FileOutputStream(file)) {
+                out.write(compressed);
+            }
+            for (InputStream raw : new InputStream[]{new FileInputStream(file),
+                new BufferedInputStream(new FileInputStream(file), 1000), new NoAvailableInputStream(compressed)}) {
+                try (InputStream in = DefaultCompressionCodec.Gzip.createDecompressionStream(raw)) {
+                    for (int i = 0; i < data.length; i++) {
+                        assertThat("Byte " + i + " from " + raw.getClass().getSimpleName(), in.read(),
+                            is(data[i] & 0xFF));
+                    }
+                    assertThat("End of stream", in.read(), is(-1));
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /** Failures in the compression threads are reported to the writing thread. */
+    @Test(expected = IOException.class)
+    public void testParallelFailure() throws IOException {
+        try (OutputStream out = new ParallelCompressionOutputStream(new ByteArrayOutputStream(),
+            (chunk, length, bytes) -> {
+                throw new IOException("Expected failure");
+            })) {
+            out.write(new byte[3 * ParallelCompressionOutputStream.CHUNK_SIZE]);
+        }
+    }
+
+    /** Corrupt input must raise an IOException, not an index exception. */
+    @Test(expected = IOException.class)
+    public void testCorruptInput() throws IOException {
+        byte[] compressed = compress(DefaultCompressionCodec.LZ4, createTableLikeData(1000, 4));
+        for (int i = 20; i < compressed.length; i += 7) {
+            compressed[i] = (byte)~compressed[i];
+        }
+        decompress(DefaultCompressionCodec.LZ4, compressed, Integer.MAX_VALUE);
+    }
+
+    /** Decompression starting at arbitrary offsets of files with trailing data (as the table row index). */
+    @Test
+    public void testRandomAccess() throws IOException {
+        byte[] data = createTableLikeData(20000, 5);
+        for (DefaultCompressionCodec codec : DefaultCompressionCodec.values()) {
+            if (!codec.isRandomAccessSupported()) {
+                continue;
+            }
+            File file = File.createTempFile("random-access", ".bin");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+                    out.write(compress(codec, data));
+                    out.writeLong(0L); // end marker
+                    out.writeLong(Long.MAX_VALUE); // some trailing data
+                }
+                try (RandomAccessFileInput input = new RandomAccessFileInput(file)) {
+                    Random r = new Random(6);
+                    for (int i = 0; i < 50; i++) {
+                        int offset = i == 0 ? data.length : r.nextInt(data.length);
+                        int length = Math.min(data.length - offset, r.nextInt(200000));
+                        try (InputStream in = codec.createDecompressionStream(input, offset)) {
+                            for (int j = 0; j < length; j++) {
+                                assertThat("Byte " + (offset + j) + " with " + codec, in.read(),
+                                    is(data[offset + j] & 0xFF));
+                            }
+                            if (offset + length == data.length && codec != DefaultCompressionCodec.None) {
+                                assertThat("End of stream with " + codec, in.read(), is(-1));
+                            }
+                        }
+                    }
+                }
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    /** The block table recorded while writing equals the one found by following the block headers. */
+    @Test
+    public void testBlockTableRecorder() throws IOException {
+        byte[] data = createTableLikeData(20000, 7);
+        for (DefaultCompressionCodec codec : DefaultCompressionCodec.values()) {
+            if (!BlockTableRecorder.isSupported(codec)) {
+                continue;
+            }
+            File file = File.createTempFile("block-table", ".bin");
+            try {
+                BlockTableRecorder recorder;
+                long tablePosition;
+                try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+                    recorder = new BlockTableRecorder(new NonClosableOutputStream(out));
+                    try (OutputStream compressed = codec.createCompressionStream(recorder)) {
+                        compressed.write(data);
+                    }
+                    out.writeLong(0L); // end marker
+                    tablePosition = out.size();
+                    recorder.writeTo(out);
+                }
+                final int blockCount = recorder.getBlockCount();
+                assertThat("Multiple blocks with " + codec, blockCount > 1, is(true));
+                try (RandomAccessFileInput scanned = new RandomAccessFileInput(file);
+                        RandomAccessFileInput stored = new RandomAccessFileInput(file, tablePosition, blockCount)) {
+                    BlockTable expected = scanned.getBlockTable();
+                    BlockTable actual = stored.getBlockTable();
+                    for (int i = 0; i < blockCount; i++) {
+                        assertThat("Raw offset of block " + i + " with " + codec, actual.getRawOffset(i),
+                            is(expected.getRawOffset(i)));
+                        assertThat("File offset of block " + i + " with " + codec, actual.getFileOffset(i),
+                            is(expected.getFileOffset(i)));
+                    }
+                    assertThat("Last block with " + codec, expected.findBlock(data.length), is(blockCount - 1));
+                    Random r = new Random(8);
+                    for (int i = 0; i < 20; i++) {
+                        int offset = r.nextInt(data.length);
+                        try (InputStream in = codec.createDecompressionStream(stored, offset)) {
+                            for (int j = offset; j < Math.min(data.length, offset + 1000); j++) {
+                                assertThat("Byte " + j + " with " + codec, in.read(), is(data[j] & 0xFF));
+                            }
+                        }
+                    }
+                }
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * @param rows number of rows
+     * @param seed random seed
+     * @return bytes as written for rows with a row key, an int, a double and a nominal string column
+     */
+    static byte[] createTableLikeData(final int rows, final long seed) throws IOException {
+        Random r = new Random(seed);
+        String[] nominal = {"Iris-setosa", "Iris-versicolor", "Iris-virginica", "unknown"};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (int i = 0; i < rows; i++) {
+                out.writeUTF("Row" + i);
+                out.writeByte(3);
+                out.writeInt(r.nextInt(1000));
+                out.writeByte(4);
+                out.writeDouble(Math.round(r.nextGaussian() * 100) / 10.0);
+                out.writeByte(5);
+                out.writeUTF(nominal[r.nextInt(nominal.length)]);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] roundTrip(final TableCompressionCodec codec, final byte[] data) throws IOException {
+        byte[] compressed = compress(codec, data);
+        assertArrayEquals("Round trip with " + codec.getName(), data, decompress(codec, compressed, data.length));
+        return compressed;
+    }
+
+    /** Returns 0 from {@link #available()}, as network streams and the off-heap table cache at page boundaries. */
+    private static final class NoAvailableInputStream extends ByteArrayInputStream {
+        NoAvailableInputStream(final byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int available() {
+            return 0;
+        }
+
+        @Override
+        public synchronized int read(final byte[] b, final int off, final int len) {
+            // short reads, like a socket
+            return super.read(b, off, Math.min(len, 1000));
+        }
+    }
+
+    static byte[] compress(final TableCompressionCodec codec, final byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = codec.createCompressionStream(bytes)) {
+            // odd chunk sizes to exercise block boundaries
+            for (int i = 0; i < data.length; i += 1001) {
+                out.write(data, i, Math.min(1001, data.length - i));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] decompress(final TableCompressionCodec codec, final byte[] compressed,
+        final int maxLength) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = codec.createDecompressionStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[777];
+            int read;
+            while ((read = in.read(buffer)) >= 0 && bytes.size() <= maxLength) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+}
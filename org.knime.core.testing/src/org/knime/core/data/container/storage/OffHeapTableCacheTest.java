@@ -0,0 +1,253 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.CoreMatchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.container.compress.DefaultCompressionCodec;
+
+/**
+ * Tests for the {@link OffHeapTableCache}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class OffHeapTableCacheTest {
+
+    private File m_dir;
+
+    /** Creates the temp directory. */
+    @Before
+    public void setUp() throws IOException {
+        m_dir = File.createTempFile("offheap-cache", "");
+        m_dir.delete();
+        m_dir.mkdir();
+    }
+
+    /** Deletes the temp directory. */
+    @After
+    public void tearDown() {
+        for (File f : m_dir.listFiles()) {
+            f.delete();
+        }
+        m_dir.delete();
+    }
+
+    private static byte[] createData(final int length, final long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    /** Writes the data through the cache, byte-wise and in odd chunks crossing page boundaries. */
+    private File write(final OffHeapTableCache cache, final String name, final byte[] data) throws IOException {
+        File file = new File(m_dir, name);
+        try (OutputStream out = cache.newCachingOutputStream(file, new FileOutputStream(file))) {
+            int i = 0;
+            for (; i < Math.min(100, data.length); i++) {
+                out.write(data[i]);
+            }
+            for (; i < data.length; i += 77777) {
+                out.write(data, i, Math.min(77777, data.length - i));
+            }
+        }
+        return file;
+    }
+
+    private static byte[] read(final OffHeapTableCache cache, final File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = cache.openInputStream(file)) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Written files are cached and read back correctly. */
+    @Test
+    public void testWriteRead() throws IOException {
+        OffHeapTableCache cache = new OffHeapTableCache(64L << 20);
+        for (int length : new int[]{0, 1, OffHeapTableCache.PAGE_SIZE, 3 * OffHeapTableCache.PAGE_SIZE + 5}) {
+            byte[] data = createData(length, length);
+            File file = write(cache, "file" + length, data);
+            assertThat("Cached " + length, cache.isCached(file), is(true));
+            assertArrayEquals("Content " + length, data, read(cache, file));
+        }
+        assertThat(cache.getSize(), is(4L * OffHeapTableCache.PAGE_SIZE + 6));
+    }
+
+    /** {@link InputStream#available()} counts the bytes of all pages, not only of the current one. */
+    @Test
+    public void testAvailable() throws IOException {
+        OffHeapTableCache cache = new OffHeapTableCache(64L << 20);
+        final int length = 2 * OffHeapTableCache.PAGE_SIZE + 10;
+        File file = write(cache, "file", createData(length, 3));
+        try (InputStream in = cache.openInputStream(file)) {
+            assertThat(in.available(), is(length));
+            in.skip(OffHeapTableCache.PAGE_SIZE);
+            assertThat("At page boundary", in.available(), is(length - OffHeapTableCache.PAGE_SIZE));
+            in.read(new byte[OffHeapTableCache.PAGE_SIZE]);
+            in.read();
+            assertThat(in.available(), is(9));
+            in.skip(100);
+            assertThat(in.available(), is(0));
+        }
+    }
+
+    /**
+     * Gzip tables larger than a page, as written by the (parallel) table compression, must be read completely. This
+     * includes multi-member files (written by earlier versions) whose member ends at a page boundary, where
+     * {@link GZIPInputStream} only continues if the stream reports further available bytes.
+     */
+    @Test
+    public void testGzipAcrossPages() throws IOException {
+        OffHeapTableCache cache = new OffHeapTableCache(64L << 20);
+        byte[] data = createData(3 * OffHeapTableCache.PAGE_SIZE, 4);
+        File file = new File(m_dir, "table.bin");
+        try (OutputStream out = DefaultCompressionCodec.Gzip
+            .createCompressionStream(cache.newCachingOutputStream(file, new FileOutputStream(file)))) {
+            out.write(data);
+        }
+        assertThat(cache.isCached(file), is(true));
+        assertArrayEquals("Single member", data, readGzip(cache, file));
+
+        // first member padded (extra header field) to end exactly at the end of the first page
+        byte[] first = createData(1000000, 5);
+        byte[] second = createData(100000, 6);
+        ByteArrayOutputStream member = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(member)) {
+            out.write(first);
+        }
+        byte[] gzip = member.toByteArray();
+        int extraLength = OffHeapTableCache.PAGE_SIZE - gzip.length - 2;
+        ByteArrayOutputStream members = new ByteArrayOutputStream();
+        members.write(gzip, 0, 3);
+        members.write(4); // FEXTRA
+        members.write(gzip, 4, 6);
+        members.write(extraLength & 0xFF);
+        members.write(extraLength >>> 8);
+        members.write(new byte[extraLength]);
+        members.write(gzip, 10, gzip.length - 10);
+        assertThat("First member ends at page boundary", members.size(), is(OffHeapTableCache.PAGE_SIZE));
+        try (OutputStream out = new GZIPOutputStream(members)) {
+            out.write(second);
+        }
+        File multiMember = write(cache, "multi-member.bin", members.toByteArray());
+        byte[] expected = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, expected, first.length, second.length);
+        assertArrayEquals("Multiple members", expected, readGzip(cache, multiMember));
+    }
+
+    private static byte[] readGzip(final OffHeapTableCache cache, final File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = DefaultCompressionCodec.Gzip.createDecompressionStream(cache.openInputStream(file))) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Files that are not cached are loaded on read; modified and invalidated files are dropped. */
+    @Test
+    public void testLoadAndInvalidate() throws IOException {
+        OffHeapTableCache cache = new OffHeapTableCache(64L << 20);
+        byte[] data = createData(100000, 1);
+        File file = write(new OffHeapTableCache(0L), "file", data);
+        assertThat(cache.isCached(file), is(false));
+        assertArrayEquals(data, read(cache, file));
+        assertThat(cache.isCached(file), is(true));
+        try (OutputStream out = new FileOutputStream(file, true)) {
+            out.write(1);
+        }
+        assertThat("Modified file", cache.isCached(file), is(false));
+        read(cache, file);
+        cache.invalidate(file);
+        assertThat("Invalidated file", cache.isCached(file), is(false));
+        assertThat(cache.getSize(), is(0L));
+    }
+
+    /** The least recently used files are evicted, files larger than a quarter of the capacity aren't cached. */
+    @Test
+    public void testEviction() throws IOException {
+        final int length = 3 * OffHeapTableCache.PAGE_SIZE;
+        OffHeapTableCache cache = new OffHeapTableCache(4L * length);
+        File[] files = new File[5];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = write(cache, "file" + i, createData(length, i));
+            if (i == 3) {
+                read(cache, files[0]); // file 1 is now least recently used
+            }
+        }
+        assertThat(cache.isCached(files[0]), is(true));
+        assertThat(cache.isCached(files[1]), is(false));
+        assertThat(cache.isCached(files[4]), is(true));
+        assertThat(cache.getSize(), is(4L * length));
+        File large = write(cache, "large", createData(length + 1, 42));
+        assertThat(cache.isCached(large), is(false));
+        assertArrayEquals(createData(length + 1, 42), read(cache, large));
+        assertThat(cache.isCached(large), is(false));
+    }
+}
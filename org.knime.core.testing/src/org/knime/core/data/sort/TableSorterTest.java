@@ -67,9 +67,12 @@
 import org.knime.core.data.RowIterator;
 import org.knime.core.data.container.ContainerTable;
 import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.DefaultNodeProgressMonitor;
@@ -141,6 +144,70 @@ public final void testMultiStageMerge() throws CanceledExecutionException {
         runMemoryTest(100, 5, 8);
     }
 
+    /**
+     * Sorting with normalized keys (sequential and parallel: background runs, prefetching merge) must give the same
+     * (stable) order as sorting with the generic row comparator, which is used if set explicitly. Covers int, long and
+     * double columns, both sort orders and both placements of missing values, with NaN, -0.0 and duplicates.
+     * @throws CanceledExecutionException
+     */
+    @Test
+    public final void testParallelMatchesSequential() throws CanceledExecutionException {
+        BufferedDataContainer cont = m_exec.createDataContainer(new DataTableSpec(new String[]{"Double", "Long", "Int"},
+            new DataType[]{DoubleCell.TYPE, LongCell.TYPE, IntCell.TYPE}));
+        double[] specials = {Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+        int[] intSpecials = {Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -1};
+        Random rand = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            int r = rand.nextInt(10);
+            DataCell d = r == 0 ? DataType.getMissingCell()
+                : new DoubleCell(r == 1 ? specials[rand.nextInt(specials.length)] : rand.nextInt(50) / 2.0);
+            DataCell l = r == 2 ? DataType.getMissingCell() : new LongCell(rand.nextInt(5) - 2L);
+            DataCell n = r == 3 ? DataType.getMissingCell()
+                : new IntCell(r == 4 ? intSpecials[rand.nextInt(intSpecials.length)] : rand.nextInt(7) - 3);
+            cont.addRowToTable(new DefaultRow("Row" + i, d, l, n));
+        }
+        cont.close();
+        BufferedDataTable table = cont.getTable();
+        DataTableSpec spec = table.getDataTableSpec();
+        String[][] columns = {{"Long", "Double"}, {"Int", "Double"}, {"Double"}, {"Int", "Long"}, {"Int"}};
+        boolean[][] orders = {{true, false}, {false, true}, {false}, {true, false}, {false}};
+        for (int c = 0; c < columns.length; c++) {
+            int[] indices = new int[columns[c].length];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = spec.findColumnIndex(columns[c][i]);
+            }
+            for (boolean missingsToEnd : new boolean[]{false, true}) {
+                String msg = Arrays.toString(columns[c]) + ", ascending " + Arrays.toString(orders[c])
+                    + ", missings to end " + missingsToEnd;
+                BufferedDataTableSorter sorter =
+                    new BufferedDataTableSorter(table, Arrays.asList(columns[c]), orders[c], missingsToEnd);
+                sorter.setMaxRows(300);
+                sorter.setParallel(false);
+                BufferedDataTable sequential = sorter.sort(m_exec);
+                sorter.setParallel(true);
+                BufferedDataTable parallel = sorter.sort(m_exec);
+
+                // the generic comparator, without normalized keys
+                sorter.setRowComparator(
+                    new AbstractTableSorter.RowComparator(indices, orders[c], missingsToEnd, spec));
+                sorter.setParallel(false);
+                BufferedDataTable expected = sorter.sort(m_exec);
+                assertSameOrder("Sequential, " + msg, expected, sequential);
+                assertSameOrder("Parallel, " + msg, expected, parallel);
+            }
+        }
+    }
+
+    private static void assertSameOrder(final String msg, final BufferedDataTable expected,
+        final BufferedDataTable actual) {
+        Assert.assertEquals(msg, expected.size(), actual.size());
+        RowIterator expectedIt = expected.iterator();
+        RowIterator actualIt = actual.iterator();
+        for (long i = 0; expectedIt.hasNext(); i++) {
+            Assert.assertEquals(msg + ", row " + i, expectedIt.next().getKey(), actualIt.next().getKey());
+        }
+    }
+
     private void runMemoryTest(final int numRows,
             final int maxNumRowsPerContainer,
             final int maxOpenContainers) throws CanceledExecutionException {
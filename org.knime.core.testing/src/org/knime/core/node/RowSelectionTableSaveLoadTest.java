@@ -0,0 +1,200 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.container.RowSelectionTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.filestore.internal.WorkflowFileStoreHandlerRepository;
+import org.knime.core.internal.ReferencedFile;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Saves and loads tables created by {@link ExecutionContext#createRowSelectionTable(BufferedDataTable, BitSet)} the
+ * way nodes do.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RowSelectionTableSaveLoadTest {
+
+    private static final int ROW_COUNT = 5000;
+
+    private ExecutionContext m_exec;
+
+    private BufferedDataTable m_table;
+
+    private File m_dir;
+
+    /**
+     * Creates the execution context, a table with an int column and a temporary directory.
+     *
+     * @throws Exception Should not happen.
+     */
+    @Before
+    public void setUp() throws Exception {
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), createNode(),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+        BufferedDataContainer container =
+            m_exec.createDataContainer(new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec()));
+        for (int i = 0; i < ROW_COUNT; i++) {
+            container.addRowToTable(new DefaultRow("Row" + i, new IntCell(i)));
+        }
+        container.close();
+        m_table = container.getTable();
+        m_dir = FileUtil.createTempDir(getClass().getSimpleName());
+    }
+
+    /** Deletes the temporary directory. */
+    @After
+    public void tearDown() {
+        FileUtil.deleteRecursively(m_dir);
+    }
+
+    /**
+     * A selection of a selection is saved along with the table it selects from (but not the intermediate selection)
+     * and references the loaded table after loading.
+     *
+     * @throws Exception Should not happen.
+     */
+    @Test
+    public void testNestedSelection() throws Exception {
+        BitSet first = new BitSet();
+        first.set(10, 3000);
+        BitSet second = new BitSet();
+        second.set(0);
+        second.set(500, 1500);
+        second.set(2989);
+        BufferedDataTable selected =
+            m_exec.createRowSelectionTable(m_exec.createRowSelectionTable(m_table, first), second);
+        List<Integer> expected = readInts(selected);
+
+        selected.save(m_dir, new HashSet<Integer>(), m_exec);
+        assertThat("Saved reference tables", new File(m_dir, "r0").isDirectory(), is(true));
+        assertThat("Intermediate selection not saved", new File(m_dir, "r1").exists(), is(false));
+
+        Map<Integer, BufferedDataTable> tblRep = new HashMap<>();
+        BufferedDataTable loaded = load(tblRep);
+        assertThat("Table type", loaded.getDelegate(), instanceOf(RowSelectionTable.class));
+        assertThat("Table ID", loaded.getBufferedTableId(), is(selected.getBufferedTableId()));
+        assertThat("Table size", loaded.size(), is(selected.size()));
+
+        BufferedDataTable reference = loaded.getDelegate().getReferenceTables()[0];
+        assertThat("Reference ID", reference.getBufferedTableId(), is(m_table.getBufferedTableId()));
+        assertThat("Reference in table repository", tblRep.get(m_table.getBufferedTableId()),
+            is(sameInstance(reference)));
+        assertThat("Reference type", reference.getDelegate(), instanceOf(ContainerTable.class));
+        assertThat("Selected rows", readInts(loaded), is(expected));
+    }
+
+    /**
+     * A selection of a table from another node only saves the selection, the table must be loaded before.
+     *
+     * @throws Exception Should not happen.
+     */
+    @Test
+    public void testReferenceFromOtherNode() throws Exception {
+        BitSet selection = new BitSet();
+        for (int i = 1; i < ROW_COUNT; i += 7) {
+            selection.set(i);
+        }
+        BufferedDataTable selected = m_exec.createRowSelectionTable(m_table, selection);
+        List<Integer> expected = readInts(selected);
+        // a different owner, e.g. the table was created by the predecessor node
+        m_table.setOwnerRecursively(createNode());
+
+        selected.save(m_dir, new HashSet<Integer>(), m_exec);
+        assertThat("No reference table saved", new File(m_dir, "r0").exists(), is(false));
+
+        Map<Integer, BufferedDataTable> tblRep = new HashMap<>();
+        tblRep.put(m_table.getBufferedTableId(), m_table);
+        BufferedDataTable loaded = load(tblRep);
+        assertThat("Reference", loaded.getDelegate().getReferenceTables()[0], is(sameInstance(m_table)));
+        assertThat("Selected rows", readInts(loaded), is(expected));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Node createNode() {
+        return new Node((NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]));
+    }
+
+    private BufferedDataTable load(final Map<Integer, BufferedDataTable> tblRep) throws Exception {
+        return BufferedDataTable.loadFromFile(new ReferencedFile(m_dir), null, m_exec, tblRep,
+            new HashMap<Integer, ContainerTable>(), new WorkflowFileStoreHandlerRepository());
+    }
+
+    private static List<Integer> readInts(final BufferedDataTable table) {
+        List<Integer> result = new ArrayList<>();
+        for (DataRow row : table) {
+            int value = ((IntValue)row.getCell(0)).getIntValue();
+            assertThat("Row key", row.getKey().getString(), is("Row" + value));
+            result.add(value);
+        }
+        return result;
+    }
+}
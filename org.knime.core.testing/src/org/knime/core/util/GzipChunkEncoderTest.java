@@ -0,0 +1,152 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+import org.knime.core.util.GzipChunkEncoder.DeflatedChunk;
+
+/**
+ * Tests for {@link GzipChunkEncoder}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class GzipChunkEncoderTest {
+
+    /** The combined checksum must be the one of the concatenated data, for all lengths including 0. */
+    @Test
+    public void testCombineCRC32() {
+        Random r = new Random(1);
+        byte[] data = new byte[100000];
+        r.nextBytes(data);
+        for (int i = 0; i < 200; i++) {
+            int len1 = i < 100 ? i : r.nextInt(data.length);
+            int len2 = r.nextInt(data.length - len1 + 1);
+            assertThat("Lengths " + len1 + ", " + len2,
+                GzipChunkEncoder.combineCRC32(crc(data, 0, len1), crc(data, len1, len2), len2),
+                is(crc(data, 0, len1 + len2)));
+        }
+    }
+
+    /** Chunks with and without dictionaries result in a single member that standard readers decode. */
+    @Test
+    public void testSingleMember() throws IOException, DataFormatException {
+        byte[] data = new byte[1000000];
+        Random r = new Random(2);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte)('a' + r.nextInt(r.nextBoolean() ? 4 : 26));
+        }
+        for (boolean useDictionary : new boolean[]{false, true}) {
+            byte[] gzip = encode(data, 77777, useDictionary);
+            assertArrayEquals("Round trip", data, gunzip(gzip, data.length));
+
+            // a single deflate stream ends right before the 8 byte trailer
+            Inflater inflater = new Inflater(true);
+            inflater.setInput(gzip, 10, gzip.length - 10);
+            byte[] inflated = new byte[data.length];
+            assertThat("Inflated length", inflater.inflate(inflated), is(data.length));
+            assertThat("End of deflate stream", inflater.finished(), is(true));
+            assertThat("Trailer only", inflater.getRemaining(), is(8));
+            inflater.end();
+        }
+    }
+
+    /** An empty member. */
+    @Test
+    public void testEmpty() throws IOException {
+        assertThat(gunzip(encode(new byte[0], 1000, true), 0).length, is(0));
+    }
+
+    private static byte[] encode(final byte[] data, final int chunkSize, final boolean useDictionary)
+        throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(GzipChunkEncoder.getHeader());
+        GzipChunkEncoder encoder = new GzipChunkEncoder();
+        for (int off = 0; off < data.length; off += chunkSize) {
+            int len = Math.min(chunkSize, data.length - off);
+            byte[] dictionary = useDictionary
+                ? Arrays.copyOfRange(data, Math.max(0, off - GzipChunkEncoder.DICTIONARY_SIZE), off) : null;
+            DeflatedChunk chunk = GzipChunkEncoder.deflate(data, off, len, dictionary);
+            encoder.add(chunk);
+            chunk.writeTo(out);
+        }
+        out.write(encoder.getTrailer());
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(final byte[] gzip, final int length) throws IOException {
+        byte[] result = new byte[length];
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            int count = 0;
+            int read;
+            while (count < length && (read = in.read(result, count, length - count)) >= 0) {
+                count += read;
+            }
+            assertThat("Length", count, is(length));
+            assertThat("End of stream", in.read(), is(-1));
+        }
+        return result;
+    }
+
+    private static long crc(final byte[] data, final int off, final int len) {
+        CRC32 crc = new CRC32();
+        crc.update(data, off, len);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link HashDuplicateChecker}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class HashDuplicateCheckerTest {
+
+    /** Many unique keys, no exception expected (the table grows several times). */
+    @Test
+    public void testNoDuplicateManyRows() throws IOException {
+        HashDuplicateChecker dc = new HashDuplicateChecker();
+        try {
+            for (int i = 0; i < 1000000; i++) {
+                dc.addKey("Row" + i);
+            }
+            dc.checkForDuplicates();
+        } catch (DuplicateKeyException ex) {
+            fail("No duplicates inserted but exception was thrown for key " + ex.getKey());
+        } finally {
+            dc.clear();
+        }
+    }
+
+    /** Duplicate is reported immediately in addKey. */
+    @Test(expected = DuplicateKeyException.class)
+    public void testEarlyDuplicate() throws Exception {
+        HashDuplicateChecker checker = new HashDuplicateChecker();
+        checker.addKey("A");
+        checker.addKey("B");
+        checker.addKey("A");
+    }
+
+    /** Strings that differ only in an (unpaired) surrogate must not be considered equal. */
+    @Test
+    public void testInvalidUTF16() throws Exception {
+        HashDuplicateChecker checker = new HashDuplicateChecker();
+        checker.addKey("Row\uD800");
+        checker.addKey("Row\uDC00");
+        checker.addKey("Row?");
+        checker.checkForDuplicates();
+        checker.clear();
+    }
+
+    /** Key log exceeds its memory limit and is continued in a file, duplicate found in the file part. */
+    @Test
+    public void testDuplicateInSpilledKeyLog() throws Exception {
+        HashDuplicateChecker checker = new HashDuplicateChecker(HashDuplicateChecker.MAX_CAPACITY, 1 << 16);
+        try {
+            for (int i = 0; i < 20000; i++) {
+                checker.addKey("Row" + i);
+            }
+            assertThat("Key log spilled", checker.isKeyLogSpilled(), is(true));
+            checker.addKey("Row19999");
+            fail("Duplicate not detected");
+        } catch (DuplicateKeyException e) {
+            assertThat(e.getKey(), is("Row19999"));
+        } finally {
+            checker.clear();
+        }
+    }
+
+    /** Hash table exceeds its size limit, keys are handed over to the chunk based checker. */
+    @Test
+    public void testDuplicateAfterFallback() throws Exception {
+        HashDuplicateChecker checker = new HashDuplicateChecker(1 << 13, HashDuplicateChecker.DEF_MAX_LOG_MEMORY);
+        try {
+            for (int i = 0; i < 10000; i++) {
+                checker.addKey("Row" + i);
+            }
+            assertThat("Fallback to chunk based checking", checker.isFallback(), is(true));
+            checker.addKey("Row17");
+            checker.checkForDuplicates();
+            fail("Duplicate not detected");
+        } catch (DuplicateKeyException e) {
+            assertThat(e.getKey(), is("Row17"));
+        } finally {
+            checker.clear();
+        }
+    }
+
+    /**
+     * Key log can't get direct memory from the budget (as if allocation failed), it's continued in the file, and the
+     * table falls back to chunk based checking; duplicates are still detected and all memory is returned on clear.
+     */
+    @Test
+    public void testDirectMemoryBudgetExhausted() throws Exception {
+        HashDuplicateChecker.DirectMemoryBudget budget = new HashDuplicateChecker.DirectMemoryBudget(1 << 20);
+        HashDuplicateChecker checker = new HashDuplicateChecker(HashDuplicateChecker.MAX_CAPACITY,
+            HashDuplicateChecker.DEF_MAX_LOG_MEMORY, budget);
+        try {
+            for (int i = 0; i < 100000; i++) {
+                checker.addKey("Row" + i);
+                assertThat("Within budget", budget.getUsed() <= 1 << 20, is(true));
+            }
+            assertThat("Key log spilled", checker.isKeyLogSpilled() || checker.isFallback(), is(true));
+            checker.addKey("Row4711");
+            checker.checkForDuplicates();
+            fail("Duplicate not detected");
+        } catch (DuplicateKeyException e) {
+            assertThat(e.getKey(), is("Row4711"));
+        } finally {
+            checker.clear();
+        }
+        assertThat("Memory released", budget.getUsed(), is(0L));
+    }
+
+    /** The budget is shared, a second checker falls back while the first one holds the memory. */
+    @Test
+    public void testSharedDirectMemoryBudget() throws Exception {
+        // initial table (4096 slots) plus one key log page
+        HashDuplicateChecker.DirectMemoryBudget budget =
+            new HashDuplicateChecker.DirectMemoryBudget((1 << 12) * Long.BYTES + (1 << 16));
+        HashDuplicateChecker first = new HashDuplicateChecker(HashDuplicateChecker.MAX_CAPACITY,
+            HashDuplicateChecker.DEF_MAX_LOG_MEMORY, budget);
+        HashDuplicateChecker second = new HashDuplicateChecker(HashDuplicateChecker.MAX_CAPACITY,
+            HashDuplicateChecker.DEF_MAX_LOG_MEMORY, budget);
+        try {
+            first.addKey("A");
+            assertThat(first.isFallback(), is(false));
+            second.addKey("A");
+            assertThat("No memory left for second checker", second.isFallback(), is(true));
+            second.addKey("B");
+            second.checkForDuplicates();
+            first.clear();
+            assertThat("Memory of first checker released", budget.getUsed(), is(0L));
+        } finally {
+            first.clear();
+            second.clear();
+        }
+        assertThat(budget.getUsed(), is(0L));
+    }
+}
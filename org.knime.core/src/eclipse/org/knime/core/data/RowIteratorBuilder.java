@@ -89,6 +89,18 @@
      */
     RowIteratorBuilder<I> filterColumns(String... columns);
 
+    /**
+     * Start the iteration at the row with the given (0-based) index, i.e. the first row returned by the iterator is
+     * the row at that position. Tables that support random access (e.g. tables written with an uncompressed or block
+     * compressed binary stream) seek to that row directly; others skip the preceding rows sequentially.
+     *
+     * @param index the index of the first row to return; if it's larger than the number of rows the iterator will be
+     *            empty
+     * @return this {@link RowIteratorBuilder}
+     * @throws IllegalArgumentException if the index is negative
+     */
+    RowIteratorBuilder<I> fromRowIndex(long index);
+
     /**
      * Build a new row iterator with the behavior specified via methods invoked in this builder.
      *
@@ -98,7 +110,8 @@
 
     /**
      * A {@link RowIteratorBuilder} that always builds default {@link RowIterator}s, i.e., iterators iterating over all
-     * rows and columns of a table.
+     * rows and columns of a table. Subclasses can query the column filter and start row via
+     * {@link #getMaterializedColumns()} and {@link #getFromRowIndex()} to build more efficient iterators.
      *
      * @param <I> the row iterator to be built
      *
@@ -110,6 +123,11 @@
 
         private final DataTableSpec m_spec;
 
+        /** Flags of the columns to materialize, null if no filter is set. */
+        private boolean[] m_materializedColumns;
+
+        private long m_fromRowIndex;
+
         /**
          * Constructs a new {@link org.knime.core.data.RowIteratorBuilder.DefaultRowIteratorBuilder}.
          *
@@ -128,9 +146,21 @@ public DefaultRowIteratorBuilder(final Supplier<I> iteratorSupplier, final DataT
         @Override
         public RowIteratorBuilder<I> filterColumns(final int... indices) {
             m_spec.verifyIndices(indices);
+            m_materializedColumns = new boolean[m_spec.getNumColumns()];
+            for (int i : indices) {
+                m_materializedColumns[i] = true;
+            }
             return this;
         }
 
+        /**
+         * @return for each column whether it needs to be materialized, as set via {@link #filterColumns(int...)}; null
+         *         if no filter is set (all columns are materialized). Iterators built by this class ignore the filter.
+         */
+        protected final boolean[] getMaterializedColumns() {
+            return m_materializedColumns;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -143,8 +173,30 @@ public RowIteratorBuilder<I> filterColumns(final String... columns) {
          * {@inheritDoc}
          */
         @Override
+        public RowIteratorBuilder<I> fromRowIndex(final long index) {
+            CheckUtils.checkArgument(index >= 0, "Row index must not be negative: %d", index);
+            m_fromRowIndex = index;
+            return this;
+        }
+
+        /**
+         * @return the index of the first row to return, as set via {@link #fromRowIndex(long)} (default 0)
+         */
+        protected final long getFromRowIndex() {
+            return m_fromRowIndex;
+        }
+
+        /**
+         * {@inheritDoc} Skips rows sequentially if {@link #fromRowIndex(long)} was set; subclasses building iterators
+         * that can seek should override this method.
+         */
+        @Override
         public I build() {
-            return m_iteratorSupplier.get();
+            I iterator = m_iteratorSupplier.get();
+            for (long i = 0; i < m_fromRowIndex && iterator.hasNext(); i++) {
+                iterator.next();
+            }
+            return iterator;
         }
 
     }
@@ -0,0 +1,231 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.knime.core.data.container.BlobDataCell.BlobAddress;
+
+/**
+ * Cache of blob cells read by a {@link Buffer}, avoiding to read a blob over and over again (e.g. if it's contained
+ * multiple times in a table). Replaces a synchronized, access-ordered map of at most 100 entries, whose monitor was
+ * contended when blobs are read by many threads.
+ *
+ * <p>The cache is split into independently locked segments, chosen by the hash of the blob address; each segment is
+ * a least-recently-used map limited by the sum of the entries' weight, which is the blob's size in bytes (as stored
+ * on disc). Values are soft references so that cached blobs never prevent garbage collection. Hits and misses are
+ * counted for diagnostics.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BlobCache {
+
+    /** Default maximum weight of all entries, in bytes. */
+    static final long DEF_MAX_WEIGHT = 64L << 20;
+
+    /** Number of segments, a power of 2. */
+    private static final int SEGMENT_COUNT = 16;
+
+    /** Minimum weight of an entry, accounting for the overhead of small blobs. */
+    private static final long MIN_ENTRY_WEIGHT = 256;
+
+    private final Segment[] m_segments;
+
+    private final LongAdder m_hitCount = new LongAdder();
+
+    private final LongAdder m_missCount = new LongAdder();
+
+    private final LongAdder m_evictionCount = new LongAdder();
+
+    /** Creates a cache with {@link #DEF_MAX_WEIGHT}. */
+    BlobCache() {
+        this(DEF_MAX_WEIGHT);
+    }
+
+    /** @param maxWeight the maximum weight of all entries, in bytes (split evenly among the segments) */
+    BlobCache(final long maxWeight) {
+        m_segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            m_segments[i] = new Segment(maxWeight / SEGMENT_COUNT);
+        }
+    }
+
+    private Segment segmentFor(final BlobAddress address) {
+        // the address' hash code has little entropy in the high bits; spread it before taking the top bits
+        final int h = address.hashCode() * 0x9E3779B9;
+        return m_segments[h >>> (Integer.SIZE - Integer.numberOfTrailingZeros(SEGMENT_COUNT))];
+    }
+
+    /**
+     * @param address the blob's address
+     * @return the cached blob, or null if not cached or garbage collected
+     */
+    BlobDataCell get(final BlobAddress address) {
+        final BlobDataCell cell = segmentFor(address).get(address);
+        if (cell != null) {
+            m_hitCount.increment();
+        } else {
+            m_missCount.increment();
+        }
+        return cell;
+    }
+
+    /**
+     * Adds a blob, evicting the least recently used blobs of its segment if the segment's weight limit is exceeded.
+     * A blob exceeding the limit of a segment is cached as the only entry of its segment (it's only softly referenced).
+     *
+     * @param address the blob's address
+     * @param cell the blob
+     * @param sizeInBytes the size of the blob (e.g. the file length), used as weight
+     */
+    void put(final BlobAddress address, final BlobDataCell cell, final long sizeInBytes) {
+        segmentFor(address).put(address, cell, Math.max(MIN_ENTRY_WEIGHT, sizeInBytes));
+    }
+
+    /** Removes all entries; counters are not reset. */
+    void clear() {
+        for (Segment s : m_segments) {
+            s.clear();
+        }
+    }
+
+    /** @return number of {@link #get(BlobAddress)} calls that returned a blob */
+    long getHitCount() {
+        return m_hitCount.sum();
+    }
+
+    /** @return number of {@link #get(BlobAddress)} calls that didn't return a blob */
+    long getMissCount() {
+        return m_missCount.sum();
+    }
+
+    /** @return number of entries evicted due to the weight limit */
+    long getEvictionCount() {
+        return m_evictionCount.sum();
+    }
+
+    /** @return the current weight of all entries, in bytes */
+    long getWeight() {
+        long weight = 0L;
+        for (Segment s : m_segments) {
+            weight += s.getWeight();
+        }
+        return weight;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "BlobCache [hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions="
+            + getEvictionCount() + ", weight=" + getWeight() + "]";
+    }
+
+    /** Value in a segment: the soft reference to the blob and its weight. */
+    private static final class WeightedRef extends SoftReference<BlobDataCell> {
+
+        private final long m_weight;
+
+        WeightedRef(final BlobDataCell cell, final long weight) {
+            super(cell);
+            m_weight = weight;
+        }
+    }
+
+    /** An access-ordered map with its own lock and weight limit. */
+    private final class Segment {
+
+        private final long m_maxWeight;
+
+        /** Access-ordered, guarded by this. */
+        private final LinkedHashMap<BlobAddress, WeightedRef> m_map = new LinkedHashMap<>(16, 0.75f, true);
+
+        /** Guarded by this. */
+        private long m_weight;
+
+        Segment(final long maxWeight) {
+            m_maxWeight = maxWeight;
+        }
+
+        synchronized BlobDataCell get(final BlobAddress address) {
+            final WeightedRef ref = m_map.get(address);
+            if (ref == null) {
+                return null;
+            }
+            final BlobDataCell cell = ref.get();
+            if (cell == null) { // garbage collected
+                m_map.remove(address);
+                m_weight -= ref.m_weight;
+            }
+            return cell;
+        }
+
+        synchronized void put(final BlobAddress address, final BlobDataCell cell, final long weight) {
+            final WeightedRef previous = m_map.put(address, new WeightedRef(cell, weight));
+            if (previous != null) {
+                m_weight -= previous.m_weight;
+            }
+            m_weight += weight;
+            // the new entry is the most recently used one, an entry exceeding the limit evicts all others
+            for (Iterator<WeightedRef> it = m_map.values().iterator(); m_weight > m_maxWeight && m_map.size() > 1;) {
+                final WeightedRef eldest = it.next();
+                it.remove();
+                m_weight -= eldest.m_weight;
+                m_evictionCount.increment();
+            }
+        }
+
+        synchronized void clear() {
+            m_map.clear();
+            m_weight = 0L;
+        }
+
+        synchronized long getWeight() {
+            return m_weight;
+        }
+    }
+}
@@ -56,7 +56,6 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.text.NumberFormat;
@@ -66,10 +65,8 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
@@ -84,6 +81,7 @@
 import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellSerializer;
 import org.knime.core.data.DataRow;
@@ -95,9 +93,11 @@
 import org.knime.core.data.collection.CellCollection;
 import org.knime.core.data.collection.CollectionDataValue;
 import org.knime.core.data.container.BlobDataCell.BlobAddress;
+import org.knime.core.data.container.columnar.ColumnarTableStoreFormat;
 import org.knime.core.data.container.storage.AbstractTableStoreReader;
 import org.knime.core.data.container.storage.AbstractTableStoreReader.TableStoreCloseableRowIterator;
 import org.knime.core.data.container.storage.AbstractTableStoreWriter;
+import org.knime.core.data.container.storage.OffHeapTableCache;
 import org.knime.core.data.container.storage.TableStoreFormat;
 import org.knime.core.data.container.storage.TableStoreFormatRegistry;
 import org.knime.core.data.filestore.FileStore;
@@ -290,7 +290,7 @@ public class Buffer implements KNIMEStreamConstants {
      * added multiple times to a table... the iterator will read the blob address, treat it as unseen and then ask the
      * owning Buffer to restore the blob.
      */
-    private final BlobLRUCache m_blobLRUCache = new BlobLRUCache();
+    private final BlobCache m_blobCache = new BlobCache();
 
     static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
         @SuppressWarnings("unchecked")
@@ -331,12 +331,6 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
         return result;
     }
 
-    /** Compression on the binary (main) file. */
-    enum CompressionFormat {
-        Gzip,
-        None;
-    }
-
     /** the file to write to. */
     private File m_binFile;
 
@@ -652,10 +646,43 @@ private void initOutputWriter(final OutputStream output) throws IOException, Uns
      * @throws IOException
      */
     private void initOutputWriter(final File binFile) throws IOException {
-        m_outputWriter = m_outputFormat.createWriter(binFile, m_spec, !shouldSkipRowKey());
+        initOutputWriter(binFile, true);
+    }
+
+    /**
+     * @param binFile the file to write
+     * @param isCacheable whether the written content may be kept in the {@link OffHeapTableCache}, only done if the
+     *            format's readers read via the cache (the stream writer is optional for other formats)
+     * @throws IOException
+     */
+    private void initOutputWriter(final File binFile, final boolean isCacheable) throws IOException {
+        final OffHeapTableCache cache = OffHeapTableCache.getInstance();
+        AbstractTableStoreWriter writer = null;
+        if (isCacheable && cache.isEnabled() && isReadViaCache(m_outputFormat)) {
+            // keep the written content off-heap so that iterations don't need to read the file
+            final OutputStream out = cache.newCachingOutputStream(binFile, new FileOutputStream(binFile));
+            try {
+                writer = m_outputFormat.createWriter(out, m_spec, !shouldSkipRowKey());
+            } catch (IOException | RuntimeException e) {
+                out.close();
+                cache.invalidate(binFile);
+                if (!(e instanceof UnsupportedOperationException)) {
+                    throw e;
+                }
+            }
+        }
+        if (writer == null) {
+            writer = m_outputFormat.createWriter(binFile, m_spec, !shouldSkipRowKey());
+        }
+        m_outputWriter = writer;
         m_outputWriter.setFileStoreHandler((IWriteFileStoreHandler)m_fileStoreHandler);
     }
 
+    /** @return whether the readers of the format open the file via {@link OffHeapTableCache#openInputStream(File)} */
+    private static boolean isReadViaCache(final TableStoreFormat format) {
+        return format instanceof DefaultTableStoreFormat || format instanceof ColumnarTableStoreFormat;
+    }
+
     private BlobSupportDataRow saveBlobsAndFileStores(final DataRow row, final boolean isCopyOfExisting,
                                                       final boolean forceCopyOfBlobs) throws IOException {
         final int cellCount = row.getNumCells();
@@ -1280,17 +1307,20 @@ BlobDataCell readBlobDataCell(final BlobAddress blobAddress, final CellClassInfo
             Buffer blobBuffer = cnTbl.getBuffer();
             return blobBuffer.readBlobDataCell(blobAddress, cl);
         }
-        SoftReference<BlobDataCell> softRef = m_blobLRUCache.get(blobAddress);
-        BlobDataCell result = softRef != null ? softRef.get() : null;
+        BlobDataCell result = m_blobCache.get(blobAddress);
         if (result != null) {
             return result;
         }
+        final File blobFile = getBlobFile(blobAddress.getIndexOfBlobInColumn(), blobAddress.getColumn(), false,
+            blobAddress.isUseCompression());
+        final CountingInputStream blobIn = new CountingInputStream(new FileInputStream(blobFile));
         if (getReadVersion() <= 5) { // 2.0 TechPreview and earlier
-            result = BufferFromFileIteratorVersion1x.readBlobDataCell(this, blobAddress, cl);
+            result = BufferFromFileIteratorVersion1x.readBlobDataCell(this, blobAddress, cl, blobIn);
         } else {
-            result = BufferFromFileIteratorVersion20.readBlobDataCell(blobAddress, cl, this);
+            result = BufferFromFileIteratorVersion20.readBlobDataCell(blobAddress, cl, this, blobIn);
         }
-        m_blobLRUCache.put(blobAddress, new SoftReference<BlobDataCell>(result));
+        // the weight is the number of bytes read from the file, usually its length
+        m_blobCache.put(blobAddress, result, blobIn.getByteCount());
         return result;
     }
 
@@ -1505,7 +1535,8 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
             } catch (UnsupportedOperationException notSupported) {
                 tempFile = DataContainer.createTempFile(copy.m_outputFormat.getFilenameSuffix());
                 copy.m_binFile = tempFile;
-                copy.initOutputWriter(tempFile);
+                // temporary copy, only read once to be copied into the zip file
+                copy.initOutputWriter(tempFile, false);
             }
             int count = 1;
             for (RowIterator it = iteratorBuilder().build(); it.hasNext();) {
@@ -1555,9 +1586,8 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
             zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_META));
             copy.writeMetaToFile(new NonClosableOutputStream.Zip(zipOut));
         } else {
-            // no need for BufferedInputStream here as the copy method
-            // does the buffering itself
-            try (InputStream is = new FileInputStream(m_binFile)) {
+            // read from memory if the content is cached
+            try (InputStream is = OffHeapTableCache.getInstance().openInputStream(m_binFile)) {
                 FileUtil.copy(is, zipOut);
             }
             if (m_blobDir != null) {
@@ -1628,6 +1658,7 @@ synchronized void clear() {
                 // output reader might be null if Buffer was created but never read -- no iterators to clear
                 m_outputReader.clearIteratorInstances();
             }
+            OffHeapTableCache.getInstance().invalidate(m_binFile);
             if (m_blobDir != null) {
                 DeleteInBackgroundThread.delete(m_binFile, m_blobDir);
             } else {
@@ -1637,9 +1668,10 @@ synchronized void clear() {
         if (m_fileStoreHandler instanceof NotInWorkflowWriteFileStoreHandler) {
             m_fileStoreHandler.clearAndDispose();
         }
-        if (m_blobLRUCache != null) {
-            m_blobLRUCache.clear();
+        if (m_blobCache.getHitCount() + m_blobCache.getMissCount() > 0) {
+            LOGGER.debug("Clearing blobs of buffer " + m_bufferID + ": " + m_blobCache);
         }
+        m_blobCache.clear();
         m_binFile = null;
         m_blobDir = null;
     }
@@ -1695,35 +1727,6 @@ synchronized void flushBuffer() {
         }
     }
 
-    /** Last recently used cache for blobs. */
-    private static final class BlobLRUCache extends LinkedHashMap<BlobAddress, SoftReference<BlobDataCell>> {
-
-        /** Default constructor, instructs for access order. */
-        BlobLRUCache() {
-            super(16, 0.75f, true); // args copied from HashMap implementation
-        }
-
-        /** {@inheritDoc} */
-        @Override
-        protected synchronized boolean removeEldestEntry(final Entry<BlobAddress, SoftReference<BlobDataCell>> eldest) {
-            return size() >= 100;
-        }
-
-        /** {@inheritDoc} */
-        @Override
-        public synchronized SoftReference<BlobDataCell> get(final Object key) {
-            return super.get(key);
-        }
-
-        /** {@inheritDoc} */
-        @Override
-        public synchronized SoftReference<BlobDataCell> put(final BlobAddress key,
-                                                            final SoftReference<BlobDataCell> value) {
-            return super.put(key, value);
-        }
-
-    }
-
 
     /**
      * Iterator to be used when data is contained in m_list. It uses access by index rather than wrapping an
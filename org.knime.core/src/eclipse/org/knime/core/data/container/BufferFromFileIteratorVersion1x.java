@@ -49,7 +49,6 @@
 
 import java.io.BufferedInputStream;
 import java.io.DataInputStream;
-import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -105,21 +104,7 @@ final class BufferFromFileIteratorVersion1x extends FromFileIterator {
         m_tableFormatReader = tableFormatReader;
         BufferedInputStream bufferedStream =
             new BufferedInputStream(new FileInputStream(tableFormatReader.getBinFile()));
-        InputStream in;
-        switch (tableFormatReader.getBinFileCompressionFormat()) {
-            case Gzip:
-                in = new GZIPInputStream(bufferedStream);
-                // buffering is important when reading gzip streams
-                in = new BufferedInputStream(in);
-                break;
-            case None:
-                in = bufferedStream;
-                break;
-            default:
-                bufferedStream.close();
-                throw new IOException("Unsupported compression format: "
-                        + tableFormatReader.getBinFileCompressionFormat());
-        }
+        InputStream in = tableFormatReader.getBinFileCompressionCodec().createDecompressionStream(bufferedStream);
         m_inStream = new DCObjectInputStream(in);
     }
 
@@ -328,22 +313,19 @@ protected void finalize() throws Throwable {
      * @param buffer The owning buffer.
      * @param blobAddress The address to read from.
      * @param cl The expected class.
+     * @param blobIn The stream on the blob file, closed by this method.
      * @return The blob cell being read.
      * @throws IOException If that fails.
      */
     static BlobDataCell readBlobDataCell(final Buffer buffer,
             final BlobAddress blobAddress,
-            final CellClassInfo cl) throws IOException {
+            final CellClassInfo cl, final InputStream blobIn)
+            throws IOException {
         assert buffer.getBufferID() == blobAddress.getBufferID()
             : "Buffer IDs don't match: " + buffer.getBufferID() + " vs. "
             + blobAddress.getBufferID();
-        int column = blobAddress.getColumn();
-        int indexInColumn = blobAddress.getIndexOfBlobInColumn();
         boolean isCompress = blobAddress.isUseCompression();
-        File inFile = buffer.getBlobFile(
-                indexInColumn, column, false, isCompress);
-        InputStream in = new BufferedInputStream(
-                new FileInputStream(inFile));
+        InputStream in = new BufferedInputStream(blobIn);
         if (isCompress) {
             in = new GZIPInputStream(in);
         }
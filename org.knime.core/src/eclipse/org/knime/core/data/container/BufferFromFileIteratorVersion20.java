@@ -48,8 +48,6 @@
 package org.knime.core.data.container;
 
 import java.io.BufferedInputStream;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
@@ -60,8 +58,10 @@
 import org.knime.core.data.DataCellSerializer;
 import org.knime.core.data.DataType;
 import org.knime.core.data.RowKey;
+import org.knime.core.data.UnmaterializedCell;
 import org.knime.core.data.container.BlobDataCell.BlobAddress;
 import org.knime.core.data.container.DefaultTableStoreReader.FromFileIterator;
+import org.knime.core.data.container.storage.OffHeapTableCache;
 import org.knime.core.data.filestore.FileStoreCell;
 import org.knime.core.data.filestore.FileStoreKey;
 import org.knime.core.data.filestore.FileStoreUtil;
@@ -81,7 +81,10 @@ final class BufferFromFileIteratorVersion20 extends FromFileIterator {
     private final DefaultTableStoreReader m_tableFormatReader;
 
     /** Row pointer. */
-    private int m_pointer;
+    private long m_pointer;
+
+    /** Columns to deserialize, null if all. */
+    private final boolean[] m_materializedColumns;
 
     /** Content of the rows that get returned in {@link #next()} when the
      * table is {@link #close()}'d. Will be instantiated lazy. */
@@ -104,32 +107,71 @@ final class BufferFromFileIteratorVersion20 extends FromFileIterator {
      * @throws IOException If stream reading fails.
      */
     BufferFromFileIteratorVersion20(final DefaultTableStoreReader tableFormatReader) throws IOException {
-        m_pointer = 0;
+        this(tableFormatReader, 0L, null);
+    }
+
+    /** Inits iterator, opens input stream positioned at the argument row. If the table has a row index the stream
+     * is opened at the closest indexed row, otherwise at the first row; the rows in between are skipped without
+     * deserializing their cells.
+     * @param tableFormatReader The associated buffer.
+     * @param startRow Index of the first row to return (non-negative).
+     * @param materializedColumns Flags of the columns to deserialize, cells of other columns are skipped and returned
+     * as {@link UnmaterializedCell}; null to deserialize all columns.
+     * @throws IOException If stream reading fails.
+     */
+    BufferFromFileIteratorVersion20(final DefaultTableStoreReader tableFormatReader, final long startRow,
+        final boolean[] materializedColumns) throws IOException {
         if (tableFormatReader.getBinFile() == null) {
             throw new IOException("Unable to read table from file, "
                     + "table has been cleared.");
         }
         m_tableFormatReader = tableFormatReader;
+        m_materializedColumns = materializedColumns;
         assert m_tableFormatReader.getReadVersion() >= 6 : "Iterator is not backward "
             + "compatible, use instead "
             + BufferFromFileIteratorVersion1x.class.getSimpleName();
-        BufferedInputStream bufferedStream =
-            new BufferedInputStream(new FileInputStream(tableFormatReader.getBinFile()));
-        InputStream in;
-        switch (tableFormatReader.getBinFileCompressionFormat()) {
-            case Gzip:
-                in = new GZIPInputStream(bufferedStream);
-                // buffering is important when reading gzip streams
-                in = new BufferedInputStream(in);
-                break;
-            case None:
-                in = bufferedStream;
-                break;
-            default:
-                throw new IOException("Unsupported compression format: " + tableFormatReader.getBinFileCompressionFormat());
-        }
         m_dataCellStreamReader = new DataCellStreamReader(tableFormatReader);
+        final long firstRow = Math.min(startRow, tableFormatReader.size());
+        if (firstRow > 0 && firstRow == tableFormatReader.size()) {
+            // nothing to read, don't open the file (the iterator behaves as if it was at the end)
+            m_pointer = firstRow;
+            return;
+        }
+        final InputStream in;
+        if (firstRow > 0 && tableFormatReader.isRandomAccess()) {
+            m_pointer = tableFormatReader.getIndexedRowAtOrBefore(firstRow);
+            in = tableFormatReader.openStreamAtIndexedRow(m_pointer);
+        } else {
+            m_pointer = 0;
+            InputStream bufferedStream = OffHeapTableCache.getInstance().openInputStream(tableFormatReader.getBinFile());
+            in = tableFormatReader.getBinFileCompressionCodec().createDecompressionStream(bufferedStream);
+        }
         m_inStream = new DCObjectInputVersion2(in, m_dataCellStreamReader);
+        try {
+            while (m_pointer < firstRow) {
+                skipRow(m_inStream);
+                m_pointer++;
+            }
+        } catch (IOException ioe) {
+            m_inStream.close();
+            throw ioe;
+        }
+    }
+
+    /** Skips a row by reading to the end of each of its blocks, no cell is deserialized. */
+    private void skipRow(final DCObjectInputVersion2 inStream) throws IOException {
+        if (m_tableFormatReader.isReadRowKey()) {
+            inStream.endBlock();
+        }
+        final int colCount = m_tableFormatReader.getTableSpec().getNumColumns();
+        for (int i = 0; i < colCount; i++) {
+            inStream.endBlock();
+        }
+        byte eoRow = inStream.readControlByte();
+        if (eoRow != BYTE_ROW_SEPARATOR) {
+            throw new IOException("Expected end of row byte, "
+                + "got '" + eoRow + "', (byte " + (int)eoRow + ") while skipping row " + (m_pointer + 1));
+        }
     }
 
     /** {@inheritDoc} */
@@ -175,6 +217,18 @@ public synchronized BlobSupportDataRow next() {
         DataCell[] cells = new DataCell[colCount];
         for (int i = 0; i < colCount; i++) {
             DataCell nextCell;
+            if (m_materializedColumns != null && !m_materializedColumns[i]) {
+                try {
+                    // skip the cell's bytes without deserializing (or even loading its class)
+                    m_inStream.endBlock();
+                    nextCell = UnmaterializedCell.getInstance();
+                } catch (IOException ioe) {
+                    handleReadThrowable(ioe);
+                    nextCell = DataType.getMissingCell();
+                }
+                cells[i] = nextCell;
+                continue;
+            }
             try {
                 try {
                     nextCell = m_dataCellStreamReader.readDataCell(m_inStream);
@@ -271,18 +325,17 @@ protected void finalize() throws Throwable {
      * Reads the blob from the given blob address.
      * @param blobAddress The address to read from.
      * @param cl The expected class.
+     * @param buffer The owning buffer.
+     * @param blobIn The stream on the blob file, closed by this method.
      * @return The blob cell being read.
      * @throws IOException If that fails.
      */
-    static BlobDataCell readBlobDataCell(final BlobAddress blobAddress, final CellClassInfo cl, final Buffer buffer)
-        throws IOException {
+    static BlobDataCell readBlobDataCell(final BlobAddress blobAddress, final CellClassInfo cl, final Buffer buffer,
+        final InputStream blobIn) throws IOException {
         assert buffer.getBufferID() == blobAddress.getBufferID() : "Buffer IDs don't match: " + buffer.getBufferID()
             + " vs. " + blobAddress.getBufferID();
-        int column = blobAddress.getColumn();
-        int indexInColumn = blobAddress.getIndexOfBlobInColumn();
         boolean isCompress = blobAddress.isUseCompression();
-        File inFile = buffer.getBlobFile(indexInColumn, column, false, isCompress);
-        InputStream in = new BufferedInputStream(new FileInputStream(inFile));
+        InputStream in = new BufferedInputStream(blobIn);
         if (isCompress) {
             in = new GZIPInputStream(in);
             // that buffering is important
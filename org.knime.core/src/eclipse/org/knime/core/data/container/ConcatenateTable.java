@@ -64,6 +64,7 @@
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.util.DuplicateChecker;
 import org.knime.core.util.DuplicateKeyException;
+import org.knime.core.util.HashDuplicateChecker;
 
 /**
  *
@@ -285,7 +286,7 @@ public static ConcatenateTable create(final ExecutionMonitor mon, final Buffered
 
     private static void checkForDuplicates(final ExecutionMonitor mon, final BufferedDataTable[] tables,
         final long rowCount) throws CanceledExecutionException {
-        DuplicateChecker check = new DuplicateChecker();
+        DuplicateChecker check = new HashDuplicateChecker();
         int r = 0;
         for (int i = 0; i < tables.length; i++) {
             for (DataRow row : tables[i]) {
@@ -98,6 +98,7 @@
 import org.knime.core.util.DuplicateChecker;
 import org.knime.core.util.DuplicateKeyException;
 import org.knime.core.util.FileUtil;
+import org.knime.core.util.HashDuplicateChecker;
 
 /**
  * Buffer that collects <code>DataRow</code> objects and creates a <code>DataTable</code> on request. This data
@@ -427,7 +428,7 @@ protected DataContainer(final DataTableSpec spec, final boolean initDomain, fina
             throw new IllegalArgumentException("Spec must not be null!");
         }
         m_spec = spec;
-        m_duplicateChecker = new DuplicateChecker();
+        m_duplicateChecker = new HashDuplicateChecker();
         boolean isSynchronousWrite = forceSynchronousIO || SYNCHRONOUS_IO;
         if (!isSynchronousWrite && ASYNC_EXECUTORS.getActiveCount() > MAX_ASYNC_WRITE_THREADS) {
             LOGGER.debug("Number of Table IO write threads exceeds " + MAX_ASYNC_WRITE_THREADS
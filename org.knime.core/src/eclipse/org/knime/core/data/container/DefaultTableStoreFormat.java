@@ -52,8 +52,17 @@
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
 
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.compress.DefaultCompressionCodec;
+import org.knime.core.data.container.compress.TableCompressionCodec;
+import org.knime.core.data.container.compress.TableCompressionCodecRegistry;
 import org.knime.core.data.container.storage.AbstractTableStoreReader;
 import org.knime.core.data.container.storage.AbstractTableStoreWriter;
 import org.knime.core.data.container.storage.TableStoreFormat;
@@ -61,6 +70,10 @@
 import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.workflow.FlowObjectStack;
+import org.knime.core.node.workflow.FlowVariable;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeContext;
 
 /**
  *
@@ -72,9 +85,29 @@ public final class DefaultTableStoreFormat implements TableStoreFormat {
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(DefaultTableStoreFormat.class);
 
-    /** Compression format. */
+    /** Name of the {@link TableCompressionCodec}. */
     static final String CFG_COMPRESSION = "container.compression";
 
+    /**
+     * File position of the row index appended to the binary stream, only present if the codec supports random access.
+     */
+    static final String CFG_ROW_INDEX_POSITION = "container.rowIndexPosition";
+
+    /** Number of rows between two entries in the row index. */
+    static final String CFG_ROW_INDEX_INTERVAL = "container.rowIndexInterval";
+
+    /**
+     * File position of the block table (uncompressed and file offset of each block) following the row index, only
+     * present for block codecs.
+     */
+    static final String CFG_BLOCK_TABLE_POSITION = "container.blockTablePosition";
+
+    /** Number of entries in the block table. */
+    static final String CFG_BLOCK_COUNT = "container.blockCount";
+
+    /** Every n-th row's offset (in the uncompressed stream) is recorded in the row index. */
+    static final int ROW_INDEX_INTERVAL = 64;
+
     /**
      * Static field to enable/disable the usage of a GZipInput/OutpuStream when writing the binary data. This option
      * defaults to {@value DataContainer#DEF_GZIP_COMPRESSION}. */
@@ -104,10 +137,46 @@ public final class DefaultTableStoreFormat implements TableStoreFormat {
         }
     }
 
-    /** Compression on the binary (main) file. */
-    enum CompressionFormat {
-            Gzip,
-            None;
+    /** Warn only once per invalid codec name, which may be set per workflow. */
+    private static final Set<String> INVALID_CODEC_NAMES = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Determines the compression codec for a new table. A codec selected via workflow variable
+     * {@value KNIMEConstants#PROPERTY_TABLE_COMPRESSION_CODEC} (of the node currently writing) takes precedence over
+     * the java property of the same name; if neither is set, {@link #IS_USE_GZIP} decides between gzip and no
+     * compression.
+     *
+     * @return the codec to use, not null
+     */
+    static TableCompressionCodec getCompressionCodec() {
+        String name = getCodecNameFromFlowVariables();
+        if (name == null) {
+            name = System.getProperty(KNIMEConstants.PROPERTY_TABLE_COMPRESSION_CODEC);
+        }
+        if (StringUtils.isNotBlank(name)) {
+            Optional<TableCompressionCodec> codec = TableCompressionCodecRegistry.getInstance().getCodec(name.trim());
+            if (codec.isPresent()) {
+                return codec.get();
+            }
+            if (INVALID_CODEC_NAMES.add(name)) {
+                LOGGER.warnWithFormat("Unknown table compression codec \"%s\" (set via \"%s\"), valid values are %s",
+                    name, KNIMEConstants.PROPERTY_TABLE_COMPRESSION_CODEC, TableCompressionCodecRegistry.getInstance()
+                        .getCodecs().stream().map(TableCompressionCodec::getName).collect(Collectors.toList()));
+            }
+        }
+        return IS_USE_GZIP ? DefaultCompressionCodec.Gzip : DefaultCompressionCodec.None;
+    }
+
+    private static String getCodecNameFromFlowVariables() {
+        NodeContext context = NodeContext.getContext();
+        NodeContainer nc = context == null ? null : context.getNodeContainer();
+        FlowObjectStack stack = nc == null ? null : nc.getFlowObjectStack();
+        if (stack == null) {
+            return null;
+        }
+        FlowVariable v = stack.getAvailableFlowVariables(FlowVariable.Type.STRING)
+                .get(KNIMEConstants.PROPERTY_TABLE_COMPRESSION_CODEC);
+        return v == null ? null : v.getStringValue();
     }
 
     @Override
@@ -49,12 +49,19 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.container.Buffer.CompressionFormat;
+import org.knime.core.data.RowIteratorBuilder;
+import org.knime.core.data.RowIteratorBuilder.DefaultRowIteratorBuilder;
+import org.knime.core.data.container.compress.DefaultCompressionCodec;
+import org.knime.core.data.container.compress.RandomAccessFileInput;
+import org.knime.core.data.container.compress.TableCompressionCodec;
+import org.knime.core.data.container.compress.TableCompressionCodecRegistry;
 import org.knime.core.data.container.storage.AbstractTableStoreReader;
 import org.knime.core.data.container.storage.AbstractTableStoreWriter;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
 
 /**
@@ -63,7 +70,17 @@
  */
 final class DefaultTableStoreReader extends AbstractTableStoreReader {
 
-    private CompressionFormat m_compressionFormat;
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(DefaultTableStoreReader.class);
+
+    private TableCompressionCodec m_compressionCodec;
+    /** File position of the row index, -1 if the table has none (written by older versions or with gzip). */
+    private long m_rowIndexPosition;
+    private int m_rowIndexInterval;
+    /** File position of the block table, -1 if the table has none (other codecs or written by older versions). */
+    private long m_blockTablePosition;
+    private int m_blockCount;
+    /** Shared by all iterators starting at an indexed row, lazily created, closed with the iterators. */
+    private RandomAccessFileInput m_randomAccessInput;
     private final File m_binFile;
     private final DataTableSpec m_spec;
     private final boolean m_isReadRowKey;
@@ -92,11 +109,41 @@ final class DefaultTableStoreReader extends AbstractTableStoreReader {
 
     @Override
     public TableStoreCloseableRowIterator iterator() {
+        return createIterator(0L, null);
+    }
+
+    /** {@inheritDoc} Cells of columns that are not included in the
+     * {@linkplain RowIteratorBuilder#filterColumns(int...) column filter} are skipped in the stream without being
+     * deserialized. Iterators of tables with a row index seek to the row set via
+     * {@link RowIteratorBuilder#fromRowIndex(long)}, other tables skip rows without deserializing the cells. */
+    @Override
+    public RowIteratorBuilder<? extends TableStoreCloseableRowIterator> iteratorBuilder() {
+        return new DefaultRowIteratorBuilder<TableStoreCloseableRowIterator>(() -> iterator(), m_spec) {
+            @Override
+            public TableStoreCloseableRowIterator build() {
+                final TableStoreCloseableRowIterator iterator;
+                if (m_version <= 5) { // 2.0 tech preview and before, no support for filtering/seeking
+                    iterator = super.build();
+                } else {
+                    iterator = createIterator(getFromRowIndex(), getMaterializedColumns());
+                }
+                registerNewIteratorInstance(iterator);
+                return iterator;
+            }
+        };
+    }
+
+    /**
+     * @param fromRowIndex index of the first row to return
+     * @param materializedColumns the columns to deserialize, null for all; ignored for very old tables
+     */
+    private TableStoreCloseableRowIterator createIterator(final long fromRowIndex,
+        final boolean[] materializedColumns) {
         try {
             if (m_version <= 5) { // 2.0 tech preview and before
                 return new BufferFromFileIteratorVersion1x(this);
             } else {
-                return new BufferFromFileIteratorVersion20(this);
+                return new BufferFromFileIteratorVersion20(this, fromRowIndex, materializedColumns);
             }
         } catch (IOException ioe) {
             StringBuilder b = new StringBuilder("Cannot read file \"");
@@ -107,9 +154,62 @@ public TableStoreCloseableRowIterator iterator() {
         }
     }
 
-    /** @return Whether stream is zipped. */
-    CompressionFormat getBinFileCompressionFormat() {
-        return m_compressionFormat;
+    /** @return The codec the binary stream was compressed with. */
+    TableCompressionCodec getBinFileCompressionCodec() {
+        return m_compressionCodec;
+    }
+
+    /** @return whether the table has a row index and its codec supports decompression from any offset. */
+    boolean isRandomAccess() {
+        return m_rowIndexPosition >= 0 && m_rowIndexInterval > 0 && m_compressionCodec.isRandomAccessSupported();
+    }
+
+    /**
+     * @param row a row index, 0 &lt;= row &lt; {@link #size()}
+     * @return the largest row index not larger than the argument that is recorded in the row index
+     */
+    long getIndexedRowAtOrBefore(final long row) {
+        return row - row % m_rowIndexInterval;
+    }
+
+    /**
+     * Opens a (decompressed) stream positioned at the start of the argument row. Only to be called if
+     * {@link #isRandomAccess()}.
+     *
+     * @param row a row index as returned by {@link #getIndexedRowAtOrBefore(long)}
+     * @return a new stream, to be closed by the caller
+     * @throws IOException if reading the file or the index fails
+     */
+    InputStream openStreamAtIndexedRow(final long row) throws IOException {
+        assert isRandomAccess() && row % m_rowIndexInterval == 0;
+        final RandomAccessFileInput input = getRandomAccessInput();
+        final long offset = row == 0 ? 0L : input.readLong(m_rowIndexPosition + 8L * (row / m_rowIndexInterval));
+        return m_compressionCodec.createDecompressionStream(input, offset);
+    }
+
+    private synchronized RandomAccessFileInput getRandomAccessInput() throws IOException {
+        if (m_randomAccessInput == null) {
+            m_randomAccessInput = new RandomAccessFileInput(m_binFile, m_blockTablePosition, m_blockCount);
+        }
+        return m_randomAccessInput;
+    }
+
+    /** {@inheritDoc} Also closes the file shared by iterators that started at an indexed row. */
+    @Override
+    public void clearIteratorInstances() {
+        super.clearIteratorInstances();
+        final RandomAccessFileInput input;
+        synchronized (this) {
+            input = m_randomAccessInput;
+            m_randomAccessInput = null;
+        }
+        if (input != null) {
+            try {
+                input.close();
+            } catch (IOException ioe) {
+                LOGGER.debug("Unable to close file \"" + m_binFile.getName() + "\": " + ioe.getMessage(), ioe);
+            }
+        }
     }
 
     /** @return Underlying binary file. */
@@ -140,22 +240,25 @@ long size() {
     @Override
     public void readMetaFromFile(final NodeSettingsRO settings, final int version)
         throws IOException, InvalidSettingsException {
-        final CompressionFormat cF;
+        final TableCompressionCodec codec;
         if (version < 3) { // stream was not zipped in KNIME 1.1.x
-            cF = CompressionFormat.None;
+            codec = DefaultCompressionCodec.None;
         } else if (version >= 8) { // added sometime between format 8 and 9 - no increment of version number
             String compFormat =
-                settings.getString(DefaultTableStoreFormat.CFG_COMPRESSION, CompressionFormat.Gzip.name());
-            try {
-                cF = CompressionFormat.valueOf(compFormat);
-            } catch (Exception e) {
-                throw new InvalidSettingsException(String.format("Unable to parse \"%s\" property (\"%s\"): %s",
-                    DefaultTableStoreFormat.CFG_COMPRESSION, compFormat, e.getMessage()), e);
-            }
+                settings.getString(DefaultTableStoreFormat.CFG_COMPRESSION, DefaultCompressionCodec.Gzip.getName());
+            codec = TableCompressionCodecRegistry.getInstance().getCodec(compFormat).orElseThrow(
+                () -> new InvalidSettingsException(String.format("Unable to parse \"%s\" property (\"%s\"): "
+                    + "unknown compression codec (not installed?)", DefaultTableStoreFormat.CFG_COMPRESSION,
+                    compFormat)));
         } else {
-            cF = CompressionFormat.Gzip;
+            codec = DefaultCompressionCodec.Gzip;
         }
-        m_compressionFormat = cF;
+        m_compressionCodec = codec;
+        // row index added in 3.7, appended to the binary stream (ignored by older versions)
+        m_rowIndexPosition = settings.getLong(DefaultTableStoreFormat.CFG_ROW_INDEX_POSITION, -1L);
+        m_rowIndexInterval = settings.getInt(DefaultTableStoreFormat.CFG_ROW_INDEX_INTERVAL, 0);
+        m_blockTablePosition = settings.getLong(DefaultTableStoreFormat.CFG_BLOCK_TABLE_POSITION, -1L);
+        m_blockCount = settings.getInt(DefaultTableStoreFormat.CFG_BLOCK_COUNT, 0);
         super.readMetaFromFile(settings, version);
     }
 
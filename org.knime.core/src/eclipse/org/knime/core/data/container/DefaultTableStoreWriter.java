@@ -48,9 +48,12 @@
 package org.knime.core.data.container;
 
 import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.Arrays;
+
+import org.apache.commons.io.output.CountingOutputStream;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellSerializer;
@@ -58,9 +61,11 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.RowKey;
-import org.knime.core.data.container.DefaultTableStoreFormat.CompressionFormat;
+import org.knime.core.data.container.compress.BlockTableRecorder;
+import org.knime.core.data.container.compress.TableCompressionCodec;
 import org.knime.core.data.container.storage.AbstractTableStoreWriter;
 import org.knime.core.data.filestore.FileStoreKey;
+import org.knime.core.data.util.NonClosableOutputStream;
 import org.knime.core.node.NodeSettingsWO;
 
 /**
@@ -69,7 +74,7 @@
  */
 final class DefaultTableStoreWriter extends AbstractTableStoreWriter implements KNIMEStreamConstants {
 
-    private final CompressionFormat m_compressionFormat;
+    private final TableCompressionCodec m_compressionCodec;
 
     /**
      * the stream that writes to the file, it's a special object output stream, in which we can mark the end of an entry
@@ -77,6 +82,29 @@ final class DefaultTableStoreWriter extends AbstractTableStoreWriter implements
      */
     private final DCObjectOutputVersion2 m_outStream;
 
+    /**
+     * Counts the bytes written to the file, used to determine the position of the row index. Null if the codec
+     * doesn't support random access (no row index written).
+     */
+    private final CountingOutputStream m_fileOut;
+
+    /** Counts the uncompressed bytes, i.e. the offsets of rows in the row index. Null if no row index is written. */
+    private final CountingOutputStream m_rawOut;
+
+    /** Offsets of every {@link DefaultTableStoreFormat#ROW_INDEX_INTERVAL}-th row, first m_rowCount/interval used. */
+    private long[] m_rowOffsets;
+
+    private long m_rowCount;
+
+    /** Position of the row index in the file, -1 if not (yet) written. */
+    private long m_rowIndexPosition = -1L;
+
+    /** Records the blocks written by block codecs, null for other codecs. */
+    private final BlockTableRecorder m_blockTableRecorder;
+
+    /** Position of the block table in the file, -1 if not (yet) written. */
+    private long m_blockTablePosition = -1L;
+
     /**
      * Constructs a writer for writing KNIME tables to disk.
      *
@@ -88,8 +116,26 @@ final class DefaultTableStoreWriter extends AbstractTableStoreWriter implements
     public DefaultTableStoreWriter(final DataTableSpec spec, final OutputStream outputStream, final boolean writeRowKey)
         throws IOException {
         super(spec, writeRowKey);
-        m_compressionFormat = DefaultTableStoreFormat.IS_USE_GZIP ? CompressionFormat.Gzip : CompressionFormat.None;
-        m_outStream = initOutFile(new BufferedOutputStream(outputStream));
+        m_compressionCodec = DefaultTableStoreFormat.getCompressionCodec();
+        if (m_compressionCodec.isRandomAccessSupported()) {
+            m_fileOut = new CountingOutputStream(new BufferedOutputStream(outputStream));
+            // the file stream stays open after the codec stream is closed, the row index is appended
+            OutputStream codecOut = new NonClosableOutputStream(m_fileOut);
+            if (BlockTableRecorder.isSupported(m_compressionCodec)) {
+                m_blockTableRecorder = new BlockTableRecorder(codecOut);
+                codecOut = m_blockTableRecorder;
+            } else {
+                m_blockTableRecorder = null;
+            }
+            m_rawOut = new CountingOutputStream(m_compressionCodec.createCompressionStream(codecOut));
+            m_rowOffsets = new long[64];
+            m_outStream = new DCObjectOutputVersion2(m_rawOut, this);
+        } else {
+            m_fileOut = null;
+            m_rawOut = null;
+            m_blockTableRecorder = null;
+            m_outStream = initOutFile(new BufferedOutputStream(outputStream));
+        }
     }
 
     /**
@@ -99,6 +145,15 @@ public DefaultTableStoreWriter(final DataTableSpec spec, final OutputStream outp
      */
     @Override
     public void writeRow(final DataRow row) throws IOException {
+        if (m_rawOut != null && m_rowCount % DefaultTableStoreFormat.ROW_INDEX_INTERVAL == 0) {
+            // the object output doesn't buffer, all bytes written so far have been passed to the counting stream
+            final int index = (int)(m_rowCount / DefaultTableStoreFormat.ROW_INDEX_INTERVAL);
+            if (index == m_rowOffsets.length) {
+                m_rowOffsets = Arrays.copyOf(m_rowOffsets, 2 * m_rowOffsets.length);
+            }
+            m_rowOffsets[index] = m_rawOut.getByteCount();
+        }
+        m_rowCount++;
         RowKey id = row.getKey();
         writeRowKey(id, m_outStream);
         for (int i = 0; i < row.getNumCells(); i++) {
@@ -169,36 +224,61 @@ void writeDataCell(final DataCell cell, final DCObjectOutputVersion2 outStream)
      * Creates short cut array and wraps the argument stream in a {@link DCObjectOutputVersion2}.
      */
     private DCObjectOutputVersion2 initOutFile(final OutputStream outStream) throws IOException {
-        OutputStream wrap;
-        switch (m_compressionFormat) {
-            case Gzip:
-                wrap = new GZIPOutputStream(outStream);
-                // buffering the input stream is important as the blockable
-                // stream, which will be put on top of it, reads bytes individually
-                // (had a table, on which a single read-scan took ~6min without
-                // and ~30s with buffering)
-                wrap = new BufferedOutputStream(wrap);
-                break;
-            case None:
-                wrap = outStream;
-                break;
-            default:
-                throw new IOException("Unsupported compression format: " + m_compressionFormat);
-        }
+        OutputStream wrap = m_compressionCodec.createCompressionStream(outStream);
         return new DCObjectOutputVersion2(wrap, this);
     }
 
     /** {@inheritDoc} */
     @Override
     public void writeMetaInfoAfterWrite(final NodeSettingsWO settings) {
-        settings.addString(DefaultTableStoreFormat.CFG_COMPRESSION, m_compressionFormat.name());
+        settings.addString(DefaultTableStoreFormat.CFG_COMPRESSION, m_compressionCodec.getName());
+        if (m_rowIndexPosition >= 0) {
+            settings.addLong(DefaultTableStoreFormat.CFG_ROW_INDEX_POSITION, m_rowIndexPosition);
+            settings.addInt(DefaultTableStoreFormat.CFG_ROW_INDEX_INTERVAL, DefaultTableStoreFormat.ROW_INDEX_INTERVAL);
+        }
+        if (m_blockTablePosition >= 0) {
+            settings.addLong(DefaultTableStoreFormat.CFG_BLOCK_TABLE_POSITION, m_blockTablePosition);
+            settings.addInt(DefaultTableStoreFormat.CFG_BLOCK_COUNT, m_blockTableRecorder.getBlockCount());
+        }
         super.writeMetaInfoAfterWrite(settings);
     }
 
     /** {@inheritDoc} */
     @Override
     public void close() throws IOException {
-        m_outStream.close();
+        if (m_fileOut == null) {
+            m_outStream.close();
+            return;
+        }
+        try {
+            m_outStream.close();
+            writeRowIndex();
+        } finally {
+            m_fileOut.close();
+        }
+    }
+
+    /**
+     * Appends the row index to the file: an end marker (8 zero bytes, understood by block codecs as end of the
+     * compressed blocks) followed by the offsets of every {@link DefaultTableStoreFormat#ROW_INDEX_INTERVAL}-th row
+     * and, for block codecs, the block table (so that readers needn't scan the block headers of the entire file).
+     * Readers of older versions never read beyond the last row and ignore the index.
+     */
+    private void writeRowIndex() throws IOException {
+        DataOutputStream out = new DataOutputStream(new NonClosableOutputStream(m_fileOut));
+        out.writeLong(0L);
+        final long indexPosition = m_fileOut.getByteCount();
+        final long entries = (m_rowCount + DefaultTableStoreFormat.ROW_INDEX_INTERVAL - 1)
+            / DefaultTableStoreFormat.ROW_INDEX_INTERVAL;
+        for (int i = 0; i < entries; i++) {
+            out.writeLong(m_rowOffsets[i]);
+        }
+        if (m_blockTableRecorder != null) {
+            m_blockTablePosition = m_fileOut.getByteCount();
+            m_blockTableRecorder.writeTo(out);
+        }
+        out.flush();
+        m_rowIndexPosition = indexPosition;
     }
 
 }
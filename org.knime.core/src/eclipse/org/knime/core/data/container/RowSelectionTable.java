@@ -0,0 +1,368 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowIteratorBuilder;
+import org.knime.core.data.RowIteratorBuilder.DefaultRowIteratorBuilder;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.BufferedDataTable.KnowsRowCountTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * Table that selects a subset of the rows of a reference table, defined by a bitmap over the reference's rows. Only
+ * the bitmap is kept (and saved), the rows are read from the reference table on access. Selections of selections are
+ * flattened so that they always refer to a table that is not a {@link RowSelectionTable}, see
+ * {@link #select(BitSet)}.
+ *
+ * <p>Iterators start on the reference table at the first selected row (which seeks directly for tables that support
+ * random access) and skip unselected rows thereafter. Column filters set via {@link #iteratorBuilder()} are passed on
+ * to the reference table, so that skipped rows are not fully materialized.
+ *
+ * <p>This class is used by the framework and should not be of public interest, see
+ * {@link org.knime.core.node.ExecutionContext#createRowSelectionTable(BufferedDataTable, BitSet)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class RowSelectionTable implements KnowsRowCountTable {
+
+    private static final String CFG_INTERNAL_META = "meta_internal";
+
+    private static final String CFG_REFERENCE_ID = "table_reference_ID";
+
+    private static final String CFG_ROW_COUNT = "row_count";
+
+    private final BufferedDataTable m_reference;
+
+    /** Bitmap of selected rows in the reference table, same layout as {@link BitSet#toLongArray()}. */
+    private final long[] m_selection;
+
+    private final long m_size;
+
+    private RowSelectionTable(final BufferedDataTable reference, final long[] selection) {
+        m_reference = reference;
+        m_selection = selection;
+        long size = 0;
+        for (long word : selection) {
+            size += Long.bitCount(word);
+        }
+        m_size = size;
+    }
+
+    /**
+     * Creates a new table selecting rows from the argument table.
+     *
+     * @param reference the table to select from
+     * @param selection the indices of the selected rows
+     * @return a new table
+     * @throws IllegalArgumentException if the selection contains indices larger than the size of the reference table
+     */
+    public static RowSelectionTable create(final BufferedDataTable reference, final BitSet selection) {
+        CheckUtils.checkArgument(selection.length() <= reference.size(),
+            "Selection contains row index %d but table has only %d rows", selection.length() - 1, reference.size());
+        return new RowSelectionTable(reference, selection.toLongArray());
+    }
+
+    /**
+     * Creates a new table selecting rows from this table, referencing the reference table of this table.
+     *
+     * @param selection the indices of the selected rows in this table
+     * @return a new table on the reference table of this table
+     * @throws IllegalArgumentException if the selection contains indices larger than the size of this table
+     */
+    public RowSelectionTable select(final BitSet selection) {
+        CheckUtils.checkArgument(selection.length() <= m_size,
+            "Selection contains row index %d but table has only %d rows", selection.length() - 1, m_size);
+        final long[] result = new long[m_selection.length];
+        long rowIndex = 0; // index in this table
+        for (int w = 0; w < m_selection.length; w++) {
+            long word = m_selection[w];
+            while (word != 0L) {
+                final int bit = Long.numberOfTrailingZeros(word);
+                if (rowIndex < Integer.MAX_VALUE && selection.get((int)rowIndex)) {
+                    result[w] |= 1L << bit;
+                }
+                rowIndex++;
+                word &= word - 1;
+            }
+        }
+        return new RowSelectionTable(m_reference, trim(result));
+    }
+
+    /** Removes trailing zero words. */
+    private static long[] trim(final long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0L) {
+            length--;
+        }
+        return length == words.length ? words : Arrays.copyOf(words, length);
+    }
+
+    /** @return the index of the first selected row at or after the argument index, -1 if there is none */
+    private long nextSelected(final long fromIndex) {
+        int w = (int)(fromIndex >>> 6);
+        if (w >= m_selection.length) {
+            return -1;
+        }
+        long word = m_selection[w] & (-1L << (fromIndex & 63));
+        while (word == 0L) {
+            if (++w == m_selection.length) {
+                return -1;
+            }
+            word = m_selection[w];
+        }
+        return ((long)w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataTableSpec getDataTableSpec() {
+        return m_reference.getDataTableSpec();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CloseableRowIterator iterator() {
+        return iteratorBuilder().build();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RowIteratorBuilder<? extends CloseableRowIterator> iteratorBuilder() {
+        return new DefaultRowIteratorBuilder<CloseableRowIterator>(() -> new SelectionIterator(nextSelected(0), null),
+            getDataTableSpec()) {
+            @Override
+            public CloseableRowIterator build() {
+                final boolean[] materialized = getMaterializedColumns();
+                final int[] columns = materialized == null ? null
+                    : IntStream.range(0, materialized.length).filter(i -> materialized[i]).toArray();
+                // skip to the row at the start index
+                long rowIndex = 0;
+                long refIndex = nextSelected(0);
+                while (refIndex >= 0 && rowIndex < getFromRowIndex()) {
+                    refIndex = nextSelected(refIndex + 1);
+                    rowIndex++;
+                }
+                return new SelectionIterator(refIndex, columns);
+            }
+        };
+    }
+
+    /** Iterator on the reference table returning the selected rows. */
+    private final class SelectionIterator extends CloseableRowIterator {
+
+        private final int[] m_columns;
+
+        private CloseableRowIterator m_refIterator;
+
+        /** Index of the row returned next by m_refIterator. */
+        private long m_refPosition;
+
+        /** Index of the next selected row, -1 if there is none. */
+        private long m_nextSelected;
+
+        SelectionIterator(final long firstSelected, final int[] columns) {
+            m_columns = columns;
+            m_nextSelected = firstSelected;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return m_nextSelected >= 0;
+        }
+
+        @Override
+        public DataRow next() {
+            if (m_nextSelected < 0) {
+                throw new NoSuchElementException("No more rows in table");
+            }
+            if (m_refIterator == null) {
+                RowIteratorBuilder<? extends CloseableRowIterator> builder = m_reference.iteratorBuilder();
+                if (m_columns != null) {
+                    builder.filterColumns(m_columns);
+                }
+                m_refIterator = builder.fromRowIndex(m_nextSelected).build();
+                m_refPosition = m_nextSelected;
+            }
+            for (; m_refPosition < m_nextSelected; m_refPosition++) {
+                m_refIterator.next();
+            }
+            final DataRow row = m_refIterator.next();
+            m_refPosition++;
+            m_nextSelected = nextSelected(m_nextSelected + 1);
+            if (m_nextSelected < 0) {
+                close();
+            }
+            return row;
+        }
+
+        @Override
+        public void close() {
+            if (m_refIterator != null) {
+                m_refIterator.close();
+                m_refIterator = null;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * @deprecated use {@link #size()} instead which supports more than {@link Integer#MAX_VALUE} rows
+     */
+    @Override
+    @Deprecated
+    public int getRowCount() {
+        return KnowsRowCountTable.checkRowCount(size());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long size() {
+        return m_size;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        // left empty, it's up to the node to clear our underlying table.
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void ensureOpen() {
+        // no own data, only referencing another table
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferedDataTable[] getReferenceTables() {
+        return new BufferedDataTable[]{m_reference};
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void putIntoTableRepository(final HashMap<Integer, ContainerTable> rep) {
+        // no new buffers created, nothing to register
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean removeFromTableRepository(final HashMap<Integer, ContainerTable> rep) {
+        return false;
+    }
+
+    /** {@inheritDoc} Writes the selection bitmap to the argument file. */
+    @Override
+    public void saveToFile(final File f, final NodeSettingsWO settings, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        NodeSettingsWO internals = settings.addNodeSettings(CFG_INTERNAL_META);
+        internals.addInt(CFG_REFERENCE_ID, m_reference.getBufferedTableId());
+        internals.addLong(CFG_ROW_COUNT, m_size);
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(f))))) {
+            out.writeInt(m_selection.length);
+            for (long word : m_selection) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    /**
+     * Restores the table from the file and settings written by {@link #saveToFile(File, NodeSettingsWO,
+     * ExecutionMonitor)}.
+     *
+     * @param f the file containing the selection
+     * @param s the settings
+     * @param tblRep the table repository containing the reference table
+     * @return the restored table
+     * @throws IOException if reading the file fails
+     * @throws InvalidSettingsException if the settings are invalid or inconsistent with the file
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public static RowSelectionTable load(final File f, final NodeSettingsRO s,
+        final Map<Integer, BufferedDataTable> tblRep) throws IOException, InvalidSettingsException {
+        NodeSettingsRO subSettings = s.getNodeSettings(CFG_INTERNAL_META);
+        BufferedDataTable reference = BufferedDataTable.getDataTable(tblRep, subSettings.getInt(CFG_REFERENCE_ID));
+        long[] selection;
+        try (DataInputStream in =
+            new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(f))))) {
+            selection = new long[in.readInt()];
+            for (int i = 0; i < selection.length; i++) {
+                selection[i] = in.readLong();
+            }
+        }
+        RowSelectionTable table = new RowSelectionTable(reference, selection);
+        long rowCount = subSettings.getLong(CFG_ROW_COUNT);
+        CheckUtils.checkSetting(table.size() == rowCount, "Selection in file \"%s\" contains %d rows, expected %d",
+            f.getName(), table.size(), rowCount);
+        return table;
+    }
+
+}
@@ -0,0 +1,555 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.columnar;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * A chunk of consecutive values of a single column, kept in a primitive array. Cells that can't be represented by the
+ * primitive array (missing cells and cells of a different class than the column's native cell class, e.g. an
+ * {@link IntCell} in a {@link DoubleCell} column) are flagged in a bitmap; the singleton missing cell is encoded by the
+ * bitmap alone, all other flagged cells are kept (and persisted) as exceptions.
+ *
+ * <p>Persisted layout of a chunk:
+ * <pre>
+ *   byte     flags (bit 0: bitmap present, bit 1: exceptions present)
+ *   long[]   bitmap, (size + 63) / 64 words (only if flagged)
+ *   int      #exceptions, followed by (int index, cell) pairs (only if flagged)
+ *   ...      the primitive values, see {@link #writeValues(DataOutputStream)}
+ * </pre>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+abstract class ColumnChunk {
+
+    private static final byte FLAG_BITMAP = 1;
+
+    private static final byte FLAG_EXCEPTIONS = 2;
+
+    private final int m_capacity;
+
+    private final long[] m_notNativeBitmap;
+
+    private final Map<Integer, DataCell> m_exceptions = new TreeMap<>();
+
+    private boolean m_hasNotNative;
+
+    private int m_size;
+
+    /** @param capacity max number of values kept in this chunk. */
+    ColumnChunk(final int capacity) {
+        m_capacity = capacity;
+        m_notNativeBitmap = new long[(capacity + 63) >>> 6];
+    }
+
+    /**
+     * Creates a new chunk for the given column type.
+     *
+     * @param type the column type
+     * @param capacity max number of values per chunk
+     * @return a new chunk, not null
+     * @throws IllegalArgumentException if the type is not supported (see {@link #isSupported(DataType)}).
+     */
+    static ColumnChunk create(final DataType type, final int capacity) {
+        if (IntCell.TYPE.equals(type)) {
+            return new IntChunk(capacity);
+        } else if (LongCell.TYPE.equals(type)) {
+            return new LongChunk(capacity);
+        } else if (DoubleCell.TYPE.equals(type)) {
+            return new DoubleChunk(capacity);
+        } else if (BooleanCell.TYPE.equals(type)) {
+            return new BooleanChunk(capacity);
+        } else if (StringCell.TYPE.equals(type)) {
+            return new StringChunk(capacity);
+        }
+        throw new IllegalArgumentException("Unsupported column type: " + type);
+    }
+
+    /**
+     * @param type a column type
+     * @return whether a column of this type can be stored in a {@link ColumnChunk}.
+     */
+    static boolean isSupported(final DataType type) {
+        return IntCell.TYPE.equals(type) || LongCell.TYPE.equals(type) || DoubleCell.TYPE.equals(type)
+            || BooleanCell.TYPE.equals(type) || StringCell.TYPE.equals(type);
+    }
+
+    /** @return number of values currently in the chunk. */
+    final int size() {
+        return m_size;
+    }
+
+    /** @return the capacity as set at construction time. */
+    final int capacity() {
+        return m_capacity;
+    }
+
+    /**
+     * Appends a cell to the chunk.
+     *
+     * @param cell the cell to add, not null
+     */
+    final void add(final DataCell cell) {
+        final int index = append();
+        if (cell.getClass() == getNativeCellClass()) {
+            setNative(index, cell);
+        } else {
+            setNotNative(index);
+            clearNative(index);
+            if (cell != DataType.getMissingCell()) {
+                m_exceptions.put(index, cell);
+            }
+        }
+    }
+
+    /** @return the index of the new (yet unset) value at the end of the chunk. */
+    final int append() {
+        assert m_size < m_capacity : "Chunk is full";
+        return m_size++;
+    }
+
+    /**
+     * Returns the cell at the given index.
+     *
+     * @param index the index, 0 &lt;= index &lt; {@link #size()}
+     * @return the cell
+     */
+    final DataCell get(final int index) {
+        if (m_hasNotNative && isNotNative(index)) {
+            DataCell exception = m_exceptions.get(index);
+            return exception != null ? exception : DataType.getMissingCell();
+        }
+        return getNative(index);
+    }
+
+    /** Clears the chunk so that it can be reused. */
+    final void clear() {
+        if (m_hasNotNative) {
+            Arrays.fill(m_notNativeBitmap, 0L);
+            m_exceptions.clear();
+            m_hasNotNative = false;
+        }
+        m_size = 0;
+    }
+
+    /** Flag the value at the argument index as not being represented by the primitive array. */
+    private void setNotNative(final int index) {
+        m_notNativeBitmap[index >>> 6] |= 1L << index;
+        m_hasNotNative = true;
+    }
+
+    private boolean isNotNative(final int index) {
+        return (m_notNativeBitmap[index >>> 6] & (1L << index)) != 0L;
+    }
+
+    /**
+     * Writes the chunk content.
+     *
+     * @param out to write to
+     * @param cellWriter used to write the exception cells
+     * @throws IOException if that fails
+     */
+    final void write(final DataOutputStream out, final ColumnarCellWriter cellWriter) throws IOException {
+        byte flags = 0;
+        if (m_hasNotNative) {
+            flags |= FLAG_BITMAP;
+        }
+        if (!m_exceptions.isEmpty()) {
+            flags |= FLAG_EXCEPTIONS;
+        }
+        out.writeByte(flags);
+        if (m_hasNotNative) {
+            final int nrWords = (m_size + 63) >>> 6;
+            for (int i = 0; i < nrWords; i++) {
+                out.writeLong(m_notNativeBitmap[i]);
+            }
+        }
+        if (!m_exceptions.isEmpty()) {
+            out.writeInt(m_exceptions.size());
+            for (Map.Entry<Integer, DataCell> e : m_exceptions.entrySet()) {
+                out.writeInt(e.getKey());
+                cellWriter.writeCell(e.getValue(), out);
+            }
+        }
+        writeValues(out);
+    }
+
+    /**
+     * Reads the chunk content, previously written by {@link #write(DataOutputStream, ColumnarCellWriter)}.
+     *
+     * @param in to read from
+     * @param size number of values in the persisted chunk
+     * @param cellReader used to read exception cells
+     * @throws IOException if that fails
+     */
+    final void read(final DataInputStream in, final int size, final ColumnarCellReader cellReader)
+        throws IOException {
+        clear();
+        if (size > m_capacity) {
+            throw new IOException("Chunk size " + size + " exceeds capacity " + m_capacity);
+        }
+        m_size = size;
+        final byte flags = in.readByte();
+        if ((flags & FLAG_BITMAP) != 0) {
+            final int nrWords = (size + 63) >>> 6;
+            for (int i = 0; i < nrWords; i++) {
+                m_notNativeBitmap[i] = in.readLong();
+            }
+            m_hasNotNative = true;
+        }
+        if ((flags & FLAG_EXCEPTIONS) != 0) {
+            final int nrExceptions = in.readInt();
+            for (int i = 0; i < nrExceptions; i++) {
+                int index = in.readInt();
+                m_exceptions.put(index, cellReader.readCell(in));
+            }
+        }
+        readValues(in);
+    }
+
+    /** @return the class of cells that are kept in the primitive array. */
+    abstract Class<? extends DataCell> getNativeCellClass();
+
+    /** Sets the native cell at the given index. */
+    abstract void setNative(int index, DataCell cell);
+
+    /** Resets the primitive value at the given index, called for values that are not native. */
+    void clearNative(final int index) {
+        // no-op by default, primitive arrays have no dangling references
+    }
+
+    /** @return the native cell at the given index. */
+    abstract DataCell getNative(int index);
+
+    /** Writes the first {@link #size()} primitive values. */
+    abstract void writeValues(DataOutputStream out) throws IOException;
+
+    /** Reads {@link #size()} primitive values. */
+    abstract void readValues(DataInputStream in) throws IOException;
+
+    /** Writer for cells that are not represented in the primitive arrays. */
+    interface ColumnarCellWriter {
+        /**
+         * @param cell the cell to write
+         * @param out to write to
+         * @throws IOException if that fails (including unsupported cell types)
+         */
+        void writeCell(DataCell cell, DataOutputStream out) throws IOException;
+    }
+
+    /** Counterpart to {@link ColumnarCellWriter}. */
+    interface ColumnarCellReader {
+        /**
+         * @param in to read from
+         * @return the cell
+         * @throws IOException if that fails
+         */
+        DataCell readCell(DataInputStream in) throws IOException;
+    }
+
+    /** (Re-)allocates the scratch buffer used by the numeric chunks for bulk (de)serialization. */
+    private static ByteBuffer ensureCapacity(final ByteBuffer buffer, final int bytes) {
+        if (buffer == null || buffer.capacity() < bytes) {
+            return ByteBuffer.allocate(bytes);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    static final class IntChunk extends ColumnChunk {
+        private final int[] m_values;
+
+        private ByteBuffer m_scratch;
+
+        IntChunk(final int capacity) {
+            super(capacity);
+            m_values = new int[capacity];
+        }
+
+        @Override
+        Class<? extends DataCell> getNativeCellClass() {
+            return IntCell.class;
+        }
+
+        @Override
+        void setNative(final int index, final DataCell cell) {
+            m_values[index] = ((IntCell)cell).getIntValue();
+        }
+
+        @Override
+        DataCell getNative(final int index) {
+            return new IntCell(m_values[index]);
+        }
+
+        @Override
+        void writeValues(final DataOutputStream out) throws IOException {
+            final int bytes = size() * Integer.BYTES;
+            m_scratch = ensureCapacity(m_scratch, bytes);
+            m_scratch.asIntBuffer().put(m_values, 0, size());
+            out.write(m_scratch.array(), 0, bytes);
+        }
+
+        @Override
+        void readValues(final DataInputStream in) throws IOException {
+            final int bytes = size() * Integer.BYTES;
+            m_scratch = ensureCapacity(m_scratch, bytes);
+            in.readFully(m_scratch.array(), 0, bytes);
+            m_scratch.asIntBuffer().get(m_values, 0, size());
+        }
+    }
+
+    static final class LongChunk extends ColumnChunk {
+        private final long[] m_values;
+
+        private ByteBuffer m_scratch;
+
+        LongChunk(final int capacity) {
+            super(capacity);
+            m_values = new long[capacity];
+        }
+
+        @Override
+        Class<? extends DataCell> getNativeCellClass() {
+            return LongCell.class;
+        }
+
+        @Override
+        void setNative(final int index, final DataCell cell) {
+            m_values[index] = ((LongCell)cell).getLongValue();
+        }
+
+        @Override
+        DataCell getNative(final int index) {
+            return new LongCell(m_values[index]);
+        }
+
+        @Override
+        void writeValues(final DataOutputStream out) throws IOException {
+            final int bytes = size() * Long.BYTES;
+            m_scratch = ensureCapacity(m_scratch, bytes);
+            m_scratch.asLongBuffer().put(m_values, 0, size());
+            out.write(m_scratch.array(), 0, bytes);
+        }
+
+        @Override
+        void readValues(final DataInputStream in) throws IOException {
+            final int bytes = size() * Long.BYTES;
+            m_scratch = ensureCapacity(m_scratch, bytes);
+            in.readFully(m_scratch.array(), 0, bytes);
+            m_scratch.asLongBuffer().get(m_values, 0, size());
+        }
+    }
+
+    static final class DoubleChunk extends ColumnChunk {
+        private final double[] m_values;
+
+        private ByteBuffer m_scratch;
+
+        DoubleChunk(final int capacity) {
+            super(capacity);
+            m_values = new double[capacity];
+        }
+
+        @Override
+        Class<? extends DataCell> getNativeCellClass() {
+            return DoubleCell.class;
+        }
+
+        @Override
+        void setNative(final int index, final DataCell cell) {
+            m_values[index] = ((DoubleCell)cell).getDoubleValue();
+        }
+
+        @Override
+        DataCell getNative(final int index) {
+            return new DoubleCell(m_values[index]);
+        }
+
+        @Override
+        void writeValues(final DataOutputStream out) throws IOException {
+            final int bytes = size() * Double.BYTES;
+            m_scratch = ensureCapacity(m_scratch, bytes);
+            m_scratch.asDoubleBuffer().put(m_values, 0, size());
+            out.write(m_scratch.array(), 0, bytes);
+        }
+
+        @Override
+        void readValues(final DataInputStream in) throws IOException {
+            final int bytes = size() * Double.BYTES;
+            m_scratch = ensureCapacity(m_scratch, bytes);
+            in.readFully(m_scratch.array(), 0, bytes);
+            m_scratch.asDoubleBuffer().get(m_values, 0, size());
+        }
+    }
+
+    static final class BooleanChunk extends ColumnChunk {
+        private final long[] m_values;
+
+        BooleanChunk(final int capacity) {
+            super(capacity);
+            m_values = new long[(capacity + 63) >>> 6];
+        }
+
+        @Override
+        Class<? extends DataCell> getNativeCellClass() {
+            return BooleanCell.class;
+        }
+
+        @Override
+        void setNative(final int index, final DataCell cell) {
+            if (((BooleanCell)cell).getBooleanValue()) {
+                m_values[index >>> 6] |= 1L << index;
+            } else {
+                m_values[index >>> 6] &= ~(1L << index);
+            }
+        }
+
+        @Override
+        DataCell getNative(final int index) {
+            return BooleanCell.get((m_values[index >>> 6] & (1L << index)) != 0L);
+        }
+
+        @Override
+        void writeValues(final DataOutputStream out) throws IOException {
+            final int nrWords = (size() + 63) >>> 6;
+            for (int i = 0; i < nrWords; i++) {
+                out.writeLong(m_values[i]);
+            }
+        }
+
+        @Override
+        void readValues(final DataInputStream in) throws IOException {
+            final int nrWords = (size() + 63) >>> 6;
+            for (int i = 0; i < nrWords; i++) {
+                m_values[i] = in.readLong();
+            }
+        }
+    }
+
+    static final class StringChunk extends ColumnChunk {
+        private final String[] m_values;
+
+        StringChunk(final int capacity) {
+            super(capacity);
+            m_values = new String[capacity];
+        }
+
+        /** Appends a plain string, used for the row key column. */
+        void addString(final String value) {
+            m_values[append()] = value;
+        }
+
+        /** @return the string at the given index (only to be used for chunks holding row keys). */
+        String getString(final int index) {
+            return m_values[index];
+        }
+
+        @Override
+        Class<? extends DataCell> getNativeCellClass() {
+            return StringCell.class;
+        }
+
+        @Override
+        void setNative(final int index, final DataCell cell) {
+            m_values[index] = ((StringCell)cell).getStringValue();
+        }
+
+        @Override
+        void clearNative(final int index) {
+            m_values[index] = null;
+        }
+
+        @Override
+        DataCell getNative(final int index) {
+            return new StringCell(m_values[index]);
+        }
+
+        @Override
+        void writeValues(final DataOutputStream out) throws IOException {
+            for (int i = 0; i < size(); i++) {
+                String s = m_values[i];
+                if (s == null) { // not native
+                    out.writeInt(-1);
+                } else {
+                    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+        }
+
+        @Override
+        void readValues(final DataInputStream in) throws IOException {
+            byte[] bytes = new byte[64];
+            for (int i = 0; i < size(); i++) {
+                int length = in.readInt();
+                if (length < 0) {
+                    m_values[i] = null;
+                } else {
+                    if (bytes.length < length) {
+                        bytes = new byte[Math.max(length, 2 * bytes.length)];
+                    }
+                    in.readFully(bytes, 0, length);
+                    m_values[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.columnar;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.container.BlobDataCell;
+import org.knime.core.data.container.BlobWrapperDataCell;
+import org.knime.core.data.filestore.FileStoreCell;
+import org.knime.core.data.util.ClassNameCellSerializer;
+
+/**
+ * (De-)Serializes cells that are not kept in the primitive arrays of a {@link ColumnChunk}, i.e. missing cells with
+ * an error message and cells of a class other than the native cell class of a column. Cells are written as class name
+ * followed by the output of their {@link DataCellSerializer}, see {@link ClassNameCellSerializer}. Blobs, file stores
+ * and cells without serializer are not supported (they are not expected in the column types supported by this
+ * format).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ColumnarCellSerializer implements ColumnChunk.ColumnarCellWriter, ColumnChunk.ColumnarCellReader {
+
+    @Override
+    public void writeCell(final DataCell cell, final DataOutputStream out) throws IOException {
+        if (cell instanceof BlobDataCell || cell instanceof BlobWrapperDataCell || cell instanceof FileStoreCell) {
+            throw new IOException(String.format("Cells of type '%s' can't be written in columnar table format",
+                cell.getClass().getName()));
+        }
+        ClassNameCellSerializer.writeCell(cell, new CellDataOutput(out));
+    }
+
+    @Override
+    public DataCell readCell(final DataInputStream in) throws IOException {
+        return ClassNameCellSerializer.readCell(new CellDataInput(in));
+    }
+
+    /** Output passed to the cell serializer, supporting nested cells (e.g. in collections). */
+    private final class CellDataOutput extends DataOutputStream implements DataCellDataOutput {
+
+        CellDataOutput(final DataOutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void writeDataCell(final DataCell cell) throws IOException {
+            writeCell(cell, this);
+        }
+    }
+
+    /** Counterpart to {@link CellDataOutput}. */
+    private final class CellDataInput extends DataInputStream implements DataCellDataInput {
+
+        CellDataInput(final DataInputStream in) {
+            super(in);
+        }
+
+        @Override
+        public DataCell readDataCell() throws IOException {
+            return readCell(this);
+        }
+    }
+}
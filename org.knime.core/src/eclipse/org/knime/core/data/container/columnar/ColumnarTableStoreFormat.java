@@ -0,0 +1,172 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.columnar;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.container.DataContainer;
+import org.knime.core.data.container.storage.AbstractTableStoreReader;
+import org.knime.core.data.container.storage.AbstractTableStoreWriter;
+import org.knime.core.data.container.storage.TableStoreFormat;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeSettingsRO;
+
+/**
+ * Table format storing int, long, double, boolean and string columns as typed column chunks. Each chunk holds a fixed
+ * number of rows of all columns; per column the values are kept in primitive arrays, missing values in a bitmap. The
+ * format accepts only tables whose columns are all of one of these types; others are written in the
+ * {@link org.knime.core.data.container.DefaultTableStoreFormat default format}.
+ *
+ * <p>Compared to the default format, no control bytes or per-cell serializer calls are needed, numeric columns are
+ * (de)serialized in bulk, and readers can skip columns that are filtered via
+ * {@link org.knime.core.data.RowIteratorBuilder#filterColumns(int...)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @noextend This class is not intended to be subclassed by clients.
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class ColumnarTableStoreFormat implements TableStoreFormat {
+
+    /** Config key: number of rows in the table (long). */
+    static final String CFG_ROW_COUNT = "columnar.rowcount";
+
+    /** Config key: number of rows per chunk (int). */
+    static final String CFG_ROWS_PER_CHUNK = "columnar.rowsPerChunk";
+
+    /** Config key: whether column chunks are deflate-compressed (boolean). */
+    static final String CFG_COMPRESSION = "columnar.compression";
+
+    private static final String VERSION = "columnar_1";
+
+    /** Approximate number of cells in one chunk (all columns), bounds the memory used by writers and readers. */
+    private static final int CELLS_PER_CHUNK = 1 << 20;
+
+    private static final int MIN_ROWS_PER_CHUNK = 64;
+
+    private static final int MAX_ROWS_PER_CHUNK = 1 << 14;
+
+    /**
+     * Whether to compress the column chunks, follows the {@link KNIMEConstants#PROPERTY_TABLE_GZIP_COMPRESSION}
+     * property that also controls compression of the default format.
+     */
+    static final boolean IS_USE_COMPRESSION = Boolean.parseBoolean(System.getProperty(
+        KNIMEConstants.PROPERTY_TABLE_GZIP_COMPRESSION, Boolean.toString(DataContainer.DEF_GZIP_COMPRESSION)));
+
+    /**
+     * @param nrColumns number of columns in the table
+     * @return the number of rows per chunk, a multiple of 64 so that bitmaps are word aligned
+     */
+    static int getRowsPerChunk(final int nrColumns) {
+        int rows = CELLS_PER_CHUNK / Math.max(1, nrColumns);
+        rows = Math.max(MIN_ROWS_PER_CHUNK, Math.min(MAX_ROWS_PER_CHUNK, rows));
+        return rows & ~63;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return "Columnar (primitive types only)";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getFilenameSuffix() {
+        return ".col";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean accepts(final DataTableSpec spec) {
+        for (DataColumnSpec col : spec) {
+            if (!ColumnChunk.isSupported(col.getType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AbstractTableStoreWriter createWriter(final File binFile, final DataTableSpec spec,
+        final boolean writeRowKey) throws IOException {
+        return createWriter(new FileOutputStream(binFile), spec, writeRowKey);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AbstractTableStoreWriter createWriter(final OutputStream output, final DataTableSpec spec,
+        final boolean writeRowKey) throws IOException {
+        return new ColumnarTableStoreWriter(spec, output, writeRowKey);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AbstractTableStoreReader createReader(final File binFile, final DataTableSpec spec,
+        final NodeSettingsRO settings, final Map<Integer, ContainerTable> tblRep, final int version,
+        final boolean isReadRowKey) throws IOException, InvalidSettingsException {
+        return new ColumnarTableStoreReader(binFile, spec, settings, version, isReadRowKey);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getVersion() {
+        return VERSION;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean validateVersion(final String versionString) {
+        return VERSION.equals(versionString);
+    }
+
+}
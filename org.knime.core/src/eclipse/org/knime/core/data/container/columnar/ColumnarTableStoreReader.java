@@ -0,0 +1,347 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.columnar;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowIteratorBuilder;
+import org.knime.core.data.RowIteratorBuilder.DefaultRowIteratorBuilder;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.UnmaterializedCell;
+import org.knime.core.data.container.BlobSupportDataRow;
+import org.knime.core.data.container.KNIMEStreamConstants;
+import org.knime.core.data.container.columnar.ColumnChunk.StringChunk;
+import org.knime.core.data.container.storage.AbstractTableStoreReader;
+import org.knime.core.data.container.storage.OffHeapTableCache;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+
+/**
+ * Reader for the {@link ColumnarTableStoreFormat}. Iterators created via {@link #iteratorBuilder()} honor column
+ * filters: column chunks of filtered columns are skipped in the file without being decompressed or decoded.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ColumnarTableStoreReader extends AbstractTableStoreReader {
+
+    private final boolean m_isReadRowKey;
+
+    // not final: set in readMetaFromFile, which is called from the super constructor
+    private long m_rowCount;
+
+    private int m_rowsPerChunk;
+
+    private boolean m_isCompressed;
+
+    /**
+     * @param binFile to read from
+     * @param spec the spec of the table
+     * @param settings as written by {@link ColumnarTableStoreWriter#writeMetaInfoAfterWrite(
+     *            org.knime.core.node.NodeSettingsWO)}
+     * @param version buffer version
+     * @param isReadRowKey whether the file contains the row keys
+     * @throws IOException any type of I/O problem
+     * @throws InvalidSettingsException if the settings are incomplete
+     */
+    ColumnarTableStoreReader(final File binFile, final DataTableSpec spec, final NodeSettingsRO settings,
+        final int version, final boolean isReadRowKey) throws IOException, InvalidSettingsException {
+        super(binFile, spec, settings, version);
+        m_isReadRowKey = isReadRowKey;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readMetaFromFile(final NodeSettingsRO settings, final int version)
+        throws IOException, InvalidSettingsException {
+        m_rowCount = settings.getLong(ColumnarTableStoreFormat.CFG_ROW_COUNT);
+        m_rowsPerChunk = settings.getInt(ColumnarTableStoreFormat.CFG_ROWS_PER_CHUNK);
+        m_isCompressed = settings.getBoolean(ColumnarTableStoreFormat.CFG_COMPRESSION);
+        if (m_rowCount < 0 || m_rowsPerChunk <= 0) {
+            throw new InvalidSettingsException(String.format("Invalid row count (%d) or chunk size (%d)",
+                m_rowCount, m_rowsPerChunk));
+        }
+        super.readMetaFromFile(settings, version);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TableStoreCloseableRowIterator iterator() {
+        return createIterator(null, 0);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RowIteratorBuilder<? extends TableStoreCloseableRowIterator> iteratorBuilder() {
+        return new ColumnarRowIteratorBuilder();
+    }
+
+    private TableStoreCloseableRowIterator createIterator(final boolean[] materializedColumns,
+        final long fromRowIndex) {
+        try {
+            ColumnarRowIterator iterator = new ColumnarRowIterator(materializedColumns);
+            iterator.skipRows(fromRowIndex);
+            return iterator;
+        } catch (IOException ioe) {
+            checkAndReportOpenFiles(ioe);
+            throw new RuntimeException("Cannot read file \"" + getFile().getName() + "\"", ioe);
+        }
+    }
+
+    /** Builder creating a {@link ColumnarRowIterator} that honors column filter and start row. */
+    private final class ColumnarRowIteratorBuilder extends DefaultRowIteratorBuilder<TableStoreCloseableRowIterator> {
+
+        ColumnarRowIteratorBuilder() {
+            super(() -> iterator(), getSpec());
+        }
+
+        @Override
+        public TableStoreCloseableRowIterator build() {
+            TableStoreCloseableRowIterator iterator = createIterator(getMaterializedColumns(), getFromRowIndex());
+            registerNewIteratorInstance(iterator);
+            return iterator;
+        }
+    }
+
+    /** Iterator reading the file chunk by chunk. */
+    private final class ColumnarRowIterator extends TableStoreCloseableRowIterator {
+
+        private DataInputStream m_in;
+
+        /** Chunks of the materialized columns, null elements for columns that are filtered. */
+        private final ColumnChunk[] m_columnChunks;
+
+        private final StringChunk m_rowKeyChunk;
+
+        private final ColumnarCellSerializer m_cellSerializer = new ColumnarCellSerializer();
+
+        private final Inflater m_inflater;
+
+        private byte[] m_storedBytes = new byte[1 << 16];
+
+        private byte[] m_rawBytes = new byte[1 << 16];
+
+        private long m_pointer;
+
+        private int m_indexInChunk;
+
+        private int m_rowsInChunk;
+
+        ColumnarRowIterator(final boolean[] materializedColumns) throws IOException {
+            final DataTableSpec spec = getSpec();
+            m_columnChunks = new ColumnChunk[spec.getNumColumns()];
+            for (int i = 0; i < m_columnChunks.length; i++) {
+                if (materializedColumns == null || materializedColumns[i]) {
+                    m_columnChunks[i] = ColumnChunk.create(spec.getColumnSpec(i).getType(), m_rowsPerChunk);
+                }
+            }
+            m_rowKeyChunk = m_isReadRowKey ? new StringChunk(m_rowsPerChunk) : null;
+            m_inflater = m_isCompressed ? new Inflater() : null;
+            m_in = new DataInputStream(OffHeapTableCache.getInstance().openInputStream(getFile()));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized boolean hasNext() {
+            boolean hasNext = m_pointer < m_rowCount;
+            if (!hasNext && m_in != null) {
+                close();
+            }
+            return hasNext;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized BlobSupportDataRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Iterator at end");
+            }
+            final int colCount = m_columnChunks.length;
+            if (m_in == null) { // iterator was closed
+                DataCell[] missings = new DataCell[colCount];
+                Arrays.fill(missings, DataType.getMissingCell());
+                return new BlobSupportDataRow(
+                    new RowKey("INVALID_ROW (table is closed) - (Row " + m_pointer++ + ")"), missings);
+            }
+            if (m_indexInChunk == m_rowsInChunk) {
+                try {
+                    readChunk();
+                } catch (IOException ioe) {
+                    throw new RuntimeException("Errors while reading row " + (m_pointer + 1) + " from file \""
+                        + getFile().getName() + "\": " + ioe.getMessage(), ioe);
+                }
+            }
+            final int index = m_indexInChunk++;
+            m_pointer++;
+            final RowKey key = m_rowKeyChunk != null
+                ? new RowKey(m_rowKeyChunk.getString(index)) : KNIMEStreamConstants.DUMMY_ROW_KEY;
+            DataCell[] cells = new DataCell[colCount];
+            for (int i = 0; i < colCount; i++) {
+                ColumnChunk chunk = m_columnChunks[i];
+                cells[i] = chunk != null ? chunk.get(index) : UnmaterializedCell.getInstance();
+            }
+            return new BlobSupportDataRow(key, cells);
+        }
+
+        /**
+         * Advances the iterator by the given number of rows (or to the end). Chunks that are skipped entirely are not
+         * decoded, only their column chunks are skipped in the file.
+         */
+        synchronized void skipRows(final long count) throws IOException {
+            long remaining = Math.min(count, m_rowCount - m_pointer);
+            while (remaining > 0) {
+                if (m_indexInChunk == m_rowsInChunk) {
+                    if (remaining >= Math.min(m_rowsPerChunk, m_rowCount - m_pointer)) {
+                        // entire chunk skipped (the last chunk may be smaller)
+                        final int rowsInChunk = m_in.readInt();
+                        final int columnChunks = m_columnChunks.length + (m_rowKeyChunk != null ? 1 : 0);
+                        for (int i = 0; i < columnChunks; i++) {
+                            final int storedLength = m_in.readInt();
+                            m_in.readInt(); // raw length
+                            skipFully(storedLength);
+                        }
+                        m_pointer += rowsInChunk;
+                        remaining -= rowsInChunk;
+                        continue;
+                    }
+                    readChunk();
+                }
+                final int skip = (int)Math.min(remaining, m_rowsInChunk - m_indexInChunk);
+                m_indexInChunk += skip;
+                m_pointer += skip;
+                remaining -= skip;
+            }
+        }
+
+        private void readChunk() throws IOException {
+            m_rowsInChunk = m_in.readInt();
+            m_indexInChunk = 0;
+            if (m_rowKeyChunk != null) {
+                readColumnChunk(m_rowKeyChunk);
+            }
+            for (ColumnChunk chunk : m_columnChunks) {
+                readColumnChunk(chunk);
+            }
+        }
+
+        private void readColumnChunk(final ColumnChunk chunk) throws IOException {
+            final int storedLength = m_in.readInt();
+            final int rawLength = m_in.readInt();
+            if (chunk == null) { // column not materialized
+                skipFully(storedLength);
+                return;
+            }
+            if (m_storedBytes.length < storedLength) {
+                m_storedBytes = new byte[storedLength];
+            }
+            m_in.readFully(m_storedBytes, 0, storedLength);
+            byte[] raw = m_storedBytes;
+            if (m_isCompressed) {
+                if (m_rawBytes.length < rawLength) {
+                    m_rawBytes = new byte[rawLength];
+                }
+                m_inflater.reset();
+                m_inflater.setInput(m_storedBytes, 0, storedLength);
+                try {
+                    int inflated = 0;
+                    while (inflated < rawLength && !m_inflater.finished()) {
+                        final int count = m_inflater.inflate(m_rawBytes, inflated, rawLength - inflated);
+                        if (count == 0 && (m_inflater.needsInput() || m_inflater.needsDictionary())) {
+                            // all stored bytes consumed (or unknown dictionary), would never make progress
+                            throw new IOException("Truncated column chunk: inflated " + inflated + " of "
+                                + rawLength + " bytes from " + storedLength + " stored bytes");
+                        }
+                        inflated += count;
+                    }
+                    if (inflated < rawLength) {
+                        throw new IOException("Truncated column chunk: inflated " + inflated + " of " + rawLength
+                            + " bytes");
+                    }
+                } catch (DataFormatException dfe) {
+                    throw new IOException("Corrupt column chunk: " + dfe.getMessage(), dfe);
+                }
+                raw = m_rawBytes;
+            }
+            chunk.read(new DataInputStream(new ByteArrayInputStream(raw, 0, rawLength)), m_rowsInChunk,
+                m_cellSerializer);
+        }
+
+        private void skipFully(final int length) throws IOException {
+            int remaining = length;
+            while (remaining > 0) {
+                int skipped = m_in.skipBytes(remaining);
+                if (skipped <= 0) {
+                    throw new IOException("Unexpected end of file while skipping column chunk");
+                }
+                remaining -= skipped;
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized boolean performClose() throws IOException {
+            if (m_in == null) {
+                return false;
+            }
+            DataInputStream in = m_in;
+            m_in = null;
+            if (m_inflater != null) {
+                m_inflater.end();
+            }
+            in.close();
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.columnar;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.BlobSupportDataRow;
+import org.knime.core.data.container.columnar.ColumnChunk.StringChunk;
+import org.knime.core.data.container.storage.AbstractTableStoreWriter;
+import org.knime.core.node.NodeSettingsWO;
+
+/**
+ * Writer for the {@link ColumnarTableStoreFormat}. Rows are collected into {@link ColumnChunk column chunks} of
+ * {@link ColumnarTableStoreFormat#getRowsPerChunk(int)} rows; full chunks are written to the file column by column,
+ * each column chunk preceded by its (compressed) length so that readers can skip columns they don't need.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ColumnarTableStoreWriter extends AbstractTableStoreWriter {
+
+    private final DataOutputStream m_out;
+
+    private final ColumnChunk[] m_columnChunks;
+
+    /** Chunk holding the row keys, null if row keys are not written. */
+    private final StringChunk m_rowKeyChunk;
+
+    private final int m_rowsPerChunk;
+
+    private final boolean m_isCompress;
+
+    private final ColumnarCellSerializer m_cellSerializer = new ColumnarCellSerializer();
+
+    /** Reused buffer for the serialized content of a column chunk. */
+    private final ExposedByteArrayOutputStream m_chunkBytes = new ExposedByteArrayOutputStream();
+
+    private final Deflater m_deflater;
+
+    private byte[] m_deflateBuffer = new byte[1 << 16];
+
+    private long m_rowCount;
+
+    private int m_rowsInChunk;
+
+    /**
+     * @param spec the spec, only containing types supported by {@link ColumnChunk}
+     * @param outputStream to write to
+     * @param writeRowKey whether to persist the row keys
+     */
+    ColumnarTableStoreWriter(final DataTableSpec spec, final OutputStream outputStream, final boolean writeRowKey) {
+        super(spec, writeRowKey);
+        m_out = new DataOutputStream(new BufferedOutputStream(outputStream, 1 << 16));
+        m_rowsPerChunk = ColumnarTableStoreFormat.getRowsPerChunk(spec.getNumColumns());
+        m_columnChunks = new ColumnChunk[spec.getNumColumns()];
+        for (int i = 0; i < m_columnChunks.length; i++) {
+            m_columnChunks[i] = ColumnChunk.create(spec.getColumnSpec(i).getType(), m_rowsPerChunk);
+        }
+        m_rowKeyChunk = writeRowKey ? new StringChunk(m_rowsPerChunk) : null;
+        m_isCompress = ColumnarTableStoreFormat.IS_USE_COMPRESSION;
+        m_deflater = m_isCompress ? new Deflater(Deflater.BEST_SPEED) : null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeRow(final DataRow row) throws IOException {
+        if (m_rowKeyChunk != null) {
+            m_rowKeyChunk.addString(row.getKey().getString());
+        }
+        final boolean isBlobRow = row instanceof BlobSupportDataRow;
+        for (int i = 0; i < m_columnChunks.length; i++) {
+            DataCell cell = isBlobRow ? ((BlobSupportDataRow)row).getRawCell(i) : row.getCell(i);
+            m_columnChunks[i].add(cell);
+        }
+        m_rowCount++;
+        if (++m_rowsInChunk == m_rowsPerChunk) {
+            flushChunk();
+        }
+    }
+
+    /** Writes the current chunk (all columns) to the output and clears the column chunks. */
+    private void flushChunk() throws IOException {
+        m_out.writeInt(m_rowsInChunk);
+        m_rowsInChunk = 0;
+        if (m_rowKeyChunk != null) {
+            writeColumnChunk(m_rowKeyChunk);
+        }
+        for (ColumnChunk c : m_columnChunks) {
+            writeColumnChunk(c);
+        }
+    }
+
+    private void writeColumnChunk(final ColumnChunk chunk) throws IOException {
+        m_chunkBytes.reset();
+        chunk.write(new DataOutputStream(m_chunkBytes), m_cellSerializer);
+        chunk.clear();
+        final int rawLength = m_chunkBytes.size();
+        if (m_isCompress) {
+            m_deflater.reset();
+            m_deflater.setInput(m_chunkBytes.getBuffer(), 0, rawLength);
+            m_deflater.finish();
+            int compressedLength = 0;
+            while (!m_deflater.finished()) {
+                if (compressedLength == m_deflateBuffer.length) {
+                    byte[] newBuffer = new byte[2 * m_deflateBuffer.length];
+                    System.arraycopy(m_deflateBuffer, 0, newBuffer, 0, compressedLength);
+                    m_deflateBuffer = newBuffer;
+                }
+                compressedLength +=
+                    m_deflater.deflate(m_deflateBuffer, compressedLength, m_deflateBuffer.length - compressedLength);
+            }
+            m_out.writeInt(compressedLength);
+            m_out.writeInt(rawLength);
+            m_out.write(m_deflateBuffer, 0, compressedLength);
+        } else {
+            m_out.writeInt(rawLength);
+            m_out.writeInt(rawLength);
+            m_out.write(m_chunkBytes.getBuffer(), 0, rawLength);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeMetaInfoAfterWrite(final NodeSettingsWO settings) {
+        settings.addLong(ColumnarTableStoreFormat.CFG_ROW_COUNT, m_rowCount);
+        settings.addInt(ColumnarTableStoreFormat.CFG_ROWS_PER_CHUNK, m_rowsPerChunk);
+        settings.addBoolean(ColumnarTableStoreFormat.CFG_COMPRESSION, m_isCompress);
+        super.writeMetaInfoAfterWrite(settings);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (m_rowsInChunk > 0) {
+                flushChunk();
+            }
+        } finally {
+            if (m_deflater != null) {
+                m_deflater.end();
+            }
+            m_out.close();
+        }
+    }
+
+    /** Gives access to the internal buffer, avoiding the copy done by {@link #toByteArray()}. */
+    static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+
+        ExposedByteArrayOutputStream() {
+            super(1 << 16);
+        }
+
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+
+}
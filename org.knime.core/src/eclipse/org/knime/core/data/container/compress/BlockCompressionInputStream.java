@@ -0,0 +1,191 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.compress;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counterpart to {@link BlockCompressionOutputStream}, reads and decompresses one block at a time.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BlockCompressionInputStream extends InputStream {
+
+    private final InputStream m_in;
+
+    private final BlockCompressor m_compressor;
+
+    private final byte[] m_header = new byte[8];
+
+    private byte[] m_buffer = new byte[BlockCompressionOutputStream.BLOCK_SIZE];
+
+    private byte[] m_compressed = new byte[BlockCompressionOutputStream.BLOCK_SIZE];
+
+    private int m_pos;
+
+    private int m_limit;
+
+    private boolean m_isEOF;
+
+    /**
+     * @param in the stream to read the blocks from
+     * @param compressor the compressor (same type as used for writing)
+     */
+    BlockCompressionInputStream(final InputStream in, final BlockCompressor compressor) {
+        m_in = in;
+        m_compressor = compressor;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read() throws IOException {
+        if (m_pos == m_limit && !readBlock()) {
+            return -1;
+        }
+        return m_buffer[m_pos++] & 0xFF;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (m_pos == m_limit && !readBlock()) {
+            return -1;
+        }
+        final int n = Math.min(len, m_limit - m_pos);
+        System.arraycopy(m_buffer, m_pos, b, off, n);
+        m_pos += n;
+        return n;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long skip(final long n) throws IOException {
+        long remaining = n;
+        while (remaining > 0) {
+            if (m_pos == m_limit && !readBlock()) {
+                break;
+            }
+            final int s = (int)Math.min(remaining, m_limit - m_pos);
+            m_pos += s;
+            remaining -= s;
+        }
+        return n - remaining;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int available() throws IOException {
+        return m_limit - m_pos;
+    }
+
+    /** Reads the next block into the buffer, returns false if the end of the stream is reached. */
+    private boolean readBlock() throws IOException {
+        if (m_isEOF) {
+            return false;
+        }
+        final int first = m_in.read();
+        if (first < 0) {
+            m_isEOF = true;
+            return false;
+        }
+        m_header[0] = (byte)first;
+        readFully(m_header, 1, 7);
+        final int rawLength = readInt(m_header, 0);
+        final int storedLength = readInt(m_header, 4);
+        if (rawLength == 0 && storedLength == 0) {
+            // end marker, possibly followed by other data (e.g. a row index)
+            m_isEOF = true;
+            return false;
+        }
+        if (rawLength <= 0 || storedLength <= 0 || storedLength > rawLength) {
+            throw new IOException(
+                String.format("Corrupt block header (length %d, stored length %d)", rawLength, storedLength));
+        }
+        if (m_buffer.length < rawLength) {
+            m_buffer = new byte[rawLength];
+        }
+        if (storedLength == rawLength) {
+            readFully(m_buffer, 0, rawLength);
+        } else {
+            if (m_compressed.length < storedLength) {
+                m_compressed = new byte[storedLength];
+            }
+            readFully(m_compressed, 0, storedLength);
+            m_compressor.decompress(m_compressed, 0, storedLength, m_buffer, 0, rawLength);
+        }
+        m_pos = 0;
+        m_limit = rawLength;
+        return true;
+    }
+
+    private void readFully(final byte[] b, final int off, final int len) throws IOException {
+        int n = 0;
+        while (n < len) {
+            final int count = m_in.read(b, off + n, len - n);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of compressed stream");
+            }
+            n += count;
+        }
+    }
+
+    private static int readInt(final byte[] buf, final int pos) {
+        return (buf[pos] & 0xFF) << 24 | (buf[pos + 1] & 0xFF) << 16 | (buf[pos + 2] & 0xFF) << 8
+            | (buf[pos + 3] & 0xFF);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        m_isEOF = true;
+        m_in.close();
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.compress;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream collecting data into blocks of {@link #BLOCK_SIZE} bytes, which are compressed independently by a
+ * {@link BlockCompressor}. Each block is written as
+ * <pre>
+ *   int   uncompressed length (big endian)
+ *   int   stored length (big endian)
+ *   byte[stored length] data
+ * </pre>
+ * If the compressed data is not smaller than the input, the block is stored uncompressed (both lengths are equal).
+ * A header with both lengths being 0 marks the end of the blocks; it is optional and written by clients that append
+ * other data to the stream.
+ * Read by {@link BlockCompressionInputStream}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BlockCompressionOutputStream extends OutputStream {
+
+    /** Size of the uncompressed blocks. LZ4/Snappy offsets are limited to 64KB, larger blocks don't gain much. */
+    static final int BLOCK_SIZE = 1 << 16;
+
+    private final OutputStream m_out;
+
+    private final BlockCompressor m_compressor;
+
+    private final byte[] m_buffer = new byte[BLOCK_SIZE];
+
+    private final byte[] m_compressed;
+
+    private int m_count;
+
+    private boolean m_isClosed;
+
+    /**
+     * @param out the stream to write the blocks to
+     * @param compressor the compressor
+     */
+    BlockCompressionOutputStream(final OutputStream out, final BlockCompressor compressor) {
+        m_out = out;
+        m_compressor = compressor;
+        m_compressed = new byte[maxBlockLength(compressor)];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final int b) throws IOException {
+        if (m_count == BLOCK_SIZE) {
+            writeBlock();
+        }
+        m_buffer[m_count++] = (byte)b;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        int o = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (m_count == BLOCK_SIZE) {
+                writeBlock();
+            }
+            final int n = Math.min(remaining, BLOCK_SIZE - m_count);
+            System.arraycopy(b, o, m_buffer, m_count, n);
+            m_count += n;
+            o += n;
+            remaining -= n;
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (m_count == 0) {
+            return;
+        }
+        m_out.write(m_compressed, 0, compressBlock(m_compressor, m_buffer, 0, m_count, m_compressed));
+        m_count = 0;
+    }
+
+    /**
+     * Compresses a block and writes it including its header into <code>dest</code>.
+     *
+     * @param compressor the compressor
+     * @param src the uncompressed data
+     * @param srcOff offset in <code>src</code>
+     * @param srcLen length of the data, at most {@link #BLOCK_SIZE}
+     * @param dest destination buffer of size {@link #maxBlockLength(BlockCompressor)}
+     * @return number of bytes written to <code>dest</code> (header and data)
+     */
+    static int compressBlock(final BlockCompressor compressor, final byte[] src, final int srcOff, final int srcLen,
+        final byte[] dest) {
+        int storedLength = compressor.compress(src, srcOff, srcLen, dest, 8);
+        if (storedLength >= srcLen) {
+            System.arraycopy(src, srcOff, dest, 8, srcLen);
+            storedLength = srcLen;
+        }
+        writeInt(dest, 0, srcLen);
+        writeInt(dest, 4, storedLength);
+        return 8 + storedLength;
+    }
+
+    /**
+     * @param compressor the compressor
+     * @return the size of the destination buffer for {@link #compressBlock(BlockCompressor, byte[], int, int, byte[])}
+     */
+    static int maxBlockLength(final BlockCompressor compressor) {
+        return 8 + compressor.maxCompressedLength(BLOCK_SIZE);
+    }
+
+    private static void writeInt(final byte[] buf, final int pos, final int value) {
+        buf[pos] = (byte)(value >>> 24);
+        buf[pos + 1] = (byte)(value >>> 16);
+        buf[pos + 2] = (byte)(value >>> 8);
+        buf[pos + 3] = (byte)value;
+    }
+
+    /**
+     * Flushes the underlying stream but doesn't complete the current block (same as {@link
+     * java.util.zip.GZIPOutputStream} by default): java serialization flushes after each cell, which would otherwise
+     * result in many small blocks.
+     */
+    @Override
+    public void flush() throws IOException {
+        m_out.flush();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (m_isClosed) {
+            return;
+        }
+        m_isClosed = true;
+        try {
+            writeBlock();
+        } finally {
+            m_out.close();
+        }
+    }
+
+}
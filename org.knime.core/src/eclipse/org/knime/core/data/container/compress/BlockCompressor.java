@@ -0,0 +1,130 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.compress;
+
+import java.io.IOException;
+
+/**
+ * Compresses and decompresses independent blocks of bytes. Used by {@link BlockCompressionOutputStream} and
+ * {@link BlockCompressionInputStream}, which take care of the framing. Instances keep internal state (hash tables) and
+ * must not be shared between threads.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+abstract class BlockCompressor {
+
+    /**
+     * @param length the length of the uncompressed data
+     * @return the maximum size of the compressed data (size of the destination buffer passed to
+     *         {@link #compress(byte[], int, int, byte[], int)})
+     */
+    abstract int maxCompressedLength(int length);
+
+    /**
+     * Compresses a block.
+     *
+     * @param src the uncompressed data
+     * @param srcOff offset in <code>src</code>
+     * @param srcLen length of the data in <code>src</code>
+     * @param dest destination buffer, at least {@link #maxCompressedLength(int)} bytes after <code>destOff</code>
+     * @param destOff offset in <code>dest</code>
+     * @return the length of the compressed data
+     */
+    abstract int compress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff);
+
+    /**
+     * Decompresses a block previously compressed by {@link #compress(byte[], int, int, byte[], int)}.
+     *
+     * @param src the compressed data
+     * @param srcOff offset in <code>src</code>
+     * @param srcLen length of the compressed data
+     * @param dest destination buffer
+     * @param destOff offset in <code>dest</code>
+     * @param destLen the (known) length of the uncompressed data
+     * @throws IOException if the data is corrupt
+     */
+    abstract void decompress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int destLen)
+        throws IOException;
+
+    /** Reads 4 bytes (little endian). */
+    static int readInt(final byte[] buf, final int pos) {
+        return (buf[pos] & 0xFF) | (buf[pos + 1] & 0xFF) << 8 | (buf[pos + 2] & 0xFF) << 16
+            | (buf[pos + 3] & 0xFF) << 24;
+    }
+
+    /** Multiplicative hash of a 4-byte sequence, resulting in <code>hashLog</code> bits. */
+    static int hash(final int sequence, final int hashLog) {
+        return (sequence * -1640531535) >>> (32 - hashLog);
+    }
+
+    /** Number of bytes in <code>buf</code> matching at <code>ref</code> and <code>pos</code>, up to <code>limit</code>. */
+    static int matchLength(final byte[] buf, final int ref, final int pos, final int limit) {
+        int len = 0;
+        while (pos + len < limit && buf[ref + len] == buf[pos + len]) {
+            len++;
+        }
+        return len;
+    }
+
+    /**
+     * Copies a back-reference within the output buffer, handling overlapping ranges (offset smaller than length),
+     * which encode repetitions.
+     */
+    static void copyMatch(final byte[] dest, final int ref, final int pos, final int length) {
+        if (pos - ref >= length) {
+            System.arraycopy(dest, ref, dest, pos, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                dest[pos + i] = dest[ref + i];
+            }
+        }
+    }
+
+    /** @return a new exception reporting corrupt input */
+    static IOException corrupt(final String codec, final int offset) {
+        return new IOException(String.format("Corrupt %s block (at input offset %d)", codec, offset));
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.compress;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Output stream passing through the blocks written by the compression stream of a block codec (LZ4, Snappy) and
+ * recording the uncompressed and file offset of each block. The table is stored with the file (see
+ * {@link #writeTo(DataOutput)}) so that readers needn't follow the block headers through the entire file, see
+ * {@link RandomAccessFileInput#RandomAccessFileInput(java.io.File, long, int)}.
+ *
+ * <p>The stream must be placed directly below the compression stream, i.e. at the start of the file.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class BlockTableRecorder extends OutputStream {
+
+    private final OutputStream m_out;
+
+    private final byte[] m_header = new byte[8];
+
+    private int m_headerCount;
+
+    /** Bytes of the current block's data not yet passed through. */
+    private long m_dataRemaining;
+
+    /** Number of bytes passed through, i.e. the position in the file. */
+    private long m_position;
+
+    private long m_rawOffset;
+
+    private long[] m_rawOffsets = new long[64];
+
+    private long[] m_fileOffsets = new long[64];
+
+    private int m_size;
+
+    private boolean m_isEnd;
+
+    /**
+     * @param out the stream to write to, closed when this stream is closed
+     */
+    public BlockTableRecorder(final OutputStream out) {
+        m_out = out;
+    }
+
+    /**
+     * @param codec a codec
+     * @return whether the codec writes blocks whose table is recorded by this class
+     */
+    public static boolean isSupported(final TableCompressionCodec codec) {
+        return codec == DefaultCompressionCodec.LZ4 || codec == DefaultCompressionCodec.Snappy;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final int b) throws IOException {
+        m_out.write(b);
+        record(new byte[]{(byte)b}, 0, 1);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        m_out.write(b, off, len);
+        record(b, off, len);
+    }
+
+    private void record(final byte[] b, final int off, final int len) throws IOException {
+        int o = off;
+        int remaining = len;
+        while (remaining > 0 && !m_isEnd) {
+            if (m_dataRemaining > 0) {
+                final int n = (int)Math.min(remaining, m_dataRemaining);
+                m_dataRemaining -= n;
+                m_position += n;
+                o += n;
+                remaining -= n;
+                continue;
+            }
+            final int n = Math.min(remaining, m_header.length - m_headerCount);
+            System.arraycopy(b, o, m_header, m_headerCount, n);
+            m_headerCount += n;
+            m_position += n;
+            o += n;
+            remaining -= n;
+            if (m_headerCount == m_header.length) {
+                m_headerCount = 0;
+                final int rawLength = readInt(m_header, 0);
+                final int storedLength = readInt(m_header, 4);
+                if (rawLength == 0 && storedLength == 0) {
+                    m_isEnd = true; // end marker, anything after it is not part of the blocks
+                } else if (rawLength < 0 || storedLength <= 0 || storedLength > rawLength) {
+                    throw new IOException("Invalid block header at position " + (m_position - 8));
+                } else {
+                    addBlock(m_position - 8, rawLength);
+                    m_dataRemaining = storedLength;
+                }
+            }
+        }
+    }
+
+    private void addBlock(final long filePosition, final int rawLength) {
+        if (m_size == m_rawOffsets.length) {
+            m_rawOffsets = Arrays.copyOf(m_rawOffsets, 2 * m_size);
+            m_fileOffsets = Arrays.copyOf(m_fileOffsets, 2 * m_size);
+        }
+        m_rawOffsets[m_size] = m_rawOffset;
+        m_fileOffsets[m_size] = filePosition;
+        m_size++;
+        m_rawOffset += rawLength;
+    }
+
+    private static int readInt(final byte[] buf, final int pos) {
+        return ((buf[pos] & 0xFF) << 24) | ((buf[pos + 1] & 0xFF) << 16) | ((buf[pos + 2] & 0xFF) << 8)
+            | (buf[pos + 3] & 0xFF);
+    }
+
+    /** @return the number of blocks recorded so far */
+    public int getBlockCount() {
+        return m_size;
+    }
+
+    /**
+     * Writes the table, the uncompressed offset and the file offset (8 bytes each) of every block, to be read by
+     * {@link RandomAccessFileInput}. To be called after the compression stream has been closed.
+     *
+     * @param out to write to
+     * @throws IOException if writing fails
+     */
+    public void writeTo(final DataOutput out) throws IOException {
+        for (int i = 0; i < m_size; i++) {
+            out.writeLong(m_rawOffsets[i]);
+            out.writeLong(m_fileOffsets[i]);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void flush() throws IOException {
+        m_out.flush();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        m_out.close();
+    }
+
+}
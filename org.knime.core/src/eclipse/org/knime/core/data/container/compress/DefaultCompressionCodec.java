@@ -0,0 +1,212 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.compress;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.knime.core.data.container.compress.RandomAccessFileInput.BlockTable;
+
+/**
+ * The codecs that are part of the KNIME core. <code>None</code> and <code>Gzip</code> were the only options up to
+ * KNIME 3.6 (and their names are persisted in that form); <code>LZ4</code> and <code>Snappy</code> are block codecs
+ * that compress considerably faster than gzip at a somewhat lower compression ratio. If enabled (more than one core),
+ * compression is done in parallel by a {@link ParallelCompressionOutputStream}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ * @noreference This enum is not intended to be referenced by clients.
+ */
+public enum DefaultCompressionCodec implements TableCompressionCodec {
+
+    /** No compression. */
+    None {
+        @Override
+        public OutputStream createCompressionStream(final OutputStream out) {
+            return out;
+        }
+
+        @Override
+        public InputStream createDecompressionStream(final InputStream in) {
+            return in;
+        }
+
+        @Override
+        public boolean isRandomAccessSupported() {
+            return true;
+        }
+
+        @Override
+        public InputStream createDecompressionStream(final RandomAccessFileInput input, final long offset) {
+            return input.newInputStream(offset);
+        }
+    },
+
+    /** Gzip (deflate), best compression ratio but slowest; the default. */
+    Gzip {
+        @Override
+        public OutputStream createCompressionStream(final OutputStream out) throws IOException {
+            if (ParallelCompressionOutputStream.isEnabled()) {
+                // chunks are deflated in parallel into a single gzip member
+                return ParallelCompressionOutputStream.gzip(out);
+            }
+            // buffering the output stream is important as the blockable
+            // stream, which will be put on top of it, writes bytes individually
+            return new BufferedOutputStream(new GZIPOutputStream(out));
+        }
+
+        @Override
+        public InputStream createDecompressionStream(final InputStream in) throws IOException {
+            // buffering is important when reading gzip streams
+            // (had a table, on which a single read-scan took ~6min without
+            // and ~30s with buffering)
+            return new BufferedInputStream(new GZIPInputStream(in));
+        }
+    },
+
+    /** LZ4-style block compression, see {@link LZ4BlockCompressor}. */
+    LZ4 {
+        @Override
+        public OutputStream createCompressionStream(final OutputStream out) {
+            return createBlockCompressionStream(out, LZ4BlockCompressor::new);
+        }
+
+        @Override
+        public InputStream createDecompressionStream(final InputStream in) {
+            return new BlockCompressionInputStream(in, new LZ4BlockCompressor());
+        }
+
+        @Override
+        public boolean isRandomAccessSupported() {
+            return true;
+        }
+
+        @Override
+        public InputStream createDecompressionStream(final RandomAccessFileInput input, final long offset)
+            throws IOException {
+            return createBlockDecompressionStream(input, offset, new LZ4BlockCompressor());
+        }
+    },
+
+    /** Snappy-style block compression, see {@link SnappyBlockCompressor}. */
+    Snappy {
+        @Override
+        public OutputStream createCompressionStream(final OutputStream out) {
+            return createBlockCompressionStream(out, SnappyBlockCompressor::new);
+        }
+
+        @Override
+        public InputStream createDecompressionStream(final InputStream in) {
+            return new BlockCompressionInputStream(in, new SnappyBlockCompressor());
+        }
+
+        @Override
+        public boolean isRandomAccessSupported() {
+            return true;
+        }
+
+        @Override
+        public InputStream createDecompressionStream(final RandomAccessFileInput input, final long offset)
+            throws IOException {
+            return createBlockDecompressionStream(input, offset, new SnappyBlockCompressor());
+        }
+    };
+
+    /**
+     * Creates a (parallel, if enabled) stream writing blocks as defined by {@link BlockCompressionOutputStream}. The
+     * parallel stream produces the same output as the sequential one since chunks are cut at block boundaries.
+     */
+    private static OutputStream createBlockCompressionStream(final OutputStream out,
+        final Supplier<BlockCompressor> compressorFactory) {
+        if (!ParallelCompressionOutputStream.isEnabled()) {
+            return new BlockCompressionOutputStream(out, compressorFactory.get());
+        }
+        return new ParallelCompressionOutputStream(out, (chunk, length, bytes) -> {
+            BlockCompressor compressor = compressorFactory.get();
+            byte[] block = new byte[BlockCompressionOutputStream.maxBlockLength(compressor)];
+            for (int off = 0; off < length; off += BlockCompressionOutputStream.BLOCK_SIZE) {
+                int blockLength = Math.min(BlockCompressionOutputStream.BLOCK_SIZE, length - off);
+                bytes.write(block, 0,
+                    BlockCompressionOutputStream.compressBlock(compressor, chunk, off, blockLength, block));
+            }
+        });
+    }
+
+    /**
+     * Creates a stream reading the blocks of a file from the block containing the argument offset (of the uncompressed
+     * data), skipping to the offset within that block.
+     */
+    private static InputStream createBlockDecompressionStream(final RandomAccessFileInput input, final long offset,
+        final BlockCompressor compressor) throws IOException {
+        BlockTable table = input.getBlockTable();
+        int block = table.findBlock(offset);
+        InputStream in = new BlockCompressionInputStream(input.newInputStream(table.getFileOffset(block)), compressor);
+        long remaining = offset - table.getRawOffset(block);
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                in.close();
+                throw new EOFException("Offset " + offset + " is beyond the end of file \""
+                    + input.getFile().getName() + "\"");
+            }
+            remaining -= skipped;
+        }
+        return in;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return name();
+    }
+
+}
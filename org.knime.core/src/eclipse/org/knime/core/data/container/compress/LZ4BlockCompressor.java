@@ -0,0 +1,223 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.compress;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Pure Java implementation of the LZ4 block format: a sequence of tokens, each holding a run of literals followed by
+ * a back-reference (2 byte little endian offset, match length of at least 4). Compression uses a single-probe hash
+ * table, which trades compression ratio for speed similar to the reference "fast" mode. The last 5 bytes of a block
+ * are always literals, as required by the format.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class LZ4BlockCompressor extends BlockCompressor {
+
+    private static final int MIN_MATCH = 4;
+
+    private static final int HASH_LOG = 14;
+
+    private static final int MAX_OFFSET = 0xFFFF;
+
+    private static final int LAST_LITERALS = 5;
+
+    /** No match may start within the last 12 bytes. */
+    private static final int MF_LIMIT = 12;
+
+    /** Skip strength: the search accelerates by one byte per 64 bytes without match. */
+    private static final int SKIP_TRIGGER = 6;
+
+    private static final int RUN_MASK = 0x0F;
+
+    private final int[] m_hashTable = new int[1 << HASH_LOG];
+
+    @Override
+    int maxCompressedLength(final int length) {
+        return length + length / 255 + 16;
+    }
+
+    @Override
+    int compress(final byte[] src, final int srcOff, final int srcLen, final byte[] dest, final int destOff) {
+        final int srcEnd = srcOff + srcLen;
+        final int matchLimit = srcEnd - LAST_LITERALS;
+        final int mfLimit = srcEnd - MF_LIMIT;
+        int d = destOff;
+        int anchor = srcOff;
+        int ip = srcOff;
+        if (srcLen > MF_LIMIT) {
+            Arrays.fill(m_hashTable, -1);
+            while (ip < mfLimit) {
+                final int sequence = readInt(src, ip);
+                final int h = hash(sequence, HASH_LOG);
+                int ref = m_hashTable[h];
+                m_hashTable[h] = ip;
+                if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                    ip += 1 + ((ip - anchor) >>> SKIP_TRIGGER);
+                    continue;
+                }
+                // extend the match backwards into the pending literals
+                while (ip > anchor && ref > srcOff && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                }
+                final int matchLen = MIN_MATCH + matchLength(src, ref + MIN_MATCH, ip + MIN_MATCH, matchLimit);
+                d = writeSequence(src, anchor, ip - anchor, dest, d, ip - ref, matchLen - MIN_MATCH);
+                ip += matchLen;
+                anchor = ip;
+            }
+        }
+        // last literals
+        final int litLen = srcEnd - anchor;
+        final int tokenPos = d++;
+        if (litLen >= RUN_MASK) {
+            dest[tokenPos] = (byte)(RUN_MASK << 4);
+            d = writeLength(dest, d, litLen - RUN_MASK);
+        } else {
+            dest[tokenPos] = (byte)(litLen << 4);
+        }
+        System.arraycopy(src, anchor, dest, d, litLen);
+        return d + litLen - destOff;
+    }
+
+    private static int writeSequence(final byte[] src, final int litStart, final int litLen, final byte[] dest,
+        final int destPos, final int offset, final int matchCode) {
+        int d = destPos;
+        final int tokenPos = d++;
+        int token;
+        if (litLen >= RUN_MASK) {
+            token = RUN_MASK << 4;
+            d = writeLength(dest, d, litLen - RUN_MASK);
+        } else {
+            token = litLen << 4;
+        }
+        System.arraycopy(src, litStart, dest, d, litLen);
+        d += litLen;
+        dest[d++] = (byte)offset;
+        dest[d++] = (byte)(offset >>> 8);
+        if (matchCode >= RUN_MASK) {
+            token |= RUN_MASK;
+            d = writeLength(dest, d, matchCode - RUN_MASK);
+        } else {
+            token |= matchCode;
+        }
+        dest[tokenPos] = (byte)token;
+        return d;
+    }
+
+    private static int writeLength(final byte[] dest, final int destPos, final int length) {
+        int d = destPos;
+        int l = length;
+        while (l >= 0xFF) {
+            dest[d++] = (byte)0xFF;
+            l -= 0xFF;
+        }
+        dest[d++] = (byte)l;
+        return d;
+    }
+
+    @Override
+    void decompress(final byte[] src, final int srcOff, final int srcLen, final byte[] dest, final int destOff,
+        final int destLen) throws IOException {
+        final int srcEnd = srcOff + srcLen;
+        final int destEnd = destOff + destLen;
+        int s = srcOff;
+        int d = destOff;
+        while (true) {
+            if (s >= srcEnd) {
+                throw corrupt("LZ4", s - srcOff);
+            }
+            final int token = src[s++] & 0xFF;
+            int litLen = token >>> 4;
+            if (litLen == RUN_MASK) {
+                int b;
+                do {
+                    if (s >= srcEnd) {
+                        throw corrupt("LZ4", s - srcOff);
+                    }
+                    b = src[s++] & 0xFF;
+                    litLen += b;
+                } while (b == 0xFF);
+            }
+            if (litLen > srcEnd - s || litLen > destEnd - d) {
+                throw corrupt("LZ4", s - srcOff);
+            }
+            System.arraycopy(src, s, dest, d, litLen);
+            s += litLen;
+            d += litLen;
+            if (s == srcEnd) {
+                break; // last literals
+            }
+            if (s + 2 > srcEnd) {
+                throw corrupt("LZ4", s - srcOff);
+            }
+            final int offset = (src[s] & 0xFF) | (src[s + 1] & 0xFF) << 8;
+            s += 2;
+            int matchLen = token & RUN_MASK;
+            if (matchLen == RUN_MASK) {
+                int b;
+                do {
+                    if (s >= srcEnd) {
+                        throw corrupt("LZ4", s - srcOff);
+                    }
+                    b = src[s++] & 0xFF;
+                    matchLen += b;
+                } while (b == 0xFF);
+            }
+            matchLen += MIN_MATCH;
+            final int ref = d - offset;
+            if (offset == 0 || ref < destOff || matchLen > destEnd - d) {
+                throw corrupt("LZ4", s - srcOff);
+            }
+            copyMatch(dest, ref, d, matchLen);
+            d += matchLen;
+        }
+        if (d != destEnd) {
+            throw corrupt("LZ4", s - srcOff);
+        }
+    }
+
+}
@@ -0,0 +1,320 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.GzipChunkEncoder;
+import org.knime.core.util.GzipChunkEncoder.DeflatedChunk;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Output stream that compresses its data in chunks in the {@link KNIMEConstants#GLOBAL_THREAD_POOL global thread
+ * pool}. The data is cut into chunks of fixed size, each chunk is compressed independently into a self-contained
+ * piece of the output (a sequence of compressed blocks, or deflate blocks of a single gzip member, see
+ * {@link #gzip(OutputStream)}), and the compressed chunks are written in order to the underlying stream by the
+ * calling thread. This results in a pipeline: the caller serializes rows into this stream and writes the compressed
+ * chunks once they are complete, while the chunks are compressed in parallel.
+ *
+ * <p>The number of chunks in flight is bounded per stream, the caller blocks if compression can't keep up. Streams
+ * that don't fill a single chunk are compressed in the calling thread on close, without any hand-off.
+ *
+ * <p>Like {@link java.util.zip.GZIPOutputStream}, {@link #flush()} doesn't complete the current chunk. The stream is
+ * not thread-safe (one producer).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ParallelCompressionOutputStream extends OutputStream {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ParallelCompressionOutputStream.class);
+
+    /** Size of the uncompressed chunks, a multiple of {@link BlockCompressionOutputStream#BLOCK_SIZE}. */
+    static final int CHUNK_SIZE = 4 * BlockCompressionOutputStream.BLOCK_SIZE;
+
+    /** Number of threads compressing chunks, see {@link KNIMEConstants#PROPERTY_TABLE_COMPRESSION_THREADS}. */
+    static final int PARALLELISM;
+
+    static {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        String property = System.getProperty(KNIMEConstants.PROPERTY_TABLE_COMPRESSION_THREADS);
+        if (property != null) {
+            try {
+                parallelism = Integer.parseInt(property.trim());
+                LOGGER.debug("Setting number of table compression threads to " + parallelism);
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Unable to parse property " + KNIMEConstants.PROPERTY_TABLE_COMPRESSION_THREADS
+                    + ", using default (" + parallelism + ")", e);
+            }
+        }
+        PARALLELISM = parallelism;
+    }
+
+    /** Maximum number of chunks per stream that are compressed or waiting to be written. */
+    private static final int MAX_CHUNKS_IN_FLIGHT = Math.min(2 * PARALLELISM, 32);
+
+    /** Compresses a chunk into a self-contained piece of the output stream. Must be thread-safe. */
+    @FunctionalInterface
+    interface ChunkCompressor {
+        /**
+         * @param chunk the uncompressed data
+         * @param length the length of the data in <code>chunk</code>
+         * @param out to write the compressed representation to
+         * @throws IOException if compression fails
+         */
+        void compress(byte[] chunk, int length, ByteArrayOutputStream out) throws IOException;
+    }
+
+    /** A compressed chunk, written to the underlying stream in the order of the chunks. */
+    @FunctionalInterface
+    private interface CompressedChunk {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /** Compresses a chunk, given the end of the preceding data if the format allows back references into it. */
+    @FunctionalInterface
+    private interface ChunkTask {
+        CompressedChunk compress(byte[] chunk, int length, byte[] dictionary) throws IOException;
+    }
+
+    /** @return whether parallel compression is enabled, i.e. more than one compression thread is configured. */
+    static boolean isEnabled() {
+        return PARALLELISM > 1;
+    }
+
+    private final OutputStream m_out;
+
+    private final ChunkTask m_task;
+
+    /** Number of bytes at the end of a chunk passed as dictionary to the next one, 0 if not supported. */
+    private final int m_dictionarySize;
+
+    /** Written after the last chunk, or <code>null</code>. */
+    private final CompressedChunk m_trailer;
+
+    private byte[] m_dictionary;
+
+    /** Runs the compression tasks, shares the threads of the global pool. */
+    private final ThreadPool m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(Math.max(1, PARALLELISM));
+
+    /** Chunks submitted for compression but not yet written, in the order of the chunks. */
+    private final Queue<Future<CompressedChunk>> m_pendingChunks = new ArrayDeque<>();
+
+    /** Uncompressed chunk buffers returned by the compression tasks for reuse. */
+    private final Queue<byte[]> m_freeBuffers = new ConcurrentLinkedQueue<>();
+
+    private boolean m_isChunkSubmitted;
+
+    private byte[] m_buffer = new byte[CHUNK_SIZE];
+
+    private int m_count;
+
+    private boolean m_isClosed;
+
+    /**
+     * @param out the stream to write the compressed chunks to
+     * @param compressor compresses a chunk
+     */
+    ParallelCompressionOutputStream(final OutputStream out, final ChunkCompressor compressor) {
+        this(out, (chunk, length, dictionary) -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(length / 2 + 64);
+            compressor.compress(chunk, length, bytes);
+            return bytes::writeTo;
+        }, 0, null);
+    }
+
+    private ParallelCompressionOutputStream(final OutputStream out, final ChunkTask task, final int dictionarySize,
+        final CompressedChunk trailer) {
+        m_out = out;
+        m_task = task;
+        m_dictionarySize = dictionarySize;
+        m_trailer = trailer;
+    }
+
+    /**
+     * Creates a stream writing a single gzip member, whose chunks are deflated in parallel (see
+     * {@link GzipChunkEncoder}). Each chunk uses the end of the previous one as dictionary, so the compression ratio is
+     * almost the same as with a {@link java.util.zip.GZIPOutputStream}.
+     *
+     * @param out the stream to write the gzip stream to
+     * @return a new stream
+     * @throws IOException if the header can't be written
+     */
+    static ParallelCompressionOutputStream gzip(final OutputStream out) throws IOException {
+        out.write(GzipChunkEncoder.getHeader());
+        final GzipChunkEncoder encoder = new GzipChunkEncoder();
+        return new ParallelCompressionOutputStream(out, (chunk, length, dictionary) -> {
+            final DeflatedChunk deflated = GzipChunkEncoder.deflate(chunk, 0, length, dictionary);
+            // the write stage is ordered, as needed to combine the checksums
+            return o -> {
+                encoder.add(deflated);
+                deflated.writeTo(o);
+            };
+        }, GzipChunkEncoder.DICTIONARY_SIZE, o -> o.write(encoder.getTrailer()));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final int b) throws IOException {
+        if (m_count == CHUNK_SIZE) {
+            submitChunk();
+        }
+        m_buffer[m_count++] = (byte)b;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        int o = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (m_count == CHUNK_SIZE) {
+                submitChunk();
+            }
+            final int n = Math.min(remaining, CHUNK_SIZE - m_count);
+            System.arraycopy(b, o, m_buffer, m_count, n);
+            m_count += n;
+            o += n;
+            remaining -= n;
+        }
+    }
+
+    /** Hands the current chunk to the pool, writes or waits for previous chunks if too many are pending. */
+    private void submitChunk() throws IOException {
+        writeCompletedChunks(MAX_CHUNKS_IN_FLIGHT - 1);
+        final byte[] chunk = m_buffer;
+        final int length = m_count;
+        final byte[] dictionary = m_dictionary;
+        if (m_dictionarySize > 0) {
+            m_dictionary = Arrays.copyOfRange(chunk, Math.max(0, length - m_dictionarySize), length);
+        }
+        final byte[] free = m_freeBuffers.poll();
+        m_buffer = free != null ? free : new byte[CHUNK_SIZE];
+        m_count = 0;
+        m_isChunkSubmitted = true;
+        m_pendingChunks.add(m_pool.enqueue(() -> {
+            try {
+                return m_task.compress(chunk, length, dictionary);
+            } finally {
+                m_freeBuffers.offer(chunk);
+            }
+        }));
+    }
+
+    /**
+     * Writes the chunks at the head of the queue that are compressed, and waits for further chunks until at most
+     * <code>maxPending</code> chunks are pending.
+     */
+    private void writeCompletedChunks(final int maxPending) throws IOException {
+        while (!m_pendingChunks.isEmpty()
+            && (m_pendingChunks.size() > maxPending || m_pendingChunks.peek().isDone())) {
+            final Future<CompressedChunk> future = m_pendingChunks.poll();
+            final CompressedChunk compressed;
+            try {
+                // waiting threads of the global pool don't count as running, see ThreadPool
+                compressed = future.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for table compression");
+            } catch (ExecutionException ee) {
+                final Throwable cause = ee.getCause();
+                throw new IOException("Compressing table stream failed: " + cause.getMessage(), cause);
+            }
+            compressed.writeTo(m_out);
+        }
+    }
+
+    /**
+     * Doesn't complete the current chunk (see class description), only writes previously submitted chunks that are
+     * compressed (and reports their failures). Data is written to the underlying stream on {@link #close()} at the
+     * latest.
+     */
+    @Override
+    public void flush() throws IOException {
+        writeCompletedChunks(Integer.MAX_VALUE);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (m_isClosed) {
+            return;
+        }
+        m_isClosed = true;
+        try {
+            if (!m_isChunkSubmitted) {
+                // small stream, compress in caller thread
+                m_task.compress(m_buffer, m_count, null).writeTo(m_out);
+            } else {
+                if (m_count > 0) {
+                    submitChunk();
+                }
+                writeCompletedChunks(0);
+            }
+            if (m_trailer != null) {
+                m_trailer.writeTo(m_out);
+            }
+        } finally {
+            // only non-empty on failure
+            m_pendingChunks.forEach(f -> f.cancel(true));
+            m_pendingChunks.clear();
+            m_buffer = null;
+            m_dictionary = null;
+            m_freeBuffers.clear();
+            m_out.close();
+        }
+    }
+
+}
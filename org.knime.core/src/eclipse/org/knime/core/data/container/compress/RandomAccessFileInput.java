@@ -0,0 +1,438 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.compress;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only, random access view on a (table) file that is shared by any number of concurrent readers. The file is
+ * memory-mapped in regions of up to 1GB, so that all readers share the operating system's page cache without copying
+ * and without holding a file handle each. On Windows, where mapped files can't be deleted until the mapping is
+ * garbage collected, and if mapping fails, positional reads on a shared {@link FileChannel} are used instead.
+ *
+ * <p>Streams returned by {@link #newInputStream(long)} are independent of each other (each has its own position)
+ * but must not be used by multiple threads concurrently.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class RandomAccessFileInput implements AutoCloseable {
+
+    private static final int REGION_SHIFT = 30;
+
+    private static final long REGION_SIZE = 1L << REGION_SHIFT;
+
+    private static final boolean IS_MAPPING_ALLOWED =
+        !System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+
+    /** Buffer size of streams using positional reads. */
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final File m_file;
+
+    private final FileChannel m_channel;
+
+    private final long m_length;
+
+    /** The mapped regions or null if positional reads are used. */
+    private final MappedByteBuffer[] m_regions;
+
+    /** Position of the block table stored with the file, -1 if none (then the block headers are scanned). */
+    private final long m_blockTablePosition;
+
+    private final int m_blockCount;
+
+    /** Lazily computed block structure, see {@link #getBlockTable()}. */
+    private volatile BlockTable m_blockTable;
+
+    /**
+     * Opens the file and maps it into memory, if possible. The block structure of a block compressed file is
+     * determined by following the block headers through the file on first random access.
+     *
+     * @param file the file to read
+     * @throws IOException if the file can't be opened
+     */
+    public RandomAccessFileInput(final File file) throws IOException {
+        this(file, -1L, 0);
+    }
+
+    /**
+     * Opens the file and maps it into memory, if possible. The block structure of a block compressed file is read
+     * from the table stored in the file.
+     *
+     * @param file the file to read
+     * @param blockTablePosition position of the table written by {@link BlockTableRecorder#writeTo(java.io.DataOutput)}
+     *            or -1 if the file has no such table
+     * @param blockCount number of blocks in the table
+     * @throws IOException if the file can't be opened
+     */
+    public RandomAccessFileInput(final File file, final long blockTablePosition, final int blockCount)
+        throws IOException {
+        m_file = file;
+        m_channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        m_length = m_channel.size();
+        m_regions = IS_MAPPING_ALLOWED ? map(m_channel, m_length) : null;
+        m_blockTablePosition = blockTablePosition;
+        m_blockCount = blockCount;
+    }
+
+    private static MappedByteBuffer[] map(final FileChannel channel, final long length) {
+        MappedByteBuffer[] regions = new MappedByteBuffer[(int)((length + REGION_SIZE - 1) >>> REGION_SHIFT)];
+        try {
+            for (int i = 0; i < regions.length; i++) {
+                long start = i * REGION_SIZE;
+                regions[i] = channel.map(MapMode.READ_ONLY, start, Math.min(REGION_SIZE, length - start));
+            }
+            return regions;
+        } catch (IOException | RuntimeException e) {
+            // e.g. address space exhausted (32 bit VM) -- fall back to positional reads
+            return null;
+        }
+    }
+
+    /** @return the file */
+    public File getFile() {
+        return m_file;
+    }
+
+    /** @return the length of the file in bytes (at the time it was opened) */
+    public long length() {
+        return m_length;
+    }
+
+    /** @return whether the file is memory-mapped (as opposed to being read via positional reads) */
+    public boolean isMapped() {
+        return m_regions != null;
+    }
+
+    /**
+     * @param position the position in the file
+     * @return a new stream reading from the argument position to the end of the file
+     */
+    public InputStream newInputStream(final long position) {
+        if (position < 0 || position > m_length) {
+            throw new IndexOutOfBoundsException("Position " + position + " not in file of length " + m_length);
+        }
+        return m_regions != null ? new MappedInputStream(position) : new ChannelInputStream(position);
+    }
+
+    /**
+     * Reads 8 bytes (big endian) at the given position.
+     *
+     * @param position position in the file
+     * @return the value
+     * @throws IOException if reading fails or the position is out of bounds
+     */
+    public long readLong(final long position) throws IOException {
+        return readFully(position, 8).getLong();
+    }
+
+    /**
+     * Reads 4 bytes (big endian) at the given position.
+     *
+     * @param position position in the file
+     * @return the value
+     * @throws IOException if reading fails or the position is out of bounds
+     */
+    public int readInt(final long position) throws IOException {
+        return readFully(position, 4).getInt();
+    }
+
+    private ByteBuffer readFully(final long position, final int length) throws IOException {
+        if (position < 0 || position + length > m_length) {
+            throw new EOFException("Can't read " + length + " bytes at position " + position + " in file \""
+                + m_file.getName() + "\" of length " + m_length);
+        }
+        ByteBuffer result = ByteBuffer.allocate(length);
+        if (m_regions != null) {
+            for (long p = position; result.hasRemaining(); p++) {
+                result.put(m_regions[(int)(p >>> REGION_SHIFT)].get((int)(p & (REGION_SIZE - 1))));
+            }
+        } else {
+            while (result.hasRemaining()) {
+                if (m_channel.read(result, position + result.position()) < 0) {
+                    throw new EOFException("Unexpected end of file \"" + m_file.getName() + "\"");
+                }
+            }
+        }
+        result.flip();
+        return result;
+    }
+
+    /**
+     * @return the block structure of a file written by {@link BlockCompressionOutputStream}, read from the stored
+     *         table or computed on first access
+     * @throws IOException if the block table or headers can't be read
+     */
+    BlockTable getBlockTable() throws IOException {
+        BlockTable table = m_blockTable;
+        if (table == null) {
+            synchronized (this) {
+                table = m_blockTable;
+                if (table == null) {
+                    table = m_blockTablePosition >= 0 ? BlockTable.read(this, m_blockTablePosition, m_blockCount)
+                        : BlockTable.scan(this);
+                    m_blockTable = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /** Closes the file channel; mapped regions are released when garbage collected. */
+    @Override
+    public void close() throws IOException {
+        m_channel.close();
+    }
+
+    /** Stream reading from the mapped regions. */
+    private final class MappedInputStream extends InputStream {
+
+        private long m_position;
+
+        MappedInputStream(final long position) {
+            m_position = position;
+        }
+
+        @Override
+        public int read() {
+            if (m_position >= m_length) {
+                return -1;
+            }
+            long p = m_position++;
+            return m_regions[(int)(p >>> REGION_SHIFT)].get((int)(p & (REGION_SIZE - 1))) & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (m_position >= m_length) {
+                return -1;
+            }
+            final int offsetInRegion = (int)(m_position & (REGION_SIZE - 1));
+            // duplicate: position of the shared buffer must not be changed
+            ByteBuffer region = m_regions[(int)(m_position >>> REGION_SHIFT)].duplicate();
+            final int n = Math.min(len, region.limit() - offsetInRegion);
+            region.position(offsetInRegion);
+            region.get(b, off, n);
+            m_position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) {
+            long skipped = Math.max(0, Math.min(n, m_length - m_position));
+            m_position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int)Math.min(Integer.MAX_VALUE, m_length - m_position);
+        }
+    }
+
+    /** Stream using positional reads on the shared channel. */
+    private final class ChannelInputStream extends InputStream {
+
+        private final ByteBuffer m_buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        /** File position of the first byte in the buffer. */
+        private long m_bufferPosition;
+
+        ChannelInputStream(final long position) {
+            m_bufferPosition = position;
+            m_buffer.limit(0);
+        }
+
+        private boolean fill() throws IOException {
+            m_bufferPosition += m_buffer.limit();
+            m_buffer.clear();
+            if (m_bufferPosition >= m_length) {
+                m_buffer.limit(0);
+                return false;
+            }
+            int read = m_channel.read(m_buffer, m_bufferPosition);
+            m_buffer.flip();
+            return read > 0;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!m_buffer.hasRemaining() && !fill()) {
+                return -1;
+            }
+            return m_buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!m_buffer.hasRemaining() && !fill()) {
+                return -1;
+            }
+            final int n = Math.min(len, m_buffer.remaining());
+            m_buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) {
+            long current = m_bufferPosition + m_buffer.position();
+            long skipped = Math.max(0, Math.min(n, m_length - current));
+            if (skipped <= m_buffer.remaining()) {
+                m_buffer.position(m_buffer.position() + (int)skipped);
+            } else {
+                m_bufferPosition = current + skipped;
+                m_buffer.limit(0);
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return m_buffer.remaining();
+        }
+    }
+
+    /**
+     * Uncompressed and file offsets of the blocks written by a {@link BlockCompressionOutputStream}, read from the
+     * table stored with the file or determined by following the block headers from the start of the file to the end
+     * marker (or end of file). The latter touches every block and is only done for files without stored table.
+     */
+    static final class BlockTable {
+
+        private final long[] m_rawOffsets;
+
+        private final long[] m_fileOffsets;
+
+        private final int m_size;
+
+        private BlockTable(final long[] rawOffsets, final long[] fileOffsets, final int size) {
+            m_rawOffsets = rawOffsets;
+            m_fileOffsets = fileOffsets;
+            m_size = size;
+        }
+
+        static BlockTable scan(final RandomAccessFileInput input) throws IOException {
+            long[] rawOffsets = new long[64];
+            long[] fileOffsets = new long[64];
+            int size = 0;
+            long rawOffset = 0;
+            long filePosition = 0;
+            while (filePosition + 8 <= input.length()) {
+                final int rawLength = input.readInt(filePosition);
+                final int storedLength = input.readInt(filePosition + 4);
+                if (rawLength == 0 && storedLength == 0) {
+                    break; // end marker
+                }
+                if (rawLength < 0 || storedLength <= 0 || storedLength > rawLength) {
+                    throw new IOException(String.format("Corrupt block header at position %d in file \"%s\"",
+                        filePosition, input.getFile().getName()));
+                }
+                if (size == rawOffsets.length) {
+                    rawOffsets = Arrays.copyOf(rawOffsets, 2 * size);
+                    fileOffsets = Arrays.copyOf(fileOffsets, 2 * size);
+                }
+                rawOffsets[size] = rawOffset;
+                fileOffsets[size] = filePosition;
+                size++;
+                rawOffset += rawLength;
+                filePosition += 8 + storedLength;
+            }
+            return new BlockTable(rawOffsets, fileOffsets, size);
+        }
+
+        static BlockTable read(final RandomAccessFileInput input, final long position, final int size)
+            throws IOException {
+            if (position + 16L * size > input.length()) {
+                throw new IOException(String.format("Block table at position %d exceeds file \"%s\"", position,
+                    input.getFile().getName()));
+            }
+            long[] rawOffsets = new long[size];
+            long[] fileOffsets = new long[size];
+            try (DataInputStream in = new DataInputStream(input.newInputStream(position))) {
+                for (int i = 0; i < size; i++) {
+                    rawOffsets[i] = in.readLong();
+                    fileOffsets[i] = in.readLong();
+                }
+            }
+            return new BlockTable(rawOffsets, fileOffsets, size);
+        }
+
+        /**
+         * @param rawOffset an offset in the uncompressed data
+         * @return index of the block containing the offset (or the last block if beyond the data)
+         */
+        int findBlock(final long rawOffset) {
+            int index = Arrays.binarySearch(m_rawOffsets, 0, m_size, rawOffset);
+            return index >= 0 ? index : Math.max(0, -index - 2);
+        }
+
+        long getRawOffset(final int block) {
+            return m_size == 0 ? 0 : m_rawOffsets[block];
+        }
+
+        long getFileOffset(final int block) {
+            return m_size == 0 ? 0 : m_fileOffsets[block];
+        }
+    }
+
+}
@@ -0,0 +1,254 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.compress;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Pure Java implementation of the Snappy block format: the uncompressed length as varint followed by literal and copy
+ * elements, identified by the lower two bits of their tag byte. Copies are written with 1 byte (length 4-11, offset
+ * below 2048) or 2 byte offsets; 4 byte offsets are only decoded as blocks never exceed 64KB here.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class SnappyBlockCompressor extends BlockCompressor {
+
+    private static final int MIN_MATCH = 4;
+
+    private static final int HASH_LOG = 14;
+
+    private static final int MAX_OFFSET = 0xFFFF;
+
+    private static final int SKIP_TRIGGER = 5;
+
+    private static final int TAG_LITERAL = 0x00;
+
+    private static final int TAG_COPY_1 = 0x01;
+
+    private static final int TAG_COPY_2 = 0x02;
+
+    private static final int TAG_COPY_4 = 0x03;
+
+    private final int[] m_hashTable = new int[1 << HASH_LOG];
+
+    @Override
+    int maxCompressedLength(final int length) {
+        return 32 + length + length / 6;
+    }
+
+    @Override
+    int compress(final byte[] src, final int srcOff, final int srcLen, final byte[] dest, final int destOff) {
+        final int srcEnd = srcOff + srcLen;
+        int d = writeVarInt(dest, destOff, srcLen);
+        int anchor = srcOff;
+        int ip = srcOff;
+        final int inputLimit = srcEnd - MIN_MATCH;
+        if (srcLen > MIN_MATCH) {
+            Arrays.fill(m_hashTable, -1);
+            while (ip < inputLimit) {
+                final int sequence = readInt(src, ip);
+                final int h = hash(sequence, HASH_LOG);
+                final int ref = m_hashTable[h];
+                m_hashTable[h] = ip;
+                if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                    ip += 1 + ((ip - anchor) >>> SKIP_TRIGGER);
+                    continue;
+                }
+                if (ip > anchor) {
+                    d = writeLiteral(src, anchor, ip - anchor, dest, d);
+                }
+                final int matchLen = MIN_MATCH + matchLength(src, ref + MIN_MATCH, ip + MIN_MATCH, srcEnd);
+                d = writeCopy(dest, d, ip - ref, matchLen);
+                ip += matchLen;
+                anchor = ip;
+            }
+        }
+        if (anchor < srcEnd) {
+            d = writeLiteral(src, anchor, srcEnd - anchor, dest, d);
+        }
+        return d - destOff;
+    }
+
+    private static int writeVarInt(final byte[] dest, final int destPos, final int value) {
+        int d = destPos;
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            dest[d++] = (byte)((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        dest[d++] = (byte)v;
+        return d;
+    }
+
+    private static int writeLiteral(final byte[] src, final int litStart, final int litLen, final byte[] dest,
+        final int destPos) {
+        int d = destPos;
+        final int n = litLen - 1;
+        if (n < 60) {
+            dest[d++] = (byte)(TAG_LITERAL | n << 2);
+        } else {
+            final int bytes = n < (1 << 8) ? 1 : n < (1 << 16) ? 2 : n < (1 << 24) ? 3 : 4;
+            dest[d++] = (byte)(TAG_LITERAL | (59 + bytes) << 2);
+            for (int i = 0; i < bytes; i++) {
+                dest[d++] = (byte)(n >>> (8 * i));
+            }
+        }
+        System.arraycopy(src, litStart, dest, d, litLen);
+        return d + litLen;
+    }
+
+    private static int writeCopy(final byte[] dest, final int destPos, final int offset, final int length) {
+        int d = destPos;
+        int len = length;
+        // copies with 2 byte offset hold at most 64 bytes; avoid leaving a remainder below the minimum of 4
+        while (len >= 68) {
+            d = writeCopy2(dest, d, offset, 64);
+            len -= 64;
+        }
+        if (len > 64) {
+            d = writeCopy2(dest, d, offset, 60);
+            len -= 60;
+        }
+        if (len < 12 && offset < 2048) {
+            dest[d++] = (byte)(TAG_COPY_1 | (len - 4) << 2 | (offset >>> 8) << 5);
+            dest[d++] = (byte)offset;
+            return d;
+        }
+        return writeCopy2(dest, d, offset, len);
+    }
+
+    private static int writeCopy2(final byte[] dest, final int destPos, final int offset, final int length) {
+        int d = destPos;
+        dest[d++] = (byte)(TAG_COPY_2 | (length - 1) << 2);
+        dest[d++] = (byte)offset;
+        dest[d++] = (byte)(offset >>> 8);
+        return d;
+    }
+
+    @Override
+    void decompress(final byte[] src, final int srcOff, final int srcLen, final byte[] dest, final int destOff,
+        final int destLen) throws IOException {
+        final int srcEnd = srcOff + srcLen;
+        final int destEnd = destOff + destLen;
+        int s = srcOff;
+        // uncompressed length (varint)
+        int length = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (s >= srcEnd || shift > 28) {
+                throw corrupt("Snappy", s - srcOff);
+            }
+            b = src[s++] & 0xFF;
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        if (length != destLen) {
+            throw corrupt("Snappy", 0);
+        }
+        int d = destOff;
+        while (s < srcEnd) {
+            final int tag = src[s++] & 0xFF;
+            int len;
+            int offset;
+            switch (tag & 0x03) {
+                case TAG_LITERAL:
+                    len = tag >>> 2;
+                    if (len >= 60) {
+                        final int bytes = len - 59;
+                        if (s + bytes > srcEnd) {
+                            throw corrupt("Snappy", s - srcOff);
+                        }
+                        len = 0;
+                        for (int i = 0; i < bytes; i++) {
+                            len |= (src[s++] & 0xFF) << (8 * i);
+                        }
+                    }
+                    len++;
+                    if (len <= 0 || len > srcEnd - s || len > destEnd - d) {
+                        throw corrupt("Snappy", s - srcOff);
+                    }
+                    System.arraycopy(src, s, dest, d, len);
+                    s += len;
+                    d += len;
+                    continue;
+                case TAG_COPY_1:
+                    if (s >= srcEnd) {
+                        throw corrupt("Snappy", s - srcOff);
+                    }
+                    len = ((tag >>> 2) & 0x07) + 4;
+                    offset = (tag >>> 5) << 8 | (src[s++] & 0xFF);
+                    break;
+                case TAG_COPY_2:
+                    if (s + 2 > srcEnd) {
+                        throw corrupt("Snappy", s - srcOff);
+                    }
+                    len = (tag >>> 2) + 1;
+                    offset = (src[s] & 0xFF) | (src[s + 1] & 0xFF) << 8;
+                    s += 2;
+                    break;
+                case TAG_COPY_4:
+                default:
+                    if (s + 4 > srcEnd) {
+                        throw corrupt("Snappy", s - srcOff);
+                    }
+                    len = (tag >>> 2) + 1;
+                    offset = readInt(src, s);
+                    s += 4;
+                    break;
+            }
+            if (offset <= 0 || offset > d - destOff || len > destEnd - d) {
+                throw corrupt("Snappy", s - srcOff);
+            }
+            copyMatch(dest, d - offset, d, len);
+            d += len;
+        }
+        if (d != destEnd) {
+            throw corrupt("Snappy", s - srcOff);
+        }
+    }
+
+}
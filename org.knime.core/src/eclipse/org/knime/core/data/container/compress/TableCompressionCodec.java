@@ -0,0 +1,115 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A compression codec for the binary stream of tables written in the default table format. The codec's
+ * {@linkplain #getName() name} is persisted in the table's meta information and used to find the codec when the table
+ * is read again. Codecs are collected by the {@link TableCompressionCodecRegistry}; additional codecs can be
+ * registered via the extension point <tt>org.knime.core.TableCompressionCodec</tt>.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ * @noreference This interface is not intended to be referenced by clients.
+ */
+public interface TableCompressionCodec {
+
+    /**
+     * @return non-blank, unique name of the codec, e.g. "Gzip" or "LZ4". It is persisted with each table and must not
+     *         change between versions.
+     */
+    String getName();
+
+    /**
+     * Wraps the argument stream into a compressing stream. Closing the returned stream closes the argument stream.
+     *
+     * @param out the stream to write the compressed data to (usually buffered)
+     * @return a (buffered) stream that compresses and forwards all data to <code>out</code>
+     * @throws IOException if the stream can't be initialized
+     */
+    OutputStream createCompressionStream(OutputStream out) throws IOException;
+
+    /**
+     * Wraps the argument stream into a decompressing stream, counterpart to
+     * {@link #createCompressionStream(OutputStream)}. The returned stream should be buffered as rows are read
+     * byte-wise.
+     *
+     * @param in the stream to read the compressed data from (usually buffered)
+     * @return a stream returning the decompressed data
+     * @throws IOException if the stream can't be initialized
+     */
+    InputStream createDecompressionStream(InputStream in) throws IOException;
+
+    /**
+     * @return whether {@link #createDecompressionStream(RandomAccessFileInput, long)} is supported, i.e. whether
+     *         decompression can start at any offset of the uncompressed data; false by default
+     * @since 3.7
+     */
+    default boolean isRandomAccessSupported() {
+        return false;
+    }
+
+    /**
+     * Creates a stream decompressing a file written with this codec, starting at an arbitrary offset of the
+     * uncompressed data. Only supported if {@link #isRandomAccessSupported()}. The file may contain other data
+     * after the compressed stream.
+     *
+     * @param input the file, as written by the stream returned by {@link #createCompressionStream(OutputStream)}
+     * @param offset the offset in the uncompressed data
+     * @return a new stream positioned at the argument offset
+     * @throws IOException if reading the file fails
+     * @throws UnsupportedOperationException if random access is not supported by this codec
+     * @since 3.7
+     */
+    default InputStream createDecompressionStream(final RandomAccessFileInput input, final long offset)
+        throws IOException {
+        throw new UnsupportedOperationException("Codec \"" + getName() + "\" doesn't support random access");
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.compress;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.Platform;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Collects the {@link DefaultCompressionCodec built-in codecs} and the codecs registered via extension point and
+ * provides them by name.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ * @noextend This class is not intended to be subclassed by clients.
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class TableCompressionCodecRegistry {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(TableCompressionCodecRegistry.class);
+
+    private static final String EXT_POINT_ID = "org.knime.core.TableCompressionCodec";
+
+    private static final TableCompressionCodecRegistry INSTANCE = createInstance();
+
+    private static TableCompressionCodecRegistry createInstance() {
+        Map<String, TableCompressionCodec> codecs = new LinkedHashMap<>();
+        for (DefaultCompressionCodec c : DefaultCompressionCodec.values()) {
+            codecs.put(c.getName(), c);
+        }
+        IExtensionRegistry registry = Platform.getExtensionRegistry();
+        IExtensionPoint point = registry == null ? null : registry.getExtensionPoint(EXT_POINT_ID);
+        if (point != null) {
+            Stream.of(point.getExtensions()).flatMap(ext -> Stream.of(ext.getConfigurationElements()))
+                .map(cfe -> readCodec(cfe)).filter(c -> c != null).forEach(c -> {
+                    if (StringUtils.isBlank(c.getName())) {
+                        LOGGER.errorWithFormat("Ignoring compression codec '%s' -- name must not be blank",
+                            c.getClass().getName());
+                    } else if (codecs.containsKey(c.getName())) {
+                        LOGGER.errorWithFormat("Ignoring compression codec '%s' -- name '%s' is already used by '%s'",
+                            c.getClass().getName(), c.getName(), codecs.get(c.getName()).getClass().getName());
+                    } else {
+                        codecs.put(c.getName(), c);
+                    }
+                });
+        }
+        return new TableCompressionCodecRegistry(codecs);
+    }
+
+    private static TableCompressionCodec readCodec(final IConfigurationElement cfe) {
+        try {
+            TableCompressionCodec c = (TableCompressionCodec)cfe.createExecutableExtension("codecDefinition");
+            LOGGER.debugWithFormat("Added table compression codec '%s' from '%s'",
+                c.getClass().getName(), cfe.getContributor().getName());
+            return c;
+        } catch (CoreException ex) {
+            LOGGER.error(String.format("Could not create '%s' from extension '%s': %s",
+                TableCompressionCodec.class.getName(), cfe.getContributor().getName(), ex.getMessage()), ex);
+        }
+        return null;
+    }
+
+    /** @return the instance to use. */
+    public static TableCompressionCodecRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    private final Map<String, TableCompressionCodec> m_codecs;
+
+    private TableCompressionCodecRegistry(final Map<String, TableCompressionCodec> codecs) {
+        m_codecs = Collections.unmodifiableMap(codecs);
+    }
+
+    /** @return all codecs in an unmodifiable list, built-in codecs first. */
+    public List<TableCompressionCodec> getCodecs() {
+        return Collections.unmodifiableList(new ArrayList<>(m_codecs.values()));
+    }
+
+    /**
+     * @param name the codec name as persisted with the table (case sensitive)
+     * @return the codec with that name or an empty optional if no such codec is installed
+     */
+    public Optional<TableCompressionCodec> getCodec(final String name) {
+        return Optional.ofNullable(m_codecs.get(name));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Table Compression Codecs: [" + String.join(", ", m_codecs.keySet()) + "]";
+    }
+
+}
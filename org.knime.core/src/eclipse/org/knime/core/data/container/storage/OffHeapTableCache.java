@@ -0,0 +1,458 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container.storage;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.core.data.util.memory.MemoryAlert;
+import org.knime.core.data.util.memory.MemoryAlertListener;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Global cache holding the content of recently written and read table files in direct (off-heap) memory. Tables that
+ * exceed the number of cells kept on the heap are written to disc as before, but their content is also kept in this
+ * cache (if they fit) so that subsequent iterations don't read from disc and don't create heap objects beyond those
+ * of the rows being iterated.
+ *
+ * <p>The cache is size-accounted (see {@link KNIMEConstants#PROPERTY_TABLE_CACHE_SIZE}) and evicts least recently
+ * used files. Files larger than a quarter of the capacity are not cached. All entries are dropped when the heap runs
+ * low (as reported by the {@link MemoryAlertSystem}), as the direct memory of evicted entries is only released by the
+ * garbage collector. Entries are validated against the file's length and modification time, files that are deleted
+ * should be {@linkplain #invalidate(File) invalidated} to release the memory early.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class OffHeapTableCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(OffHeapTableCache.class);
+
+    /** Size of the direct buffers holding a file's content. */
+    static final int PAGE_SIZE = 1 << 20;
+
+    private static final OffHeapTableCache INSTANCE = new OffHeapTableCache(getCapacityFromProperty());
+
+    private final long m_capacity;
+
+    /** Files larger than this are not cached. */
+    private final long m_admissionLimit;
+
+    /** Access-ordered, i.e. the first entry is the least recently used. Guarded by this. */
+    private final LinkedHashMap<File, Entry> m_entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Sum of the sizes of all entries. Guarded by this. */
+    private long m_size;
+
+    /**
+     * @param capacity capacity in bytes, 0 to disable the cache
+     */
+    OffHeapTableCache(final long capacity) {
+        m_capacity = Math.max(0L, capacity);
+        m_admissionLimit = m_capacity / 4;
+    }
+
+    private static long getCapacityFromProperty() {
+        long capacity = Runtime.getRuntime().maxMemory() / 8;
+        String sizeString = System.getProperty(KNIMEConstants.PROPERTY_TABLE_CACHE_SIZE);
+        if (sizeString != null) {
+            try {
+                capacity = Long.parseLong(sizeString.trim()) << 20;
+            } catch (NumberFormatException nfe) {
+                LOGGER.warn("Unable to parse property " + KNIMEConstants.PROPERTY_TABLE_CACHE_SIZE + " (\""
+                    + sizeString + "\"), using default (" + (capacity >> 20) + "MB)");
+            }
+        }
+        if (capacity > 0) {
+            LOGGER.debug("Off-heap table cache size is " + (capacity >> 20) + "MB");
+        }
+        return capacity;
+    }
+
+    /** @return the singleton instance, sized according to {@link KNIMEConstants#PROPERTY_TABLE_CACHE_SIZE}. */
+    public static OffHeapTableCache getInstance() {
+        return INSTANCE;
+    }
+
+    static {
+        if (INSTANCE.isEnabled()) {
+            MemoryAlertSystem.getInstance().addListener(new MemoryAlertListener() {
+                @Override
+                protected boolean memoryAlert(final MemoryAlert alert) {
+                    INSTANCE.clear();
+                    return false;
+                }
+            });
+        }
+    }
+
+    /** @return whether the cache has a capacity larger than 0. */
+    public boolean isEnabled() {
+        return m_admissionLimit > 0;
+    }
+
+    /**
+     * Wraps a stream writing the argument file such that the written content is put into the cache when the stream
+     * is closed (unless it exceeds the size limit for single files).
+     *
+     * @param file the file written by <code>out</code>
+     * @param out the stream writing the file
+     * @return a stream forwarding all data to <code>out</code>, or <code>out</code> itself if the cache is disabled
+     */
+    public OutputStream newCachingOutputStream(final File file, final OutputStream out) {
+        return isEnabled() ? new CachingOutputStream(file, out) : out;
+    }
+
+    /**
+     * Opens a stream reading the argument file. If its content is cached, the stream reads from memory. Otherwise,
+     * if it's small enough, the file is loaded into the cache; larger files are read from disc.
+     *
+     * @param file the file to read
+     * @return a new (buffered) stream reading the file's content
+     * @throws IOException if the file can't be read
+     */
+    public InputStream openInputStream(final File file) throws IOException {
+        if (isEnabled()) {
+            Entry entry = get(file);
+            if (entry == null && file.length() <= m_admissionLimit) {
+                entry = load(file);
+            }
+            if (entry != null) {
+                return new PagesInputStream(entry);
+            }
+        }
+        return new BufferedInputStream(new FileInputStream(file));
+    }
+
+    /**
+     * Removes the content of the argument file from the cache, to be called when the file is deleted.
+     *
+     * @param file the file, may be null
+     */
+    public synchronized void invalidate(final File file) {
+        if (file != null) {
+            Entry removed = m_entries.remove(file.getAbsoluteFile());
+            if (removed != null) {
+                m_size -= removed.m_size;
+            }
+        }
+    }
+
+    /** Removes all entries. */
+    public synchronized void clear() {
+        if (!m_entries.isEmpty()) {
+            LOGGER.debug("Clearing off-heap table cache (" + m_entries.size() + " files, " + (m_size >> 20) + "MB)");
+        }
+        m_entries.clear();
+        m_size = 0L;
+    }
+
+    /** @return the sum of the sizes of the cached files, in bytes. */
+    synchronized long getSize() {
+        return m_size;
+    }
+
+    /** @return whether the content of the argument file is cached (and up-to-date). */
+    boolean isCached(final File file) {
+        return get(file) != null;
+    }
+
+    private synchronized Entry get(final File file) {
+        final File key = file.getAbsoluteFile();
+        Entry entry = m_entries.get(key);
+        if (entry != null && !entry.isValidFor(key)) {
+            m_entries.remove(key);
+            m_size -= entry.m_size;
+            entry = null;
+        }
+        return entry;
+    }
+
+    private synchronized void put(final Entry entry) {
+        if (entry.m_size > m_admissionLimit) {
+            return;
+        }
+        Entry previous = m_entries.put(entry.m_file, entry);
+        if (previous != null) {
+            m_size -= previous.m_size;
+        }
+        m_size += entry.m_size;
+        for (Iterator<Entry> it = m_entries.values().iterator(); m_size > m_capacity && it.hasNext();) {
+            Entry eldest = it.next();
+            it.remove();
+            m_size -= eldest.m_size;
+        }
+    }
+
+    private Entry load(final File file) throws IOException {
+        final File key = file.getAbsoluteFile();
+        try (FileChannel channel = FileChannel.open(key.toPath(), StandardOpenOption.READ)) {
+            final long lastModified = key.lastModified();
+            final long length = channel.size();
+            if (length > m_admissionLimit) {
+                return null;
+            }
+            final ByteBuffer[] pages;
+            try {
+                pages = new ByteBuffer[(int)((length + PAGE_SIZE - 1) / PAGE_SIZE)];
+                for (int i = 0; i < pages.length; i++) {
+                    pages[i] = ByteBuffer.allocateDirect((int)Math.min(PAGE_SIZE, length - (long)i * PAGE_SIZE));
+                }
+            } catch (OutOfMemoryError oome) {
+                LOGGER.debug("Unable to allocate direct memory for \"" + key.getName() + "\", reading from disc");
+                clear();
+                return null;
+            }
+            for (ByteBuffer page : pages) {
+                while (page.hasRemaining()) {
+                    if (channel.read(page) < 0) {
+                        throw new IOException("Unexpected end of file \"" + key.getName() + "\"");
+                    }
+                }
+                page.flip();
+            }
+            Entry entry = new Entry(key, length, lastModified, pages);
+            put(entry);
+            return entry;
+        }
+    }
+
+    /** Content of a file plus the attributes used to validate it. */
+    private static final class Entry {
+
+        private final File m_file;
+
+        private final long m_size;
+
+        private final long m_lastModified;
+
+        /** Full pages except for the last one, positioned at 0. Only read via duplicates. */
+        private final ByteBuffer[] m_pages;
+
+        Entry(final File file, final long size, final long lastModified, final ByteBuffer[] pages) {
+            m_file = file;
+            m_size = size;
+            m_lastModified = lastModified;
+            m_pages = pages;
+        }
+
+        boolean isValidFor(final File file) {
+            return file.length() == m_size && file.lastModified() == m_lastModified;
+        }
+    }
+
+    /** Reads the pages of an entry, each stream using its own duplicates of the pages. */
+    private static final class PagesInputStream extends InputStream {
+
+        private final ByteBuffer[] m_pages;
+
+        private int m_pageIndex;
+
+        private ByteBuffer m_page;
+
+        /** Bytes left in all pages. */
+        private long m_remaining;
+
+        PagesInputStream(final Entry entry) {
+            m_pages = entry.m_pages;
+            m_page = m_pages.length > 0 ? m_pages[0].duplicate() : ByteBuffer.allocate(0);
+            m_remaining = entry.m_size;
+        }
+
+        /** @return whether there is data left, moving to the next page if the current one is exhausted */
+        private boolean ensureData() {
+            while (!m_page.hasRemaining()) {
+                if (m_pageIndex + 1 >= m_pages.length) {
+                    return false;
+                }
+                m_page = m_pages[++m_pageIndex].duplicate();
+            }
+            return true;
+        }
+
+        @Override
+        public int read() {
+            if (!ensureData()) {
+                return -1;
+            }
+            m_remaining--;
+            return m_page.get() & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureData()) {
+                return -1;
+            }
+            final int n = Math.min(len, m_page.remaining());
+            m_page.get(b, off, n);
+            m_remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) {
+            long skipped = 0;
+            while (skipped < n && ensureData()) {
+                final int s = (int)Math.min(n - skipped, m_page.remaining());
+                m_page.position(m_page.position() + s);
+                skipped += s;
+            }
+            m_remaining -= skipped;
+            return skipped;
+        }
+
+        /**
+         * Returns the bytes left in all pages, not only in the current one. {@link java.util.zip.GZIPInputStream} stops
+         * reading multi-member files if a member ends at a page boundary and this returned 0.
+         */
+        @Override
+        public int available() {
+            return (int)Math.min(m_remaining, Integer.MAX_VALUE);
+        }
+    }
+
+    /** Forwards all data to the file stream and collects it in direct pages, put into the cache on close. */
+    private final class CachingOutputStream extends FilterOutputStream {
+
+        private final File m_file;
+
+        /** Null if the content exceeded the limit (or allocation failed), nothing is cached then. */
+        private List<ByteBuffer> m_pages = new ArrayList<>();
+
+        private long m_length;
+
+        CachingOutputStream(final File file, final OutputStream out) {
+            super(out);
+            m_file = file.getAbsoluteFile();
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            final ByteBuffer page = reserve(1);
+            if (page != null) {
+                page.put((byte)b);
+                m_length++;
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            int written = 0;
+            while (written < len) {
+                final ByteBuffer page = reserve(len - written);
+                if (page == null) {
+                    return;
+                }
+                final int n = Math.min(len - written, page.remaining());
+                page.put(b, off + written, n);
+                m_length += n;
+                written += n;
+            }
+        }
+
+        /**
+         * @param length number of bytes to be written
+         * @return the page to write (at least one of) the bytes to, allocated if needed; null if caching is aborted
+         *         because the content exceeds the limit or direct memory can't be allocated
+         */
+        private ByteBuffer reserve(final int length) {
+            if (m_pages == null) {
+                return null;
+            }
+            if (m_length + length > m_admissionLimit) {
+                m_pages = null;
+                return null;
+            }
+            ByteBuffer page = m_pages.isEmpty() ? null : m_pages.get(m_pages.size() - 1);
+            if (page == null || !page.hasRemaining()) {
+                try {
+                    page = ByteBuffer.allocateDirect(PAGE_SIZE);
+                } catch (OutOfMemoryError oome) {
+                    LOGGER.debug("Unable to allocate direct memory for \"" + m_file.getName() + "\", not caching it");
+                    m_pages = null;
+                    return null;
+                }
+                m_pages.add(page);
+            }
+            return page;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            final List<ByteBuffer> pages = m_pages;
+            m_pages = null;
+            if (pages != null && m_file.length() == m_length) {
+                ByteBuffer[] pageArray = pages.toArray(new ByteBuffer[pages.size()]);
+                for (ByteBuffer page : pageArray) {
+                    page.flip();
+                }
+                put(new Entry(m_file, m_length, m_file.lastModified(), pageArray));
+            }
+        }
+    }
+}
@@ -51,6 +51,7 @@
 import java.text.NumberFormat;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -62,6 +63,9 @@
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
@@ -78,6 +82,7 @@
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 
 /**
@@ -98,6 +103,9 @@ abstract class AbstractTableSorter {
      */
     public static final int DEF_MAX_OPENCONTAINER = 40;
 
+    /** Number of rows read ahead by each reader of a temporary table during the merge (in parallel mode). */
+    private static final int PREFETCH_BATCH_SIZE = 1024;
+
     private MemoryAlertSystem m_memService = MemoryAlertSystem.getInstance();
 
     private final DataTable m_inputTable;
@@ -121,6 +129,15 @@ abstract class AbstractTableSorter {
     /** The RowComparator to compare two DataRows (inner class). */
     private Comparator<DataRow> m_rowComparator;
 
+    /** Normalized keys of the sort columns, null if not all sort columns are supported or a custom comparator is set. */
+    private NormalizedSortKeys m_sortKeys;
+
+    /** See {@link #setParallel(boolean)}, null for the default. */
+    private Boolean m_parallel;
+
+    /** The run currently sorted and written in the background (parallel mode only), null if none. */
+    private Future<DataContainer> m_pendingRun;
+
     private DataContainer m_currentContainer;
 
     private Queue<Iterable<DataRow>> m_chunksContainer = new LinkedList<Iterable<DataRow>>();
@@ -278,6 +295,7 @@ public void setRowComparator(final Comparator<DataRow> rowComparator) {
             throw new NullPointerException("Argument must not be null.");
         }
         m_rowComparator = rowComparator;
+        m_sortKeys = null;
     }
 
     /**
@@ -334,6 +352,32 @@ public void setSortColumns(final Collection<String> inclList, final boolean[] so
             indices[curIndex++] = index;
         }
         setRowComparator(new RowComparator(indices, sortAscending, sortMissingsToEnd, spec));
+        m_sortKeys = NormalizedSortKeys.create(indices, sortAscending, sortMissingsToEnd, spec);
+    }
+
+    /**
+     * Whether to use multiple threads for sorting. In parallel mode runs (the chunks of rows that fit into memory)
+     * are sorted using the fork/join framework and written to disk in the background while the next run is read,
+     * and the readers of the temporary tables read ahead concurrently during the merge.
+     *
+     * <p>
+     * The default is parallel if the sort columns are set via {@link #setSortColumns(Collection, boolean[])} (or in
+     * the constructor) and sequential if a custom comparator is set via {@link #setRowComparator(Comparator)}, as the
+     * comparator needs to be thread-safe in parallel mode.
+     *
+     * @param parallel whether to sort using multiple threads
+     * @since 3.7
+     */
+    public void setParallel(final boolean parallel) {
+        m_parallel = parallel;
+    }
+
+    /**
+     * @return whether to sort using multiple threads, see {@link #setParallel(boolean)}
+     * @since 3.7
+     */
+    public boolean isParallel() {
+        return m_parallel != null ? m_parallel : m_rowComparator instanceof RowComparator;
     }
 
     /**
@@ -451,7 +495,7 @@ private DataTable sortInMemory(final ExecutionMonitor exec) throws CanceledExecu
         }
 
         exec.setMessage("Sorting");
-        Collections.sort(rowList, m_rowComparator);
+        sortRun(rowList);
 
         exec.setMessage("Creating sorted table");
 
@@ -580,69 +624,270 @@ Iterator<DataRow> mergeChunks(final ExecutionMonitor exec, final boolean mergeCo
 
     private long createInitialChunks(final ExecutionMonitor exec, final DataTable dataTable)
         throws CanceledExecutionException {
-        long outerCounter;
         long counter = 0;
         ArrayList<DataRow> buffer = new ArrayList<DataRow>();
         long chunkStartRow = 0;
         int rowsInCurrentChunk = 0;
+        final boolean isParallel = isParallel();
 
         MemoryActionIndicator memObservable = m_memService.newIndicator();
 
         exec.setMessage("Reading table");
-        for (Iterator<DataRow> iter = dataTable.iterator(); iter.hasNext();) {
-            counter++;
-            rowsInCurrentChunk++;
-            exec.checkCanceled();
-            String message = "Reading table, " + counter + " rows read";
-            if (m_rowsInInputTable > 0) {
-                m_progress += m_incProgress;
-                exec.setProgress(m_progress, message);
-            } else {
-                exec.setMessage(message);
-            }
-            DataRow row = iter.next();
-            buffer.add(row);
-            if ((memObservable.lowMemoryActionRequired() && (rowsInCurrentChunk >= m_maxOpenContainers))
-                || (counter % m_maxRowsPerChunk == 0)) {
-                LOGGER.debug("Writing chunk [" + chunkStartRow + ":" + counter + "] - mem usage: " + getMemUsage());
+        try {
+            for (Iterator<DataRow> iter = dataTable.iterator(); iter.hasNext();) {
+                counter++;
+                rowsInCurrentChunk++;
+                exec.checkCanceled();
+                String message = "Reading table, " + counter + " rows read";
                 if (m_rowsInInputTable > 0) {
-                    long estimatedIncrements = m_rowsInInputTable - counter + buffer.size();
-                    m_incProgress = (0.5 - m_progress) / estimatedIncrements;
+                    m_progress += m_incProgress;
+                    exec.setProgress(m_progress, message);
+                } else {
+                    exec.setMessage(message);
                 }
-                exec.setMessage("Sorting temporary buffer");
-                // sort buffer
-                Collections.sort(buffer, m_rowComparator);
-                // write buffer to disk
-                openChunk();
-                final int totalBufferSize = buffer.size();
-                for (int i = 0; i < totalBufferSize; i++) {
-                    exec.setMessage("Writing temporary table -- " + i + "/" + totalBufferSize);
-                    // must not use Iterator#remove as it causes
-                    // array copies
-                    DataRow next = buffer.set(i, null);
-                    addRowToChunk(next);
-                    exec.checkCanceled();
+                DataRow row = iter.next();
+                buffer.add(row);
+                if ((memObservable.lowMemoryActionRequired() && (rowsInCurrentChunk >= m_maxOpenContainers))
+                    || (counter % m_maxRowsPerChunk == 0)) {
+                    LOGGER.debug("Writing chunk [" + chunkStartRow + ":" + counter + "] - mem usage: "
+                        + getMemUsage());
                     if (m_rowsInInputTable > 0) {
-                        m_progress += m_incProgress;
-                        exec.setProgress(m_progress);
+                        long estimatedIncrements = m_rowsInInputTable - counter + buffer.size();
+                        m_incProgress = (0.5 - m_progress) / estimatedIncrements;
                     }
+                    if (isParallel) {
+                        // at most two runs in memory: the one being written and the one being read
+                        awaitPendingRun();
+                        writeRunInBackground(buffer, exec);
+                        buffer = new ArrayList<DataRow>();
+                    } else {
+                        writeRun(buffer, exec);
+                    }
+                    LOGGER.debug("Wrote chunk [" + chunkStartRow + ":" + counter + "] - mem usage: "
+                        + getMemUsage());
+                    chunkStartRow = counter + 1;
+                    rowsInCurrentChunk = 0;
                 }
-                buffer.clear();
-                closeChunk();
-
-                LOGGER.debug("Wrote chunk [" + chunkStartRow + ":" + counter + "] - mem usage: " + getMemUsage());
-                chunkStartRow = counter + 1;
-                rowsInCurrentChunk = 0;
             }
+            awaitPendingRun();
+        } finally {
+            discardPendingRun();
         }
         // Add buffer to the chunks
         if (!buffer.isEmpty()) {
             // sort buffer
-            Collections.sort(buffer, m_rowComparator);
+            sortRun(buffer);
             m_chunksContainer.add(buffer);
         }
-        outerCounter = counter;
-        return outerCounter;
+        return counter;
+    }
+
+    /** Sorts the run and writes it to a new chunk (in the caller thread), clears the argument list. */
+    private void writeRun(final List<DataRow> buffer, final ExecutionMonitor exec)
+        throws CanceledExecutionException {
+        exec.setMessage("Sorting temporary buffer");
+        // sort buffer
+        sortRun(buffer);
+        // write buffer to disk
+        openChunk();
+        final int totalBufferSize = buffer.size();
+        for (int i = 0; i < totalBufferSize; i++) {
+            exec.setMessage("Writing temporary table -- " + i + "/" + totalBufferSize);
+            // must not use Iterator#remove as it causes
+            // array copies
+            DataRow next = buffer.set(i, null);
+            addRowToChunk(next);
+            exec.checkCanceled();
+            if (m_rowsInInputTable > 0) {
+                m_progress += m_incProgress;
+                exec.setProgress(m_progress);
+            }
+        }
+        buffer.clear();
+        closeChunk();
+    }
+
+    /**
+     * Sorts the run and writes it to a new chunk in a background thread; the chunk is added to the chunk list in
+     * {@link #awaitPendingRun()}, which must be called before the next run is submitted (keeps the chunk order).
+     */
+    private void writeRunInBackground(final List<DataRow> run, final ExecutionMonitor exec) {
+        assert m_pendingRun == null;
+        final DataContainer container = createDataContainer(m_dataTableSpec, true);
+        container.setMaxPossibleValues(0);
+        if (m_rowsInInputTable > 0) {
+            // account for the writing of the run up front, the progress is reported while reading continues
+            m_progress += m_incProgress * run.size();
+        }
+        m_pendingRun = submit(() -> {
+            try {
+                sortRun(run);
+                final int size = run.size();
+                for (int i = 0; i < size; i++) {
+                    container.addRowToTable(run.set(i, null));
+                    exec.checkCanceled();
+                }
+                container.close();
+            } catch (Exception | Error e) {
+                // the caller can't reach the container if the task fails, delete the partially written run here
+                try {
+                    container.close();
+                    clearTable(container.getTable());
+                } catch (RuntimeException closeException) {
+                    e.addSuppressed(closeException);
+                }
+                throw e;
+            }
+            return container;
+        });
+    }
+
+    /** Waits for the run written in the background (if any) and adds its table to the chunk list. */
+    private void awaitPendingRun() throws CanceledExecutionException {
+        if (m_pendingRun != null) {
+            DataContainer container = waitFor(m_pendingRun);
+            m_pendingRun = null;
+            m_chunksContainer.offer(container.getTable());
+        }
+    }
+
+    /** Called on failure: waits for the run written in the background (if any) and clears its table. */
+    private void discardPendingRun() {
+        if (m_pendingRun != null) {
+            try {
+                clearTable(m_pendingRun.get().getTable());
+            } catch (InterruptedException | ExecutionException | RuntimeException e) {
+                LOGGER.debug("Discarding temporary table failed: " + e.getMessage(), e);
+            } finally {
+                m_pendingRun = null;
+            }
+        }
+    }
+
+    /**
+     * Enqueues the task (writing a run or prefetching rows) in the global thread pool, which runs it in the caller's
+     * node context.
+     */
+    private static <T> Future<T> submit(final Callable<T> task) {
+        return KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(task);
+    }
+
+    /** Waits for the task and rethrows its exception, if any. */
+    private static <T> T waitFor(final Future<T> future) throws CanceledExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new CanceledExecutionException("Interrupted while waiting for sorting thread");
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Sorts the run (stable), using the normalized keys if available and multiple threads in parallel mode.
+     *
+     * @param run the rows to sort, modified in place
+     */
+    private void sortRun(final List<DataRow> run) {
+        final boolean isParallel = isParallel();
+        if (m_sortKeys != null) {
+            final KeyedRow[] rows = new KeyedRow[run.size()];
+            final Comparator<KeyedRow> comparator = (r1, r2) -> m_sortKeys.compare(r1.m_key, r2.m_key);
+            if (isParallel) {
+                Arrays.parallelSetAll(rows, i -> toKeyedRow(run.get(i)));
+                Arrays.parallelSort(rows, comparator);
+            } else {
+                Arrays.setAll(rows, i -> toKeyedRow(run.get(i)));
+                Arrays.sort(rows, comparator);
+            }
+            for (int i = 0; i < rows.length; i++) {
+                run.set(i, rows[i].m_row);
+            }
+        } else if (isParallel) {
+            final DataRow[] rows = run.toArray(new DataRow[run.size()]);
+            Arrays.parallelSort(rows, m_rowComparator);
+            for (int i = 0; i < rows.length; i++) {
+                run.set(i, rows[i]);
+            }
+        } else {
+            Collections.sort(run, m_rowComparator);
+        }
+    }
+
+    private KeyedRow toKeyedRow(final DataRow row) {
+        return new KeyedRow(m_sortKeys == null ? null : m_sortKeys.extract(row), row);
+    }
+
+    /** A row and its normalized sort key, which is null if no normalized keys are used. */
+    private static final class KeyedRow {
+        private final long[] m_key;
+
+        private final DataRow m_row;
+
+        KeyedRow(final long[] key, final DataRow row) {
+            m_key = key;
+            m_row = row;
+        }
+    }
+
+    /**
+     * Reads the rows of a temporary table in batches in a background thread, one batch ahead of the consumer. This
+     * way the deserialization of all tables that are merged runs concurrently to the merge.
+     */
+    private final class PrefetchingIterator implements Iterator<KeyedRow> {
+
+        private final Iterator<DataRow> m_source;
+
+        private Future<List<KeyedRow>> m_nextBatch;
+
+        private List<KeyedRow> m_batch = Collections.emptyList();
+
+        private int m_index;
+
+        PrefetchingIterator(final Iterator<DataRow> source) {
+            m_source = source;
+            m_nextBatch = submit(this::readBatch);
+        }
+
+        private List<KeyedRow> readBatch() {
+            List<KeyedRow> batch = new ArrayList<>(PREFETCH_BATCH_SIZE);
+            while (batch.size() < PREFETCH_BATCH_SIZE && m_source.hasNext()) {
+                batch.add(toKeyedRow(m_source.next()));
+            }
+            return batch;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (m_index == m_batch.size() && m_nextBatch != null) {
+                try {
+                    m_batch = waitFor(m_nextBatch);
+                } catch (CanceledExecutionException cee) {
+                    throw new RuntimeException(cee.getMessage(), cee);
+                }
+                m_index = 0;
+                // a batch smaller than the batch size is the last one
+                m_nextBatch = m_batch.size() == PREFETCH_BATCH_SIZE ? submit(this::readBatch) : null;
+            }
+            return m_index < m_batch.size();
+        }
+
+        @Override
+        public KeyedRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return m_batch.set(m_index++, null);
+        }
     }
 
     /**
@@ -694,11 +939,11 @@ private String getMemUsage() {
     }
 
     private final class MergeEntry implements Comparable<MergeEntry>, Iterator<DataRow> {
-        private DataRow m_row;
+        private KeyedRow m_row;
 
         private Iterable<DataRow> m_iterable;
 
-        private Iterator<DataRow> m_iterator;
+        private Iterator<KeyedRow> m_iterator;
 
         private int m_index;
 
@@ -717,7 +962,22 @@ private final class MergeEntry implements Comparable<MergeEntry>, Iterator<DataR
 
         private void open() {
             if (m_iterator == null) {
-                m_iterator = m_iterable.iterator();
+                if (isParallel() && m_iterable instanceof DataTable) {
+                    m_iterator = new PrefetchingIterator(m_iterable.iterator());
+                } else {
+                    final Iterator<DataRow> rowIterator = m_iterable.iterator();
+                    m_iterator = new Iterator<KeyedRow>() {
+                        @Override
+                        public boolean hasNext() {
+                            return rowIterator.hasNext();
+                        }
+
+                        @Override
+                        public KeyedRow next() {
+                            return toKeyedRow(rowIterator.next());
+                        }
+                    };
+                }
                 if (m_iterator.hasNext()) {
                     m_row = m_iterator.next();
                 }
@@ -748,7 +1008,7 @@ public DataRow next() {
             if (m_row == null) {
                 throw new NoSuchElementException();
             }
-            DataRow toReturn = m_row;
+            DataRow toReturn = m_row.m_row;
             m_row = m_iterator.hasNext() ? m_iterator.next() : null;
             return toReturn;
         }
@@ -766,7 +1026,8 @@ public void remove() {
          */
         @Override
         public int compareTo(final MergeEntry that) {
-            int value = m_comparator.compare(this.m_row, that.m_row);
+            int value = m_sortKeys != null ? m_sortKeys.compare(this.m_row.m_key, that.m_row.m_key)
+                : m_comparator.compare(this.m_row.m_row, that.m_row.m_row);
             if (value == 0) {
                 return this.m_index - that.m_index;
             } else {
@@ -782,7 +1043,7 @@ public int hashCode() {
             final int prime = 31;
             int result = 1;
             result = prime * result + m_index;
-            result = prime * result + ((m_row == null) ? 0 : m_row.hashCode());
+            result = prime * result + ((m_row == null) ? 0 : m_row.m_row.hashCode());
             return result;
         }
 
@@ -867,10 +1128,10 @@ public void remove() {
     }
 
     /**
-     * The private class RowComparator is used to compare two DataRows. It implements the Comparator-interface, so we
-     * can use the Arrays.sort method to sort an array of DataRows.
+     * The class RowComparator is used to compare two DataRows. It implements the Comparator-interface, so we
+     * can use the Arrays.sort method to sort an array of DataRows. Package-private for tests.
      */
-    private static final class RowComparator implements Comparator<DataRow> {
+    static final class RowComparator implements Comparator<DataRow> {
 
         /**
          * The included column indices.
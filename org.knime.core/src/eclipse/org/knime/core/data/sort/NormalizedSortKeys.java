@@ -0,0 +1,186 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.sort;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.DoubleValueComparator;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.IntValueComparator;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.LongValueComparator;
+
+/**
+ * Binary sort keys for rows whose sort columns are all int, long or double columns. The sort columns of a row are
+ * extracted into a <code>long[]</code> once (two entries per column: a rank for missing values and the value encoded
+ * such that signed long comparison gives the order of the column's comparator), so that comparing two rows doesn't
+ * need any cell access or {@link DataValueComparator} dispatch. The order is identical to the one of the sorter's
+ * default row comparator with the same settings.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class NormalizedSortKeys {
+
+    private enum KeyType {
+        INT, LONG, DOUBLE
+    }
+
+    /** Rank of present values, missing values have rank 0 (first) or 2 (last). */
+    private static final long RANK_PRESENT = 1L;
+
+    private final int[] m_indices;
+
+    private final KeyType[] m_types;
+
+    private final boolean[] m_sortAscending;
+
+    /** Rank for missing values per column, before the sort order is applied. */
+    private final long[] m_missingRanks;
+
+    private NormalizedSortKeys(final int[] indices, final KeyType[] types, final boolean[] sortAscending,
+        final boolean sortMissingsToEnd) {
+        m_indices = indices;
+        m_types = types;
+        m_sortAscending = sortAscending;
+        m_missingRanks = new long[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            // the comparison is inverted for descending columns: missings at the end of a descending column
+            // need the lowest rank, just as missings that are smaller than any value
+            m_missingRanks[i] = sortMissingsToEnd && sortAscending[i] ? 2L : 0L;
+        }
+    }
+
+    /**
+     * Creates keys for the argument sort settings if all sort columns are int, long or double columns (determined by
+     * the comparator of the column type).
+     *
+     * @param indices the sort column indices, -1 for the row key
+     * @param sortAscending sort order per column
+     * @param sortMissingsToEnd whether missing values are sorted to the end
+     * @param spec the spec of the table
+     * @return the keys or null if any of the sort columns (or the row key) is not supported
+     */
+    static NormalizedSortKeys create(final int[] indices, final boolean[] sortAscending,
+        final boolean sortMissingsToEnd, final DataTableSpec spec) {
+        if (indices.length == 0) {
+            return null;
+        }
+        KeyType[] types = new KeyType[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] < 0) {
+                return null;
+            }
+            DataValueComparator comparator = spec.getColumnSpec(indices[i]).getType().getComparator();
+            // exact class checks, subclasses may define a different order
+            if (comparator.getClass() == IntValueComparator.class) {
+                types[i] = KeyType.INT;
+            } else if (comparator.getClass() == LongValueComparator.class) {
+                types[i] = KeyType.LONG;
+            } else if (comparator.getClass() == DoubleValueComparator.class) {
+                types[i] = KeyType.DOUBLE;
+            } else {
+                return null;
+            }
+        }
+        return new NormalizedSortKeys(indices.clone(), types, sortAscending.clone(), sortMissingsToEnd);
+    }
+
+    /**
+     * @param row the row
+     * @return the key of the row's sort columns
+     */
+    long[] extract(final DataRow row) {
+        final long[] key = new long[2 * m_indices.length];
+        for (int i = 0; i < m_indices.length; i++) {
+            final DataCell cell = row.getCell(m_indices[i]);
+            if (cell.isMissing()) {
+                key[2 * i] = m_missingRanks[i];
+                continue;
+            }
+            key[2 * i] = RANK_PRESENT;
+            switch (m_types[i]) {
+                case INT:
+                    key[2 * i + 1] = ((IntValue)cell).getIntValue();
+                    break;
+                case LONG:
+                    key[2 * i + 1] = ((LongValue)cell).getLongValue();
+                    break;
+                default:
+                    key[2 * i + 1] = encode(((DoubleValue)cell).getDoubleValue());
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Maps a double to a long such that signed comparison gives the order of {@link Double#compare(double, double)},
+     * including -0.0 &lt; 0.0 and NaN being the largest value.
+     */
+    static long encode(final double d) {
+        final long bits = Double.doubleToLongBits(d);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * @param k1 key of the first row
+     * @param k2 key of the second row
+     * @return the comparison result of the two rows
+     */
+    int compare(final long[] k1, final long[] k2) {
+        for (int i = 0; i < m_sortAscending.length; i++) {
+            int c = Long.compare(k1[2 * i], k2[2 * i]);
+            if (c == 0) {
+                c = Long.compare(k1[2 * i + 1], k2[2 * i + 1]);
+            }
+            if (c != 0) {
+                return m_sortAscending[i] ? c : -c;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.util;
+
+import java.io.IOException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataTypeRegistry;
+import org.knime.core.data.filestore.FileStoreCell;
+
+/**
+ * Writes cells as their class name followed by the output of their {@link DataCellSerializer}, and reads them back.
+ * Used where single cells are stored outside of a table, e.g. in the columnar table format or in the state of an
+ * aggregation operator. The missing cell singleton is written as an empty class name. File store cells are not
+ * supported since their files are not part of the output.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class ClassNameCellSerializer {
+
+    /** Class name marker for the singleton missing cell. */
+    private static final String MISSING_SINGLETON = "";
+
+    private ClassNameCellSerializer() {
+        // utility class
+    }
+
+    /**
+     * Writes the class name of the cell followed by the output of its serializer. Nested cells (e.g. in collections)
+     * are written by <b>out</b>'s {@link DataCellDataOutput#writeDataCell(DataCell)}.
+     *
+     * @param cell the cell to write
+     * @param out the output to write to
+     * @throws IOException if writing fails, the cell is a file store cell or its class has no serializer
+     */
+    public static void writeCell(final DataCell cell, final DataCellDataOutput out) throws IOException {
+        if (cell == DataType.getMissingCell()) {
+            out.writeUTF(MISSING_SINGLETON);
+            return;
+        }
+        final Class<? extends DataCell> cellClass = cell.getClass();
+        if (cell instanceof FileStoreCell) {
+            throw new IOException("File store cells of type '" + cellClass.getName() + "' can't be written");
+        }
+        final DataCellSerializer<DataCell> serializer = DataTypeRegistry.getInstance().getSerializer(cellClass)
+            .orElseThrow(() -> new IOException("No serializer for cell class '" + cellClass.getName() + "'"));
+        out.writeUTF(cellClass.getName());
+        serializer.serialize(cell, out);
+    }
+
+    /**
+     * Reads a cell written by {@link #writeCell(DataCell, DataCellDataOutput)}.
+     *
+     * @param in the input to read from
+     * @return the cell
+     * @throws IOException if reading fails or the cell class is unknown
+     */
+    public static DataCell readCell(final DataCellDataInput in) throws IOException {
+        final String className = in.readUTF();
+        if (MISSING_SINGLETON.equals(className)) {
+            return DataType.getMissingCell();
+        }
+        final Class<? extends DataCell> cellClass = DataTypeRegistry.getInstance().getCellClass(className)
+            .orElseThrow(() -> new IOException("Can't load data cell class '" + className + "'"));
+        final DataCellSerializer<DataCell> serializer = DataTypeRegistry.getInstance().getSerializer(cellClass)
+            .orElseThrow(() -> new IOException("No serializer for data cell class '" + className + "'"));
+        return serializer.deserialize(in);
+    }
+
+}
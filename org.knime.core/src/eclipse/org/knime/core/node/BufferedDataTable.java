@@ -83,6 +83,7 @@
 import org.knime.core.data.container.DefaultTableStoreFormat;
 import org.knime.core.data.container.JoinedTable;
 import org.knime.core.data.container.RearrangeColumnsTable;
+import org.knime.core.data.container.RowSelectionTable;
 import org.knime.core.data.container.TableSpecReplacerTable;
 import org.knime.core.data.container.VoidTable;
 import org.knime.core.data.container.WrappedTable;
@@ -250,6 +251,13 @@ static PortObjectSerializer<BufferedDataTable> getPortObjectSerializer() {
         this(table, generateNewID());
     }
 
+    /** Creates a new buffered data table based on a row selection of a BufferedDataTable.
+     * @param table The reference.
+     */
+    BufferedDataTable(final RowSelectionTable table) {
+        this(table, generateNewID());
+    }
+
     /**
      * Creates a new BufferedDataTable for an extended table type.
      * @param table The extended table
@@ -480,6 +488,8 @@ public void close() {
     private static final String TABLE_TYPE_CONCATENATE = "concatenate_table";
     private static final String TABLE_TYPE_JOINED = "joined_table";
     private static final String TABLE_TYPE_VOID = "void_table";
+    /** Type for {@link RowSelectionTable}, added in 3.7. */
+    private static final String TABLE_TYPE_ROW_SELECTION = "row_selection_table";
     /** The table is referenced multiple times in a node, e.g. provided at
      * different outputs (possibly wrapped) or it is used as output-port table
      * and as internally held table. See bug 2117.
@@ -534,6 +544,8 @@ void save(final File dir, final Set<Integer> savedTableIDs, final ExecutionMonit
                 s.addString(CFG_TABLE_TYPE, TABLE_TYPE_VOID);
             } else if (m_delegate instanceof ConcatenateTable) {
                 s.addString(CFG_TABLE_TYPE, TABLE_TYPE_CONCATENATE);
+            } else if (m_delegate instanceof RowSelectionTable) {
+                s.addString(CFG_TABLE_TYPE, TABLE_TYPE_ROW_SELECTION);
             } else {
                 assert m_delegate instanceof ExtensionTable;
                 s.addString(CFG_TABLE_TYPE, TABLE_TYPE_EXTENSION);
@@ -716,6 +728,7 @@ static BufferedDataTable loadFromFile(final ReferencedFile dirRef,
             case TABLE_TYPE_JOINED:
             case TABLE_TYPE_VOID:
             case TABLE_TYPE_CONCATENATE:
+            case TABLE_TYPE_ROW_SELECTION:
             case TABLE_TYPE_WRAPPED:
             case TABLE_TYPE_NEW_SPEC:
             case TABLE_TYPE_EXTENSION:
@@ -745,6 +758,10 @@ static BufferedDataTable loadFromFile(final ReferencedFile dirRef,
                 } else if (tableType.equals(TABLE_TYPE_CONCATENATE)) {
                     ConcatenateTable ct = ConcatenateTable.load(s, spec, tblRep);
                     t = new BufferedDataTable(ct);
+                } else if (tableType.equals(TABLE_TYPE_ROW_SELECTION)) {
+                    CheckUtils.checkSettingNotNull(fileRef, "No data file for row selection table");
+                    RowSelectionTable rst = RowSelectionTable.load(fileRef.getFile(), s, tblRep);
+                    t = new BufferedDataTable(rst);
                 } else if (tableType.equals(TABLE_TYPE_WRAPPED)) {
                     WrappedTable wt = WrappedTable.load(s, tblRep);
                     t = new BufferedDataTable(wt);
@@ -47,6 +47,7 @@
 
 import java.io.IOException;
 import java.lang.reflect.Constructor;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Optional;
 import java.util.concurrent.Callable;
@@ -61,6 +62,7 @@
 import org.knime.core.data.container.ContainerTable;
 import org.knime.core.data.container.JoinedTable;
 import org.knime.core.data.container.RearrangeColumnsTable;
+import org.knime.core.data.container.RowSelectionTable;
 import org.knime.core.data.container.TableSpecReplacerTable;
 import org.knime.core.data.container.VoidTable;
 import org.knime.core.data.container.WrappedTable;
@@ -69,6 +71,7 @@
 import org.knime.core.data.filestore.internal.IWriteFileStoreHandler;
 import org.knime.core.data.filestore.internal.NotInWorkflowFileStoreHandlerRepository;
 import org.knime.core.data.filestore.internal.ROWriteFileStoreHandler;
+import org.knime.core.node.BufferedDataTable.KnowsRowCountTable;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.util.KNIMEJob;
 import org.knime.core.node.workflow.LoopEndNode;
@@ -409,6 +412,36 @@ public BufferedDataTable createWrappedTable(final BufferedDataTable in) {
         return out;
     }
 
+    /**
+     * Creates a new <code>BufferedDataTable</code> that contains the rows of the argument table whose indices are set
+     * in <code>selection</code>, in their original order. Unlike a table created with a data container, the rows are
+     * not copied: the new table references the input and only the selection is saved with the workflow. This is
+     * useful for nodes that filter rows without modifying them, e.g. a row filter. If the input table is itself such
+     * a selection, the new selection is applied to the underlying table, so chains of filters don't nest.
+     *
+     * @param in The input table, i.e. reference table.
+     * @param selection The indices of the rows to keep (0-based, relative to <code>in</code>).
+     * @return A new table which can be returned in the execute method.
+     * @throws IllegalArgumentException If the selection contains indices beyond the size of the input table.
+     * @throws NullPointerException If any argument is null.
+     * @since 3.7
+     */
+    public BufferedDataTable createRowSelectionTable(final BufferedDataTable in, final BitSet selection) {
+        if (selection.length() == in.size() && selection.cardinality() == in.size()) {
+            return createWrappedTable(in);
+        }
+        KnowsRowCountTable delegate = in.getDelegate();
+        RowSelectionTable t;
+        if (delegate instanceof RowSelectionTable) {
+            t = ((RowSelectionTable)delegate).select(selection);
+        } else {
+            t = RowSelectionTable.create(in, selection);
+        }
+        BufferedDataTable out = new BufferedDataTable(t);
+        out.setOwnerRecursively(m_node);
+        return out;
+    }
+
     /** Create new "void" table. It's a framework method that is used by the streaming executor to populate the output
      * of a node. It has a table specification but no data (which is also indicated in the view).
      *
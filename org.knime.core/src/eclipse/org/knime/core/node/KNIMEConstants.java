@@ -165,6 +165,29 @@ public final class KNIMEConstants {
     public static final String PROPERTY_TABLE_GZIP_COMPRESSION =
         "knime.compress.io";
 
+    /** Java property selecting the compression codec of table streams by name ("Gzip", "LZ4", "Snappy", "None" or
+     * the name of a codec registered via extension point). A workflow variable of the same name takes precedence,
+     * allowing the codec to be chosen per workflow. If unset, {@link #PROPERTY_TABLE_GZIP_COMPRESSION} decides
+     * between "Gzip" and "None". Tables written with any codec remain readable as the codec is recorded with the
+     * table.
+     * @since 3.7 */
+    public static final String PROPERTY_TABLE_COMPRESSION_CODEC =
+        "knime.compress.io.codec";
+
+    /** Java property to set the number of threads compressing table streams in parallel (shared by all tables
+     * being written). The default is the number of available processors; a value of 1 or less compresses each table
+     * sequentially in its write thread. The written data can be read independent of this setting.
+     * @since 3.7 */
+    public static final String PROPERTY_TABLE_COMPRESSION_THREADS =
+        "knime.compress.io.threads";
+
+    /** Java property to set the size (in MB) of the off-heap cache holding the content of recently written and read
+     * table files, so that tables exceeding the in-memory cell limit are read from memory rather than from disc. The
+     * default is an eighth of the maximum heap size; 0 disables the cache.
+     * @since 3.7 */
+    public static final String PROPERTY_TABLE_CACHE_SIZE =
+        "knime.table.cache.offheap.size";
+
     /** Java property to enable/disable row ID duplicate checks on tables.
      * Tables in KNIME are supposed to have unique IDs, whereby the uniqueness
      * is asserted using a duplicate checker. This property will disable this
@@ -0,0 +1,278 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Creates a single gzip member from chunks of data that are deflated independently (and possibly concurrently), as
+ * done by pigz. Each chunk is compressed to raw deflate blocks that end with a sync flush, i.e. on a byte boundary
+ * without marking the end of the stream, so the deflated chunks can simply be concatenated. The encoder writes the
+ * gzip header, a final empty block and the trailer, whose CRC-32 is combined from the checksums of the chunks.
+ *
+ * <p>
+ * The result is a standard gzip stream with a single member, exactly like the one written by
+ * {@link java.util.zip.GZIPOutputStream} (only the deflate blocks differ). Usage:
+ *
+ * <pre>
+ * out.write(GzipChunkEncoder.getHeader());
+ * GzipChunkEncoder encoder = new GzipChunkEncoder();
+ * for each chunk (in order, deflate possibly concurrently):
+ *     DeflatedChunk deflated = GzipChunkEncoder.deflate(data, off, len, dictionary);
+ *     encoder.add(deflated); // in order
+ *     deflated.writeTo(out);
+ * out.write(encoder.getTrailer());
+ * </pre>
+ *
+ * <p>
+ * {@link #deflate(byte[], int, int, byte[])} is thread-safe; an encoder instance accumulates the checksum of one
+ * member and is not.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class GzipChunkEncoder {
+
+    /** The gzip header: deflate, no flags, no modification time, no extra flags, unknown OS. */
+    private static final byte[] HEADER = {0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    /** Maximum distance of deflate back references, the size of a useful dictionary. */
+    public static final int DICTIONARY_SIZE = 32 * 1024;
+
+    /** Deflaters are expensive to create (native memory), each thread keeps and resets its own. */
+    private static final ThreadLocal<Deflater> DEFLATERS =
+        ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+    /** Operator appending a single zero bit to a CRC-32 (see zlib's <code>crc32_combine</code>). */
+    private static final long[] ONE_ZERO_BIT = createOneZeroBitOperator();
+
+    /** A deflated chunk, created by {@link GzipChunkEncoder#deflate(byte[], int, int, byte[])}. */
+    public static final class DeflatedChunk {
+
+        private final byte[] m_bytes;
+
+        private final int m_length;
+
+        private final long m_crc;
+
+        private final int m_rawLength;
+
+        private DeflatedChunk(final byte[] bytes, final int length, final long crc, final int rawLength) {
+            m_bytes = bytes;
+            m_length = length;
+            m_crc = crc;
+            m_rawLength = rawLength;
+        }
+
+        /**
+         * @param out to write the deflate blocks to
+         * @throws IOException if writing fails
+         */
+        public void writeTo(final OutputStream out) throws IOException {
+            out.write(m_bytes, 0, m_length);
+        }
+
+        /** @return the deflate blocks as a buffer ready to be read (wrapping the internal array) */
+        public ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(m_bytes, 0, m_length);
+        }
+    }
+
+    private long m_crc;
+
+    private long m_rawLength;
+
+    /** Creates an encoder for a new member, the {@linkplain #getHeader() header} must be written separately. */
+    public GzipChunkEncoder() {
+        // checksum and length of the empty sequence
+    }
+
+    /** @return a new copy of the 10 byte gzip header to write before the first chunk */
+    public static byte[] getHeader() {
+        return HEADER.clone();
+    }
+
+    /**
+     * Deflates a chunk to raw deflate blocks ending with a sync flush. Thread-safe.
+     *
+     * @param data the uncompressed data
+     * @param off the offset of the chunk in <code>data</code>
+     * @param len the length of the chunk
+     * @param dictionary the (up to {@link #DICTIONARY_SIZE}) bytes preceding the chunk in the stream, allowing
+     *            back references into the previous chunk, or <code>null</code>
+     * @return the deflated chunk
+     */
+    public static DeflatedChunk deflate(final byte[] data, final int off, final int len, final byte[] dictionary) {
+        final Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        if (dictionary != null && dictionary.length > 0) {
+            deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(data, off, len);
+        byte[] out = new byte[len / 2 + 64];
+        int count = 0;
+        while (true) {
+            final int n = deflater.deflate(out, count, out.length - count, Deflater.SYNC_FLUSH);
+            count += n;
+            if (count < out.length) {
+                // the flush is complete if the output wasn't filled
+                break;
+            }
+            out = Arrays.copyOf(out, out.length + Math.max(out.length / 2, 1024));
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(data, off, len);
+        return new DeflatedChunk(out, count, crc.getValue(), len);
+    }
+
+    /**
+     * Adds a chunk to the checksum of the member, must be called in the order the chunks are written.
+     *
+     * @param chunk the chunk that is written
+     */
+    public void add(final DeflatedChunk chunk) {
+        m_crc = combineCRC32(m_crc, chunk.m_crc, chunk.m_rawLength);
+        m_rawLength += chunk.m_rawLength;
+    }
+
+    /**
+     * @return the bytes to write after the last chunk: an empty final deflate block and the gzip trailer (CRC-32 and
+     *         length of the uncompressed data modulo 2^32)
+     */
+    public byte[] getTrailer() {
+        final Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.finish();
+        final byte[] trailer = new byte[64];
+        int count = 0;
+        while (!deflater.finished()) {
+            count += deflater.deflate(trailer, count, trailer.length - count - 8);
+        }
+        writeIntLE(trailer, count, m_crc);
+        writeIntLE(trailer, count + 4, m_rawLength);
+        return Arrays.copyOf(trailer, count + 8);
+    }
+
+    private static void writeIntLE(final byte[] b, final int off, final long value) {
+        b[off] = (byte)value;
+        b[off + 1] = (byte)(value >>> 8);
+        b[off + 2] = (byte)(value >>> 16);
+        b[off + 3] = (byte)(value >>> 24);
+    }
+
+    /**
+     * Computes the CRC-32 of two concatenated sequences from their individual checksums, as zlib's
+     * <code>crc32_combine</code>: appending <code>len2</code> zero bytes to the first checksum is a linear operation,
+     * which is applied by repeated squaring of the operator appending a single zero bit.
+     *
+     * @param crc1 the CRC-32 of the first sequence
+     * @param crc2 the CRC-32 of the second sequence
+     * @param len2 the length of the second sequence
+     * @return the CRC-32 of both sequences
+     */
+    static long combineCRC32(final long crc1, final long crc2, final long len2) {
+        if (len2 <= 0) {
+            return crc1;
+        }
+        final long[] even = new long[32];
+        final long[] odd = ONE_ZERO_BIT.clone();
+        // operators for two and four zero bits
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+        long crc = crc1;
+        long len = len2;
+        // apply len2 zero bytes to crc1, the first square in the loop yields the operator for one zero byte
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((len & 1) != 0) {
+                crc = gf2MatrixTimes(even, crc);
+            }
+            len >>>= 1;
+            if (len == 0) {
+                break;
+            }
+            gf2MatrixSquare(odd, even);
+            if ((len & 1) != 0) {
+                crc = gf2MatrixTimes(odd, crc);
+            }
+            len >>>= 1;
+        } while (len != 0);
+        return crc ^ crc2;
+    }
+
+    private static long[] createOneZeroBitOperator() {
+        final long[] op = new long[32];
+        op[0] = 0xEDB88320L; // CRC-32 polynomial
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            op[n] = row;
+            row <<= 1;
+        }
+        return op;
+    }
+
+    private static long gf2MatrixTimes(final long[] mat, final long vec) {
+        long sum = 0;
+        long v = vec;
+        for (int i = 0; v != 0; i++, v >>>= 1) {
+            if ((v & 1) != 0) {
+                sum ^= mat[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(final long[] square, final long[] mat) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(mat, mat[n]);
+        }
+    }
+}
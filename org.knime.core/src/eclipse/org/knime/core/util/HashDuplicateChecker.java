@@ -0,0 +1,530 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * A {@link DuplicateChecker} that detects duplicates while keys are added, using 64-bit hashes of the keys in an
+ * open-addressing hash table held in direct (off-heap) memory. Keys are only compared if their hashes collide; for
+ * that purpose all keys are appended to a log, which is kept off-heap up to a limit and then continued in a temp file
+ * (written sequentially, read only on collisions). Hence, unlike the super class, there are no sorted chunks to merge
+ * in {@link #checkForDuplicates()}, which is a no-op, and the heap is not used for the keys.
+ *
+ * <p>As direct memory is only released by the garbage collector, the direct memory of all checkers (of all tables
+ * being written) is limited by a global budget. If the key log can't get more direct memory, it is continued in the
+ * temp file. If the hash table can't grow any further (size limit, budget or direct memory exhausted), all keys logged
+ * so far are passed on to the chunk-based implementation of the super class, which is then used for all further keys.
+ *
+ * <p>The exception semantics are the same as in the super class: {@link #addKey(String)} throws a
+ * {@link DuplicateKeyException} as soon as a duplicate is detected (or {@link #checkForDuplicates()} after a
+ * fallback). This implementation is not thread-safe either.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public class HashDuplicateChecker extends DuplicateChecker {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(HashDuplicateChecker.class);
+
+    private static final boolean DISABLE_DUPLICATE_CHECK =
+        Boolean.getBoolean(KNIMEConstants.PROPERTY_DISABLE_ROWID_DUPLICATE_CHECK);
+
+    /** Initial number of slots in the hash table (power of 2). */
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    /** Maximum number of slots (1GB of direct memory), the table falls back to the super class beyond. */
+    static final int MAX_CAPACITY = 1 << 27;
+
+    /** Size of the key log's direct memory pages. */
+    private static final int PAGE_SIZE = 1 << 16;
+
+    /** Default number of bytes of the key log kept in direct memory, the remainder is written to a temp file. */
+    static final long DEF_MAX_LOG_MEMORY = 16L << 20;
+
+    /** Direct memory shared by the hash tables and key logs of all checkers, a quarter of the maximum heap size. */
+    private static final DirectMemoryBudget GLOBAL_BUDGET =
+        new DirectMemoryBudget(Runtime.getRuntime().maxMemory() / 4);
+
+    private final int m_maxCapacity;
+
+    private final long m_maxLogMemory;
+
+    private final DirectMemoryBudget m_budget;
+
+    /** Slots holding the (non-zero) hashes, 0 for empty slots; null until the first key is added. */
+    private LongBuffer m_table;
+
+    private int m_mask;
+
+    private int m_size;
+
+    private final KeyLog m_keyLog;
+
+    /** Whether the table overflowed and all keys are handled by the super class. */
+    private boolean m_isFallback;
+
+    /** Creates a new checker with default limits. */
+    public HashDuplicateChecker() {
+        this(MAX_CAPACITY, DEF_MAX_LOG_MEMORY);
+    }
+
+    /**
+     * Creates a new checker using the global direct memory budget, used in tests to force the fallback and the
+     * spilling of keys.
+     *
+     * @param maxCapacity maximum number of slots in the hash table (power of 2)
+     * @param maxLogMemory maximum number of bytes of the key log to be kept in memory
+     */
+    HashDuplicateChecker(final int maxCapacity, final long maxLogMemory) {
+        this(maxCapacity, maxLogMemory, GLOBAL_BUDGET);
+    }
+
+    /**
+     * Creates a new checker, used in tests to limit the direct memory shared by several checkers.
+     *
+     * @param maxCapacity maximum number of slots in the hash table (power of 2)
+     * @param maxLogMemory maximum number of bytes of the key log to be kept in memory
+     * @param budget the direct memory available to this and other checkers
+     */
+    HashDuplicateChecker(final int maxCapacity, final long maxLogMemory, final DirectMemoryBudget budget) {
+        m_maxCapacity = maxCapacity;
+        m_maxLogMemory = maxLogMemory;
+        m_budget = budget;
+        m_keyLog = new KeyLog();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addKey(final String s) throws DuplicateKeyException, IOException {
+        if (DISABLE_DUPLICATE_CHECK) {
+            return;
+        }
+        if (m_isFallback) {
+            super.addKey(s);
+            return;
+        }
+        if (m_table == null) {
+            m_table = allocateTable(INITIAL_CAPACITY);
+            if (m_table == null) {
+                fallback();
+                super.addKey(s);
+                return;
+            }
+            m_mask = INITIAL_CAPACITY - 1;
+        }
+        final long hash = hash(s);
+        int index = (int)(hash ^ (hash >>> 32)) & m_mask;
+        long slot;
+        while ((slot = m_table.get(index)) != 0L) {
+            if (slot == hash) {
+                // hash collision: either a duplicate or a different key with the same hash
+                if (m_keyLog.contains(s)) {
+                    throw new DuplicateKeyException(s);
+                }
+                m_keyLog.add(s);
+                return; // hash is already in the table
+            }
+            index = (index + 1) & m_mask;
+        }
+        m_keyLog.add(s);
+        m_table.put(index, hash);
+        m_size++;
+        if (m_size > (m_mask + 1) / 4 * 3 && !grow()) {
+            fallback();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void checkForDuplicates() throws DuplicateKeyException, IOException {
+        if (m_isFallback) {
+            super.checkForDuplicates();
+        }
+        // otherwise all keys have been checked in addKey
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        releaseTable();
+        m_size = 0;
+        m_keyLog.clear();
+        super.clear();
+    }
+
+    /** @return whether the keys are handled by the chunk-based implementation of the super class (for tests) */
+    boolean isFallback() {
+        return m_isFallback;
+    }
+
+    /** @return whether parts of the key log have been written to a temp file (for tests) */
+    boolean isKeyLogSpilled() {
+        return m_keyLog.m_file != null;
+    }
+
+    /** @return a new table of the given capacity or null if the capacity exceeds the limit or memory is low */
+    private LongBuffer allocateTable(final int capacity) {
+        if (capacity > m_maxCapacity) {
+            return null;
+        }
+        final ByteBuffer buffer = allocateDirect(capacity * Long.BYTES);
+        return buffer == null ? null : buffer.asLongBuffer();
+    }
+
+    /** Drops the table and returns its memory to the budget. */
+    private void releaseTable() {
+        if (m_table != null) {
+            m_budget.release((m_mask + 1L) * Long.BYTES);
+            m_table = null;
+        }
+    }
+
+    /**
+     * @return a new direct buffer, or null if the budget is exhausted or direct memory is low; the bytes must be
+     *         {@linkplain DirectMemoryBudget#release(long) released} when the buffer is dropped
+     */
+    private ByteBuffer allocateDirect(final int bytes) {
+        if (!m_budget.tryReserve(bytes)) {
+            LOGGER.debug("Direct memory budget for duplicate checking exhausted after " + m_size + " keys");
+            return null;
+        }
+        try {
+            return ByteBuffer.allocateDirect(bytes);
+        } catch (OutOfMemoryError oome) {
+            m_budget.release(bytes);
+            LOGGER.debug("Unable to allocate direct memory for duplicate checking of " + m_size + " keys");
+            return null;
+        }
+    }
+
+    /** Doubles the capacity of the table, returns false if that is not possible. */
+    private boolean grow() {
+        final int capacity = 2 * (m_mask + 1);
+        final LongBuffer newTable = allocateTable(capacity);
+        if (newTable == null) {
+            return false;
+        }
+        final int newMask = capacity - 1;
+        for (int i = 0; i <= m_mask; i++) {
+            final long hash = m_table.get(i);
+            if (hash != 0L) {
+                int index = (int)(hash ^ (hash >>> 32)) & newMask;
+                while (newTable.get(index) != 0L) {
+                    index = (index + 1) & newMask;
+                }
+                newTable.put(index, hash);
+            }
+        }
+        releaseTable();
+        m_table = newTable;
+        m_mask = newMask;
+        return true;
+    }
+
+    /** Passes all logged keys to the super class, which handles all further keys. */
+    private void fallback() throws IOException {
+        LOGGER.debug("Hash based duplicate checking exceeds memory limits after " + m_size
+            + " keys, continuing with chunk based checking");
+        m_isFallback = true;
+        releaseTable();
+        try {
+            m_keyLog.forEach(super::addKey);
+        } catch (DuplicateKeyException dke) {
+            // keys in the log are unique (verified on add)
+            throw new IOException("Unexpected duplicate in key log: " + dke.getKey(), dke);
+        } finally {
+            m_keyLog.clear();
+        }
+    }
+
+    /**
+     * 64-bit hash of the string's chars (FNV-1a, finalized with the MurmurHash3 mix), never 0 so that 0 can mark
+     * empty slots.
+     */
+    static long hash(final String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, length = s.length(); i < length; i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0L ? 1L : h;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void finalize() throws Throwable {
+        super.finalize();
+        releaseTable();
+        m_keyLog.clear();
+    }
+
+    /** Direct memory that can be used by a group of checkers, thread-safe. */
+    static final class DirectMemoryBudget {
+
+        private final long m_limit;
+
+        private final AtomicLong m_used = new AtomicLong();
+
+        /** @param limit the number of bytes available */
+        DirectMemoryBudget(final long limit) {
+            m_limit = limit;
+        }
+
+        /** @return true if the bytes were reserved, false if that would exceed the limit */
+        boolean tryReserve(final long bytes) {
+            long used;
+            do {
+                used = m_used.get();
+                if (used + bytes > m_limit) {
+                    return false;
+                }
+            } while (!m_used.compareAndSet(used, used + bytes));
+            return true;
+        }
+
+        /** @param bytes reserved bytes that are no longer used */
+        void release(final long bytes) {
+            m_used.addAndGet(-bytes);
+        }
+
+        /** @return the number of reserved bytes (for tests) */
+        long getUsed() {
+            return m_used.get();
+        }
+    }
+
+    /** Consumer of keys that may fail like {@link DuplicateChecker#addKey(String)}. */
+    @FunctionalInterface
+    private interface KeyConsumer {
+        void accept(String key) throws DuplicateKeyException, IOException;
+    }
+
+    /**
+     * Append-only log of all keys, each written as its length followed by its chars (UTF-16, so that even invalid
+     * strings are compared exactly). Kept in direct memory pages up to the limit (or as long as direct memory is
+     * available), continued in a temp file.
+     */
+    private final class KeyLog {
+
+        private final List<ByteBuffer> m_pages = new ArrayList<>();
+
+        private long m_memory;
+
+        private File m_file;
+
+        private DataOutputStream m_fileOut;
+
+        void add(final String key) throws IOException {
+            if (m_fileOut == null && !addToMemory(key)) {
+                m_file = FileUtil.createTempFile("KNIME_DuplicateChecker", ".bin", false);
+                m_fileOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(m_file)));
+            }
+            if (m_fileOut != null) {
+                m_fileOut.writeInt(key.length());
+                m_fileOut.writeChars(key);
+            }
+        }
+
+        /** @return whether the key was added to the pages, false (with nothing added) if out of memory */
+        private boolean addToMemory(final String key) {
+            final int length = key.length();
+            if (m_memory + Integer.BYTES + 2L * length > m_maxLogMemory) {
+                return false;
+            }
+            final int pageCount = m_pages.size();
+            final int position = pageCount == 0 ? 0 : m_pages.get(pageCount - 1).position();
+            boolean success = putInt(length);
+            for (int i = 0; success && i < length; i++) {
+                success = putChar(key.charAt(i));
+            }
+            if (!success) {
+                // remove the partially written key
+                while (m_pages.size() > pageCount) {
+                    m_pages.remove(m_pages.size() - 1);
+                    m_budget.release(PAGE_SIZE);
+                    m_memory -= PAGE_SIZE;
+                }
+                if (pageCount > 0) {
+                    m_pages.get(pageCount - 1).position(position);
+                }
+            }
+            return success;
+        }
+
+        /** @return a page with the requested space, null if no page could be allocated */
+        private ByteBuffer currentPage(final int bytes) {
+            ByteBuffer page = m_pages.isEmpty() ? null : m_pages.get(m_pages.size() - 1);
+            if (page == null || page.remaining() < bytes) {
+                page = allocateDirect(PAGE_SIZE);
+                if (page != null) {
+                    m_pages.add(page);
+                    m_memory += PAGE_SIZE;
+                }
+            }
+            return page;
+        }
+
+        private boolean putInt(final int value) {
+            final ByteBuffer page = currentPage(Integer.BYTES);
+            if (page == null) {
+                return false;
+            }
+            page.putInt(value);
+            return true;
+        }
+
+        private boolean putChar(final char value) {
+            final ByteBuffer page = currentPage(Character.BYTES);
+            if (page == null) {
+                return false;
+            }
+            page.putChar(value);
+            return true;
+        }
+
+        /** Scans the log for the argument key, called on hash collisions only. */
+        boolean contains(final String key) throws IOException {
+            final boolean[] found = new boolean[1];
+            forEach(k -> found[0] |= k.equals(key));
+            return found[0];
+        }
+
+        void forEach(final KeyConsumer consumer) throws DuplicateKeyException, IOException {
+            if (m_fileOut != null) {
+                m_fileOut.flush();
+            }
+            try (DataInputStream in = new DataInputStream(openStream())) {
+                final StringBuilder b = new StringBuilder();
+                while (true) {
+                    final int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException eof) {
+                        break;
+                    }
+                    b.setLength(0);
+                    for (int i = 0; i < length; i++) {
+                        b.append(in.readChar());
+                    }
+                    consumer.accept(b.toString());
+                }
+            }
+        }
+
+        private InputStream openStream() throws IOException {
+            final List<InputStream> streams = new ArrayList<>();
+            for (ByteBuffer page : m_pages) {
+                final ByteBuffer data = (ByteBuffer)page.duplicate().flip();
+                streams.add(new InputStream() {
+                    @Override
+                    public int read() {
+                        return data.hasRemaining() ? data.get() & 0xFF : -1;
+                    }
+
+                    @Override
+                    public int read(final byte[] b, final int off, final int len) {
+                        if (len == 0) {
+                            return 0;
+                        }
+                        if (!data.hasRemaining()) {
+                            return -1;
+                        }
+                        final int n = Math.min(len, data.remaining());
+                        data.get(b, off, n);
+                        return n;
+                    }
+                });
+            }
+            if (m_file != null) {
+                streams.add(new BufferedInputStream(new FileInputStream(m_file)));
+            }
+            return new BufferedInputStream(new SequenceInputStream(Collections.enumeration(streams)));
+        }
+
+        void clear() {
+            m_budget.release(m_memory);
+            m_pages.clear();
+            m_memory = 0L;
+            if (m_fileOut != null) {
+                try {
+                    m_fileOut.close();
+                } catch (IOException ioe) {
+                    LOGGER.debug("Unable to close temp file: " + ioe.getMessage(), ioe);
+                }
+                m_fileOut = null;
+            }
+            if (m_file != null) {
+                m_file.delete();
+                m_file = null;
+            }
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package org.knime.base.node.jsnippet;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 
+import java.io.File;
 import java.lang.reflect.Field;
+import java.util.UUID;
 
 import javax.swing.text.Document;
 
@@ -138,6 +141,33 @@ public void testEncoding() throws Exception {
         assertEquals(string, "");
     }
 
+    /**
+     * Test that a snippet with the same code is not compiled again, but loaded from the class cache.
+     * @throws Exception
+     */
+    @Test
+    public void testClassCache() throws Exception {
+        final String message = UUID.randomUUID().toString();
+        snippet.setSettings(new JavaSnippetSettings("throw new Abort(\"" + message + "\");"));
+        assertNotNull(snippet.createSnippetInstance());
+
+        final JavaSnippet cachedSnippet = new JavaSnippet();
+        try {
+            cachedSnippet.setSettings(new JavaSnippetSettings("throw new Abort(\"" + message + "\");"));
+            final AbstractJSnippet s = cachedSnippet.createSnippetInstance();
+            assertFalse("Snippet should not have been compiled",
+                new File(cachedSnippet.getTempClassPath(), "JSnippet.java").exists());
+            try {
+                s.snippet();
+                fail("Expected exception to be thrown by snippet");
+            } catch (Abort e) {
+                assertEquals(message, e.getMessage());
+            }
+        } finally {
+            cachedSnippet.close();
+        }
+    }
+
     /**
      * Test compiling with additional eclipse/osgi bundles.
      * @throws Exception
@@ -0,0 +1,160 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.rules.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.node.rules.engine.Condition.GenericCondition;
+import org.knime.base.node.rules.engine.Condition.MatchOutcome.MatchState;
+import org.knime.core.data.BooleanValue;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.workflow.FlowVariable;
+
+/**
+ * Checks that the conditions compiled by {@link ExpressionFactory#compile(Expression)} give the same results as the
+ * evaluated {@link Expression}s.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CompiledPredicateTest {
+
+    private static final String[] COMPILED_RULES = {"$Dbl$ > 0.5 => 1", "$Dbl$ <= $Integer$ => 1",
+        "$Integer$ = 3 => 1", "$Long$ >= 2 => 1", "$Long$ < $Integer$ => 1", "$Dbl$ = $Dbl$ => 1",
+        "NOT MISSING $Str$ AND $Integer$ < 2 => 1", "$Str$ = \"a\" => 1", "$Str$ > \"b\" => 1",
+        "$Boolean$ XOR $Dbl$ > 0 => 1", "MISSING $Dbl$ OR $Boolean$ => 1", "NOT $Boolean$ => 1",
+        "$Integer$ > 2 OR $Long$ < 3 AND NOT $Boolean$ => 1", "$Boolean$ = TRUE => 1", "TRUE => 1",
+        "1 > 2 => 1", "MISSING $Boolean$ XOR MISSING $Long$ XOR $Dbl$ >= 0 => 1"};
+
+    private static final Object[] VALUES = {0, 1, 2, 3, 0.5, -0.0, 0.0, Double.NaN, "a", "b", "c", true, false};
+
+    /**
+     * Evaluates the compiled conditions on random rows, with all combinations of missing and NaN matching.
+     *
+     * @throws ParseException Should not happen.
+     */
+    @Test
+    public void testSameResults() throws ParseException {
+        final DataTableSpec spec = new DataTableSpec(new DataColumnSpecCreator("Dbl", DoubleCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Integer", IntCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Long", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Str", StringCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Boolean", BooleanCell.TYPE).createSpec());
+        final Random rand = new Random(42);
+        final DataRow[] rows = new DataRow[2000];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = createRow(rand, i);
+        }
+        for (ExpressionFactory factory : new ExpressionFactory[]{ExpressionFactory.getInstance(),
+            ExpressionFactory.getInstance().withMissingsDoNotMatch(),
+            ExpressionFactory.getInstance().withNaNsDoNotMatch(),
+            ExpressionFactory.getInstance().withMissingsDoNotMatch().withNaNsDoNotMatch()}) {
+            final SimpleRuleParser parser =
+                new SimpleRuleParser(spec, Collections.<String, FlowVariable> emptyMap(), factory, factory);
+            for (String text : COMPILED_RULES) {
+                final GenericCondition condition = (GenericCondition)parser.parse(text).getCondition();
+                assertNotNull(text, ExpressionFactory.compile(condition.getExpression()));
+                for (DataRow row : rows) {
+                    assertEquals(text + " in " + row, evaluate(condition.getExpression(), row),
+                        condition.matches(row, null).getOutcome());
+                }
+            }
+            final GenericCondition like = (GenericCondition)parser.parse("$Str$ LIKE \"a*\" => 1").getCondition();
+            assertNull("Matched objects should not be compiled", ExpressionFactory.compile(like.getExpression()));
+        }
+    }
+
+    private static DataRow createRow(final Random rand, final int index) {
+        final DataCell[] cells = new DataCell[]{new DoubleCell(((Number)value(rand, Number.class)).doubleValue()),
+            new IntCell(((Number)value(rand, Integer.class)).intValue()),
+            new LongCell(((Number)value(rand, Integer.class)).longValue()),
+            new StringCell((String)value(rand, String.class)),
+            BooleanCell.BooleanCellFactory.create((Boolean)value(rand, Boolean.class))};
+        for (int i = 0; i < cells.length; i++) {
+            if (rand.nextInt(5) == 0) {
+                cells[i] = DataType.getMissingCell();
+            }
+        }
+        return new DefaultRow(RowKey.createRowKey((long)index), cells);
+    }
+
+    private static Object value(final Random rand, final Class<?> type) {
+        while (true) {
+            final Object value = VALUES[rand.nextInt(VALUES.length)];
+            if (type.isInstance(value)) {
+                return value;
+            }
+        }
+    }
+
+    /** The outcome of a condition without compilation. */
+    private static MatchState evaluate(final Expression expression, final DataRow row) {
+        final DataCell cell = expression.evaluate(row, null).getValue();
+        if (cell.isMissing()) {
+            return MatchState.skipped;
+        }
+        if (cell instanceof BooleanValue) {
+            return ((BooleanValue)cell).getBooleanValue() ? MatchState.matchedAndStop : MatchState.nonMatched;
+        }
+        return MatchState.stopProcessing;
+    }
+}
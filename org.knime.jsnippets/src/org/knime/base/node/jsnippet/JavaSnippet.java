@@ -1133,35 +1133,14 @@ private synchronized Class<? extends AbstractJSnippet> createSnippetClass() {
                 return m_snippetCache.getSnippetClass();
             }
         } else {
-            // recompile
             m_snippetCache.invalidate();
-            StringWriter log = new StringWriter();
-            DiagnosticCollector<JavaFileObject> digsCollector = new DiagnosticCollector<>();
-            CompilationTask compileTask = null;
-            try {
-                compileTask = compiler.getTask(log, digsCollector);
-            } catch (IOException e) {
-                throw new IllegalStateException("Compile with errors: " + e.getMessage(), e);
-            }
-            boolean success = compileTask.call();
-            if (!success) {
-                StringBuilder msg = new StringBuilder();
-                msg.append("Compile with errors:\n");
-                for (Diagnostic<? extends JavaFileObject> d : digsCollector.getDiagnostics()) {
-                    boolean isSnippet = this.isSnippetSource(d.getSource());
-                    if (isSnippet && d.getKind().equals(javax.tools.Diagnostic.Kind.ERROR)) {
-                        long line = d.getLineNumber();
-                        if (line != Diagnostic.NOPOS) {
-                            msg.append("Error in line " + line + ": ");
-                        } else {
-                            msg.append("Error: ");
-                        }
-                        msg.append(d.getMessage(Locale.US));
-                        msg.append('\n');
-                    }
+            // load the classes compiled earlier (by any node in any session) or recompile
+            final String classCacheKey = createClassCacheKey();
+            if (classCacheKey == null || !JavaSnippetClassCache.load(classCacheKey, m_tempClassPathDir)) {
+                compile(compiler);
+                if (classCacheKey != null) {
+                    JavaSnippetClassCache.store(classCacheKey, m_tempClassPathDir);
                 }
-
-                throw new IllegalStateException(msg.toString());
             }
         }
 
@@ -1202,6 +1181,62 @@ private synchronized Class<? extends AbstractJSnippet> createSnippetClass() {
         }
     }
 
+    /**
+     * Compiles the snippet into the temporary class path directory.
+     *
+     * @param compiler the compiler for this snippet
+     */
+    private void compile(final JavaSnippetCompiler compiler) {
+        StringWriter log = new StringWriter();
+        DiagnosticCollector<JavaFileObject> digsCollector = new DiagnosticCollector<>();
+        CompilationTask compileTask = null;
+        try {
+            compileTask = compiler.getTask(log, digsCollector);
+        } catch (IOException e) {
+            throw new IllegalStateException("Compile with errors: " + e.getMessage(), e);
+        }
+        boolean success = compileTask.call();
+        if (!success) {
+            StringBuilder msg = new StringBuilder();
+            msg.append("Compile with errors:\n");
+            for (Diagnostic<? extends JavaFileObject> d : digsCollector.getDiagnostics()) {
+                boolean isSnippet = this.isSnippetSource(d.getSource());
+                if (isSnippet && d.getKind().equals(javax.tools.Diagnostic.Kind.ERROR)) {
+                    long line = d.getLineNumber();
+                    if (line != Diagnostic.NOPOS) {
+                        msg.append("Error in line " + line + ": ");
+                    } else {
+                        msg.append("Error: ");
+                    }
+                    msg.append(d.getMessage(Locale.US));
+                    msg.append('\n');
+                }
+            }
+
+            throw new IllegalStateException(msg.toString());
+        }
+    }
+
+    /**
+     * @return the key of the snippet in the {@link JavaSnippetClassCache}, or <code>null</code> if the compiled
+     *         classes should not be cached
+     */
+    private String createClassCacheKey() {
+        if (!JavaSnippetClassCache.isEnabled()) {
+            return null;
+        }
+        try {
+            final File[] buildPath = getCompiletimeClassPath();
+            final Document doc = getDocument();
+            synchronized (JavaSnippet.class) {
+                return JavaSnippetClassCache.createKey(doc.getText(0, doc.getLength()), buildPath, jSnippetJar);
+            }
+        } catch (IOException | BadLocationException e) {
+            LOGGER.debug("Could not create the key of the compiled Java Snippet: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
     /**
      * Create an instance of the snippet.
      *
@@ -0,0 +1,269 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.jsnippet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.jdt.internal.compiler.tool.EclipseCompiler;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.FileUtil;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * A persistent cache of compiled Java Snippet classes, shared by all Java Snippets of all sessions using the same
+ * KNIME home directory. The entries are addressed by a hash of the snippet's source code, its build path, the JDK and
+ * the compiler, so a snippet only needs to be compiled if one of those really changed.
+ *
+ * <p>
+ * Each entry is a directory containing the class files of one snippet. The class files are copied into the snippet's
+ * own class path directory when they are loaded, so entries can be evicted while their classes are in use.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@SuppressWarnings("restriction")
+final class JavaSnippetClassCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(JavaSnippetClassCache.class);
+
+    /** Set this system property to <code>true</code> to always compile the snippets. */
+    static final String PROPERTY_DISABLE_CACHE = "knime.javasnippet.classcache.disabled";
+
+    /** Must be changed whenever the compiler options or the layout of the entries change. */
+    private static final String CACHE_VERSION = "1 -source 1.8 -target 1.8 -encoding UTF-8";
+
+    /** Maximum number of entries in the cache, the least recently used ones are removed. */
+    private static final int MAX_ENTRIES = 1000;
+
+    private static final String SNIPPET_CLASS = "JSnippet";
+
+    private JavaSnippetClassCache() {
+        // utility class
+    }
+
+    /**
+     * @return true, if compiled classes should be cached
+     */
+    static boolean isEnabled() {
+        return !Boolean.getBoolean(PROPERTY_DISABLE_CACHE);
+    }
+
+    /**
+     * Creates the key of a compiled snippet.
+     *
+     * @param code the source code of the snippet
+     * @param buildPath the files used to compile the snippet
+     * @param snippetJar the jar with the Java Snippet API, which is recreated in every session
+     * @return the key, or <code>null</code> if the compiler version is unknown and classes can't be cached
+     * @throws IOException if the key can't be created
+     */
+    static String createKey(final String code, final File[] buildPath, final File snippetJar) throws IOException {
+        final String compilerVersion = getVersion(EclipseCompiler.class);
+        final String snippetVersion = getVersion(JavaSnippet.class);
+        final String coreVersion = getVersion(NodeLogger.class);
+        if (compilerVersion == null || snippetVersion == null || coreVersion == null) {
+            return null;
+        }
+        final StringBuilder key = new StringBuilder(code.length() + 512);
+        key.append(CACHE_VERSION).append('\n');
+        key.append(System.getProperty("java.vendor")).append(' ').append(System.getProperty("java.version"));
+        key.append('\n').append(compilerVersion).append('\n');
+        for (File f : buildPath) {
+            if (f.equals(snippetJar)) {
+                // its content only depends on the versions of the bundles it is created from
+                key.append(snippetVersion).append('|').append(coreVersion);
+            } else {
+                key.append(f.getAbsolutePath()).append('|').append(f.length()).append('|').append(f.lastModified());
+            }
+            key.append('\n');
+        }
+        key.append(code);
+
+        try {
+            final byte[] hash =
+                MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(2 * hash.length);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copies the cached classes of a snippet into its class path directory.
+     *
+     * @param key the key of the snippet
+     * @param classDir the directory to copy the class files to
+     * @return true, if the classes were found in the cache, false if the snippet must be compiled
+     */
+    static boolean load(final String key, final File classDir) {
+        final Path entry = getCacheDir().resolve(key);
+        if (!Files.isDirectory(entry)) {
+            return false;
+        }
+        try {
+            final List<Path> classFiles = listClassFiles(entry);
+            if (classFiles.isEmpty()) {
+                return false;
+            }
+            deleteClassFiles(classDir.toPath());
+            for (Path f : classFiles) {
+                Files.copy(f, classDir.toPath().resolve(f.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+            // mark as recently used
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (IOException e) {
+            // e.g. removed concurrently, just compile again
+            LOGGER.debug("Could not load compiled Java Snippet from cache: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Adds the compiled classes of a snippet to the cache.
+     *
+     * @param key the key of the snippet
+     * @param classDir the directory containing the compiled class files
+     */
+    static void store(final String key, final File classDir) {
+        final Path cacheDir = getCacheDir();
+        final Path entry = cacheDir.resolve(key);
+        if (Files.isDirectory(entry)) {
+            return;
+        }
+        Path tempEntry = null;
+        try {
+            final List<Path> classFiles = listClassFiles(classDir.toPath());
+            if (classFiles.isEmpty()) {
+                return;
+            }
+            Files.createDirectories(cacheDir);
+            // the entry is created in a temporary directory and moved in place, so other nodes and processes
+            // never see incomplete entries
+            tempEntry = Files.createTempDirectory(cacheDir, "tmp_" + key);
+            for (Path f : classFiles) {
+                Files.copy(f, tempEntry.resolve(f.getFileName()));
+            }
+            Files.move(tempEntry, entry, StandardCopyOption.ATOMIC_MOVE);
+            tempEntry = null;
+            evict(cacheDir);
+        } catch (FileAlreadyExistsException e) {
+            // stored concurrently by another snippet
+        } catch (IOException e) {
+            LOGGER.debug("Could not add compiled Java Snippet to cache: " + e.getMessage(), e);
+        } finally {
+            if (tempEntry != null) {
+                FileUtil.deleteRecursively(tempEntry.toFile());
+            }
+        }
+    }
+
+    /** Removes the least recently used entries if the cache has too many. */
+    private static void evict(final Path cacheDir) throws IOException {
+        final List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir)) {
+            for (Path p : stream) {
+                if (!p.getFileName().toString().startsWith("tmp_")) {
+                    entries.add(p);
+                }
+            }
+        }
+        if (entries.size() <= MAX_ENTRIES) {
+            return;
+        }
+        entries.sort(Comparator.comparingLong(p -> p.toFile().lastModified()));
+        for (Path p : entries.subList(0, entries.size() - MAX_ENTRIES)) {
+            FileUtil.deleteRecursively(p.toFile());
+        }
+    }
+
+    private static List<Path> listClassFiles(final Path dir) throws IOException {
+        final List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SNIPPET_CLASS + "*.class")) {
+            for (Path p : stream) {
+                final String name = p.getFileName().toString();
+                // the snippet class and its inner and anonymous classes
+                if (name.equals(SNIPPET_CLASS + ".class") || name.startsWith(SNIPPET_CLASS + "$")) {
+                    result.add(p);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void deleteClassFiles(final Path dir) throws IOException {
+        for (Path p : listClassFiles(dir)) {
+            Files.deleteIfExists(p);
+        }
+    }
+
+    private static Path getCacheDir() {
+        return new File(KNIMEConstants.getKNIMEHomeDir(), "javasnippet-classes").toPath();
+    }
+
+    /** @return the version of the bundle containing the class, or <code>null</code> if not known */
+    private static String getVersion(final Class<?> cl) {
+        final Bundle bundle = FrameworkUtil.getBundle(cl);
+        return bundle == null ? null : bundle.getSymbolicName() + " " + bundle.getVersion();
+    }
+}
@@ -290,6 +290,15 @@ public boolean isConstantFalse() {
      * @since 2.8
      */
     class GenericCondition implements Condition {
+        private static final MatchOutcome MATCHED = new MatchOutcome.GenericMatchOutcome(MatchState.matchedAndStop,
+            Collections.<String, Map<String, String>> emptyMap());
+
+        private static final MatchOutcome NOT_MATCHED = new MatchOutcome.GenericMatchOutcome(MatchState.nonMatched,
+            Collections.<String, Map<String, String>> emptyMap());
+
+        private static final MatchOutcome SKIPPED = new MatchOutcome.GenericMatchOutcome(MatchState.skipped,
+            Collections.<String, Map<String, String>> emptyMap());
+
         private final String m_line;
 
         private final String m_text;
@@ -298,6 +307,9 @@ class GenericCondition implements Condition {
 
         private final Expression m_expression;
 
+        /** The compiled {@link #m_expression}, {@code null} if it has to be evaluated. */
+        private final ExpressionFactory.CompiledPredicate m_predicate;
+
         /**
          * Constructs a {@link GenericCondition}.
          *
@@ -313,6 +325,7 @@ public GenericCondition(final String line, final String text, final boolean enab
             this.m_text = text;
             this.m_enabled = enabled;
             this.m_expression = expression;
+            this.m_predicate = ExpressionFactory.compile(expression);
         }
 
         /**
@@ -344,6 +357,16 @@ public String getText() {
          */
         @Override
         public MatchOutcome matches(final DataRow row, final VariableProvider provider) {
+            if (m_predicate != null) {
+                switch (m_predicate.test(row, provider)) {
+                    case ExpressionFactory.CompiledPredicate.TRUE:
+                        return MATCHED;
+                    case ExpressionFactory.CompiledPredicate.FALSE:
+                        return NOT_MATCHED;
+                    default:
+                        return SKIPPED;
+                }
+            }
             final ExpressionValue value = m_expression.evaluate(row, provider);
             if (value.getValue().isMissing()) {
                 return new MatchOutcome.GenericMatchOutcome(MatchState.skipped,
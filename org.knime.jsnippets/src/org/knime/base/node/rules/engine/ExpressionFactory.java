@@ -66,6 +66,11 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValueComparator;
 import org.knime.core.data.DoubleValue;
+import org.knime.core.data.DoubleValueComparator;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.IntValueComparator;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.LongValueComparator;
 import org.knime.core.data.MissingValue;
 import org.knime.core.data.StringValue;
 import org.knime.core.data.collection.CollectionCellFactory;
@@ -325,6 +330,81 @@ public String toString() {
         }
     }
 
+    /**
+     * A boolean {@link Expression} compiled to a specialized evaluator, which doesn't create {@link ExpressionValue}s
+     * or cells for the common cases, like comparisons of columns with constants. It returns the same result as
+     * {@link Expression#evaluate(DataRow, VariableProvider)}, but only expressions without matched objects can be
+     * compiled.
+     *
+     * @see ExpressionFactory#compile(Expression)
+     * @since 3.7
+     */
+    @FunctionalInterface
+    interface CompiledPredicate {
+        /** The result for the missing value. */
+        int MISSING = -1;
+
+        /** The result for {@code false}. */
+        int FALSE = 0;
+
+        /** The result for {@code true}. */
+        int TRUE = 1;
+
+        /**
+         * Evaluates the compiled {@link Expression}.
+         *
+         * @param row A {@link DataRow}.
+         * @param provider The {@link VariableProvider}.
+         * @return One of {@link #TRUE}, {@link #FALSE} or {@link #MISSING}.
+         */
+        int test(DataRow row, VariableProvider provider);
+    }
+
+    /**
+     * Returns the value of an {@link Expression} without creating an {@link ExpressionValue}.
+     */
+    @FunctionalInterface
+    private interface CellSource {
+        /**
+         * @param row A {@link DataRow}.
+         * @return The value of the {@link Expression} in {@code row}.
+         */
+        DataCell getCell(DataRow row);
+    }
+
+    /**
+     * Base class for the {@link Expression}s which can be compiled. By default they can't.
+     */
+    private abstract static class CompilableExpression extends Expression.Base {
+        /**
+         * @param children The contained subexpressions.
+         */
+        CompilableExpression(final Expression... children) {
+            super(children);
+        }
+
+        /**
+         * @param children The contained subexpressions.
+         */
+        CompilableExpression(final List<Expression> children) {
+            super(children);
+        }
+
+        /**
+         * @return The compiled form of this boolean {@link Expression}, or {@code null} if it can't be compiled.
+         */
+        CompiledPredicate compilePredicate() {
+            return null;
+        }
+
+        /**
+         * @return The source of the values of this {@link Expression}, or {@code null} if it can't be compiled.
+         */
+        CellSource compileCell() {
+            return null;
+        }
+    }
+
     private boolean m_missingMatch = true, m_nanMatch = true;
 
     /** A constant to avoid type inference problems. */
@@ -385,7 +465,7 @@ public Expression not(final Expression expressionToNegate) {
         if (!expressionToNegate.getOutputType().isCompatible(BooleanValue.class)) {
             throw new IllegalStateException("Expected a boolean expression, got: " + expressionToNegate);
         }
-        return new Expression.Base(expressionToNegate) {
+        return new CompilableExpression(expressionToNegate) {
 
             /**
              * {@inheritDoc}
@@ -443,6 +523,21 @@ public String toString() {
             public ASTType getTreeType() {
                 return ASTType.Not;
             }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            CompiledPredicate compilePredicate() {
+                final CompiledPredicate predicate = compile(expressionToNegate);
+                if (predicate == null) {
+                    return null;
+                }
+                return (row, provider) -> {
+                    final int value = predicate.test(row, provider);
+                    return value == CompiledPredicate.MISSING ? value : CompiledPredicate.TRUE - value;
+                };
+            }
         };
     }
 
@@ -452,7 +547,7 @@ public ASTType getTreeType() {
     @Override
     public Expression and(final List<Expression> boolExpressions) {
         final boolean allIsConstant = checkBooleansAndConstant(boolExpressions);
-        return new Expression.Base(boolExpressions) {
+        return new CompilableExpression(boolExpressions) {
 
             /**
              * {@inheritDoc}
@@ -520,6 +615,29 @@ public String toString() {
             public ASTType getTreeType() {
                 return ASTType.And;
             }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            CompiledPredicate compilePredicate() {
+                final CompiledPredicate[] predicates = compileAll(boolExpressions);
+                if (predicates == null) {
+                    return null;
+                }
+                return (row, provider) -> {
+                    int ret = CompiledPredicate.TRUE;
+                    for (CompiledPredicate predicate : predicates) {
+                        final int value = predicate.test(row, provider);
+                        if (value == CompiledPredicate.FALSE) {
+                            return value;
+                        } else if (value == CompiledPredicate.MISSING) {
+                            ret = value;
+                        }
+                    }
+                    return ret;
+                };
+            }
         };
     }
 
@@ -545,7 +663,7 @@ private boolean checkBooleansAndConstant(final List<Expression> boolExpressions)
     @Override
     public Expression or(final List<Expression> boolExpressions) {
         final boolean allIsConstant = checkBooleansAndConstant(boolExpressions);
-        return new Expression.Base(boolExpressions) {
+        return new CompilableExpression(boolExpressions) {
 
             /**
              * {@inheritDoc}
@@ -613,6 +731,29 @@ public String toString() {
             public ASTType getTreeType() {
                 return ASTType.Or;
             }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            CompiledPredicate compilePredicate() {
+                final CompiledPredicate[] predicates = compileAll(boolExpressions);
+                if (predicates == null) {
+                    return null;
+                }
+                return (row, provider) -> {
+                    int ret = CompiledPredicate.FALSE;
+                    for (CompiledPredicate predicate : predicates) {
+                        final int value = predicate.test(row, provider);
+                        if (value == CompiledPredicate.TRUE) {
+                            return value;
+                        } else if (value == CompiledPredicate.MISSING) {
+                            ret = value;
+                        }
+                    }
+                    return ret;
+                };
+            }
         };
     }
 
@@ -625,7 +766,7 @@ public Expression xor(final List<Expression> boolExpressions) {
             throw new IllegalStateException("xor requires at least one argument.");
         }
         final boolean allIsConstant = checkBooleansAndConstant(boolExpressions);
-        return new Expression.Base(boolExpressions) {
+        return new CompilableExpression(boolExpressions) {
 
             /**
              * {@inheritDoc}
@@ -700,6 +841,28 @@ public String toString() {
             public ASTType getTreeType() {
                 return ASTType.Xor;
             }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            CompiledPredicate compilePredicate() {
+                final CompiledPredicate[] predicates = compileAll(boolExpressions);
+                if (predicates == null) {
+                    return null;
+                }
+                return (row, provider) -> {
+                    int ret = CompiledPredicate.FALSE;
+                    for (CompiledPredicate predicate : predicates) {
+                        final int value = predicate.test(row, provider);
+                        if (value == CompiledPredicate.MISSING) {
+                            return value;
+                        }
+                        ret ^= value;
+                    }
+                    return ret;
+                };
+            }
         };
     }
 
@@ -708,7 +871,7 @@ public ASTType getTreeType() {
      */
     @Override
     public Expression missing(final Expression reference) {
-        return new Expression.Base(reference) {
+        return new CompilableExpression(reference) {
 
             /**
              * {@inheritDoc}
@@ -759,6 +922,18 @@ public String toString() {
             public ASTType getTreeType() {
                 return ASTType.Missing;
             }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            CompiledPredicate compilePredicate() {
+                final CellSource source = compileSource(reference);
+                if (source == null) {
+                    return null;
+                }
+                return (row, provider) -> toPredicateValue(source.getCell(row).isMissing());
+            }
         };
     }
 
@@ -767,7 +942,7 @@ public ASTType getTreeType() {
      */
     @Override
     public Expression missingBoolean(final Expression reference) {
-        return new Expression.Base(reference) {
+        return new CompilableExpression(reference) {
 
             /**
              * {@inheritDoc}
@@ -818,6 +993,18 @@ public String toString() {
             public ASTType getTreeType() {
                 return ASTType.Missing;
             }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            CompiledPredicate compilePredicate() {
+                final CellSource source = compileSource(reference);
+                if (source == null) {
+                    return null;
+                }
+                return (row, provider) -> toPredicateValue(source.getCell(row).isMissing());
+            }
         };
     }
 
@@ -856,7 +1043,7 @@ private Expression columnRefImpl(final DataTableSpec spec, final String columnRe
         final DataType type = spec.getColumnSpec(position).getType();
         final boolean isBoolean = type.isCompatible(BooleanValue.class);
         assert (!booleanArgumentOfMissing || isBoolean) : type;
-        return new Expression.Base() {
+        return new CompilableExpression() {
 
             /**
              * {@inheritDoc}
@@ -912,6 +1099,32 @@ public String toString() {
             public ASTType getTreeType() {
                 return ASTType.ColRef;
             }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            CompiledPredicate compilePredicate() {
+                if (!isBoolean) {
+                    return null;
+                }
+                final CellSource source = compileCell();
+                return (row, provider) -> toPredicateValue(source.getCell(row));
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            CellSource compileCell() {
+                if (booleanArgumentOfMissing || !isBoolean) {
+                    return row -> row.getCell(position);
+                }
+                return row -> {
+                    final DataCell cell = row.getCell(position);
+                    return cell.isMissing() ? BooleanCell.FALSE : cell;
+                };
+            }
         };
     }
 
@@ -1257,7 +1470,7 @@ public ASTType getTreeType() {
     @Override
     public Expression compare(final Expression left, final Expression right, final DataValueComparator cmp,
         final int... possibleValues) {
-        return new Expression.Base(left, right) {
+        return new CompilableExpression(left, right) {
 
             /**
              * {@inheritDoc}
@@ -1367,9 +1580,188 @@ public ASTType getTreeType() {
                 }
                 throw new IllegalStateException("" + Arrays.toString(possibleValues));
             }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            CompiledPredicate compilePredicate() {
+                final CellSource leftSource = compileSource(left), rightSource = compileSource(right);
+                if (leftSource == null || rightSource == null) {
+                    return null;
+                }
+                final boolean less = contains(possibleValues, -1), equal = contains(possibleValues, 0),
+                        greater = contains(possibleValues, 1);
+                // the comparators of the common numeric types are replaced by comparisons of the primitive values
+                final Class<?> cmpClass = cmp.getClass();
+                if (cmpClass == DoubleValueComparator.class) {
+                    return (row, provider) -> {
+                        final DataCell leftCell = leftSource.getCell(row), rightCell = rightSource.getCell(row);
+                        if (leftCell.isMissing() || rightCell.isMissing()) {
+                            return toPredicateValue(evaluate(row, provider).getValue());
+                        }
+                        final double l = ((DoubleValue)leftCell).getDoubleValue(),
+                                r = ((DoubleValue)rightCell).getDoubleValue();
+                        final boolean leftNaN = Double.isNaN(l), rightNaN = Double.isNaN(r);
+                        if (!m_nanMatch && (leftNaN || rightNaN)) {
+                            return toPredicateValue(leftNaN && rightNaN && equal);
+                        }
+                        return toPredicateValue(Double.compare(l, r), less, equal, greater);
+                    };
+                }
+                if (cmpClass == IntValueComparator.class) {
+                    return (row, provider) -> {
+                        final DataCell leftCell = leftSource.getCell(row), rightCell = rightSource.getCell(row);
+                        if (leftCell.isMissing() || rightCell.isMissing()) {
+                            return toPredicateValue(evaluate(row, provider).getValue());
+                        }
+                        return toPredicateValue(Integer.compare(((IntValue)leftCell).getIntValue(),
+                            ((IntValue)rightCell).getIntValue()), less, equal, greater);
+                    };
+                }
+                if (cmpClass == LongValueComparator.class) {
+                    return (row, provider) -> {
+                        final DataCell leftCell = leftSource.getCell(row), rightCell = rightSource.getCell(row);
+                        if (leftCell.isMissing() || rightCell.isMissing()) {
+                            return toPredicateValue(evaluate(row, provider).getValue());
+                        }
+                        return toPredicateValue(Long.compare(((LongValue)leftCell).getLongValue(),
+                            ((LongValue)rightCell).getLongValue()), less, equal, greater);
+                    };
+                }
+                return (row, provider) -> {
+                    final DataCell leftCell = leftSource.getCell(row), rightCell = rightSource.getCell(row);
+                    if (leftCell.isMissing() || rightCell.isMissing()) {
+                        return toPredicateValue(evaluate(row, provider).getValue());
+                    }
+                    final boolean leftNaN = isNaN(leftCell), rightNaN = isNaN(rightCell);
+                    if (!m_nanMatch && (leftNaN || rightNaN)) {
+                        return toPredicateValue(leftNaN && rightNaN && equal);
+                    }
+                    return toPredicateValue(cmp.compare(leftCell, rightCell), less, equal, greater);
+                };
+            }
         };
     }
 
+    /**
+     * Compiles a boolean {@link Expression} created by an {@link ExpressionFactory} to a {@link CompiledPredicate}.
+     * Constant expressions and logical operations on comparisons, missing value checks and boolean columns can be
+     * compiled, for anything else the {@link Expression} has to be evaluated.
+     *
+     * @param expression A boolean {@link Expression}.
+     * @return The {@link CompiledPredicate} computing the same value as {@code expression}, or {@code null} if it
+     *         can't be compiled.
+     * @since 3.7
+     */
+    static CompiledPredicate compile(final Expression expression) {
+        if (expression.isConstant()) {
+            final DataCell cell = constantValue(expression);
+            if (cell == null || !(cell.isMissing() || cell instanceof BooleanValue)) {
+                return null;
+            }
+            final int value = toPredicateValue(cell);
+            return (row, provider) -> value;
+        }
+        if (expression instanceof CompilableExpression) {
+            return ((CompilableExpression)expression).compilePredicate();
+        }
+        return null;
+    }
+
+    /**
+     * @param expressions Boolean {@link Expression}s.
+     * @return The compiled {@code expressions}, or {@code null} if any of them can't be compiled.
+     */
+    private static CompiledPredicate[] compileAll(final List<Expression> expressions) {
+        final CompiledPredicate[] ret = new CompiledPredicate[expressions.size()];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = compile(expressions.get(i));
+            if (ret[i] == null) {
+                return null;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @param expression An {@link Expression}.
+     * @return The source of the values of {@code expression}, or {@code null} if it can't be compiled.
+     */
+    private static CellSource compileSource(final Expression expression) {
+        if (expression.isConstant()) {
+            final DataCell cell = constantValue(expression);
+            return cell == null ? null : row -> cell;
+        }
+        if (expression instanceof CompilableExpression) {
+            return ((CompilableExpression)expression).compileCell();
+        }
+        return null;
+    }
+
+    /**
+     * @param expression A constant {@link Expression}.
+     * @return The value of {@code expression}, or {@code null} if it has matched objects or can't be evaluated.
+     */
+    private static DataCell constantValue(final Expression expression) {
+        final ExpressionValue value;
+        try {
+            value = expression.evaluate(null, null);
+        } catch (RuntimeException e) {
+            // leave it to the interpreter to fail for each row
+            return null;
+        }
+        return value.getMatchedObjects().isEmpty() ? value.getValue() : null;
+    }
+
+    /**
+     * @param cell A boolean or missing {@link DataCell}.
+     * @return The {@link CompiledPredicate} result for {@code cell}.
+     */
+    private static int toPredicateValue(final DataCell cell) {
+        if (cell.isMissing()) {
+            return CompiledPredicate.MISSING;
+        }
+        if (cell instanceof BooleanValue) {
+            return toPredicateValue(((BooleanValue)cell).getBooleanValue());
+        }
+        throw new IllegalStateException("Not boolean: " + cell);
+    }
+
+    /**
+     * @param value A {@code boolean} value.
+     * @return The {@link CompiledPredicate} result for {@code value}.
+     */
+    private static int toPredicateValue(final boolean value) {
+        return value ? CompiledPredicate.TRUE : CompiledPredicate.FALSE;
+    }
+
+    /**
+     * @param compareResult The result of a comparison.
+     * @param less Whether the left value is allowed to be less than the right one.
+     * @param equal Whether the values are allowed to be equal.
+     * @param greater Whether the left value is allowed to be greater than the right one.
+     * @return The {@link CompiledPredicate} result of the comparison.
+     */
+    private static int toPredicateValue(final int compareResult, final boolean less, final boolean equal,
+        final boolean greater) {
+        return toPredicateValue(compareResult < 0 ? less : compareResult > 0 ? greater : equal);
+    }
+
+    /**
+     * @param values Some numbers.
+     * @param value A number.
+     * @return {@code true} iff {@code value} is in {@code values}.
+     */
+    private static boolean contains(final int[] values, final int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * @param cell A {@link DataCell}.
      * @return {@code true} iff {@code cell} is a {@link DoubleValue} with a {@link Double#NaN} number.
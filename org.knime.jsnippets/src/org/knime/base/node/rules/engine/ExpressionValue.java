@@ -75,7 +75,8 @@ public final class ExpressionValue implements Serializable {
     public ExpressionValue(final DataCell value, final Map<String, Map<String, String>> matchedObjects) {
         super();
         this.m_value = value;
-        this.m_matchedObjects = Collections.unmodifiableMap(Util.clone(matchedObjects));
+        this.m_matchedObjects = matchedObjects.isEmpty() ? Collections.<String, Map<String, String>> emptyMap()
+            : Collections.unmodifiableMap(Util.clone(matchedObjects));
     }
 
     /**